@@ -31,6 +31,7 @@ import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicySimple;
 import org.cloudbus.cloudsim.VmSchedulerTimeShared;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
@@ -132,10 +133,13 @@ public class CloudSimExample7 {
 			broker.submitVmList(vmlist);
 			broker.submitCloudletList(cloudletList);
 
-			// A thread that will create a new broker at 200 clock time
+			// A thread that will create a new broker at 200 clock time, in the
+			// context of this simulation
+			final SimulationContext context = CloudSim.getContext();
 			Runnable monitor = new Runnable() {
 				@Override
 				public void run() {
+					CloudSim.setContext(context);
 					CloudSim.pauseSimulation(200);
 					while (true) {
 						if (CloudSim.isPaused()) {
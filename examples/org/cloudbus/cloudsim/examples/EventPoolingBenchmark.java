@@ -0,0 +1,201 @@
+package org.cloudbus.cloudsim.examples;
+
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation
+ *               of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009, The University of Melbourne, Australia
+ */
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Calendar;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.HeapFutureQueue;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+
+/**
+ * A benchmark of the event dispatch loop showing the effect of event pooling. Pairs of entities
+ * exchange events carrying no data, first with pooling disabled and then with pooling enabled, and
+ * the bytes allocated per event and the number of garbage collections are reported for both runs.
+ * With pooling enabled and a {@link HeapFutureQueue}, the dispatch loop should allocate close to
+ * nothing once the pool and the heap have reached their working size.
+ */
+public class EventPoolingBenchmark {
+
+	/** The tag of the events exchanged by the entities. */
+	private static final int PING = 900001;
+
+	/** The number of pairs of entities. */
+	private static final int PAIRS = 16;
+
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args the number of events of a measured run (optional, 4,000,000 by default)
+	 */
+	public static void main(String[] args) {
+		long events = args.length > 0 ? Long.parseLong(args[0]) : 4000000L;
+
+		Log.printLine("Starting EventPoolingBenchmark...");
+
+		// warm up both modes, so that the measured runs use compiled code
+		run(events / 10, false);
+		run(events / 10, true);
+
+		Result unpooled = run(events, false);
+		Result pooled = run(events, true);
+
+		Log.printLine();
+		Log.printLine("Mode" + "\t\t" + "Events" + "\t\t" + "Bytes/event" + "\t" + "GCs" + "\t"
+				+ "Time (ms)");
+		print("unpooled", unpooled);
+		print("pooled", pooled);
+		Log.printLine("EventPoolingBenchmark finished!");
+	}
+
+	/**
+	 * Runs a simulation in which pairs of entities exchange a given number of events.
+	 *
+	 * @param events the number of events to be exchanged
+	 * @param pooling whether event pooling is enabled
+	 * @return the measurements of the run
+	 */
+	private static Result run(long events, boolean pooling) {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false, new HeapFutureQueue());
+		CloudSim.setEventPoolingEnabled(pooling);
+
+		long perEntity = events / (2 * PAIRS);
+		for (int i = 0; i < PAIRS; i++) {
+			PingEntity a = new PingEntity("Ping_" + i, perEntity);
+			PingEntity b = new PingEntity("Pong_" + i, perEntity);
+			a.setPeer(b);
+			b.setPeer(a);
+		}
+
+		Result result = new Result();
+		long bytes = allocatedBytes();
+		long collections = collectionCount();
+		long start = System.nanoTime();
+
+		CloudSim.startSimulation();
+
+		result.millis = (System.nanoTime() - start) / 1000000L;
+		result.collections = collectionCount() - collections;
+		result.bytes = bytes < 0 ? -1 : allocatedBytes() - bytes;
+		result.events = perEntity * 2 * PAIRS;
+
+		CloudSim.setEventPoolingEnabled(false);
+		Log.enable();
+		return result;
+	}
+
+	/**
+	 * Prints the measurements of a run.
+	 *
+	 * @param mode the name of the mode
+	 * @param result the measurements
+	 */
+	private static void print(String mode, Result result) {
+		String perEvent = result.bytes < 0 ? "n/a" : String.format("%.2f", (double) result.bytes
+				/ result.events);
+		Log.printLine(mode + "\t" + "\t" + result.events + "\t" + perEvent + "\t" + "\t"
+				+ result.collections + "\t" + result.millis);
+	}
+
+	/**
+	 * Gets the number of bytes allocated by the current thread, if the JVM reports it.
+	 *
+	 * @return the allocated bytes, or -1 if they cannot be measured
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread
+					.currentThread().getId());
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the number of garbage collections since the JVM started.
+	 *
+	 * @return the collection count
+	 */
+	private static long collectionCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, bean.getCollectionCount());
+		}
+		return count;
+	}
+
+	/**
+	 * The measurements of a run.
+	 */
+	private static class Result {
+
+		long events;
+
+		long bytes;
+
+		long collections;
+
+		long millis;
+	}
+
+	/**
+	 * An entity that answers every event it receives with a new event to its peer, until it has
+	 * sent a given number of events.
+	 */
+	private static class PingEntity extends SimEntity {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long limit;
+
+		private long sent = 0;
+
+		private PingEntity peer;
+
+		public PingEntity(String name, long limit) {
+			super(name);
+			this.limit = limit;
+		}
+
+		public void setPeer(PingEntity peer) {
+			this.peer = peer;
+		}
+
+		@Override
+		public void startEntity() {
+			ping();
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (ev.getTag() == PING) {
+				ping();
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+
+		private void ping() {
+			if (sent < limit) {
+				sent++;
+				schedule(peer.getId(), 1, PING);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.DatacenterExtended;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This ConcurrentSimulationsExample1 runs a parameter sweep over the number of
+ * vms of WorkflowSimBasicExample1. Each point of the sweep is an independent
+ * simulation running on its own thread, with its own simulation context, so
+ * all the points run concurrently in one JVM.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class ConcurrentSimulationsExample1 extends WorkflowSimBasicExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Runs one point of the sweep
+     *
+     * @param daxPath the DAX path
+     * @param vmNum the number of vms
+     * @return the makespan of the workflow
+     * @throws Exception if the simulation can't be set up
+     */
+    protected static double runSimulation(String daxPath, int vmNum) throws Exception {
+        Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+        Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+        ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+        ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+        Parameters.init(vmNum, daxPath, null,
+                null, op, cp, sch_method, pln_method,
+                null, 0);
+        ReplicaCatalog.init(file_system);
+
+        CloudSim.init(1, Calendar.getInstance(), false);
+
+        DatacenterExtended datacenter0 = createDatacenter("Datacenter_0");
+        WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+        WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+        List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+        wfEngine.submitVmList(vmlist0, 0);
+        wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+
+        CloudSim.startSimulation();
+        List<Job> outputList0 = wfEngine.getJobsReceivedList();
+        CloudSim.stopSimulation();
+
+        double makespan = 0.0;
+        for (Job job : outputList0) {
+            makespan = Math.max(makespan, job.getFinishTime());
+        }
+
+        /**
+         * Drop the context, so that the pooled thread doesn't keep the
+         * finished simulation
+         */
+        CloudSim.setContext(null);
+        return makespan;
+    }
+
+    /**
+     * Creates main() to run this example
+     */
+    public static void main(String[] args) {
+
+        try {
+            /**
+             * Should change this based on real physical path
+             */
+            final String daxPath = "/Users/thiagogenez/Documents/git/github/WorkflowSim-1.0/config/dax/Montage_25.xml";
+            File daxFile = new File(daxPath);
+            if (!daxFile.exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+
+            int[] vmNums = {1, 2, 4, 8, 16, 20};
+            ExecutorService executor = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors());
+            List<Future<Double>> makespans = new ArrayList<Future<Double>>();
+
+            /**
+             * The simulations would interleave their logs, so only the
+             * results are printed
+             */
+            Log.disable();
+            for (final int vmNum : vmNums) {
+                makespans.add(executor.submit(new Callable<Double>() {
+                    @Override
+                    public Double call() throws Exception {
+                        return runSimulation(daxPath, vmNum);
+                    }
+                }));
+            }
+
+            String indent = "    ";
+            DecimalFormat dft = new DecimalFormat("###.##");
+            List<String> lines = new ArrayList<String>();
+            for (int i = 0; i < vmNums.length; i++) {
+                lines.add(indent + vmNums[i] + indent + indent + dft.format(makespans.get(i).get()));
+            }
+            executor.shutdown();
+            Log.enable();
+
+            Log.printLine();
+            Log.printLine("========== OUTPUT ==========");
+            Log.printLine("VMs" + indent + indent + "Makespan");
+            for (String line : lines) {
+                Log.printLine(line);
+            }
+        } catch (Exception e) {
+            Log.enable();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.DatacenterExtended;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowEnsemblePlanner;
+import org.workflowsim.WorkflowInstance;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.DistributionGenerator;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This EnsembleExample1 runs an ensemble of small workflows arriving as a
+ * Poisson process on the vms of WorkflowSimBasicExample1, and prints the
+ * makespan statistics of each kind of workflow.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class EnsembleExample1 extends WorkflowSimBasicExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run this example
+     */
+    public static void main(String[] args) {
+
+        try {
+            /**
+             * Should change this based on real physical path
+             */
+            String daxDir = "/Users/chenweiwei/Work/WorkflowSim-1.0/config/dax/";
+            String[] daxNames = {"Montage_25.xml", "CyberShake_30.xml", "Inspiral_30.xml", "Sipht_30.xml"};
+            List<String> daxPaths = new ArrayList<String>();
+            for (String daxName : daxNames) {
+                File daxFile = new File(daxDir + daxName);
+                if (!daxFile.exists()) {
+                    Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                    return;
+                }
+                daxPaths.add(daxFile.getPath());
+            }
+            int workflows = 400;
+            /**
+             * Exponential times between arrivals, 5 minutes on average
+             */
+            DistributionGenerator interArrivals = new DistributionGenerator(
+                    DistributionGenerator.DistributionFamily.WEIBULL, 300, 1.0);
+
+            int vmNum = 20;
+            Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+            Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+            ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+            OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+            ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+            ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+            Parameters.init(vmNum, null, null,
+                    null, op, cp, sch_method, pln_method,
+                    null, 0);
+            ReplicaCatalog.init(file_system);
+
+            CloudSim.init(1, Calendar.getInstance(), false);
+
+            DatacenterExtended datacenter0 = createDatacenter("Datacenter_0");
+            WorkflowEnsemblePlanner wfPlanner = new WorkflowEnsemblePlanner("planner_0", 1,
+                    daxPaths, interArrivals, workflows);
+            WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+            List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+            wfEngine.submitVmList(vmlist0, 0);
+            wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+
+            Log.disable();
+            long start = System.currentTimeMillis();
+            CloudSim.startSimulation();
+            long time = System.currentTimeMillis() - start;
+            List<WorkflowInstance> finished = wfEngine.getFinishedWorkflows();
+            int jobsLeft = wfEngine.getJobsReceivedList().size();
+            CloudSim.stopSimulation();
+            Log.enable();
+
+            String indent = "    ";
+            DecimalFormat dft = new DecimalFormat("###.##");
+            Log.printLine();
+            Log.printLine("========== OUTPUT ==========");
+            Log.printLine(finished.size() + " workflows finished in " + time + " ms, "
+                    + jobsLeft + " jobs left in the engine");
+            Log.printLine("Workflow" + indent + indent + "Count" + indent + "Mean" + indent
+                    + indent + "Max");
+            for (int i = 0; i < daxPaths.size(); i++) {
+                int count = 0;
+                double sum = 0.0;
+                double max = 0.0;
+                for (WorkflowInstance workflow : finished) {
+                    if (workflow.getDaxPath().equals(daxPaths.get(i))) {
+                        count++;
+                        sum += workflow.getMakespan();
+                        max = Math.max(max, workflow.getMakespan());
+                    }
+                }
+                Log.printLine(daxNames[i] + indent + count + indent + indent
+                        + dft.format(sum / count) + indent + dft.format(max));
+            }
+        } catch (Exception e) {
+            Log.enable();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+}
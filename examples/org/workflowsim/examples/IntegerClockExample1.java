@@ -0,0 +1,132 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.DatacenterExtended;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This IntegerClockExample1 runs the simulation of WorkflowSimBasicExample1
+ * with the default clock and with integer clocks of several resolutions, and
+ * compares the makespans and the running times. The coarser the ticks, the
+ * more events share a tick and are processed together.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class IntegerClockExample1 extends WorkflowSimBasicExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Runs the simulation and returns the makespan of the workflow
+     *
+     * @param daxPath the DAX path
+     * @param tickLength the length of a tick, or 0 for the default clock
+     * @return the makespan
+     * @throws Exception if the simulation can't be set up
+     */
+    protected static double runSimulation(String daxPath, double tickLength) throws Exception {
+        int vmNum = 20;
+        Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+        Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+        ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+        ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+        Parameters.init(vmNum, daxPath, null,
+                null, op, cp, sch_method, pln_method,
+                null, 0);
+        ReplicaCatalog.init(file_system);
+
+        if (tickLength > 0) {
+            CloudSim.init(1, Calendar.getInstance(), false, 0.1, tickLength);
+        } else {
+            CloudSim.init(1, Calendar.getInstance(), false);
+        }
+
+        DatacenterExtended datacenter0 = createDatacenter("Datacenter_0");
+        WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+        WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+        List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+        wfEngine.submitVmList(vmlist0, 0);
+        wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+
+        CloudSim.startSimulation();
+        List<Job> outputList0 = wfEngine.getJobsReceivedList();
+        CloudSim.stopSimulation();
+
+        double makespan = 0.0;
+        for (Job job : outputList0) {
+            makespan = Math.max(makespan, job.getFinishTime());
+        }
+        return makespan;
+    }
+
+    /**
+     * Creates main() to run this example
+     */
+    public static void main(String[] args) {
+
+        try {
+            /**
+             * Should change this based on real physical path
+             */
+            String daxPath = "/Users/chenweiwei/Work/WorkflowSim-1.0/config/dax/Montage_1000.xml";
+            File daxFile = new File(daxPath);
+            if (!daxFile.exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+
+            double[] tickLengths = {0, 0.01, 0.1, 1.0};
+            String indent = "    ";
+            DecimalFormat dft = new DecimalFormat("###.##");
+            StringBuilder lines = new StringBuilder();
+            for (double tickLength : tickLengths) {
+                Log.disable();
+                long start = System.currentTimeMillis();
+                double makespan = runSimulation(daxPath, tickLength);
+                long time = System.currentTimeMillis() - start;
+                Log.enable();
+                lines.append(indent).append(tickLength > 0 ? dft.format(tickLength) : "none")
+                        .append(indent).append(indent).append(dft.format(makespan))
+                        .append(indent).append(indent).append(time).append(" ms\n");
+            }
+
+            Log.printLine();
+            Log.printLine("========== OUTPUT ==========");
+            Log.printLine("Tick" + indent + indent + "Makespan" + indent + "Time");
+            Log.print(lines.toString());
+        } catch (Exception e) {
+            Log.enable();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+}
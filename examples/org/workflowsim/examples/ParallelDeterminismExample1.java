@@ -0,0 +1,147 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.DatacenterExtended;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This ParallelDeterminismExample1 runs the simulation of
+ * WorkflowSimMultipleClusterExample1 twice, first with one thread and then
+ * with each data center in its own partition, run by its own thread. The logs
+ * and the job lists of both runs are compared byte by byte, since the parallel
+ * mode has to produce the same results as the sequential one.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class ParallelDeterminismExample1 extends WorkflowSimMultipleClusterExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Runs the simulation and returns everything it has logged
+     *
+     * @param daxPath the DAX path
+     * @param threads the number of threads running the entities
+     * @return the output of the simulation
+     * @throws Exception if the simulation can't be set up
+     */
+    protected static byte[] runSimulation(String daxPath, int threads) throws Exception {
+        int vmNum = 20;
+        Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+        Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+        ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+        ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+        Parameters.init(vmNum, daxPath, null,
+                null, op, cp, sch_method, pln_method,
+                null, 0);
+        ReplicaCatalog.init(file_system);
+
+        OutputStream console = Log.getOutput();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Log.setOutput(output);
+        try {
+            CloudSim.init(1, Calendar.getInstance(), false);
+            CloudSim.setParallelThreads(threads);
+
+            DatacenterExtended datacenter0 = createDatacenter("Datacenter_0");
+            DatacenterExtended datacenter1 = createDatacenter("Datacenter_1");
+            WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+            WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+            List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum() / 2, 0);
+            List<CondorVM> vmlist1 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum() / 2, Parameters.getVmNum() / 2);
+            wfEngine.submitVmList(vmlist0, 0);
+            wfEngine.submitVmList(vmlist1, 0);
+            wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+            wfEngine.bindSchedulerDatacenter(datacenter1.getId(), 0);
+
+            /**
+             * The planner, the engine and the scheduler stay in partition 0
+             */
+            CloudSim.setPartition(datacenter0.getId(), 1);
+            CloudSim.setPartition(datacenter1.getId(), 2);
+
+            CloudSim.startSimulation();
+            List<Job> outputList0 = wfEngine.getJobsReceivedList();
+            CloudSim.stopSimulation();
+            printJobList(outputList0);
+        } finally {
+            Log.setOutput(console);
+            CloudSim.setParallelThreads(1);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Creates main() to run this example
+     */
+    public static void main(String[] args) {
+
+        try {
+            /**
+             * Should change this based on real physical path
+             */
+            String daxPath = "/Users/chenweiwei/Work/WorkflowSim-1.0/config/dax/Montage_100.xml";
+            File daxFile = new File(daxPath);
+            if (!daxFile.exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+
+            long start = System.currentTimeMillis();
+            byte[] sequential = runSimulation(daxPath, 1);
+            long sequentialTime = System.currentTimeMillis() - start;
+
+            start = System.currentTimeMillis();
+            byte[] parallel = runSimulation(daxPath, 3);
+            long parallelTime = System.currentTimeMillis() - start;
+
+            Log.printLine();
+            Log.printLine("========== OUTPUT ==========");
+            Log.printLine("Sequential run: " + sequential.length + " bytes of output in " + sequentialTime + " ms");
+            Log.printLine("Parallel run:   " + parallel.length + " bytes of output in " + parallelTime + " ms");
+            if (Arrays.equals(sequential, parallel)) {
+                Log.printLine("The outputs are identical");
+            } else {
+                int i = 0;
+                while (i < sequential.length && i < parallel.length && sequential[i] == parallel[i]) {
+                    i++;
+                }
+                Log.printLine("The outputs differ from byte " + i);
+            }
+        } catch (Exception e) {
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.DatacenterExtended;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.results.ColumnarJobResultSink;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This StreamingResultsExample1 runs the simulation of
+ * WorkflowSimBasicExample1 twice: once keeping the returned jobs in the job
+ * received list, and once streaming their records to a columnar result file
+ * while dropping them from the lists of the engine. The makespan read back
+ * from the file is the same.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class StreamingResultsExample1 extends WorkflowSimBasicExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Runs the simulation
+     *
+     * @param daxPath the DAX path
+     * @param resultFile the result file the jobs are streamed to, or null to
+     * keep them in the job received list
+     * @return the workflow engine
+     * @throws Exception if the simulation can't be set up
+     */
+    protected static WorkflowEngine runSimulation(String daxPath, String resultFile) throws Exception {
+        int vmNum = 20;
+        Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+        Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+        ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+        ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+        Parameters.init(vmNum, daxPath, null,
+                null, op, cp, sch_method, pln_method,
+                null, 0);
+        ReplicaCatalog.init(file_system);
+
+        CloudSim.init(1, Calendar.getInstance(), false);
+
+        DatacenterExtended datacenter0 = createDatacenter("Datacenter_0");
+        WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+        WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+        if (resultFile != null) {
+            wfEngine.setJobResultSink(new ColumnarJobResultSink(resultFile));
+            wfEngine.setDropCompletedJobs(true);
+        }
+        List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+        wfEngine.submitVmList(vmlist0, 0);
+        wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+
+        CloudSim.startSimulation();
+        CloudSim.stopSimulation();
+        return wfEngine;
+    }
+
+    /**
+     * Creates main() to run this example
+     */
+    public static void main(String[] args) {
+
+        try {
+            /**
+             * Should change this based on real physical path
+             */
+            String daxPath = "/Users/chenweiwei/Work/WorkflowSim-1.0/config/dax/Montage_1000.xml";
+            File daxFile = new File(daxPath);
+            if (!daxFile.exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+
+            Log.disable();
+            WorkflowEngine wfEngine = runSimulation(daxPath, null);
+            double makespan = 0.0;
+            List<Job> outputList0 = wfEngine.getJobsReceivedList();
+            for (Job job : outputList0) {
+                makespan = Math.max(makespan, job.getFinishTime());
+            }
+            int keptJobs = outputList0.size();
+
+            File resultFile = File.createTempFile("jobs", ".wsr");
+            resultFile.deleteOnExit();
+            wfEngine = runSimulation(daxPath, resultFile.getPath());
+            int droppedKeptJobs = wfEngine.getJobsReceivedList().size()
+                    + wfEngine.getJobsSubmittedList().size();
+            double streamedMakespan = 0.0;
+            int streamedJobs = 0;
+            ColumnarJobResultSink.Reader reader = ColumnarJobResultSink.open(resultFile.getPath());
+            try {
+                while (reader.next()) {
+                    streamedMakespan = Math.max(streamedMakespan, reader.getFinishTime());
+                    streamedJobs++;
+                }
+            } finally {
+                reader.close();
+            }
+            Log.enable();
+
+            DecimalFormat dft = new DecimalFormat("###.##");
+            Log.printLine();
+            Log.printLine("========== OUTPUT ==========");
+            Log.printLine("In memory: makespan " + dft.format(makespan) + ", "
+                    + keptJobs + " jobs kept");
+            Log.printLine("Streamed:  makespan " + dft.format(streamedMakespan) + ", "
+                    + streamedJobs + " records, " + droppedKeptJobs + " jobs kept, "
+                    + resultFile.length() + " bytes");
+        } catch (Exception e) {
+            Log.enable();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.DatacenterExtended;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.DistributionGenerator;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+import org.workflowsim.utils.ThrottlingParameters;
+
+/**
+ * This SubmissionThrottlingExample1 runs the simulation of
+ * WorkflowSimBasicExample1 with a workflow engine delay, first with the static
+ * batches of wed.interval, then with adaptive batches and with the maxjobs and
+ * maxidle throttles, and compares the makespans with the number of batches
+ * and the latency the throttles add.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class SubmissionThrottlingExample1 extends WorkflowSimBasicExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Runs the simulation with a throttle
+     *
+     * @param daxPath the DAX path
+     * @param throttle the throttling parameters, or null for no throttle
+     * @return the makespan, the number of batches, the number of held jobs and
+     * the total time they were held
+     * @throws Exception if the simulation can't be set up
+     */
+    protected static double[] runSimulation(String daxPath, ThrottlingParameters throttle) throws Exception {
+        int vmNum = 20;
+        Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+        Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+        ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+        /**
+         * Every batch of at most 5 jobs takes a workflow engine delay, as in
+         * HorizontalClusteringExample3.
+         */
+        Map<Integer, DistributionGenerator> engineDelay = new HashMap<Integer, DistributionGenerator>();
+        engineDelay.put(0, new DistributionGenerator(DistributionGenerator.DistributionFamily.WEIBULL, 5.0, 1.0));
+        OverheadParameters op = new OverheadParameters(5, engineDelay, null, null, null, 0);
+        ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+        ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+        Parameters.init(vmNum, daxPath, null,
+                null, op, cp, sch_method, pln_method,
+                null, 0);
+        ReplicaCatalog.init(file_system);
+
+        CloudSim.init(1, Calendar.getInstance(), false);
+
+        DatacenterExtended datacenter0 = createDatacenter("Datacenter_0");
+        WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+        WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+        wfEngine.setThrottlingParameters(throttle);
+        List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+        wfEngine.submitVmList(vmlist0, 0);
+        wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+
+        CloudSim.startSimulation();
+        List<Job> outputList0 = wfEngine.getJobsReceivedList();
+        CloudSim.stopSimulation();
+
+        double makespan = 0.0;
+        for (Job job : outputList0) {
+            makespan = Math.max(makespan, job.getFinishTime());
+        }
+        return new double[]{makespan, wfEngine.getSubmittedBatches(),
+            wfEngine.getThrottledJobs(), wfEngine.getThrottledTime()};
+    }
+
+    /**
+     * Creates main() to run this example
+     */
+    public static void main(String[] args) {
+
+        try {
+            /**
+             * Should change this based on real physical path
+             */
+            String daxPath = "/Users/chenweiwei/Work/WorkflowSim-1.0/config/dax/Montage_1000.xml";
+            File daxFile = new File(daxPath);
+            if (!daxFile.exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+
+            String[] names = {"static", "adaptive", "maxjobs 40", "maxidle 10"};
+            ThrottlingParameters[] throttles = {null,
+                new ThrottlingParameters(0, 0, true),
+                new ThrottlingParameters(40, 0, true),
+                new ThrottlingParameters(0, 10, true)};
+            String indent = "    ";
+            DecimalFormat dft = new DecimalFormat("###.##");
+            StringBuilder lines = new StringBuilder();
+            for (int i = 0; i < throttles.length; i++) {
+                Log.disable();
+                double[] result = runSimulation(daxPath, throttles[i]);
+                Log.enable();
+                lines.append(names[i])
+                        .append(indent).append(dft.format(result[0]))
+                        .append(indent).append((long) result[1])
+                        .append(indent).append((long) result[2])
+                        .append(indent).append(dft.format(result[2] > 0 ? result[3] / result[2] : 0.0))
+                        .append("\n");
+            }
+
+            Log.printLine();
+            Log.printLine("========== OUTPUT ==========");
+            Log.printLine("Throttle" + indent + "Makespan" + indent + "Batches" + indent
+                    + "Held jobs" + indent + "Mean hold");
+            Log.print(lines.toString());
+        } catch (Exception e) {
+            Log.enable();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.failure;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.DatacenterExtended;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.examples.WorkflowSimBasicExample1;
+import org.workflowsim.failure.FailureGenerator;
+import org.workflowsim.failure.FailureMonitor;
+import org.workflowsim.failure.FailureParameters;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.DistributionGenerator;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This CheckpointRestoreExample1 runs the simulation of
+ * FaultTolerantSchedulingExample1 and takes a checkpoint half way through. The
+ * checkpoint is then restored twice in new simulation contexts, and each
+ * continuation has to produce the same job list as the original run, including
+ * the failures drawn after the checkpoint.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class CheckpointRestoreExample1 extends WorkflowSimBasicExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Sets up the simulation of FaultTolerantSchedulingExample1
+     *
+     * @param daxPath the DAX path
+     * @return the workflow planner
+     * @throws Exception if the simulation can't be set up
+     */
+    protected static WorkflowPlanner setUpSimulation(String daxPath) throws Exception {
+        int vmNum = 20;
+        FailureParameters.FTCMonitor ftc_monitor = FailureParameters.FTCMonitor.MONITOR_ALL;
+        FailureParameters.FTCFailure ftc_failure = FailureParameters.FTCFailure.FAILURE_ALL;
+        FailureParameters.FTCluteringAlgorithm ftc_method = FailureParameters.FTCluteringAlgorithm.FTCLUSTERING_NOOP;
+        DistributionGenerator[][] failureGenerators = new DistributionGenerator[1][1];
+        failureGenerators[0][0] = new DistributionGenerator(DistributionGenerator.DistributionFamily.WEIBULL,
+                100, 1.0, 30, 300, 0.78);
+
+        Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+        Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+        ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+        ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+        FailureParameters.init(ftc_method, ftc_monitor, ftc_failure, failureGenerators);
+        Parameters.init(vmNum, daxPath, null,
+                null, op, cp, sch_method, pln_method,
+                null, 0);
+        ReplicaCatalog.init(file_system);
+        FailureMonitor.init();
+        FailureGenerator.init();
+
+        CloudSim.init(1, Calendar.getInstance(), false);
+
+        DatacenterExtended datacenter0 = createDatacenter("Datacenter_0");
+        WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+        WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+        List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+        wfEngine.submitVmList(vmlist0, 0);
+        wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+        return wfPlanner;
+    }
+
+    /**
+     * Runs the simulation to its end and returns the job list it prints
+     *
+     * @param wfPlanner the workflow planner of the simulation
+     * @return the printed job list
+     */
+    protected static byte[] finishSimulation(WorkflowPlanner wfPlanner) {
+        OutputStream console = Log.getOutput();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            Log.disable();
+            CloudSim.startSimulation();
+            List<Job> outputList0 = wfPlanner.getWorkflowEngine().getJobsReceivedList();
+            CloudSim.stopSimulation();
+            Log.enable();
+            Log.setOutput(output);
+            printJobList(outputList0);
+        } finally {
+            Log.enable();
+            Log.setOutput(console);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Creates main() to run this example
+     */
+    public static void main(String[] args) {
+
+        try {
+            /**
+             * Should change this based on real physical path
+             */
+            String daxPath = "/Users/chenweiwei/Work/WorkflowSim-1.0/config/dax/Montage_100.xml";
+            File daxFile = new File(daxPath);
+            if (!daxFile.exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+            File checkpoint = File.createTempFile("workflowsim", ".checkpoint");
+            checkpoint.deleteOnExit();
+            double checkpointTime = 60.0;
+
+            long start = System.currentTimeMillis();
+            WorkflowPlanner wfPlanner = setUpSimulation(daxPath);
+            CloudSim.checkpointSimulation(checkpointTime, checkpoint.getPath());
+            byte[] original = finishSimulation(wfPlanner);
+            long originalTime = System.currentTimeMillis() - start;
+
+            Log.printLine();
+            Log.printLine("========== OUTPUT ==========");
+            Log.printLine("Original run: " + original.length + " bytes of output in " + originalTime + " ms");
+            Log.printLine("Checkpoint at " + checkpointTime + ": " + checkpoint.length() + " bytes");
+
+            /**
+             * Each continuation gets its own context, so the continuations
+             * could as well run concurrently
+             */
+            for (int i = 0; i < 2; i++) {
+                start = System.currentTimeMillis();
+                CloudSim.restoreSimulation(checkpoint.getPath());
+                long restoreTime = System.currentTimeMillis() - start;
+                byte[] continuation = finishSimulation((WorkflowPlanner) CloudSim.getEntity("planner_0"));
+                long continuationTime = System.currentTimeMillis() - start;
+
+                Log.printLine("Continuation " + i + ": restored in " + restoreTime + " ms, finished in "
+                        + continuationTime + " ms");
+                if (Arrays.equals(original, continuation)) {
+                    Log.printLine("The job lists are identical");
+                } else {
+                    Log.printLine("The job lists differ");
+                }
+                CloudSim.setContext(null);
+            }
+        } catch (Exception e) {
+            Log.enable();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.routing;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.DatacenterExtended;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.examples.WorkflowSimBasicExample1;
+import org.workflowsim.routing.BaseRoutingPolicy;
+import org.workflowsim.routing.DataLocalityRoutingPolicy;
+import org.workflowsim.routing.LeastOutstandingRoutingPolicy;
+import org.workflowsim.routing.SchedulerLoad;
+import org.workflowsim.routing.ShortestWaitRoutingPolicy;
+import org.workflowsim.routing.StaticRoutingPolicy;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This JobRoutingExample1 runs a workflow on two clusters, each with its own
+ * scheduler and data center: 16 slow vms, and 4 fast vms with twice as many
+ * mips in all. The parser gives all the jobs to the first scheduler, and the
+ * routing policies of the WorkflowEngine move them between the clusters. The example compares the
+ * makespans and the number of jobs each cluster ran.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class JobRoutingExample1 extends WorkflowSimBasicExample1 {
+
+    /**
+     * Creates the vms of a cluster
+     *
+     * @param userId the scheduler id
+     * @param vms the number of vms
+     * @param vmIdBase the id of the first vm
+     * @param mips the mips of the vms
+     * @return the vms
+     */
+    protected static List<CondorVM> createVM(int userId, int vms, int vmIdBase, double mips) {
+        LinkedList<CondorVM> list = new LinkedList<CondorVM>();
+        long size = 10000; //image size (MB)
+        int ram = 512; //vm memory (MB)
+        long bw = 1000;
+        int pesNumber = 1; //number of cpus
+        String vmm = "Xen"; //VMM name
+        for (int i = 0; i < vms; i++) {
+            list.add(new CondorVM(vmIdBase + i, userId, mips, pesNumber, ram, bw, size, vmm,
+                    new CloudletSchedulerSpaceShared()));
+        }
+        return list;
+    }
+
+    /**
+     * Runs the simulation with a routing policy
+     *
+     * @param daxPath the DAX path
+     * @param policy the routing policy
+     * @return the line of the output
+     * @throws Exception if the simulation can't be set up
+     */
+    protected static String runSimulation(String daxPath, BaseRoutingPolicy policy) throws Exception {
+        Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+        Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+        ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+        ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+        Parameters.init(20, daxPath, null,
+                null, op, cp, sch_method, pln_method,
+                null, 0);
+        ReplicaCatalog.init(file_system);
+
+        CloudSim.init(1, Calendar.getInstance(), false);
+
+        DatacenterExtended datacenter0 = createDatacenter("Datacenter_0");
+        DatacenterExtended datacenter1 = createDatacenter("Datacenter_1");
+        WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 2);
+        WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+        wfEngine.setRoutingPolicy(policy);
+        wfEngine.submitVmList(createVM(wfEngine.getSchedulerId(0), 16, 0, 250), 0);
+        wfEngine.submitVmList(createVM(wfEngine.getSchedulerId(1), 4, 16, 2000), 1);
+        wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+        wfEngine.bindSchedulerDatacenter(datacenter1.getId(), 1);
+
+        CloudSim.startSimulation();
+        List<Job> outputList0 = wfEngine.getJobsReceivedList();
+        CloudSim.stopSimulation();
+
+        double makespan = 0.0;
+        for (Job job : outputList0) {
+            makespan = Math.max(makespan, job.getFinishTime());
+        }
+        String indent = "    ";
+        DecimalFormat dft = new DecimalFormat("###.##");
+        StringBuilder line = new StringBuilder();
+        line.append(policy).append(indent)
+                .append(dft.format(makespan));
+        for (SchedulerLoad load : wfEngine.getSchedulerLoads()) {
+            line.append(indent).append(load.getJobsRouted()).append(" (max depth ")
+                    .append(load.getMaxOutstandingJobs()).append(")");
+        }
+        return line.toString();
+    }
+
+    /**
+     * Creates main() to run this example
+     */
+    public static void main(String[] args) {
+
+        try {
+            /**
+             * Should change this based on real physical path
+             */
+            String daxPath = "/Users/chenweiwei/Work/WorkflowSim-1.0/config/dax/Montage_1000.xml";
+            File daxFile = new File(daxPath);
+            if (!daxFile.exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+
+            BaseRoutingPolicy[] policies = {new StaticRoutingPolicy(),
+                new LeastOutstandingRoutingPolicy(), new ShortestWaitRoutingPolicy(),
+                new DataLocalityRoutingPolicy(), new DataLocalityRoutingPolicy(1000)};
+            StringBuilder lines = new StringBuilder();
+            for (BaseRoutingPolicy policy : policies) {
+                Log.disable();
+                lines.append(runSimulation(daxPath, policy)).append("\n");
+                Log.enable();
+            }
+
+            Log.printLine();
+            Log.printLine("========== OUTPUT ==========");
+            Log.printLine("Policy    Makespan    Jobs of cluster 0    Jobs of cluster 1");
+            Log.print(lines.toString());
+        } catch (Exception e) {
+            Log.enable();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+}
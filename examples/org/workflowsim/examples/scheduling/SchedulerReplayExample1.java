@@ -0,0 +1,171 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.scheduling;
+
+import java.io.File;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.EventTraceReplay;
+import org.workflowsim.CondorVM;
+import org.workflowsim.DatacenterExtended;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.WorkflowScheduler;
+import org.workflowsim.examples.WorkflowSimBasicExample1;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This SchedulerReplayExample1 traces the simulation of
+ * WorkflowSimBasicExample1 with Montage_1000, recording the data of the events
+ * delivered to the scheduler. The scheduler is then replayed alone from the
+ * trace several times, which is how a scheduling algorithm can be benchmarked
+ * and profiled without simulating the whole system for each run. Each replay
+ * is checked against the traced simulation: the jobs returned to the replayed
+ * scheduler must have the status and the finish time they had when they
+ * returned.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class SchedulerReplayExample1 extends WorkflowSimBasicExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Initializes the parameters of a simulation
+     *
+     * @param daxPath the DAX path
+     * @param sch_method the scheduling algorithm
+     */
+    protected static void initParameters(String daxPath, Parameters.SchedulingAlgorithm sch_method) {
+        int vmNum = 20;
+        Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+        ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+        ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+        Parameters.init(vmNum, daxPath, null,
+                null, op, cp, sch_method, pln_method,
+                null, 0);
+        ReplicaCatalog.init(file_system);
+    }
+
+    /**
+     * Creates main() to run this example
+     */
+    public static void main(String[] args) {
+
+        try {
+            /**
+             * Should change this based on real physical path
+             */
+            String daxPath = "/Users/chenweiwei/Work/WorkflowSim-1.0/config/dax/Montage_1000.xml";
+            File daxFile = new File(daxPath);
+            if (!daxFile.exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+            File trace = File.createTempFile("workflowsim", ".trace");
+            trace.deleteOnExit();
+            new File(trace.getPath() + ".data").deleteOnExit();
+
+            /**
+             * Traces the whole simulation once
+             */
+            long start = System.currentTimeMillis();
+            initParameters(daxPath, Parameters.SchedulingAlgorithm.MINMIN);
+            CloudSim.init(1, Calendar.getInstance(), false);
+            DatacenterExtended datacenter0 = createDatacenter("Datacenter_0");
+            WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+            WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+            List<CondorVM> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+            wfEngine.submitVmList(vmlist0, 0);
+            wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+            String schedulerName = CloudSim.getEntityName(wfEngine.getSchedulerId(0));
+            CloudSim.setEventTrace(trace.getPath(), schedulerName);
+
+            Log.disable();
+            CloudSim.startSimulation();
+            CloudSim.stopSimulation();
+            Log.enable();
+            long simulationTime = System.currentTimeMillis() - start;
+
+            Log.printLine();
+            Log.printLine("========== OUTPUT ==========");
+            Log.printLine("Simulation: " + simulationTime + " ms, trace of " + trace.length() + " bytes");
+
+            List<Cloudlet> tracedJobs = wfEngine.getJobsReceivedList();
+            Map<Integer, Cloudlet> tracedJobsById = new HashMap<Integer, Cloudlet>();
+            for (Cloudlet job : tracedJobs) {
+                tracedJobsById.put(job.getCloudletId(), job);
+            }
+
+            /**
+             * Replays the scheduler alone with each algorithm. A replayed
+             * scheduler gets the acknowledgements of the creation of its vms
+             * but no data center creates them, so they are placed on the hosts
+             * of the traced data center beforehand.
+             */
+            EventTraceReplay replay = new EventTraceReplay(trace.getPath());
+            for (int run = 0; run < 5; run++) {
+                initParameters(daxPath, Parameters.SchedulingAlgorithm.MINMIN);
+                CloudSim.init(1, Calendar.getInstance(), false);
+                WorkflowScheduler scheduler = new WorkflowScheduler(schedulerName);
+                List<CondorVM> vmlist = createVM(scheduler.getId(), Parameters.getVmNum());
+                List<Host> hostList = datacenter0.getHostList();
+                for (int i = 0; i < vmlist.size(); i++) {
+                    vmlist.get(i).setHost(hostList.get(i % hostList.size()));
+                }
+                scheduler.submitVmList(vmlist);
+
+                Log.disable();
+                start = System.currentTimeMillis();
+                replay.replay(schedulerName, scheduler);
+                long replayTime = System.currentTimeMillis() - start;
+                Log.enable();
+
+                Log.printLine("Replay " + run + ": " + replay.getEventsReplayed() + " events replayed, "
+                        + replay.getEventsSent() + " events sent, in " + replayTime + " ms ("
+                        + replay.getProcessingNanos() / 1000000 + " ms of scheduling)");
+
+                int matching = 0;
+                List<Cloudlet> returnedJobs = scheduler.getCloudletReceivedList();
+                for (Cloudlet job : returnedJobs) {
+                    Cloudlet traced = tracedJobsById.get(job.getCloudletId());
+                    if (traced != null && job.getCloudletStatus() == traced.getCloudletStatus()
+                            && job.getFinishTime() == traced.getFinishTime()
+                            && job.getVmId() == traced.getVmId()) {
+                        matching++;
+                    }
+                }
+                Log.printLine("Replay " + run + " check: " + matching + " of " + returnedJobs.size()
+                        + " returned jobs (" + tracedJobs.size() + " traced) with their traced status, vm and finish time");
+            }
+        } catch (Exception e) {
+            Log.enable();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+}
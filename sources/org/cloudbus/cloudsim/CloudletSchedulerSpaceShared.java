@@ -26,6 +26,9 @@ import org.cloudbus.cloudsim.core.CloudSim;
  */
 public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
 	/** The cloudlet waiting list. */
 	private List<? extends ResCloudlet> cloudletWaitingList;
 
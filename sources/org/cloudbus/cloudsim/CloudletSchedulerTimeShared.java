@@ -22,6 +22,9 @@ import org.cloudbus.cloudsim.core.CloudSim;
  */
 public class CloudletSchedulerTimeShared extends CloudletScheduler {
 
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
 	/** The cloudlet exec list. */
 	private List<? extends ResCloudlet> cloudletExecList;
 
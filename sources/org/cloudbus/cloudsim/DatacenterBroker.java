@@ -19,7 +19,7 @@ import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.cloudbus.cloudsim.lists.CloudletList;
-import org.cloudbus.cloudsim.lists.VmList;
+import org.cloudbus.cloudsim.lists.VmRegistry;
 
 /**
  * DatacentreBroker represents a broker acting on behalf of a user. It hides VM management, as vm
@@ -31,6 +31,9 @@ import org.cloudbus.cloudsim.lists.VmList;
  */
 public class DatacenterBroker extends SimEntity {
 
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
 	/** The vm list. */
 	protected List<? extends Vm> vmList;
 
@@ -70,6 +73,18 @@ public class DatacenterBroker extends SimEntity {
 	/** The datacenter characteristics list. */
 	protected Map<Integer, DatacenterCharacteristics> datacenterCharacteristicsList;
 
+	/** The vms of the vm list, by id. */
+	private final VmRegistry<Vm> vmRegistry = new VmRegistry<Vm>();
+
+	/** The number of vms of the vm list in the registry. */
+	private int vmsRegistered;
+
+	/** The vms of the vms created list, by id. */
+	private final VmRegistry<Vm> vmsCreatedRegistry = new VmRegistry<Vm>();
+
+	/** The number of vms of the vms created list in the registry. */
+	private int vmsCreatedRegistered;
+
 	/**
 	 * Created a new DatacenterBroker object.
 	 * 
@@ -223,10 +238,10 @@ public class DatacenterBroker extends SimEntity {
 
 		if (result == CloudSimTags.TRUE) {
 			getVmsToDatacentersMap().put(vmId, datacenterId);
-			getVmsCreatedList().add(VmList.getById(getVmList(), vmId));
+			getVmsCreatedList().add(getVmById(vmId));
 			Log.printLine(CloudSim.clock() + ": " + getName() + ": VM #" + vmId
 					+ " has been created in Datacenter #" + datacenterId + ", Host #"
-					+ VmList.getById(getVmsCreatedList(), vmId).getHost().getId());
+					+ getCreatedVmById(vmId).getHost().getId());
 		} else {
 			Log.printLine(CloudSim.clock() + ": " + getName() + ": Creation of VM #" + vmId
 					+ " failed in Datacenter #" + datacenterId);
@@ -346,7 +361,7 @@ public class DatacenterBroker extends SimEntity {
 			if (cloudlet.getVmId() == -1) {
 				vm = getVmsCreatedList().get(vmIndex);
 			} else { // submit to the specific vm
-				vm = VmList.getById(getVmsCreatedList(), cloudlet.getVmId());
+				vm = getCreatedVmById(cloudlet.getVmId());
 				if (vm == null) { // vm was not created
 					Log.printLine(CloudSim.clock() + ": " + getName() + ": Postponing execution of cloudlet "
 							+ cloudlet.getCloudletId() + ": bount VM not available");
@@ -413,6 +428,34 @@ public class DatacenterBroker extends SimEntity {
 		schedule(getId(), 0, CloudSimTags.RESOURCE_CHARACTERISTICS_REQUEST);
 	}
 
+	/**
+	 * Gets a vm of the vm list from its id, in constant time. The vm list is expected to be only
+	 * appended to, or cleared.
+	 * 
+	 * @param <T> the generic type
+	 * @param vmId the vm id
+	 * @return the vm, $null if not found
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Vm> T getVmById(int vmId) {
+		vmsRegistered = vmRegistry.index(getVmList(), vmsRegistered);
+		return (T) vmRegistry.get(vmId);
+	}
+
+	/**
+	 * Gets a vm of the vms created list from its id, in constant time. The vms created list is
+	 * expected to be only appended to, or cleared.
+	 * 
+	 * @param <T> the generic type
+	 * @param vmId the vm id
+	 * @return the vm, $null if not created
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Vm> T getCreatedVmById(int vmId) {
+		vmsCreatedRegistered = vmsCreatedRegistry.index(getVmsCreatedList(), vmsCreatedRegistered);
+		return (T) vmsCreatedRegistry.get(vmId);
+	}
+
 	/**
 	 * Gets the vm list.
 	 * 
@@ -432,6 +475,8 @@ public class DatacenterBroker extends SimEntity {
 	 */
 	protected <T extends Vm> void setVmList(List<T> vmList) {
 		this.vmList = vmList;
+		vmRegistry.clear();
+		vmsRegistered = 0;
 	}
 
 	/**
@@ -516,6 +561,8 @@ public class DatacenterBroker extends SimEntity {
 	 */
 	protected <T extends Vm> void setVmsCreatedList(List<T> vmsCreatedList) {
 		this.vmsCreatedList = vmsCreatedList;
+		vmsCreatedRegistry.clear();
+		vmsCreatedRegistered = 0;
 	}
 
 	/**
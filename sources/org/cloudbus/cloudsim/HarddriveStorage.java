@@ -30,6 +30,9 @@ import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
  */
 public class HarddriveStorage implements Storage {
 
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
 	/** a list storing the names of all the files on the harddrive. */
 	private List<String> nameList;
 
@@ -7,11 +7,13 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.lists.PeList;
+import org.cloudbus.cloudsim.lists.VmRegistry;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
 import org.cloudbus.cloudsim.provisioners.RamProvisioner;
 
@@ -24,7 +26,10 @@ import org.cloudbus.cloudsim.provisioners.RamProvisioner;
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 1.0
  */
-public class Host {
+public class Host implements Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
 
 	/** The id. */
 	private int id;
@@ -44,6 +49,9 @@ public class Host {
 	/** The vm list. */
 	private final List<? extends Vm> vmList = new ArrayList<Vm>();
 
+	/** The vms of the vm list, by id and user id. */
+	private final VmRegistry<Vm> vmRegistry = new VmRegistry<Vm>();
+
 	/** The pe list. */
 	private List<? extends Pe> peList;
 
@@ -143,6 +151,7 @@ public class Host {
 
 			getVmsMigratingIn().add(vm);
 			getVmList().add(vm);
+			vmRegistry.put(vm);
 			updateVmsProcessing(CloudSim.clock());
 			vm.getHost().updateVmsProcessing(CloudSim.clock());
 		}
@@ -157,6 +166,7 @@ public class Host {
 		vmDeallocate(vm);
 		getVmsMigratingIn().remove(vm);
 		getVmList().remove(vm);
+		vmRegistry.remove(vm.getId(), vm.getUserId());
 		getVmScheduler().getVmsMigratingIn().remove(vm.getUid());
 		vm.setInMigration(false);
 	}
@@ -168,6 +178,7 @@ public class Host {
 		for (Vm vm : getVmsMigratingIn()) {
 			if (!getVmList().contains(vm)) {
 				getVmList().add(vm);
+				vmRegistry.put(vm);
 			}
 			if (!getVmScheduler().getVmsMigratingIn().contains(vm.getUid())) {
 				getVmScheduler().getVmsMigratingIn().add(vm.getUid());
@@ -230,6 +241,7 @@ public class Host {
 
 		setStorage(getStorage() - vm.getSize());
 		getVmList().add(vm);
+		vmRegistry.put(vm);
 		vm.setHost(this);
 		return true;
 	}
@@ -245,6 +257,7 @@ public class Host {
 		if (vm != null) {
 			vmDeallocate(vm);
 			getVmList().remove(vm);
+			vmRegistry.remove(vm.getId(), vm.getUserId());
 			vm.setHost(null);
 		}
 	}
@@ -262,6 +275,7 @@ public class Host {
 			setStorage(getStorage() + vm.getSize());
 		}
 		getVmList().clear();
+		vmRegistry.clear();
 	}
 
 	/**
@@ -295,12 +309,12 @@ public class Host {
 	 * @post $none
 	 */
 	public Vm getVm(int vmId, int userId) {
-		for (Vm vm : getVmList()) {
-			if (vm.getId() == vmId && vm.getUserId() == userId) {
-				return vm;
-			}
+		if (vmRegistry.size() != getVmList().size()) {
+			// the vm list has been changed directly
+			vmRegistry.clear();
+			vmRegistry.index(getVmList(), 0);
 		}
-		return null;
+		return vmRegistry.get(vmId, userId);
 	}
 
 	/**
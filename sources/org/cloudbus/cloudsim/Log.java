@@ -26,6 +26,9 @@ public class Log {
 	/** The output. */
 	private static OutputStream output;
 
+	/** The outputs overriding the output for some threads. */
+	private static final ThreadLocal<OutputStream> threadOutput = new ThreadLocal<OutputStream>();
+
 	/** The disable output flag. */
 	private static boolean disabled;
 
@@ -119,12 +122,30 @@ public class Log {
 		output = _output;
 	}
 
+	/**
+	 * Sets the output of the current thread, overriding the output set by
+	 * {@link #setOutput(OutputStream)} for the messages printed by this thread.
+	 * 
+	 * @param _output the output of the thread, or <tt>null</tt> to use the common output again
+	 */
+	public static void setThreadOutput(OutputStream _output) {
+		if (_output == null) {
+			threadOutput.remove();
+		} else {
+			threadOutput.set(_output);
+		}
+	}
+
 	/**
 	 * Gets the output.
 	 * 
 	 * @return the output
 	 */
 	public static OutputStream getOutput() {
+		OutputStream out = threadOutput.get();
+		if (out != null) {
+			return out;
+		}
 		if (output == null) {
 			setOutput(System.out);
 		}
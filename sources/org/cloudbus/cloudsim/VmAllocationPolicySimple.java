@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.lists.VmRegistry;
 
 /**
  * VmAllocationPolicySimple is an VmAllocationPolicy that chooses, as the host for a VM, the host
@@ -25,9 +26,15 @@ import org.cloudbus.cloudsim.core.CloudSim;
  */
 public class VmAllocationPolicySimple extends VmAllocationPolicy {
 
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
 	/** The vm table. */
 	private Map<String, Host> vmTable;
 
+	/** The hosts of the vms of the vm table, by vm id and user id. */
+	private final VmRegistry<Host> hostRegistry = new VmRegistry<Host>();
+
 	/** The used pes. */
 	private Map<String, Integer> usedPes;
 
@@ -90,6 +97,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 
 				if (result) { // if vm were succesfully created in the host
 					getVmTable().put(vm.getUid(), host);
+					hostRegistry.put(vm.getId(), vm.getUserId(), host);
 					getUsedPes().put(vm.getUid(), requiredPes);
 					getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
 					result = true;
@@ -115,6 +123,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	@Override
 	public void deallocateHostForVm(Vm vm) {
 		Host host = getVmTable().remove(vm.getUid());
+		hostRegistry.remove(vm.getId(), vm.getUserId());
 		int idx = getHostList().indexOf(host);
 		int pes = getUsedPes().remove(vm.getUid());
 		if (host != null) {
@@ -133,7 +142,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	 */
 	@Override
 	public Host getHost(Vm vm) {
-		return getVmTable().get(vm.getUid());
+		return getHost(vm.getId(), vm.getUserId());
 	}
 
 	/**
@@ -147,7 +156,11 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	 */
 	@Override
 	public Host getHost(int vmId, int userId) {
-		return getVmTable().get(Vm.getUid(userId, vmId));
+		if (hostRegistry.size() != getVmTable().size()) {
+			// the vm table has been changed directly
+			return getVmTable().get(Vm.getUid(userId, vmId));
+		}
+		return hostRegistry.get(vmId, userId);
 	}
 
 	/**
@@ -166,6 +179,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	 */
 	protected void setVmTable(Map<String, Host> vmTable) {
 		this.vmTable = vmTable;
+		hostRegistry.clear();
 	}
 
 	/**
@@ -223,6 +237,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	public boolean allocateHostForVm(Vm vm, Host host) {
 		if (host.vmCreate(vm)) { // if vm has been succesfully created in the host
 			getVmTable().put(vm.getUid(), host);
+			hostRegistry.put(vm.getId(), vm.getUserId(), host);
 
 			int requiredPes = vm.getNumberOfPes();
 			int idx = getHostList().indexOf(host);
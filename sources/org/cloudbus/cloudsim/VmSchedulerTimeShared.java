@@ -28,6 +28,9 @@ import org.cloudbus.cloudsim.provisioners.PeProvisioner;
  */
 public class VmSchedulerTimeShared extends VmScheduler {
 
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
 	/** The mips map requested. */
 	private Map<String, List<Double>> mipsMapRequested;
 
@@ -0,0 +1,420 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A future event list implemented as a calendar queue (R. Brown, 1988). Time is divided into
+ * buckets ("days") of a fixed width, typically {@link CloudSim#getMinTimeBetweenEvents()}, and the
+ * buckets are laid out in a circular array ("year"). Each bucket keeps its events sorted, so all the
+ * events sharing a timestamp live in the same bucket and come out in insertion order. Adding an
+ * event and removing the first event cost amortized O(1) when the events are spread over time and
+ * the number of buckets is adjusted to the number of events, which the queue does by itself.
+ * <p>
+ * Iterating over the queue is meant for infrequent operations such as cancelling events: the
+ * iterator walks a sorted snapshot of the queue.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see FutureEventList
+ */
+public class CalendarFutureQueue implements FutureEventList, Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The minimum number of buckets. */
+	private static final int MIN_BUCKETS = 16;
+
+	/** The width of a bucket, in simulation time. */
+	private final double bucketWidth;
+
+	/** The buckets. */
+	private Bucket[] buckets;
+
+	/** The number of events in the queue. */
+	private int size = 0;
+
+	/** The absolute index of the bucket the first event is searched from. */
+	private long currentDay = 0;
+
+	/** The serial. */
+	private long serial = 0;
+
+	/** Number of structural modifications, used to detect concurrent modifications. */
+	private int modCount = 0;
+
+	/**
+	 * Creates a new calendar queue whose bucket width is the minimal time between events set in
+	 * {@link CloudSim}.
+	 */
+	public CalendarFutureQueue() {
+		this(CloudSim.getMinTimeBetweenEvents());
+	}
+
+	/**
+	 * Creates a new calendar queue.
+	 *
+	 * @param bucketWidth the width of a bucket, in simulation time
+	 */
+	public CalendarFutureQueue(double bucketWidth) {
+		if (bucketWidth <= 0 || Double.isInfinite(bucketWidth) || Double.isNaN(bucketWidth)) {
+			throw new IllegalArgumentException("The bucket width should be positive, but is:"
+					+ bucketWidth);
+		}
+		this.bucketWidth = bucketWidth;
+		buckets = newBuckets(MIN_BUCKETS);
+	}
+
+	/**
+	 * Gets the width of a bucket.
+	 *
+	 * @return the bucket width
+	 */
+	public double getBucketWidth() {
+		return bucketWidth;
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		offer(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		offer(newEvent);
+	}
+
+	@Override
+	public SimEvent peek() {
+		if (size == 0) {
+			return null;
+		}
+		return buckets[findFirstBucket()].first();
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent first = buckets[findFirstBucket()].pollFirst();
+		size--;
+		modCount++;
+		if (size < buckets.length >> 2 && buckets.length > MIN_BUCKETS) {
+			resize(buckets.length >> 1);
+		}
+		return first;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		final SimEvent[] snapshot = new SimEvent[size];
+		int n = 0;
+		for (Bucket bucket : buckets) {
+			n = bucket.copyTo(snapshot, n);
+		}
+		Arrays.sort(snapshot);
+		return new Iterator<SimEvent>() {
+
+			private int cursor = 0;
+
+			private int expectedModCount = modCount;
+
+			@Override
+			public boolean hasNext() {
+				return cursor < snapshot.length;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (expectedModCount != modCount) {
+					throw new ConcurrentModificationException();
+				}
+				if (cursor >= snapshot.length) {
+					throw new NoSuchElementException();
+				}
+				return snapshot[cursor++];
+			}
+
+			@Override
+			public void remove() {
+				if (cursor == 0 || snapshot[cursor - 1] == null) {
+					throw new IllegalStateException();
+				}
+				if (expectedModCount != modCount) {
+					throw new ConcurrentModificationException();
+				}
+				CalendarFutureQueue.this.remove(snapshot[cursor - 1]);
+				snapshot[cursor - 1] = null;
+				expectedModCount = modCount;
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		if (size == 0 || !buckets[bucketIndex(dayOf(event))].remove(event)) {
+			return false;
+		}
+		size--;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Removes all the events from the queue. Every bucket is filtered once, which costs O(n) when
+	 * <tt>events</tt> supports fast lookups, as a {@link java.util.HashSet} does.
+	 * 
+	 * @param events the events
+	 * @return true, if successful
+	 */
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		int removed = 0;
+		for (Bucket bucket : buckets) {
+			removed += bucket.removeAll(events);
+		}
+		if (removed == 0) {
+			return false;
+		}
+		size -= removed;
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		buckets = newBuckets(MIN_BUCKETS);
+		size = 0;
+		currentDay = 0;
+		modCount++;
+	}
+
+	/**
+	 * Inserts an event into its bucket, growing the calendar when buckets get crowded.
+	 *
+	 * @param event the event
+	 */
+	private void offer(SimEvent event) {
+		long day = dayOf(event);
+		if (size == 0 || day < currentDay) {
+			currentDay = day;
+		}
+		buckets[bucketIndex(day)].add(event);
+		size++;
+		modCount++;
+		if (size > buckets.length << 1) {
+			resize(buckets.length << 1);
+		}
+	}
+
+	/**
+	 * Finds the bucket holding the first event and makes its day the current one. The search scans
+	 * one year of buckets starting at the current day; when no event falls in that year it jumps
+	 * directly to the earliest bucket head.
+	 *
+	 * @return the index of the bucket holding the first event
+	 * @pre size > 0
+	 */
+	private int findFirstBucket() {
+		int n = buckets.length;
+		for (int i = 0; i < n; i++) {
+			int index = bucketIndex(currentDay);
+			Bucket bucket = buckets[index];
+			if (!bucket.isEmpty() && dayOf(bucket.first()) <= currentDay) {
+				return index;
+			}
+			currentDay++;
+		}
+
+		// sparse queue: no event within a whole year, search the earliest bucket head
+		SimEvent first = null;
+		for (Bucket bucket : buckets) {
+			if (!bucket.isEmpty() && (first == null || bucket.first().compareTo(first) < 0)) {
+				first = bucket.first();
+			}
+		}
+		currentDay = dayOf(first);
+		return bucketIndex(currentDay);
+	}
+
+	/**
+	 * Redistributes the events over a new number of buckets.
+	 *
+	 * @param newLength the new number of buckets
+	 */
+	private void resize(int newLength) {
+		Bucket[] old = buckets;
+		buckets = newBuckets(newLength);
+		for (Bucket bucket : old) {
+			for (int i = bucket.head; i < bucket.tail; i++) {
+				SimEvent event = bucket.events[i];
+				buckets[bucketIndex(dayOf(event))].add(event);
+			}
+		}
+	}
+
+	/**
+	 * Gets the absolute bucket ("day") an event belongs to.
+	 *
+	 * @param event the event
+	 * @return the day
+	 */
+	private long dayOf(SimEvent event) {
+		return (long) Math.floor(event.eventTime() / bucketWidth);
+	}
+
+	/**
+	 * Maps a day to a position in the bucket array.
+	 *
+	 * @param day the day
+	 * @return the bucket index
+	 */
+	private int bucketIndex(long day) {
+		int index = (int) (day % buckets.length);
+		return index < 0 ? index + buckets.length : index;
+	}
+
+	/**
+	 * Creates an array of empty buckets.
+	 *
+	 * @param length the number of buckets
+	 * @return the buckets
+	 */
+	private static Bucket[] newBuckets(int length) {
+		Bucket[] array = new Bucket[length];
+		for (int i = 0; i < length; i++) {
+			array[i] = new Bucket();
+		}
+		return array;
+	}
+
+	/**
+	 * A bucket of the calendar: a sorted array of events. Events are removed from the head and are
+	 * usually added at the tail, so both operations are O(1) in the common case.
+	 */
+	private static class Bucket implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/** The events, sorted, between head (inclusive) and tail (exclusive). */
+		private SimEvent[] events = new SimEvent[4];
+
+		/** The head. */
+		private int head = 0;
+
+		/** The tail. */
+		private int tail = 0;
+
+		boolean isEmpty() {
+			return head == tail;
+		}
+
+		SimEvent first() {
+			return events[head];
+		}
+
+		SimEvent pollFirst() {
+			SimEvent first = events[head];
+			events[head++] = null;
+			if (head == tail) {
+				head = 0;
+				tail = 0;
+			}
+			return first;
+		}
+
+		/**
+		 * Adds an event keeping the bucket sorted. Events at the same time keep their insertion
+		 * order, as {@link SimEvent#compareTo(SimEvent)} orders them by serial.
+		 */
+		void add(SimEvent event) {
+			ensureRoom();
+			int pos = tail;
+			while (pos > head && event.compareTo(events[pos - 1]) < 0) {
+				pos--;
+			}
+			System.arraycopy(events, pos, events, pos + 1, tail - pos);
+			events[pos] = event;
+			tail++;
+		}
+
+		boolean remove(SimEvent event) {
+			for (int i = head; i < tail; i++) {
+				if (events[i] == event) {
+					System.arraycopy(events, i + 1, events, i, tail - i - 1);
+					events[--tail] = null;
+					if (head == tail) {
+						head = 0;
+						tail = 0;
+					}
+					return true;
+				}
+			}
+			return false;
+		}
+
+		int removeAll(Collection<SimEvent> removed) {
+			int n = head;
+			for (int i = head; i < tail; i++) {
+				if (!removed.contains(events[i])) {
+					events[n++] = events[i];
+				}
+			}
+			int count = tail - n;
+			Arrays.fill(events, n, tail, null);
+			tail = n;
+			if (head == tail) {
+				head = 0;
+				tail = 0;
+			}
+			return count;
+		}
+
+		int copyTo(SimEvent[] target, int offset) {
+			int length = tail - head;
+			System.arraycopy(events, head, target, offset, length);
+			return offset + length;
+		}
+
+		/**
+		 * Makes room for one more event at the tail, compacting or growing the array.
+		 */
+		private void ensureRoom() {
+			if (tail < events.length) {
+				return;
+			}
+			int length = tail - head;
+			if (length < events.length >> 1) {
+				System.arraycopy(events, head, events, 0, length);
+				Arrays.fill(events, length, tail, null);
+			} else {
+				SimEvent[] grown = new SimEvent[events.length << 1];
+				System.arraycopy(events, head, grown, 0, length);
+				events = grown;
+			}
+			head = 0;
+			tail = length;
+		}
+	}
+
+}
@@ -8,19 +8,34 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
 import org.cloudbus.cloudsim.core.predicates.PredicateAny;
 import org.cloudbus.cloudsim.core.predicates.PredicateNone;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
  * This class extends the CloudSimCore to enable network simulation in CloudSim. Also, it disables
@@ -39,31 +54,53 @@ public class CloudSim {
 	/** The Constant CLOUDSIM_VERSION_STRING. */
 	private static final String CLOUDSIM_VERSION_STRING = "3.0";
 
-	/** The id of CIS entity. */
-	private static int cisId = -1;
-
-	/** The id of CloudSimShutdown entity. */
-	@SuppressWarnings("unused")
-	private static int shutdownId = -1;
-
-	/** The CIS object. */
-	private static CloudInformationService cis = null;
-
 	/** The Constant NOT_FOUND. */
 	private static final int NOT_FOUND = -1;
 
-	/** The trace flag. */
-	@SuppressWarnings("unused")
-	private static boolean traceFlag = false;
+	/** The maximum number of free events kept by the event pool. */
+	private static final int MAX_POOLED_EVENTS = 1 << 16;
 
-	/** The calendar. */
-	private static Calendar calendar = null;
+	/**
+	 * The simulation context of each thread. A thread gets its own context, whichever thread
+	 * created it.
+	 */
+	private static final ThreadLocal<SimulationContext> context =
+			new ThreadLocal<SimulationContext>() {
 
-	/** The termination time. */
-	private static double terminateAt = -1;
+		@Override
+		protected SimulationContext initialValue() {
+			return new SimulationContext();
+		}
+	};
+
+	/**
+	 * Gets the simulation context bound to the current thread. A thread gets a new, empty context
+	 * the first time it uses the simulation, unless a context has been bound to it with
+	 * {@link #setContext(SimulationContext)}, e.g. to pause and resume the simulation from a
+	 * monitor thread. Simulations run by different threads don't share any state unless a context
+	 * is bound to several threads.
+	 * 
+	 * @return the simulation context of the current thread
+	 */
+	public static SimulationContext getContext() {
+		return context.get();
+	}
 
-	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
-	private static double minTimeBetweenEvents = 0.1;
+	/**
+	 * Binds a simulation context to the current thread. This allows a thread to run a simulation
+	 * in a context created beforehand, or to control a simulation run by another thread, such as
+	 * the thread that created it.
+	 * 
+	 * @param ctx the simulation context, or <tt>null</tt> to discard the context of the current
+	 *            thread so that the next simulation run by the thread starts from a new one
+	 */
+	public static void setContext(SimulationContext ctx) {
+		if (ctx == null) {
+			context.remove();
+		} else {
+			context.set(ctx);
+		}
+	}
 	
 	/**
 	 * Initialises all the common attributes.
@@ -78,21 +115,22 @@ public class CloudSim {
 	 */
 	private static void initCommonVariable(Calendar _calendar, boolean _traceFlag, int numUser)
 			throws Exception {
+		SimulationContext ctx = getContext();
 		initialize();
 		// NOTE: the order for the below 3 lines are important
-		traceFlag = _traceFlag;
+		ctx.traceFlag = _traceFlag;
 
 		// Set the current Wall clock time as the starting time of
 		// simulation
 		if (_calendar == null) {
-			calendar = Calendar.getInstance();
+			ctx.calendar = Calendar.getInstance();
 		} else {
-			calendar = _calendar;
+			ctx.calendar = _calendar;
 		}
 
 		// creates a CloudSimShutdown object
 		CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
-		shutdownId = shutdown.getId();
+		ctx.shutdownId = shutdown.getId();
 	}
 
 	/**
@@ -117,14 +155,15 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag) {
+		SimulationContext ctx = getContext();
 		try {
 			initCommonVariable(cal, traceFlag, numUser);
 
 			// create a GIS object
-			cis = new CloudInformationService("CloudInformationService");
+			ctx.cis = new CloudInformationService("CloudInformationService");
 
 			// set all the above entity IDs
-			cisId = cis.getId();
+			ctx.cisId = ctx.cis.getId();
 		} catch (IllegalArgumentException s) {
 			Log.printLine("CloudSim.init(): The simulation has been terminated due to an unexpected error");
 			Log.printLine(s.getMessage());
@@ -163,7 +202,93 @@ public class CloudSim {
 	    }
 	    
 	    init(numUser, cal, traceFlag);
-	    minTimeBetweenEvents = periodBetweenEvents;
+	    getContext().minTimeBetweenEvents = periodBetweenEvents;
+	}
+
+	/**
+	 * Initialises CloudSim parameters with a given future event list. This method should be called
+	 * before creating any entities.
+	 * 
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param futureQueue the future event list to be used, e.g. {@link FutureQueue},
+	 *            {@link HeapFutureQueue} or {@link CalendarFutureQueue}
+	 * @see #init(int, Calendar, boolean)
+	 * @pre numUser >= 0
+	 * @pre futureQueue != null
+	 * @post $none
+	 */
+	public static void init(int numUser, Calendar cal, boolean traceFlag, FutureEventList futureQueue) {
+		if (futureQueue == null) {
+			throw new IllegalArgumentException("The future event list can't be null.");
+		}
+
+		init(numUser, cal, traceFlag);
+		futureQueue.clear();
+		getContext().future = futureQueue;
+	}
+
+	/**
+	 * Initialises CloudSim parameters with a given future event list. This method should be called
+	 * before creating any entities.
+	 * 
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param periodBetweenEvents - the minimal period between events. Events within shorter periods
+	 * after the last event are discarded.
+	 * @param futureQueue the future event list to be used, e.g. {@link FutureQueue},
+	 *            {@link HeapFutureQueue} or {@link CalendarFutureQueue}
+	 * @see #init(int, Calendar, boolean, double)
+	 * @pre numUser >= 0
+	 * @pre futureQueue != null
+	 * @post $none
+	 */
+	public static void init(int numUser, Calendar cal, boolean traceFlag, double periodBetweenEvents,
+			FutureEventList futureQueue) {
+		if (futureQueue == null) {
+			throw new IllegalArgumentException("The future event list can't be null.");
+		}
+
+		init(numUser, cal, traceFlag, periodBetweenEvents);
+		futureQueue.clear();
+		getContext().future = futureQueue;
+	}
+
+	/**
+	 * Initialises CloudSim parameters with an integer clock. This method should be called before
+	 * creating any entities.
+	 * <p>
+	 * The simulation time advances by whole ticks of the given length: the time of every event is
+	 * rounded to the nearest tick, a positive delay being at least one tick, so the events of the
+	 * same tick have exactly the same time and are always processed together. The future event
+	 * list is a {@link CalendarFutureQueue} with one bucket per tick. {@link #clock()} still gives
+	 * the time in simulation time units, and {@link #clockTicks()} gives it in ticks.
+	 * 
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param periodBetweenEvents - the minimal period between events. Events within shorter periods
+	 * after the last event are discarded.
+	 * @param tickLength the length of a tick, in simulation time units
+	 * @see #init(int, Calendar, boolean, double)
+	 * @pre numUser >= 0
+	 * @pre tickLength > 0
+	 * @post $none
+	 */
+	public static void init(int numUser, Calendar cal, boolean traceFlag, double periodBetweenEvents,
+			double tickLength) {
+		if (tickLength <= 0 || Double.isInfinite(tickLength) || Double.isNaN(tickLength)) {
+			throw new IllegalArgumentException("The tick length should be positive, but is:" + tickLength);
+		}
+		init(numUser, cal, traceFlag, periodBetweenEvents);
+		SimulationContext ctx = getContext();
+		ctx.tickLength = tickLength;
+		ctx.future = new CalendarFutureQueue(tickLength);
 	}
 	
 	
@@ -183,16 +308,17 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static double startSimulation() throws NullPointerException {
+		SimulationContext ctx = getContext();
 		Log.printLine("Starting CloudSim version " + CLOUDSIM_VERSION_STRING);
 		try {
 			double clock = run();
 
 			// reset all static variables
-			cisId = -1;
-			shutdownId = -1;
-			cis = null;
-			calendar = null;
-			traceFlag = false;
+			ctx.cisId = -1;
+			ctx.shutdownId = -1;
+			ctx.cis = null;
+			ctx.calendar = null;
+			ctx.traceFlag = false;
 
 			return clock;
 		} catch (IllegalArgumentException e) {
@@ -217,6 +343,7 @@ public class CloudSim {
 	public static void stopSimulation() throws NullPointerException {
 		try {
 			runStop();
+			writeProfile(getContext());
 		} catch (IllegalArgumentException e) {
 			throw new NullPointerException("CloudSim.stopCloudSimulation() : "
 					+ "Error - can't stop Cloud Simulation.");
@@ -229,7 +356,12 @@ public class CloudSim {
 	 * @return true, if successful; false otherwise.
 	 */
 	public static boolean terminateSimulation() {
-		running = false;
+		SimulationContext ctx = getContext();
+		if (outbox(ctx) != null) {
+			throw new IllegalStateException("The simulation can't be terminated while partitions are "
+					+ "running, use abruptallyTerminate() instead.");
+		}
+		ctx.running = false;
 		printMessage("Simulation: Reached termination time.");
 		return true;
 	}
@@ -241,21 +373,43 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean terminateSimulation(double time) {
-		if (time <= clock) {
+		SimulationContext ctx = getContext();
+		if (time <= ctx.clock) {
 			return false;
 		} else {
-			terminateAt = time;
+			ctx.terminateAt = time;
 		}
 		return true;
 	}
 
 	
+	/**
+	 * Gets the current simulation time in ticks of the integer clock.
+	 * 
+	 * @return the number of ticks elapsed, or <tt>0</tt> if the simulation has no integer clock
+	 * @see #init(int, Calendar, boolean, double, double)
+	 */
+	public static long clockTicks() {
+		SimulationContext ctx = getContext();
+		return ctx.tickLength > 0 ? Math.round(ctx.clock / ctx.tickLength) : 0;
+	}
+
+	/**
+	 * Gets the length of a tick of the integer clock.
+	 * 
+	 * @return the tick length, or <tt>0</tt> if event times are not quantized
+	 * @see #init(int, Calendar, boolean, double, double)
+	 */
+	public static double getTickLength() {
+		return getContext().tickLength;
+	}
+
 	/**
 	 * Returns the minimum time between events. Events within shorter periods after the last event are discarded. 
 	 * @return the minimum time between events.
 	 */
 	public static double getMinTimeBetweenEvents() {
-	    return minTimeBetweenEvents;
+	    return getContext().minTimeBetweenEvents;
 	}
 
 	/**
@@ -268,10 +422,11 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static Calendar getSimulationCalendar() {
+		SimulationContext ctx = getContext();
 		// make a new copy
-		Calendar clone = calendar;
-		if (calendar != null) {
-			clone = (Calendar) calendar.clone();
+		Calendar clone = ctx.calendar;
+		if (ctx.calendar != null) {
+			clone = (Calendar) ctx.calendar.clone();
 		}
 
 		return clone;
@@ -285,7 +440,7 @@ public class CloudSim {
 	 * @post $result >= -1
 	 */
 	public static int getCloudInfoServiceEntityId() {
-		return cisId;
+		return getContext().cisId;
 	}
 
 	/**
@@ -298,59 +453,34 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static List<Integer> getCloudResourceList() {
-		if (cis == null) {
+		SimulationContext ctx = getContext();
+		if (ctx.cis == null) {
 			return null;
 		}
 
-		return cis.getList();
+		return ctx.cis.getList();
 	}
 
 	// ======== SIMULATION METHODS ===============//
 
-	/** The entities. */
-	private static List<SimEntity> entities;
-
-	/** The future event queue. */
-	protected static FutureQueue future;
-
-	/** The deferred event queue. */
-	protected static DeferredQueue deferred;
-
-	/** The simulation clock. */
-	private static double clock;
-
-	/** Flag for checking if the simulation is running. */
-	private static boolean running;
-
-	/** The entities by name. */
-	private static Map<String, SimEntity> entitiesByName;
-
-	// The predicates used in entity wait methods
-	/** The wait predicates. */
-	private static Map<Integer, Predicate> waitPredicates;
-
-	/** The paused. */
-	private static boolean paused = false;
-
-	/** The pause at. */
-	private static long pauseAt = -1;
-
-	/** The abrupt terminate. */
-	private static boolean abruptTerminate = false;
-
 	/**
 	 * Initialise the simulation for stand alone simulations. This function should be called at the
 	 * start of the simulation.
 	 */
 	protected static void initialize() {
+		SimulationContext ctx = getContext();
 		Log.printLine("Initialising...");
-		entities = new ArrayList<SimEntity>();
-		entitiesByName = new LinkedHashMap<String, SimEntity>();
-		future = new FutureQueue();
-		deferred = new DeferredQueue();
-		waitPredicates = new HashMap<Integer, Predicate>();
-		clock = 0;
-		running = false;
+		ctx.entities = new ArrayList<SimEntity>();
+		ctx.entitiesByName = new LinkedHashMap<String, SimEntity>();
+		ctx.future = new FutureQueue();
+		ctx.futureIndex = new FutureEventIndex();
+		ctx.cancelledEvents = 0;
+		ctx.deferred = new DeferredQueue();
+		ctx.waitPredicates = new HashMap<Integer, Predicate>();
+		ctx.partitions = new ArrayList<Integer>();
+		ctx.tickLength = 0;
+		ctx.clock = 0;
+		ctx.running = false;
 	}
 
 	// The two standard predicates
@@ -369,7 +499,7 @@ public class CloudSim {
 	 * @return the simulation time
 	 */
 	public static double clock() {
-		return clock;
+		return getContext().clock;
 	}
 
 	/**
@@ -378,7 +508,7 @@ public class CloudSim {
 	 * @return The number of entities
 	 */
 	public static int getNumEntities() {
-		return entities.size();
+		return getContext().entities.size();
 	}
 
 	/**
@@ -388,7 +518,7 @@ public class CloudSim {
 	 * @return The entity, or if it could not be found
 	 */
 	public static SimEntity getEntity(int id) {
-		return entities.get(id);
+		return getContext().entities.get(id);
 	}
 
 	/**
@@ -398,7 +528,7 @@ public class CloudSim {
 	 * @return The entity
 	 */
 	public static SimEntity getEntity(String name) {
-		return entitiesByName.get(name);
+		return getContext().entitiesByName.get(name);
 	}
 
 	/**
@@ -408,7 +538,7 @@ public class CloudSim {
 	 * @return The entity's unique id number
 	 */
 	public static int getEntityId(String name) {
-		SimEntity obj = entitiesByName.get(name);
+		SimEntity obj = getContext().entitiesByName.get(name);
 		if (obj == null) {
 			return NOT_FOUND;
 		} else {
@@ -458,7 +588,7 @@ public class CloudSim {
 		// create a new list to prevent the user from changing
 		// the list of entities used by Simulation
 		List<SimEntity> list = new LinkedList<SimEntity>();
-		list.addAll(entities);
+		list.addAll(getContext().entities);
 		return list;
 	}
 
@@ -471,17 +601,21 @@ public class CloudSim {
 	 * @param e The new entity
 	 */
 	public static void addEntity(SimEntity e) {
+		SimulationContext ctx = getContext();
 		SimEvent evt;
-		if (running) {
+		if (outbox(ctx) != null) {
+			throw new IllegalStateException("Entities can't be added while partitions are running.");
+		}
+		if (ctx.running) {
 			// Post an event to make this entity
-			evt = new SimEvent(SimEvent.CREATE, clock, 1, 0, 0, e);
-			future.addEvent(evt);
+			evt = newEvent(ctx, SimEvent.CREATE, ctx.clock, 1, 0, 0, e);
+			addFutureEvent(ctx, evt);
 		}
 		if (e.getId() == -1) { // Only add once!
-			int id = entities.size();
+			int id = ctx.entities.size();
 			e.setId(id);
-			entities.add(e);
-			entitiesByName.put(e.getName(), e);
+			ctx.entities.add(e);
+			ctx.entitiesByName.put(e.getName(), e);
 		}
 	}
 
@@ -507,50 +641,51 @@ public class CloudSim {
 	 * @return true, if successful otherwise
 	 */
 	public static boolean runClockTick() {
+		SimulationContext ctx = getContext();
 		SimEntity ent;
 		boolean queue_empty;
 		
-		int entities_size = entities.size();
+		int entities_size = ctx.entities.size();
 
-		for (int i = 0; i < entities_size; i++) {
-			ent = entities.get(i);
-			if (ent.getState() == SimEntity.RUNNABLE) {
-				ent.run();
+		if (ctx.parallel != null) {
+			ctx.parallel.run(ctx);
+			purgeCancelledEvents(ctx);
+		} else {
+			for (int i = 0; i < entities_size; i++) {
+				ent = ctx.entities.get(i);
+				if (ent.getState() == SimEntity.RUNNABLE) {
+					ent.run();
+				}
 			}
 		}
 				
 		// If there are more future events then deal with them
-		if (future.size() > 0) {
-			List<SimEvent> toRemove = new ArrayList<SimEvent>();
-			Iterator<SimEvent> fit = future.iterator();
+		SimEvent first = pollFutureEvent(ctx);
+		if (first != null) {
 			queue_empty = false;
-			SimEvent first = fit.next();
-			processEvent(first);
-			future.remove(first);
-
-			fit = future.iterator();
+			processEvent(ctx, first);
 
 			// Check if next events are at same time...
-			boolean trymore = fit.hasNext();
-			while (trymore) {
-				SimEvent next = fit.next();
-				if (next.eventTime() == first.eventTime()) {
-					processEvent(next);
-					toRemove.add(next);
-					trymore = fit.hasNext();
-				} else {
-					trymore = false;
-				}
+			SimEvent next = peekFutureEvent(ctx);
+			while (next != null && next.eventTime() == first.eventTime()) {
+				processEvent(ctx, pollFutureEvent(ctx));
+				next = peekFutureEvent(ctx);
 			}
 
-			future.removeAll(toRemove);
-
 		} else {
+			// the run ends before the time of the checkpoint, which is then its final state
+			if (ctx.checkpointAt != -1) {
+				writeCheckpoint(ctx);
+			}
 			queue_empty = true;
-			running = false;
+			ctx.running = false;
 			printMessage("Simulation: No more future events");
 		}
 
+		if (ctx.profile != null) {
+			ctx.profile.tick(ctx.clock, ctx.future.size() - ctx.cancelledEvents, ctx.deferred);
+		}
+
 		return queue_empty;
 	}
 
@@ -568,9 +703,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void hold(int src, long delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationContext ctx = getContext();
+		SimEvent e = newEvent(ctx, SimEvent.HOLD_DONE, eventTime(ctx, delay), src, -1, -1, null);
+		addFutureEvent(ctx, e);
+		ctx.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -580,9 +716,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void pause(int src, double delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationContext ctx = getContext();
+		SimEvent e = newEvent(ctx, SimEvent.HOLD_DONE, eventTime(ctx, delay), src, -1, -1, null);
+		addFutureEvent(ctx, e);
+		ctx.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -595,12 +732,13 @@ public class CloudSim {
 	 * @param data the data
 	 */
 	public static void send(int src, int dest, double delay, int tag, Object data) {
+		SimulationContext ctx = getContext();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEvent(e);
+		SimEvent e = newEvent(ctx, SimEvent.SEND, eventTime(ctx, delay), src, dest, tag, data);
+		addFutureEvent(ctx, e);
 	}
 
 	/**
@@ -613,12 +751,19 @@ public class CloudSim {
 	 * @param data the data
 	 */
 	public static void sendFirst(int src, int dest, double delay, int tag, Object data) {
+		SimulationContext ctx = getContext();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEventFirst(e);
+		SimEvent e = newEvent(ctx, SimEvent.SEND, eventTime(ctx, delay), src, dest, tag, data);
+		ParallelRunPhase.Outbox outbox = outbox(ctx);
+		if (outbox != null) {
+			outbox.add(e, true);
+			return;
+		}
+		ctx.future.addEventFirst(e);
+		ctx.futureIndex.add(e);
 	}
 
 	/**
@@ -630,10 +775,17 @@ public class CloudSim {
 	 * @param p the p
 	 */
 	public static void wait(int src, Predicate p) {
-		entities.get(src).setState(SimEntity.WAITING);
+		SimulationContext ctx = getContext();
+		ctx.entities.get(src).setState(SimEntity.WAITING);
 		if (p != SIM_ANY) {
 			// If a predicate has been used store it in order to check it
-			waitPredicates.put(src, p);
+			ParallelRunPhase.Outbox outbox = outbox(ctx);
+			if (outbox != null) {
+				outbox.waitSources.add(src);
+				outbox.waitPredicates.add(p);
+			} else {
+				ctx.waitPredicates.put(src, p);
+			}
 		}
 	}
 
@@ -645,16 +797,7 @@ public class CloudSim {
 	 * @return the int
 	 */
 	public static int waiting(int d, Predicate p) {
-		int count = 0;
-		SimEvent event;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if ((event.getDestination() == d) && (p.match(event))) {
-				count++;
-			}
-		}
-		return count;
+		return getContext().deferred.count(d, p);
 	}
 
 	/**
@@ -662,19 +805,10 @@ public class CloudSim {
 	 * 
 	 * @param src the src
 	 * @param p the p
-	 * @return the sim event
+	 * @return the sim event, or <tt>null</tt> if no event matches
 	 */
 	public static SimEvent select(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				iterator.remove();
-				break;
-			}
-		}
-		return ev;
+		return getContext().deferred.select(src, p);
 	}
 
 	/**
@@ -682,60 +816,654 @@ public class CloudSim {
 	 * 
 	 * @param src the src
 	 * @param p the p
-	 * @return the sim event
+	 * @return the sim event, or <tt>null</tt> if no event matches
 	 */
 	public static SimEvent findFirstDeferred(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				break;
-			}
-		}
-		return ev;
+		return getContext().deferred.findFirst(src, p);
 	}
 
 	/**
-	 * Removes an event from the event queue.
+	 * Removes an event from the event queue. The events sent by the entity are found through an
+	 * index by source and tag, and the cancelled event is left in the future event queue as a
+	 * tombstone that is discarded when it reaches the head of the queue.
 	 * 
 	 * @param src the src
 	 * @param p the p
-	 * @return the sim event
+	 * @return the sim event, or <tt>null</tt> if no event matches
 	 */
 	public static SimEvent cancel(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
-				break;
+		SimulationContext ctx = getContext();
+		ParallelRunPhase.Outbox outbox = outbox(ctx);
+		SimEvent first = null;
+		if (p instanceof PredicateType) {
+			for (int tag : ((PredicateType) p).getTags()) {
+				for (SimEvent ev = ctx.futureIndex.first(src, tag); ev != null; ev = ev.indexNext) {
+					if (first == null || ev.compareTo(first) < 0) {
+						first = ev;
+					}
+				}
+			}
+		} else {
+			for (FutureEventIndex.Chain chain : ctx.futureIndex.chainsOf(src)) {
+				for (SimEvent ev = chain.head; ev != null; ev = ev.indexNext) {
+					if (p.match(ev) && (first == null || ev.compareTo(first) < 0)) {
+						first = ev;
+					}
+				}
 			}
 		}
 
-		return ev;
+		if (outbox != null) {
+			// the events sent in this tick are queued after the events already in the queue
+			long firstSerial = first == null ? 0 : first.getSerial();
+			int pending = -1;
+			for (int i = 0; i < outbox.events.size(); i++) {
+				SimEvent ev = outbox.events.get(i);
+				if (ev == null || ev.getSource() != src || !p.match(ev)) {
+					continue;
+				}
+				long serial = outbox.first.get(i) ? 0 : Long.MAX_VALUE;
+				if (first == null || ev.eventTime() < first.eventTime()
+						|| (ev.eventTime() == first.eventTime() && serial < firstSerial)) {
+					first = ev;
+					firstSerial = serial;
+					pending = i;
+				}
+			}
+			if (pending >= 0) {
+				outbox.events.set(pending, null);
+				recordCancelled(ctx, first);
+				return first;
+			}
+		}
+
+		if (first != null) {
+			cancelFutureEvent(ctx, first);
+			purgeCancelledEvents(ctx);
+		}
+		return first;
 	}
 
 	/**
 	 * Removes all events that match a given predicate from the future event queue returns true if
-	 * at least one event has been cancelled; false otherwise.
+	 * at least one event has been cancelled; false otherwise. The cost is proportional to the number
+	 * of events sent by the entity with the tags of the predicate when <tt>p</tt> is a
+	 * {@link PredicateType}, and to the number of events sent by the entity otherwise.
 	 * 
 	 * @param src the src
 	 * @param p the p
 	 * @return true, if successful
 	 */
 	public static boolean cancelAll(int src, Predicate p) {
-		SimEvent ev = null;
-		int previousSize = future.size();
-		Iterator<SimEvent> iter = future.iterator();
+		SimulationContext ctx = getContext();
+		ParallelRunPhase.Outbox outbox = outbox(ctx);
+		boolean cancelled = false;
+		if (p instanceof PredicateType) {
+			for (int tag : ((PredicateType) p).getTags()) {
+				SimEvent ev = ctx.futureIndex.first(src, tag);
+				while (ev != null) {
+					SimEvent next = ev.indexNext;
+					cancelFutureEvent(ctx, ev);
+					cancelled = true;
+					ev = next;
+				}
+			}
+		} else {
+			for (FutureEventIndex.Chain chain : ctx.futureIndex.chainsOf(src)) {
+				SimEvent ev = chain.head;
+				while (ev != null) {
+					SimEvent next = ev.indexNext;
+					if (p.match(ev)) {
+						cancelFutureEvent(ctx, ev);
+						cancelled = true;
+					}
+					ev = next;
+				}
+			}
+		}
+
+		if (outbox != null) {
+			for (int i = 0; i < outbox.events.size(); i++) {
+				SimEvent ev = outbox.events.get(i);
+				if (ev != null && ev.getSource() == src && p.match(ev)) {
+					outbox.events.set(i, null);
+					recordCancelled(ctx, ev);
+					cancelled = true;
+				}
+			}
+		}
+
+		if (cancelled) {
+			purgeCancelledEvents(ctx);
+		}
+		return cancelled;
+	}
+
+	/**
+	 * Enables or disables event pooling. When it is enabled, the events are taken from a pool of
+	 * free events when they are scheduled and are put back into the pool once they have been
+	 * processed, i.e. after {@link SimEntity#processEvent(SimEvent)} returns. This keeps long
+	 * simulations from allocating one object per event, but entities must not keep references to
+	 * the events they process: they should keep a copy made by {@link SimEvent#clone()} instead.
+	 * <p>
+	 * Pooling pays off with a future event list that does not allocate on insertion, such as
+	 * {@link HeapFutureQueue} or {@link CalendarFutureQueue}.
+	 * 
+	 * @param enabled <tt>true</tt> to recycle events
+	 */
+	public static void setEventPoolingEnabled(boolean enabled) {
+		SimulationContext ctx = getContext();
+		ctx.eventPooling = enabled;
+		if (!enabled) {
+			ctx.freeEvents = null;
+			ctx.freeEventCount = 0;
+		}
+	}
+
+	/**
+	 * Checks if event pooling is enabled.
+	 * 
+	 * @return <tt>true</tt> if events are recycled after being processed
+	 * @see #setEventPoolingEnabled(boolean)
+	 */
+	public static boolean isEventPoolingEnabled() {
+		return getContext().eventPooling;
+	}
+
+	/**
+	 * Sets the number of threads running the entities. With more than one thread, the entities of
+	 * different partitions that have events to process at the same simulation time are run
+	 * concurrently, while the entities of a partition are run one after the other, in the order of
+	 * their ids. The events sent by the entities are added to the future event queue once all the
+	 * partitions are done, in the order the sequential kernel would add them, so the results of a
+	 * simulation don't depend on the number of threads.
+	 * <p>
+	 * Entities of different partitions must only interact through events. The static services they
+	 * share have to be thread-safe, and results only stay the same if the order in which the
+	 * entities update such services does not matter. While the partitions are running, entities
+	 * cannot be added and the simulation can only be stopped by {@link #abruptallyTerminate()}.
+	 * <p>
+	 * The number of threads is used by the next simulation to be started.
+	 * 
+	 * @param threads the number of threads, including the simulation thread; 1 runs all the
+	 *            entities on the simulation thread
+	 * @see #setPartition(int, int)
+	 */
+	public static void setParallelThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("The number of threads must be positive.");
+		}
+		getContext().parallelThreads = threads;
+	}
+
+	/**
+	 * Gets the number of threads running the entities.
+	 * 
+	 * @return the number of threads
+	 * @see #setParallelThreads(int)
+	 */
+	public static int getParallelThreads() {
+		return getContext().parallelThreads;
+	}
+
+	/**
+	 * Assigns an entity to a partition. Entities are in partition 0 until they are assigned to
+	 * another one.
+	 * 
+	 * @param entityId the id of the entity
+	 * @param partition the partition
+	 * @see #setParallelThreads(int)
+	 */
+	public static void setPartition(int entityId, int partition) {
+		SimulationContext ctx = getContext();
+		if (partition < 0) {
+			throw new IllegalArgumentException("The partition can't be negative.");
+		}
+		while (ctx.partitions.size() <= entityId) {
+			ctx.partitions.add(0);
+		}
+		ctx.partitions.set(entityId, partition);
+	}
+
+	/**
+	 * Gets the partition of an entity.
+	 * 
+	 * @param entityId the id of the entity
+	 * @return the partition
+	 * @see #setPartition(int, int)
+	 */
+	public static int getPartition(int entityId) {
+		SimulationContext ctx = getContext();
+		return entityId < ctx.partitions.size() ? ctx.partitions.get(entityId) : 0;
+	}
+
+	/**
+	 * Enables or disables the profiling of the event loop. When it is enabled, the next simulations
+	 * record, for each entity class and event tag, the events delivered, processed and cancelled
+	 * and the time spent processing them, as well as the depths of the event queues.
+	 * 
+	 * @param enabled <tt>true</tt> to profile the next simulations
+	 * @see #getProfile()
+	 */
+	public static void setProfilingEnabled(boolean enabled) {
+		getContext().profiling = enabled;
+	}
+
+	/**
+	 * Checks if the event loop is profiled.
+	 * 
+	 * @return <tt>true</tt> if the next simulations are profiled
+	 */
+	public static boolean isProfilingEnabled() {
+		return getContext().profiling;
+	}
+
+	/**
+	 * Gets the profile of the last simulation started with profiling enabled. The profile is still
+	 * available once the simulation is over.
+	 * 
+	 * @return the profile, or <tt>null</tt> if the last simulation has not been profiled
+	 */
+	public static SimulationProfile getProfile() {
+		return getContext().profile;
+	}
+
+	/**
+	 * Sets the file the profile is written to by {@link #stopSimulation()}. A file name ending
+	 * with <tt>.json</tt> gets the whole profile as JSON; otherwise the event statistics are written
+	 * as CSV and the queue depths are written as CSV to the same name followed by
+	 * <tt>.depths.csv</tt>.
+	 * 
+	 * @param fileName the name of the file, or <tt>null</tt> to keep the profile in memory only
+	 */
+	public static void setProfileOutput(String fileName) {
+		getContext().profileOutput = fileName;
+	}
+
+	/**
+	 * Writes the profile to the profile output, if both are set.
+	 * 
+	 * @param ctx the simulation context
+	 */
+	private static void writeProfile(SimulationContext ctx) {
+		if (ctx.profile == null || ctx.profileOutput == null) {
+			return;
+		}
+		try {
+			if (ctx.profileOutput.endsWith(".json")) {
+				Writer out = new BufferedWriter(new FileWriter(ctx.profileOutput));
+				try {
+					ctx.profile.writeJson(out);
+				} finally {
+					out.close();
+				}
+			} else {
+				Writer out = new BufferedWriter(new FileWriter(ctx.profileOutput));
+				try {
+					ctx.profile.writeEventsCsv(out);
+				} finally {
+					out.close();
+				}
+				out = new BufferedWriter(new FileWriter(ctx.profileOutput + ".depths.csv"));
+				try {
+					ctx.profile.writeDepthsCsv(out);
+				} finally {
+					out.close();
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Traces the events of the next simulations to a file, see {@link EventTrace}. Each event
+	 * delivered to an entity is recorded with a descriptor of its data; the data itself is
+	 * recorded for the events delivered to the given entities, which can then be driven from the
+	 * trace by {@link EventTraceReplay}.
+	 * 
+	 * @param fileName the name of the trace file, or <tt>null</tt> to stop tracing
+	 * @param dataEntities the names of the entities whose events have their data recorded
+	 */
+	public static void setEventTrace(String fileName, String... dataEntities) {
+		SimulationContext ctx = getContext();
+		ctx.traceOutput = fileName;
+		ctx.traceDataEntities = new HashSet<String>(Arrays.asList(dataEntities));
+	}
+
+	/**
+	 * Records an event delivered to its destination, when the events are traced. The trace is
+	 * closed if it can't be written.
+	 * 
+	 * @param ctx the simulation context
+	 * @param e the event
+	 */
+	private static void traceEvent(SimulationContext ctx, SimEvent e) {
+		try {
+			ctx.trace.record(e);
+		} catch (IOException ex) {
+			ex.printStackTrace();
+			closeTrace(ctx);
+		}
+	}
+
+	/**
+	 * Closes the trace of the simulation, if the events are traced.
+	 * 
+	 * @param ctx the simulation context
+	 */
+	private static void closeTrace(SimulationContext ctx) {
+		if (ctx.trace == null) {
+			return;
+		}
+		try {
+			ctx.trace.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		ctx.trace = null;
+	}
+
+	/**
+	 * Requests a checkpoint of the simulation. Once all the events up to the given time have been
+	 * processed, and before any later event is, the whole simulation context, i.e. the entities,
+	 * the event queues and the state of the other modules, is written to the given file. The
+	 * simulation then goes on as usual. If the simulation runs out of events before that time, the
+	 * checkpoint is written when it ends, and restoring it ends the simulation again; if the
+	 * simulation is terminated before that time, no checkpoint is written and a message says so.
+	 * <p>
+	 * The checkpoint is a compressed serialized form of the context, so the entities and all the
+	 * objects they reference have to be serializable. It can be restored by a build whose
+	 * simulation classes have compatible serialized forms.
+	 * 
+	 * @param time the simulated time of the checkpoint
+	 * @param fileName the file the checkpoint is written to
+	 * @return <tt>true</tt> if the checkpoint has been scheduled, <tt>false</tt> if the time is
+	 *         already past
+	 * @see #restoreSimulation(String)
+	 */
+	public static boolean checkpointSimulation(double time, String fileName) {
+		SimulationContext ctx = getContext();
+		if (time < ctx.clock) {
+			return false;
+		}
+		ctx.checkpointAt = time;
+		ctx.checkpointFile = fileName;
+		return true;
+	}
+
+	/**
+	 * Restores a simulation from a checkpoint and binds its context to the current thread. The
+	 * simulation resumes from the time of the checkpoint with the next call to
+	 * {@link #startSimulation()}; its entities can be looked up by name with
+	 * {@link #getEntity(String)} beforehand. A checkpoint can be restored any number of times,
+	 * e.g. to run several continuations of the same simulation.
+	 * 
+	 * @param fileName the file the checkpoint has been written to
+	 * @return the restored context
+	 * @throws IOException if the checkpoint can't be read
+	 * @see #checkpointSimulation(double, String)
+	 */
+	public static SimulationContext restoreSimulation(final String fileName) throws IOException {
+		final Object[] result = new Object[1];
+		runWithLargeStack(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					ObjectInputStream in = new ObjectInputStream(new GZIPInputStream(
+							new BufferedInputStream(new FileInputStream(fileName))));
+					try {
+						result[0] = in.readObject();
+					} finally {
+						in.close();
+					}
+				} catch (Exception e) {
+					result[0] = e;
+				}
+			}
+		});
+		if (result[0] instanceof IOException) {
+			throw (IOException) result[0];
+		} else if (result[0] instanceof Exception) {
+			throw new IOException("Invalid checkpoint " + fileName, (Exception) result[0]);
+		}
+
+		SimulationContext ctx = (SimulationContext) result[0];
+		if (ctx.running && ctx.parallelThreads > 1) {
+			ctx.parallel = new ParallelRunPhase(ctx.parallelThreads);
+		}
+		setContext(ctx);
+		return ctx;
+	}
+
+	/**
+	 * Writes the checkpoint requested with {@link #checkpointSimulation(double, String)}.
+	 * 
+	 * @param ctx the simulation context
+	 */
+	private static void writeCheckpoint(final SimulationContext ctx) {
+		final String fileName = ctx.checkpointFile;
+		ctx.checkpointAt = -1;
+		ctx.checkpointFile = null;
+		final IOException[] failure = new IOException[1];
+		runWithLargeStack(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(
+							new BufferedOutputStream(new FileOutputStream(fileName))));
+					try {
+						out.writeObject(ctx);
+					} finally {
+						out.close();
+					}
+				} catch (IOException e) {
+					failure[0] = e;
+				}
+			}
+		});
+		if (failure[0] != null) {
+			failure[0].printStackTrace();
+		} else {
+			printMessage("Simulation: Checkpoint written to " + fileName + ".");
+		}
+	}
+
+	/**
+	 * Runs a task on a thread with a large stack and waits for it. Serialization recurses along
+	 * the references between objects, e.g. along the dependencies of a workflow, which can be
+	 * much deeper than the default stack allows.
+	 * 
+	 * @param task the task
+	 */
+	private static void runWithLargeStack(Runnable task) {
+		Thread thread = new Thread(null, task, "CloudSim-checkpoint", 1L << 28);
+		thread.start();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Gets the outbox of the entity run by the current thread, when entities are running
+	 * concurrently.
+	 * 
+	 * @param ctx the simulation context
+	 * @return the outbox, or <tt>null</tt> if the effects of the entity apply immediately
+	 */
+	private static ParallelRunPhase.Outbox outbox(SimulationContext ctx) {
+		if (ctx.parallel == null || !ctx.parallel.isActive()) {
+			return null;
+		}
+		return ParallelRunPhase.currentOutbox();
+	}
+
+	/**
+	 * Gets the time of an event sent with a delay. With an integer clock, the time is rounded to
+	 * the nearest tick, and a positive delay is at least one tick.
+	 * 
+	 * @param ctx the simulation context
+	 * @param delay the delay
+	 * @return the event time
+	 */
+	private static double eventTime(SimulationContext ctx, double delay) {
+		if (ctx.tickLength <= 0) {
+			return ctx.clock + delay;
+		}
+		long ticks = Math.round(delay / ctx.tickLength);
+		if (ticks == 0 && delay > 0) {
+			ticks = 1;
+		}
+		return (Math.round(ctx.clock / ctx.tickLength) + ticks) * ctx.tickLength;
+	}
+
+	/**
+	 * Creates an event, taking it from the event pool when pooling is enabled.
+	 * 
+	 * @param ctx the simulation context
+	 * @param evtype the internal type
+	 * @param time the event time
+	 * @param src the source entity
+	 * @param dest the destination entity
+	 * @param tag the tag
+	 * @param data the data
+	 * @return the event
+	 */
+	private static SimEvent newEvent(SimulationContext ctx, int evtype, double time, int src,
+			int dest, int tag, Object data) {
+		SimEvent e = ctx.freeEvents;
+		if (e == null || outbox(ctx) != null) {
+			return new SimEvent(evtype, time, src, dest, tag, data);
+		}
+		ctx.freeEvents = e.indexNext;
+		ctx.freeEventCount--;
+		e.reset(evtype, time, src, dest, tag, data);
+		return e;
+	}
+
+	/**
+	 * Puts a processed event back into the event pool. Nothing happens when pooling is disabled.
+	 * 
+	 * @param e the event
+	 */
+	static void releaseEvent(SimEvent e) {
+		SimulationContext ctx = getContext();
+		if (!ctx.eventPooling || e.getType() == SimEvent.ENULL
+				|| ctx.freeEventCount >= MAX_POOLED_EVENTS || outbox(ctx) != null) {
+			return;
+		}
+		e.release();
+		e.indexNext = ctx.freeEvents;
+		ctx.freeEvents = e;
+		ctx.freeEventCount++;
+	}
+
+	/**
+	 * Adds an event to the future event queue and to its index.
+	 * 
+	 * @param ctx the simulation context
+	 * @param e the event
+	 */
+	private static void addFutureEvent(SimulationContext ctx, SimEvent e) {
+		ParallelRunPhase.Outbox outbox = outbox(ctx);
+		if (outbox != null) {
+			outbox.add(e, false);
+			return;
+		}
+		ctx.future.addEvent(e);
+		ctx.futureIndex.add(e);
+	}
+
+	/**
+	 * Removes and returns the first event of the future event queue, skipping cancelled events.
+	 * 
+	 * @param ctx the simulation context
+	 * @return the event, or <tt>null</tt> if there are no more future events
+	 */
+	private static SimEvent pollFutureEvent(SimulationContext ctx) {
+		SimEvent e = ctx.future.poll();
+		while (e != null && e.cancelled) {
+			ctx.cancelledEvents--;
+			e = ctx.future.poll();
+		}
+		if (e != null) {
+			ctx.futureIndex.remove(e);
+		}
+		return e;
+	}
+
+	/**
+	 * Returns the first event of the future event queue without removing it. Cancelled events
+	 * found at the head of the queue are discarded.
+	 * 
+	 * @param ctx the simulation context
+	 * @return the event, or <tt>null</tt> if there are no more future events
+	 */
+	private static SimEvent peekFutureEvent(SimulationContext ctx) {
+		SimEvent e = ctx.future.peek();
+		while (e != null && e.cancelled) {
+			ctx.future.poll();
+			ctx.cancelledEvents--;
+			e = ctx.future.peek();
+		}
+		return e;
+	}
+
+	/**
+	 * Marks a future event as cancelled. The event stays in the future event queue until it is
+	 * discarded at the head of the queue or by {@link #purgeCancelledEvents(SimulationContext)}.
+	 * 
+	 * @param ctx the simulation context
+	 * @param e the event
+	 */
+	private static void cancelFutureEvent(SimulationContext ctx, SimEvent e) {
+		ctx.futureIndex.remove(e);
+		e.cancelled = true;
+		recordCancelled(ctx, e);
+		ParallelRunPhase.Outbox outbox = outbox(ctx);
+		if (outbox != null) {
+			outbox.cancelledEvents++;
+		} else {
+			ctx.cancelledEvents++;
+		}
+	}
+
+	/**
+	 * Records a cancelled event in the profile, when the event loop is profiled.
+	 * 
+	 * @param ctx the simulation context
+	 * @param e the event
+	 */
+	private static void recordCancelled(SimulationContext ctx, SimEvent e) {
+		if (ctx.profile != null) {
+			ctx.profile.eventCancelled(ctx.entities.get(e.getSource()), e.getTag());
+		}
+	}
+
+	/**
+	 * Removes the cancelled events from the future event queue once they make up more than half of
+	 * it, so that tombstones can't make the queue grow unboundedly.
+	 * 
+	 * @param ctx the simulation context
+	 */
+	private static void purgeCancelledEvents(SimulationContext ctx) {
+		if (outbox(ctx) != null || ctx.cancelledEvents < 64 || ctx.cancelledEvents * 2 < ctx.future.size()) {
+			return;
+		}
+		Set<SimEvent> cancelled = new HashSet<SimEvent>();
+		Iterator<SimEvent> iter = ctx.future.iterator();
 		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
+			SimEvent ev = iter.next();
+			if (ev.cancelled) {
+				cancelled.add(ev);
 			}
 		}
-		return previousSize < future.size();
+		ctx.future.removeAll(cancelled);
+		ctx.cancelledEvents = 0;
 	}
 
 	//
@@ -745,16 +1473,17 @@ public class CloudSim {
 	/**
 	 * Processes an event.
 	 * 
+	 * @param ctx the simulation context
 	 * @param e the e
 	 */
-	private static void processEvent(SimEvent e) {
+	private static void processEvent(SimulationContext ctx, SimEvent e) {
 		int dest, src;
 		SimEntity dest_ent;
 		// Update the system's clock
-		if (e.eventTime() < clock) {
+		if (e.eventTime() < ctx.clock) {
 			throw new IllegalArgumentException("Past event detected.");
 		}
-		clock = e.eventTime();
+		ctx.clock = e.eventTime();
 
 		// Ok now process it
 		switch (e.getType()) {
@@ -764,6 +1493,7 @@ public class CloudSim {
 			case SimEvent.CREATE:
 				SimEntity newe = (SimEntity) e.getData();
 				addEntityDynamically(newe);
+				releaseEvent(e);
 				break;
 
 			case SimEvent.SEND:
@@ -773,19 +1503,25 @@ public class CloudSim {
 					throw new IllegalArgumentException("Attempt to send to a null entity detected.");
 				} else {
 					int tag = e.getTag();
-					dest_ent = entities.get(dest);
+					dest_ent = ctx.entities.get(dest);
+					if (ctx.profile != null) {
+						ctx.profile.eventDelivered(dest_ent, tag);
+					}
+					if (ctx.trace != null) {
+						traceEvent(ctx, e);
+					}
 					if (dest_ent.getState() == SimEntity.WAITING) {
 						Integer destObj = Integer.valueOf(dest);
-						Predicate p = waitPredicates.get(destObj);
+						Predicate p = ctx.waitPredicates.get(destObj);
 						if ((p == null) || (tag == 9999) || (p.match(e))) {
-							dest_ent.setEventBuffer((SimEvent) e.clone());
+							dest_ent.setEventBuffer(ctx.eventPooling ? e : (SimEvent) e.clone());
 							dest_ent.setState(SimEntity.RUNNABLE);
-							waitPredicates.remove(destObj);
+							ctx.waitPredicates.remove(destObj);
 						} else {
-							deferred.addEvent(e);
+							ctx.deferred.addEvent(e);
 						}
 					} else {
-						deferred.addEvent(e);
+						ctx.deferred.addEvent(e);
 					}
 				}
 				break;
@@ -795,8 +1531,9 @@ public class CloudSim {
 				if (src < 0) {
 					throw new IllegalArgumentException("Null entity holding.");
 				} else {
-					entities.get(src).setState(SimEntity.RUNNABLE);
+					ctx.entities.get(src).setState(SimEntity.RUNNABLE);
 				}
+				releaseEvent(e);
 				break;
 
 			default:
@@ -809,9 +1546,21 @@ public class CloudSim {
 	 * simulations.
 	 */
 	public static void runStart() {
-		running = true;
+		SimulationContext ctx = getContext();
+		ctx.running = true;
+		if (ctx.parallelThreads > 1) {
+			ctx.parallel = new ParallelRunPhase(ctx.parallelThreads);
+		}
+		ctx.profile = ctx.profiling ? new SimulationProfile() : null;
+		if (ctx.traceOutput != null) {
+			try {
+				ctx.trace = new EventTrace(ctx.traceOutput, ctx.entities, ctx.traceDataEntities);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
 		// Start all the entities
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : ctx.entities) {
 			ent.startEntity();
 		}
 
@@ -825,7 +1574,7 @@ public class CloudSim {
 	 * @return if the simulation is still running, otherwise
 	 */
 	public static boolean running() {
-		return running;
+		return getContext().running;
 	}
 
 	/**
@@ -834,8 +1583,9 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation() {
-		paused = true;
-		return paused;
+		SimulationContext ctx = getContext();
+		ctx.paused = true;
+		return ctx.paused;
 	}
 
 	/**
@@ -845,10 +1595,11 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation(long time) {
-		if (time <= clock) {
+		SimulationContext ctx = getContext();
+		if (time <= ctx.clock) {
 			return false;
 		} else {
-			pauseAt = time;
+			ctx.pauseAt = time;
 		}
 		return true;
 	}
@@ -859,13 +1610,14 @@ public class CloudSim {
 	 * @return if the simulation has been restarted or or otherwise.
 	 */
 	public static boolean resumeSimulation() {
-		paused = false;
+		SimulationContext ctx = getContext();
+		ctx.paused = false;
 
-		if (pauseAt <= clock) {
-			pauseAt = -1;
+		if (ctx.pauseAt <= ctx.clock) {
+			ctx.pauseAt = -1;
 		}
 
-		return !paused;
+		return !ctx.paused;
 	}
 
 	/**
@@ -875,29 +1627,35 @@ public class CloudSim {
 	 * @return the double last clock value
 	 */
 	public static double run() {
-		if (!running) {
+		SimulationContext ctx = getContext();
+		if (!ctx.running) {
 			runStart();
 		}
 		while (true) {
-			if (runClockTick() || abruptTerminate) {
+			if (runClockTick() || ctx.abruptTerminate) {
 				break;
 			}
 
 			// this block allows termination of simulation at a specific time
-			if (terminateAt > 0.0 && clock >= terminateAt) {
+			if (ctx.terminateAt > 0.0 && ctx.clock >= ctx.terminateAt) {
 				terminateSimulation();
-				clock = terminateAt;
+				ctx.clock = ctx.terminateAt;
 				break;
 			}
 
-			if (pauseAt != -1
-					&& ((future.size() > 0 && clock <= pauseAt && pauseAt <= future.iterator().next()
-							.eventTime()) || future.size() == 0 && pauseAt <= clock)) {
+			SimEvent next = peekFutureEvent(ctx);
+			if (ctx.checkpointAt != -1 && next != null && ctx.checkpointAt < next.eventTime()) {
+				writeCheckpoint(ctx);
+			}
+
+			if (ctx.pauseAt != -1
+					&& ((next != null && ctx.clock <= ctx.pauseAt && ctx.pauseAt <= next.eventTime())
+							|| next == null && ctx.pauseAt <= ctx.clock)) {
 				pauseSimulation();
-				clock = pauseAt;
+				ctx.clock = ctx.pauseAt;
 			}
 
-			while (paused) {
+			while (ctx.paused) {
 				try {
 					Thread.sleep(100);
 				} catch (InterruptedException e) {
@@ -906,7 +1664,15 @@ public class CloudSim {
 			}
 		}
 
-		double clock = clock();
+		if (ctx.checkpointAt != -1) {
+			printMessage("Simulation: The checkpoint to " + ctx.checkpointFile
+					+ " has not been taken, the simulation was terminated before " + ctx.checkpointAt
+					+ ".");
+			ctx.checkpointAt = -1;
+			ctx.checkpointFile = null;
+		}
+
+		double clock = ctx.clock;
 
 		finishSimulation();
 		runStop();
@@ -919,39 +1685,51 @@ public class CloudSim {
 	 * in user simulations.
 	 */
 	public static void finishSimulation() {
+		SimulationContext ctx = getContext();
 		// Allow all entities to exit their body method
-		if (!abruptTerminate) {
-			for (SimEntity ent : entities) {
+		if (!ctx.abruptTerminate) {
+			for (SimEntity ent : ctx.entities) {
 				if (ent.getState() != SimEntity.FINISHED) {
 					ent.run();
 				}
 			}
 		}
 
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : ctx.entities) {
 			ent.shutdownEntity();
 		}
 
+		if (ctx.parallel != null) {
+			ctx.parallel.shutdown();
+			ctx.parallel = null;
+		}
+		closeTrace(ctx);
+
 		// reset all static variables
 		// Private data members
-		entities = null;
-		entitiesByName = null;
-		future = null;
-		deferred = null;
-		clock = 0L;
-		running = false;
-
-		waitPredicates = null;
-		paused = false;
-		pauseAt = -1;
-		abruptTerminate = false;
+		ctx.entities = null;
+		ctx.entitiesByName = null;
+		ctx.partitions = null;
+		ctx.future = null;
+		ctx.futureIndex = null;
+		ctx.cancelledEvents = 0;
+		ctx.freeEvents = null;
+		ctx.freeEventCount = 0;
+		ctx.deferred = null;
+		ctx.clock = 0L;
+		ctx.running = false;
+
+		ctx.waitPredicates = null;
+		ctx.paused = false;
+		ctx.pauseAt = -1;
+		ctx.abruptTerminate = false;
 	}
 
 	/**
 	 * Abruptally terminate.
 	 */
 	public static void abruptallyTerminate() {
-		abruptTerminate = true;
+		getContext().abruptTerminate = true;
 	}
 
 	/**
@@ -969,7 +1747,7 @@ public class CloudSim {
 	 * @return true, if is paused
 	 */
 	public static boolean isPaused() {
-		return paused;
+		return getContext().paused;
 	}
 
 }
@@ -8,81 +8,449 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
- * This class implements the deferred event queue used by {@link Simulation}. The event queue uses a
- * linked list to store the events.
- * 
+ * This class implements the deferred event queue used by {@link Simulation}. The events are kept in
+ * one linked list per destination entity, so that looking up the events waiting for an entity only
+ * touches the events of that entity. Within a destination the events are ordered by event time and,
+ * for events with the same time, by the order in which they have been deferred.
+ * <p>
+ * When an entity is queried with a {@link PredicateType}, a secondary index by tag is built for
+ * that entity and maintained from then on, so that tag lookups only touch the events carrying the
+ * requested tags.
+ * <p>
+ * Entities may select their own events concurrently, as long as no event is being added.
+ * <p>
+ * The queue is serialized as the list of events of each destination rather than as linked nodes,
+ * so that a checkpoint does not recurse along the lists.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see Simulation
  * @see SimEvent
  */
-public class DeferredQueue {
+public class DeferredQueue implements Serializable {
 
-	/** The list. */
-	private final List<SimEvent> list = new LinkedList<SimEvent>();
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
 
-	/** The max time. */
-	private double maxTime = -1;
+	/** The queues of the destination entities, indexed by entity id. */
+	private transient List<EntityQueue> queues = new ArrayList<EntityQueue>();
+
+	/** The sequence number of the next deferred event, used to order events with equal times. */
+	private long sequence = 0;
 
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
 	 * of the events.
-	 * 
+	 *
 	 * @param newEvent The event to be added to the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
-		// The event has to be inserted as the last of all events
-		// with the same event_time(). Yes, this matters.
-		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
-			list.add(newEvent);
-			maxTime = eventTime;
-			return;
+		int dest = newEvent.getDestination();
+		while (queues.size() <= dest) {
+			queues.add(null);
+		}
+		EntityQueue queue = queues.get(dest);
+		if (queue == null) {
+			queue = new EntityQueue();
+			queues.set(dest, queue);
 		}
+		Node node = queue.freeNodes;
+		if (node == null) {
+			node = new Node();
+		} else {
+			queue.freeNodes = node.next;
+		}
+		node.event = newEvent;
+		node.sequence = sequence++;
+		queue.add(node);
+	}
 
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
-				iterator.add(newEvent);
-				return;
+	/**
+	 * Counts the events waiting for an entity that match a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int count(int dest, Predicate p) {
+		EntityQueue queue = getQueue(dest);
+		if (queue == null) {
+			return 0;
+		}
+		if (p instanceof PredicateAny) {
+			return queue.size;
+		}
+		if (p instanceof PredicateType) {
+			int count = 0;
+			for (int tag : ((PredicateType) p).getTags()) {
+				Node node = queue.tagHead(tag);
+				while (node != null) {
+					count++;
+					node = node.tagNext;
+				}
 			}
+			return count;
 		}
+		int count = 0;
+		for (Node node = queue.head; node != null; node = node.next) {
+			if (p.match(node.event)) {
+				count++;
+			}
+		}
+		return count;
+	}
 
-		list.add(newEvent);
+	/**
+	 * Finds the first event waiting for an entity that matches a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matches
+	 */
+	public SimEvent findFirst(int dest, Predicate p) {
+		Node node = findFirstNode(dest, p);
+		return node == null ? null : node.event;
+	}
+
+	/**
+	 * Removes and returns the first event waiting for an entity that matches a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matches
+	 */
+	public SimEvent select(int dest, Predicate p) {
+		Node node = findFirstNode(dest, p);
+		if (node == null) {
+			return null;
+		}
+		SimEvent event = node.event;
+		EntityQueue queue = getQueue(dest);
+		queue.remove(node);
+		queue.release(node);
+		return event;
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
-	 * 
+	 * Returns an iterator to the events in the queue. The events are grouped by destination entity
+	 * and, within a destination, are returned in temporal order.
+	 *
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+		return new Iterator<SimEvent>() {
+
+			private int dest = -1;
+
+			private Node next = null;
+
+			private Node last = null;
+
+			@Override
+			public boolean hasNext() {
+				while (next == null && dest + 1 < queues.size()) {
+					EntityQueue queue = queues.get(++dest);
+					next = queue == null ? null : queue.head;
+				}
+				return next != null;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = next;
+				next = next.next;
+				return last.event;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				EntityQueue queue = queues.get(last.event.getDestination());
+				queue.remove(last);
+				queue.release(last);
+				last = null;
+			}
+		};
 	}
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		int size = 0;
+		for (EntityQueue queue : queues) {
+			if (queue != null) {
+				size += queue.size;
+			}
+		}
+		return size;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		queues.clear();
+	}
+
+	/**
+	 * Writes the events of each destination, in order, with their sequence numbers.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(queues.size());
+		for (EntityQueue queue : queues) {
+			out.writeInt(queue == null ? -1 : queue.size);
+			if (queue != null) {
+				for (Node node = queue.head; node != null; node = node.next) {
+					out.writeObject(node.event);
+					out.writeLong(node.sequence);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the events written by {@link #writeObject(ObjectOutputStream)} and links them again.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int count = in.readInt();
+		queues = new ArrayList<EntityQueue>(count);
+		for (int dest = 0; dest < count; dest++) {
+			int size = in.readInt();
+			EntityQueue queue = size < 0 ? null : new EntityQueue();
+			for (int i = 0; i < size; i++) {
+				Node node = new Node();
+				node.event = (SimEvent) in.readObject();
+				node.sequence = in.readLong();
+				queue.add(node);
+			}
+			queues.add(queue);
+		}
+	}
+
+	/**
+	 * Gets the queue of a destination entity.
+	 *
+	 * @param dest the id of the destination entity
+	 * @return the queue, or <tt>null</tt> if no event has ever been deferred for the entity
+	 */
+	private EntityQueue getQueue(int dest) {
+		if (dest < 0 || dest >= queues.size()) {
+			return null;
+		}
+		return queues.get(dest);
+	}
+
+	/**
+	 * Finds the node of the first event waiting for an entity that matches a predicate.
+	 *
+	 * @param dest the id of the destination entity
+	 * @param p the predicate
+	 * @return the node, or <tt>null</tt> if no event matches
+	 */
+	private Node findFirstNode(int dest, Predicate p) {
+		EntityQueue queue = getQueue(dest);
+		if (queue == null) {
+			return null;
+		}
+		if (p instanceof PredicateAny) {
+			return queue.head;
+		}
+		if (p instanceof PredicateType) {
+			Node first = null;
+			for (int tag : ((PredicateType) p).getTags()) {
+				Node node = queue.tagHead(tag);
+				if (node != null && (first == null || node.precedes(first))) {
+					first = node;
+				}
+			}
+			return first;
+		}
+		for (Node node = queue.head; node != null; node = node.next) {
+			if (p.match(node.event)) {
+				return node;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * A deferred event, linked both in the list of its destination and in the list of its tag.
+	 */
+	private static class Node {
+
+		SimEvent event;
+
+		long sequence;
+
+		Node prev, next;
+
+		Node tagPrev, tagNext;
+
+		/**
+		 * Checks whether this node comes before another node of the same destination.
+		 */
+		boolean precedes(Node other) {
+			double time = event.eventTime();
+			double otherTime = other.event.eventTime();
+			return time < otherTime || (time == otherTime && sequence < other.sequence);
+		}
+	}
+
+	/**
+	 * The head and tail of a list of nodes.
+	 */
+	private static class TagList {
+
+		Node head, tail;
+	}
+
+	/**
+	 * The deferred events of one destination entity.
+	 */
+	private static class EntityQueue {
+
+		Node head, tail;
+
+		int size = 0;
+
+		/** The lists of nodes by tag; <tt>null</tt> until the entity is first queried by tag. */
+		Map<Integer, TagList> tags;
+
+		/** The nodes released by removed events, linked through {@link Node#next}, for reuse. */
+		Node freeNodes;
+
+		void add(Node node) {
+			// The event has to be inserted as the last of all events
+			// with the same event_time(). Yes, this matters.
+			double eventTime = node.event.eventTime();
+			Node after = tail;
+			while (after != null && after.event.eventTime() > eventTime) {
+				after = after.prev;
+			}
+			node.prev = after;
+			node.next = after == null ? head : after.next;
+			if (node.prev == null) {
+				head = node;
+			} else {
+				node.prev.next = node;
+			}
+			if (node.next == null) {
+				tail = node;
+			} else {
+				node.next.prev = node;
+			}
+			size++;
+
+			if (tags != null) {
+				addToTagList(node);
+			}
+		}
+
+		void remove(Node node) {
+			if (node.prev == null) {
+				head = node.next;
+			} else {
+				node.prev.next = node.next;
+			}
+			if (node.next == null) {
+				tail = node.prev;
+			} else {
+				node.next.prev = node.prev;
+			}
+			size--;
+
+			if (tags != null) {
+				TagList list = tags.get(node.event.getTag());
+				if (node.tagPrev == null) {
+					list.head = node.tagNext;
+				} else {
+					node.tagPrev.tagNext = node.tagNext;
+				}
+				if (node.tagNext == null) {
+					list.tail = node.tagPrev;
+				} else {
+					node.tagNext.tagPrev = node.tagPrev;
+				}
+			}
+		}
+
+		/**
+		 * Makes the node of a removed event available for reuse.
+		 */
+		void release(Node node) {
+			node.event = null;
+			node.prev = null;
+			node.tagPrev = null;
+			node.tagNext = null;
+			node.next = freeNodes;
+			freeNodes = node;
+		}
+
+		/**
+		 * Gets the first node with a given tag, building the tag index on first use.
+		 */
+		Node tagHead(int tag) {
+			if (tags == null) {
+				tags = new HashMap<Integer, TagList>();
+				for (Node node = head; node != null; node = node.next) {
+					addToTagList(node);
+				}
+			}
+			TagList list = tags.get(tag);
+			return list == null ? null : list.head;
+		}
+
+		private void addToTagList(Node node) {
+			Integer tag = node.event.getTag();
+			TagList list = tags.get(tag);
+			if (list == null) {
+				list = new TagList();
+				tags.put(tag, list);
+			}
+			double eventTime = node.event.eventTime();
+			Node after = list.tail;
+			while (after != null && after.event.eventTime() > eventTime) {
+				after = after.tagPrev;
+			}
+			node.tagPrev = after;
+			node.tagNext = after == null ? list.head : after.tagNext;
+			if (node.tagPrev == null) {
+				list.head = node;
+			} else {
+				node.tagPrev.tagNext = node;
+			}
+			if (node.tagNext == null) {
+				list.tail = node;
+			} else {
+				node.tagNext.tagPrev = node;
+			}
+		}
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,670 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Vm;
+
+/**
+ * A binary trace of the events delivered to the entities of a simulation. Every event is recorded
+ * when the kernel delivers it, as a fixed-size record holding its time, source, destination, tag
+ * and a descriptor of its data: the kind of the data and an identifying value, e.g. the id of a
+ * cloudlet or the size of a list. The records are appended to a memory-mapped file, so tracing
+ * costs little more than copying the record.
+ * <p>
+ * The data of the events delivered to selected entities can be recorded as well, so that these
+ * entities can be driven from the trace alone by {@link EventTraceReplay}. The data is serialized
+ * to a side file, named after the trace followed by <tt>.data</tt>, and the object stream is reset
+ * after each record, so the stream keeps no traced object reachable. A cloudlet is serialized in
+ * full only the first time it is recorded, and later records refer to it by number, so a replayed
+ * entity gets the same cloudlet object each time it was delivered the same cloudlet. The cloudlets
+ * an event carries, as its data or in a list, come with their state at the time of the event, e.g.
+ * the status, vm and finish time of a returned job; the cloudlets they only refer to, e.g. their
+ * parents, keep the state of the event that first recorded them.
+ * <p>
+ * The trace starts with a header holding the number of records and the names of the entities,
+ * then the records follow, in the order of delivery.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see CloudSim#setEventTrace(String, String...)
+ * @see EventTraceReplay
+ */
+public class EventTrace {
+
+	/** The number starting a trace file. */
+	private static final int MAGIC = 0x43535452;
+
+	/** The version of the trace format. */
+	private static final int VERSION = 2;
+
+	/** The offset of the number of records in the header. */
+	private static final int RECORDS_OFFSET = 8;
+
+	/** The size of a record, in bytes. */
+	public static final int RECORD_SIZE = 25;
+
+	/** The size of the regions of the file mapped at once, a multiple of the record size. */
+	private static final int REGION_SIZE = RECORD_SIZE * (1 << 17);
+
+	/** The kind of the events without data. */
+	public static final byte DATA_NONE = 0;
+
+	/** The kind of the events whose data is an integer; the value is the integer. */
+	public static final byte DATA_INTEGER = 1;
+
+	/** The kind of the events whose data is a cloudlet; the value is the cloudlet id. */
+	public static final byte DATA_CLOUDLET = 2;
+
+	/** The kind of the events whose data is a vm; the value is the vm id. */
+	public static final byte DATA_VM = 3;
+
+	/** The kind of the events whose data is a list; the value is the size of the list. */
+	public static final byte DATA_LIST = 4;
+
+	/** The kind of the events whose data is an array of integers; the value is its length. */
+	public static final byte DATA_INT_ARRAY = 5;
+
+	/** The kind of the events with other data; the value is the hash code of the class name. */
+	public static final byte DATA_OTHER = 6;
+
+	/** The flag of the kinds of the records whose data has been recorded in the side file. */
+	private static final byte DATA_RECORDED = (byte) 0x80;
+
+	/** The trace file. */
+	private final RandomAccessFile file;
+
+	/** The mapped region the records are written to. */
+	private MappedByteBuffer region;
+
+	/** The position of the mapped region in the file. */
+	private long regionStart;
+
+	/** The number of records. */
+	private long records = 0;
+
+	/** Whether the data of the events delivered to each entity is recorded, by entity id. */
+	private final boolean[] recordData;
+
+	/** The stream the data of the events is written to, or <tt>null</tt> if none is recorded. */
+	private DataOutput data;
+
+	/** The fields holding the state of the cloudlets, by class. */
+	private static final Map<Class<?>, Field[]> stateFields = new ConcurrentHashMap<Class<?>, Field[]>();
+
+	/**
+	 * A cloudlet recorded by an earlier event, by the number of its first recording.
+	 */
+	private static class CloudletRef implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int handle;
+
+		CloudletRef(int handle) {
+			this.handle = handle;
+		}
+	}
+
+	/**
+	 * The stream the data of the events is written to. Each record is the data of an event, where
+	 * the cloudlets recorded by earlier events are replaced with references, followed by the state
+	 * of the cloudlets the event carries that were recorded earlier, and by the cloudlets recorded
+	 * for the first time, in the order their numbers were given.
+	 */
+	private static class DataOutput extends ObjectOutputStream {
+
+		/** The numbers of the cloudlets recorded so far, which doesn't keep them reachable. */
+		private final Map<Cloudlet, Integer> handles = new WeakHashMap<Cloudlet, Integer>();
+
+		/** The cloudlets recorded for the first time by the current record. */
+		private final List<Cloudlet> recorded = new ArrayList<Cloudlet>();
+
+		private int nextHandle = 0;
+
+		DataOutput(OutputStream out) throws IOException {
+			super(out);
+			enableReplaceObject(true);
+		}
+
+		/**
+		 * Writes the data of an event.
+		 *
+		 * @param object the data
+		 * @throws IOException if the data can't be written
+		 */
+		void writeRecord(Object object) throws IOException {
+			int first = nextHandle;
+			writeObject(object);
+			for (Cloudlet cloudlet : getCarriedCloudlets(object)) {
+				if (handles.get(cloudlet) >= first) {
+					writeObject(null);
+				} else {
+					writeObject(getState(cloudlet));
+				}
+			}
+			writeObject(recorded.toArray());
+			recorded.clear();
+			reset();
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) throws IOException {
+			if (obj instanceof Cloudlet) {
+				Cloudlet cloudlet = (Cloudlet) obj;
+				Integer handle = handles.get(cloudlet);
+				if (handle != null) {
+					return new CloudletRef(handle);
+				}
+				handles.put(cloudlet, nextHandle++);
+				recorded.add(cloudlet);
+			}
+			return obj;
+		}
+	}
+
+	/**
+	 * The stream the data of the events is read from, see {@link DataOutput}.
+	 */
+	private static class DataInput extends ObjectInputStream {
+
+		/** The cloudlets recorded so far, by number. */
+		private final List<Cloudlet> cloudlets = new ArrayList<Cloudlet>();
+
+		DataInput(InputStream in) throws IOException {
+			super(in);
+			enableResolveObject(true);
+		}
+
+		/**
+		 * Reads the data of an event.
+		 *
+		 * @return the data
+		 * @throws IOException if the data can't be read
+		 * @throws ClassNotFoundException if the class of the data is unknown
+		 */
+		Object readRecord() throws IOException, ClassNotFoundException {
+			Object object = readObject();
+			for (Cloudlet cloudlet : getCarriedCloudlets(object)) {
+				Object[] state = (Object[]) readObject();
+				if (state != null) {
+					setState(cloudlet, state);
+				}
+			}
+			for (Object cloudlet : (Object[]) readObject()) {
+				cloudlets.add((Cloudlet) cloudlet);
+			}
+			return object;
+		}
+
+		@Override
+		protected Object resolveObject(Object obj) throws IOException {
+			if (obj instanceof CloudletRef) {
+				return cloudlets.get(((CloudletRef) obj).handle);
+			}
+			return obj;
+		}
+	}
+
+	/**
+	 * Creates a trace.
+	 *
+	 * @param fileName the name of the trace file
+	 * @param entities the entities of the simulation
+	 * @param dataEntities the names of the entities whose events have their data recorded
+	 * @throws IOException if the trace file can't be created
+	 */
+	EventTrace(String fileName, List<SimEntity> entities, Set<String> dataEntities) throws IOException {
+		file = new RandomAccessFile(fileName, "rw");
+		file.setLength(0);
+		file.writeInt(MAGIC);
+		file.writeInt(VERSION);
+		file.writeLong(0);
+		file.writeInt(entities.size());
+		recordData = new boolean[entities.size()];
+		for (int i = 0; i < entities.size(); i++) {
+			String name = entities.get(i).getName();
+			recordData[i] = dataEntities.contains(name);
+			file.writeUTF(name);
+			file.writeBoolean(recordData[i]);
+		}
+		if (!dataEntities.isEmpty()) {
+			data = new DataOutput(new BufferedOutputStream(new FileOutputStream(fileName + ".data")));
+		}
+		regionStart = file.getFilePointer();
+		region = file.getChannel().map(FileChannel.MapMode.READ_WRITE, regionStart, REGION_SIZE);
+	}
+
+	/**
+	 * Records an event delivered to its destination.
+	 *
+	 * @param e the event
+	 * @throws IOException if the trace can't be written
+	 */
+	void record(SimEvent e) throws IOException {
+		if (!region.hasRemaining()) {
+			regionStart += REGION_SIZE;
+			region = file.getChannel().map(FileChannel.MapMode.READ_WRITE, regionStart, REGION_SIZE);
+		}
+		Object object = e.getData();
+		byte kind;
+		int value;
+		if (object == null) {
+			kind = DATA_NONE;
+			value = 0;
+		} else if (object instanceof Integer) {
+			kind = DATA_INTEGER;
+			value = (Integer) object;
+		} else if (object instanceof Cloudlet) {
+			kind = DATA_CLOUDLET;
+			value = ((Cloudlet) object).getCloudletId();
+		} else if (object instanceof Vm) {
+			kind = DATA_VM;
+			value = ((Vm) object).getId();
+		} else if (object instanceof List) {
+			kind = DATA_LIST;
+			value = ((List<?>) object).size();
+		} else if (object instanceof int[]) {
+			kind = DATA_INT_ARRAY;
+			value = ((int[]) object).length;
+		} else {
+			kind = DATA_OTHER;
+			value = object.getClass().getName().hashCode();
+		}
+
+		int dest = e.getDestination();
+		if (object != null && dest < recordData.length && recordData[dest]) {
+			data.writeRecord(object);
+			kind |= DATA_RECORDED;
+		}
+
+		region.putDouble(e.eventTime());
+		region.putInt(e.getSource());
+		region.putInt(dest);
+		region.putInt(e.getTag());
+		region.put(kind);
+		region.putInt(value);
+		records++;
+	}
+
+	/**
+	 * Gets the number of records written so far.
+	 *
+	 * @return the number of records
+	 */
+	public long getRecordCount() {
+		return records;
+	}
+
+	/**
+	 * Completes the header, trims the unused part of the last mapped region and closes the files.
+	 *
+	 * @throws IOException if the trace can't be written
+	 */
+	void close() throws IOException {
+		long end = regionStart + region.position();
+		region.force();
+		region = null;
+		try {
+			file.seek(RECORDS_OFFSET);
+			file.writeLong(records);
+			file.setLength(end);
+		} finally {
+			file.close();
+			if (data != null) {
+				data.close();
+			}
+		}
+	}
+
+	/**
+	 * Gets the cloudlets an event carries: its data if it is a cloudlet, or the cloudlets of its
+	 * data if it is a list.
+	 *
+	 * @param object the data of the event
+	 * @return the cloudlets
+	 */
+	private static List<Cloudlet> getCarriedCloudlets(Object object) {
+		if (object instanceof Cloudlet) {
+			return Collections.singletonList((Cloudlet) object);
+		}
+		if (!(object instanceof List)) {
+			return Collections.emptyList();
+		}
+		List<Cloudlet> cloudlets = new ArrayList<Cloudlet>();
+		for (Object element : (List<?>) object) {
+			if (element instanceof Cloudlet) {
+				cloudlets.add((Cloudlet) element);
+			}
+		}
+		return cloudlets;
+	}
+
+	/**
+	 * Gets the fields holding the state of the objects of a class: its serialized fields and those
+	 * of its superclasses.
+	 *
+	 * @param type the class
+	 * @return the fields
+	 */
+	private static Field[] getStateFields(Class<?> type) {
+		Field[] fields = stateFields.get(type);
+		if (fields == null) {
+			List<Field> list = new ArrayList<Field>();
+			for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+				for (Field field : c.getDeclaredFields()) {
+					int modifiers = field.getModifiers();
+					if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+						field.setAccessible(true);
+						list.add(field);
+					}
+				}
+			}
+			fields = list.toArray(new Field[list.size()]);
+			stateFields.put(type, fields);
+		}
+		return fields;
+	}
+
+	/**
+	 * Gets the state of a cloudlet.
+	 *
+	 * @param cloudlet the cloudlet
+	 * @return the values of its state fields
+	 */
+	private static Object[] getState(Cloudlet cloudlet) throws IOException {
+		Field[] fields = getStateFields(cloudlet.getClass());
+		Object[] state = new Object[fields.length];
+		try {
+			for (int i = 0; i < fields.length; i++) {
+				state[i] = fields[i].get(cloudlet);
+			}
+		} catch (IllegalAccessException e) {
+			throw new IOException("Can't record the state of cloudlet " + cloudlet.getCloudletId(), e);
+		}
+		return state;
+	}
+
+	/**
+	 * Sets the state of a cloudlet.
+	 *
+	 * @param cloudlet the cloudlet
+	 * @param state the values of its state fields
+	 */
+	private static void setState(Cloudlet cloudlet, Object[] state) throws IOException {
+		Field[] fields = getStateFields(cloudlet.getClass());
+		try {
+			for (int i = 0; i < fields.length; i++) {
+				fields[i].set(cloudlet, state[i]);
+			}
+		} catch (IllegalAccessException e) {
+			throw new IOException("Can't restore the state of cloudlet " + cloudlet.getCloudletId(), e);
+		}
+	}
+
+	/**
+	 * Opens a trace for reading.
+	 *
+	 * @param fileName the name of the trace file
+	 * @return the reader of the trace
+	 * @throws IOException if the file is not a trace or can't be read
+	 */
+	public static Reader open(String fileName) throws IOException {
+		return new Reader(fileName);
+	}
+
+	/**
+	 * Reads the records of a trace, in the order in which the events have been delivered.
+	 */
+	public static class Reader implements Closeable {
+
+		/** The trace file. */
+		private final DataInputStream in;
+
+		/** The name of the side file holding the data of the events. */
+		private final String dataFileName;
+
+		/** The stream the data of the events is read from, opened with the first data read. */
+		private DataInput data;
+
+		/** The names of the entities, by entity id. */
+		private final String[] names;
+
+		/** Whether the data of the events delivered to each entity is recorded, by entity id. */
+		private final boolean[] recordData;
+
+		/** The number of records. */
+		private final long records;
+
+		/** The number of records read so far. */
+		private long read = 0;
+
+		private double time;
+
+		private int source;
+
+		private int destination;
+
+		private int tag;
+
+		private byte kind;
+
+		private int value;
+
+		private Object object;
+
+		/**
+		 * Opens a trace and reads its header.
+		 *
+		 * @param fileName the name of the trace file
+		 * @throws IOException if the file is not a trace or can't be read
+		 */
+		Reader(String fileName) throws IOException {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
+			dataFileName = fileName + ".data";
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				in.close();
+				throw new IOException(fileName + " is not an event trace.");
+			}
+			records = in.readLong();
+			names = new String[in.readInt()];
+			recordData = new boolean[names.length];
+			for (int i = 0; i < names.length; i++) {
+				names[i] = in.readUTF();
+				recordData[i] = in.readBoolean();
+			}
+		}
+
+		/**
+		 * Gets the number of records of the trace.
+		 *
+		 * @return the number of records
+		 */
+		public long getRecordCount() {
+			return records;
+		}
+
+		/**
+		 * Gets the number of entities the simulation started with.
+		 *
+		 * @return the number of entities
+		 */
+		public int getEntityCount() {
+			return names.length;
+		}
+
+		/**
+		 * Gets the name of an entity.
+		 *
+		 * @param id the id of the entity in the traced simulation
+		 * @return the name of the entity
+		 */
+		public String getEntityName(int id) {
+			return names[id];
+		}
+
+		/**
+		 * Gets the id an entity had in the traced simulation.
+		 *
+		 * @param name the name of the entity
+		 * @return the id of the entity, or <tt>-1</tt> if there is no such entity
+		 */
+		public int getEntityId(String name) {
+			for (int i = 0; i < names.length; i++) {
+				if (names[i].equals(name)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Checks if the data of the events delivered to an entity has been recorded.
+		 *
+		 * @param id the id of the entity in the traced simulation
+		 * @return <tt>true</tt> if the data has been recorded
+		 */
+		public boolean isDataRecorded(int id) {
+			return id >= 0 && id < recordData.length && recordData[id];
+		}
+
+		/**
+		 * Reads the next record.
+		 *
+		 * @return <tt>false</tt> if all the records have been read
+		 * @throws IOException if the trace can't be read
+		 */
+		public boolean next() throws IOException {
+			if (read == records) {
+				return false;
+			}
+			time = in.readDouble();
+			source = in.readInt();
+			destination = in.readInt();
+			tag = in.readInt();
+			kind = in.readByte();
+			value = in.readInt();
+			object = null;
+			if ((kind & DATA_RECORDED) != 0) {
+				kind &= ~DATA_RECORDED;
+				if (data == null) {
+					if (!new File(dataFileName).exists()) {
+						throw new EOFException("Missing data file " + dataFileName);
+					}
+					data = new DataInput(new BufferedInputStream(new FileInputStream(dataFileName)));
+				}
+				try {
+					object = data.readRecord();
+				} catch (ClassNotFoundException e) {
+					throw new IOException("Unknown class of event data in " + dataFileName, e);
+				}
+			}
+			read++;
+			return true;
+		}
+
+		/**
+		 * Gets the time of the current record.
+		 *
+		 * @return the time of the event
+		 */
+		public double getTime() {
+			return time;
+		}
+
+		/**
+		 * Gets the source of the current record.
+		 *
+		 * @return the id of the source entity
+		 */
+		public int getSource() {
+			return source;
+		}
+
+		/**
+		 * Gets the destination of the current record.
+		 *
+		 * @return the id of the destination entity
+		 */
+		public int getDestination() {
+			return destination;
+		}
+
+		/**
+		 * Gets the tag of the current record.
+		 *
+		 * @return the tag of the event
+		 */
+		public int getTag() {
+			return tag;
+		}
+
+		/**
+		 * Gets the kind of the data of the current record.
+		 *
+		 * @return one of the <tt>DATA_</tt> constants
+		 */
+		public byte getDataKind() {
+			return kind;
+		}
+
+		/**
+		 * Gets the value identifying the data of the current record, which depends on its kind.
+		 *
+		 * @return the value
+		 */
+		public int getDataValue() {
+			return value;
+		}
+
+		/**
+		 * Gets the data of the current record, when it has been recorded.
+		 *
+		 * @return the data, or <tt>null</tt> if the event has no data or it has not been recorded
+		 */
+		public Object getData() {
+			return object;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+			if (data != null) {
+				data.close();
+			}
+		}
+	}
+
+}
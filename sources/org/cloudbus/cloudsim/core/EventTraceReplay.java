@@ -0,0 +1,144 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.IOException;
+
+/**
+ * Drives a single entity from an {@link EventTrace}, without simulating the rest of the system. The
+ * events delivered to the entity in the traced simulation are handed to
+ * {@link SimEntity#processEvent(SimEvent)} of the given entity, in the same order and at the same
+ * simulation times, and the events it sends are counted and discarded. The replay is open-loop:
+ * the events keep the times and the data of the trace whatever the entity does, so it is meant for
+ * benchmarking and profiling the entity, e.g. the scheduling algorithm of a workflow scheduler, in
+ * isolation. An entity taking other decisions than the traced one may be delivered events that
+ * no longer match its state, e.g. the return of a job it has not submitted yet.
+ * <p>
+ * The data of the events delivered to the traced entity has to be recorded, see
+ * {@link CloudSim#setEventTrace(String, String...)}. The entity has to be created in a simulation
+ * initialized with {@link CloudSim#init(int, java.util.Calendar, boolean)} but not started, and
+ * set up as it was in the traced simulation, e.g. with the same vms and parameters.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see EventTrace
+ */
+public class EventTraceReplay {
+
+	/** The name of the trace file. */
+	private final String fileName;
+
+	/** The number of events replayed by the last replay. */
+	private long eventsReplayed;
+
+	/** The number of events sent by the entity during the last replay. */
+	private long eventsSent;
+
+	/** The time spent processing the events during the last replay, in nanoseconds. */
+	private long processingNanos;
+
+	/**
+	 * Creates a replay of a trace.
+	 *
+	 * @param fileName the name of the trace file
+	 */
+	public EventTraceReplay(String fileName) {
+		this.fileName = fileName;
+	}
+
+	/**
+	 * Replays the events delivered to an entity of the traced simulation.
+	 *
+	 * @param name the name of the entity in the traced simulation
+	 * @param entity the entity to drive
+	 * @return the number of events replayed
+	 * @throws IOException if the trace can't be read
+	 * @throws IllegalArgumentException if the data of the events of the entity has not been
+	 *             recorded
+	 * @throws IllegalStateException if the simulation of the entity is running
+	 */
+	public long replay(String name, SimEntity entity) throws IOException {
+		SimulationContext ctx = CloudSim.getContext();
+		if (ctx.running) {
+			throw new IllegalStateException("A trace can't be replayed in a running simulation.");
+		}
+		eventsReplayed = 0;
+		eventsSent = 0;
+		processingNanos = 0;
+
+		EventTrace.Reader reader = EventTrace.open(fileName);
+		try {
+			int id = reader.getEntityId(name);
+			if (!reader.isDataRecorded(id)) {
+				throw new IllegalArgumentException("The data of the events of " + name
+						+ " has not been recorded in " + fileName);
+			}
+
+			ctx.running = true;
+			entity.startEntity();
+			discardSentEvents(ctx);
+			while (reader.next()) {
+				if (reader.getDestination() != id) {
+					continue;
+				}
+				ctx.clock = reader.getTime();
+				SimEvent ev = new SimEvent(SimEvent.SEND, reader.getTime(), reader.getSource(),
+						entity.getId(), reader.getTag(), reader.getData());
+				long start = System.nanoTime();
+				entity.processEvent(ev);
+				processingNanos += System.nanoTime() - start;
+				eventsReplayed++;
+				discardSentEvents(ctx);
+			}
+		} finally {
+			ctx.running = false;
+			reader.close();
+		}
+		return eventsReplayed;
+	}
+
+	/**
+	 * Counts and discards the events sent by the replayed entity.
+	 *
+	 * @param ctx the simulation context
+	 */
+	private void discardSentEvents(SimulationContext ctx) {
+		eventsSent += ctx.future.size();
+		ctx.future.clear();
+		ctx.futureIndex.clear();
+		ctx.cancelledEvents = 0;
+	}
+
+	/**
+	 * Gets the number of events replayed by the last replay.
+	 *
+	 * @return the number of events
+	 */
+	public long getEventsReplayed() {
+		return eventsReplayed;
+	}
+
+	/**
+	 * Gets the number of events sent by the entity during the last replay.
+	 *
+	 * @return the number of events
+	 */
+	public long getEventsSent() {
+		return eventsSent;
+	}
+
+	/**
+	 * Gets the time the entity has spent processing the events of the last replay.
+	 *
+	 * @return the time, in nanoseconds
+	 */
+	public long getProcessingNanos() {
+		return processingNanos;
+	}
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An index of the events in the future event list keyed by source entity and tag, used by
+ * {@link CloudSim#cancel(int, org.cloudbus.cloudsim.core.predicates.Predicate)} and
+ * {@link CloudSim#cancelAll(int, org.cloudbus.cloudsim.core.predicates.Predicate)} to find the
+ * events to be cancelled without scanning the whole future event list. The events of a (source, tag)
+ * pair are chained through fields of {@link SimEvent}, so indexing an event does not allocate any
+ * object once the chain of its pair exists.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see FutureEventList
+ */
+class FutureEventIndex {
+
+	/** An empty array of chains. */
+	private static final Chain[] NO_CHAINS = new Chain[0];
+
+	/** The chains of each source entity, indexed by entity id. */
+	private final List<Chain[]> chains = new ArrayList<Chain[]>();
+
+	/**
+	 * Adds an event to the index. Events without a source entity are not indexed.
+	 *
+	 * @param event the event
+	 */
+	void add(SimEvent event) {
+		if (event.getSource() < 0) {
+			return;
+		}
+		Chain chain = getChain(event.getSource(), event.getTag(), true);
+		event.indexPrev = chain.tail;
+		event.indexNext = null;
+		if (chain.tail == null) {
+			chain.head = event;
+		} else {
+			chain.tail.indexNext = event;
+		}
+		chain.tail = event;
+		event.indexed = true;
+	}
+
+	/**
+	 * Removes an event from the index. Nothing happens if the event is not indexed.
+	 *
+	 * @param event the event
+	 */
+	void remove(SimEvent event) {
+		if (!event.indexed) {
+			return;
+		}
+		Chain chain = getChain(event.getSource(), event.getTag(), false);
+		if (event.indexPrev == null) {
+			chain.head = event.indexNext;
+		} else {
+			event.indexPrev.indexNext = event.indexNext;
+		}
+		if (event.indexNext == null) {
+			chain.tail = event.indexPrev;
+		} else {
+			event.indexNext.indexPrev = event.indexPrev;
+		}
+		event.indexPrev = null;
+		event.indexNext = null;
+		event.indexed = false;
+	}
+
+	/**
+	 * Gets the first indexed event sent by an entity with a given tag. The following ones are
+	 * reached through {@link SimEvent#indexNext}, in the order they have been added.
+	 *
+	 * @param source the id of the source entity
+	 * @param tag the tag
+	 * @return the first event, or <tt>null</tt> if there is none
+	 */
+	SimEvent first(int source, int tag) {
+		Chain chain = getChain(source, tag, false);
+		return chain == null ? null : chain.head;
+	}
+
+	/**
+	 * Gets the chains of the events an entity has sent, one per tag. Chains whose events have all
+	 * been removed are kept and are empty.
+	 *
+	 * @param source the id of the source entity
+	 * @return the chains of the entity
+	 */
+	Chain[] chainsOf(int source) {
+		if (source < 0 || source >= chains.size() || chains.get(source) == null) {
+			return NO_CHAINS;
+		}
+		return chains.get(source);
+	}
+
+	/**
+	 * Clears the index.
+	 */
+	void clear() {
+		chains.clear();
+	}
+
+	/**
+	 * Gets the chain of a (source, tag) pair. An entity sends few distinct tags, so the chains of
+	 * an entity are kept in a small array searched linearly.
+	 *
+	 * @param source the id of the source entity
+	 * @param tag the tag
+	 * @param create whether the chain has to be created if it does not exist
+	 * @return the chain, or <tt>null</tt> if it does not exist and is not to be created
+	 */
+	private Chain getChain(int source, int tag, boolean create) {
+		Chain[] array = source >= 0 && source < chains.size() ? chains.get(source) : null;
+		if (array != null) {
+			for (Chain chain : array) {
+				if (chain.tag == tag) {
+					return chain;
+				}
+			}
+		}
+		if (!create) {
+			return null;
+		}
+
+		while (chains.size() <= source) {
+			chains.add(null);
+		}
+		Chain chain = new Chain(tag);
+		if (array == null) {
+			array = new Chain[] { chain };
+		} else {
+			Chain[] grown = new Chain[array.length + 1];
+			System.arraycopy(array, 0, grown, 0, array.length);
+			grown[array.length] = chain;
+			array = grown;
+		}
+		chains.set(source, array);
+		return chain;
+	}
+
+	/**
+	 * The events sent by an entity with a given tag.
+	 */
+	static class Chain {
+
+		final int tag;
+
+		SimEvent head, tail;
+
+		Chain(int tag) {
+			this.tag = tag;
+		}
+	}
+
+}
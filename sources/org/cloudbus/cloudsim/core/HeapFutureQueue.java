@@ -0,0 +1,258 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A future event list backed by an array-based binary heap. Adding an event and removing the first
+ * event cost O(log n) and, unlike {@link FutureQueue}, neither of them allocates any object once the
+ * heap has grown to its working size.
+ * <p>
+ * Iterating over the queue is meant for infrequent operations such as cancelling events: the
+ * iterator walks a sorted snapshot of the heap.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see FutureEventList
+ */
+public class HeapFutureQueue implements FutureEventList, Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The default initial capacity of the heap. */
+	private static final int DEFAULT_CAPACITY = 64;
+
+	/** The heap. The children of the event at index i are at indexes 2i+1 and 2i+2. */
+	private SimEvent[] heap;
+
+	/** The number of events in the heap. */
+	private int size = 0;
+
+	/** The serial. */
+	private long serial = 0;
+
+	/** Number of structural modifications, used to detect concurrent modifications. */
+	private int modCount = 0;
+
+	/**
+	 * Creates a new heap based future event queue.
+	 */
+	public HeapFutureQueue() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new heap based future event queue.
+	 *
+	 * @param initialCapacity the number of events the heap can hold before growing
+	 */
+	public HeapFutureQueue(int initialCapacity) {
+		heap = new SimEvent[Math.max(1, initialCapacity)];
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		offer(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		offer(newEvent);
+	}
+
+	@Override
+	public SimEvent peek() {
+		return size == 0 ? null : heap[0];
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent first = heap[0];
+		removeAt(0);
+		return first;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		final SimEvent[] snapshot = Arrays.copyOf(heap, size);
+		Arrays.sort(snapshot);
+		return new Iterator<SimEvent>() {
+
+			private int cursor = 0;
+
+			private int expectedModCount = modCount;
+
+			@Override
+			public boolean hasNext() {
+				return cursor < snapshot.length;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (expectedModCount != modCount) {
+					throw new ConcurrentModificationException();
+				}
+				if (cursor >= snapshot.length) {
+					throw new NoSuchElementException();
+				}
+				return snapshot[cursor++];
+			}
+
+			@Override
+			public void remove() {
+				if (cursor == 0 || snapshot[cursor - 1] == null) {
+					throw new IllegalStateException();
+				}
+				if (expectedModCount != modCount) {
+					throw new ConcurrentModificationException();
+				}
+				HeapFutureQueue.this.remove(snapshot[cursor - 1]);
+				snapshot[cursor - 1] = null;
+				expectedModCount = modCount;
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		for (int i = 0; i < size; i++) {
+			if (heap[i] == event) {
+				removeAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes all the events from the queue. The heap is filtered and rebuilt in O(n) when
+	 * <tt>events</tt> supports fast lookups, as a {@link java.util.HashSet} does.
+	 * 
+	 * @param events the events
+	 * @return true, if successful
+	 */
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		int n = 0;
+		for (int i = 0; i < size; i++) {
+			if (!events.contains(heap[i])) {
+				heap[n++] = heap[i];
+			}
+		}
+		if (n == size) {
+			return false;
+		}
+		Arrays.fill(heap, n, size, null);
+		size = n;
+		for (int i = (size >>> 1) - 1; i >= 0; i--) {
+			siftDown(i, heap[i]);
+		}
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(heap, 0, size, null);
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Inserts an event into the heap.
+	 *
+	 * @param event the event
+	 */
+	private void offer(SimEvent event) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, heap.length << 1);
+		}
+		siftUp(size++, event);
+		modCount++;
+	}
+
+	/**
+	 * Removes the event at a given position of the heap.
+	 *
+	 * @param index the position
+	 */
+	private void removeAt(int index) {
+		int last = --size;
+		SimEvent moved = heap[last];
+		heap[last] = null;
+		if (index != last) {
+			siftDown(index, moved);
+			if (heap[index] == moved) {
+				siftUp(index, moved);
+			}
+		}
+		modCount++;
+	}
+
+	/**
+	 * Moves an event up the heap until its parent precedes it.
+	 *
+	 * @param index the position the event is being placed at
+	 * @param event the event
+	 */
+	private void siftUp(int index, SimEvent event) {
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			SimEvent e = heap[parent];
+			if (event.compareTo(e) >= 0) {
+				break;
+			}
+			heap[index] = e;
+			index = parent;
+		}
+		heap[index] = event;
+	}
+
+	/**
+	 * Moves an event down the heap until it precedes its children.
+	 *
+	 * @param index the position the event is being placed at
+	 * @param event the event
+	 */
+	private void siftDown(int index, SimEvent event) {
+		int half = size >>> 1;
+		while (index < half) {
+			int child = (index << 1) + 1;
+			SimEvent c = heap[child];
+			int right = child + 1;
+			if (right < size && c.compareTo(heap[right]) > 0) {
+				child = right;
+				c = heap[child];
+			}
+			if (event.compareTo(c) <= 0) {
+				break;
+			}
+			heap[index] = c;
+			index = child;
+		}
+		heap[index] = event;
+	}
+
+}
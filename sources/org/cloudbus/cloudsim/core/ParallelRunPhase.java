@@ -0,0 +1,311 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * Runs the entities of one clock tick concurrently, one task per partition of entities. The
+ * synchronization is conservative: all the partitions process the events dispatched at the same
+ * time, and no partition starts the next tick before every partition has finished the current one.
+ * <p>
+ * While the entities run concurrently, the effects they have on the simulation kernel, i.e. the
+ * events they send, the holds, the wait predicates and the lines they log, are kept in one
+ * {@link Outbox} per entity. Once all the partitions have finished, the outboxes are applied in the
+ * order of the entity ids, which is the order in which the sequential kernel runs the entities, so
+ * the events get the same serials and the simulation produces the same results.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see CloudSim#setParallelThreads(int)
+ * @see CloudSim#setPartition(int, int)
+ */
+class ParallelRunPhase {
+
+	/** The outbox of the entity run by the current thread. */
+	private static final ThreadLocal<Outbox> current = new ThreadLocal<Outbox>();
+
+	/** The threads running the partitions, besides the simulation thread. */
+	private final ExecutorService executor;
+
+	/** The outboxes of the entities, indexed by entity id. */
+	private final List<Outbox> outboxes = new ArrayList<Outbox>();
+
+	/** The entities to be run in the current tick, by partition. */
+	private final List<List<SimEntity>> groups = new ArrayList<List<SimEntity>>();
+
+	/** The partitions having entities to be run in the current tick. */
+	private final List<Integer> activePartitions = new ArrayList<Integer>();
+
+	/** Flag for checking if the entities are running concurrently. */
+	private volatile boolean active = false;
+
+	/**
+	 * Creates the run phase.
+	 *
+	 * @param threads the number of threads running partitions, including the simulation thread
+	 */
+	ParallelRunPhase(int threads) {
+		executor = Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "CloudSim-partition");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Checks if the entities are running concurrently, i.e. if the effects on the kernel have to be
+	 * kept in the outboxes.
+	 *
+	 * @return <tt>true</tt> while the partitions are running
+	 */
+	boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * Gets the outbox of the entity run by the current thread.
+	 *
+	 * @return the outbox, or <tt>null</tt> if the thread is not running an entity
+	 */
+	static Outbox currentOutbox() {
+		return current.get();
+	}
+
+	/**
+	 * Runs the runnable entities having events to process. When they all belong to the same
+	 * partition, they are run on the simulation thread as the sequential kernel would run them.
+	 *
+	 * @param ctx the simulation context
+	 */
+	void run(SimulationContext ctx) {
+		int size = ctx.entities.size();
+		for (int i = 0; i < size; i++) {
+			SimEntity ent = ctx.entities.get(i);
+			if (ent.getState() != SimEntity.RUNNABLE
+					|| (ent.getEventBuffer() == null && ctx.deferred.count(i, CloudSim.SIM_ANY) == 0)) {
+				continue;
+			}
+			int partition = i < ctx.partitions.size() ? ctx.partitions.get(i) : 0;
+			while (groups.size() <= partition) {
+				groups.add(new ArrayList<SimEntity>());
+			}
+			List<SimEntity> group = groups.get(partition);
+			if (group.isEmpty()) {
+				activePartitions.add(partition);
+			}
+			group.add(ent);
+			while (outboxes.size() <= i) {
+				outboxes.add(null);
+			}
+			if (outboxes.get(i) == null) {
+				outboxes.set(i, new Outbox());
+			}
+		}
+
+		try {
+			if (activePartitions.size() == 1) {
+				for (SimEntity ent : groups.get(activePartitions.get(0))) {
+					ent.run();
+				}
+			} else if (activePartitions.size() > 1) {
+				runConcurrently(ctx);
+			}
+		} finally {
+			for (int partition : activePartitions) {
+				groups.get(partition).clear();
+			}
+			activePartitions.clear();
+		}
+	}
+
+	/**
+	 * Runs the active partitions concurrently, then applies the outboxes of their entities.
+	 *
+	 * @param ctx the simulation context
+	 */
+	private void runConcurrently(SimulationContext ctx) {
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		Throwable failure = null;
+
+		active = true;
+		try {
+			for (int i = 1; i < activePartitions.size(); i++) {
+				futures.add(executor.submit(new Partition(ctx, groups.get(activePartitions.get(i)))));
+			}
+			try {
+				new Partition(ctx, groups.get(activePartitions.get(0))).run();
+			} catch (Throwable t) {
+				failure = t;
+			}
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause();
+					}
+				} catch (InterruptedException e) {
+					if (failure == null) {
+						failure = e;
+					}
+				}
+			}
+		} finally {
+			active = false;
+		}
+
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure instanceof Error) {
+			throw (Error) failure;
+		} else if (failure != null) {
+			throw new IllegalStateException("Partition failed.", failure);
+		}
+
+		for (int i = 0; i < outboxes.size(); i++) {
+			Outbox outbox = outboxes.get(i);
+			if (outbox != null && outbox.ran) {
+				outbox.apply(ctx);
+			}
+		}
+	}
+
+	/**
+	 * Stops the threads running the partitions.
+	 */
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * The entities of one partition to be run in the current tick.
+	 */
+	private class Partition implements Runnable {
+
+		private final SimulationContext ctx;
+
+		private final List<SimEntity> entities;
+
+		Partition(SimulationContext ctx, List<SimEntity> entities) {
+			this.ctx = ctx;
+			this.entities = entities;
+		}
+
+		@Override
+		public void run() {
+			CloudSim.setContext(ctx);
+			for (SimEntity ent : entities) {
+				Outbox outbox = outboxes.get(ent.getId());
+				outbox.ran = true;
+				current.set(outbox);
+				Log.setThreadOutput(outbox.log);
+				try {
+					ent.run();
+				} finally {
+					Log.setThreadOutput(null);
+					current.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The effects an entity has on the kernel while the partitions are running.
+	 */
+	static class Outbox {
+
+		/** The events to be added to the future event queue; cancelled events are set to null. */
+		final List<SimEvent> events = new ArrayList<SimEvent>();
+
+		/** Whether each event has to be added first among the events with the same time. */
+		final List<Boolean> first = new ArrayList<Boolean>();
+
+		/** The entities waiting for an event matching a predicate. */
+		final List<Integer> waitSources = new ArrayList<Integer>();
+
+		/** The predicates of the waiting entities. */
+		final List<Predicate> waitPredicates = new ArrayList<Predicate>();
+
+		/** The number of events cancelled in the future event queue. */
+		int cancelledEvents = 0;
+
+		/** The lines logged by the entity. */
+		final ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+		/** Whether the entity has run in the current tick. */
+		boolean ran = false;
+
+		/**
+		 * Keeps an event to be added to the future event queue.
+		 *
+		 * @param e the event
+		 * @param addFirst whether the event has to be added first among the events with its time
+		 */
+		void add(SimEvent e, boolean addFirst) {
+			events.add(e);
+			first.add(addFirst);
+		}
+
+		/**
+		 * Applies the effects to the kernel, in the order in which the entity has caused them, and
+		 * clears the outbox.
+		 *
+		 * @param ctx the simulation context
+		 */
+		void apply(SimulationContext ctx) {
+			for (int i = 0; i < events.size(); i++) {
+				SimEvent e = events.get(i);
+				if (e == null) {
+					continue;
+				}
+				if (first.get(i)) {
+					ctx.future.addEventFirst(e);
+				} else {
+					ctx.future.addEvent(e);
+				}
+				ctx.futureIndex.add(e);
+			}
+			for (int i = 0; i < waitSources.size(); i++) {
+				ctx.waitPredicates.put(waitSources.get(i), waitPredicates.get(i));
+			}
+			ctx.cancelledEvents += cancelledEvents;
+			if (log.size() > 0) {
+				try {
+					log.writeTo(Log.getOutput());
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+
+			events.clear();
+			first.clear();
+			waitSources.clear();
+			waitPredicates.clear();
+			cancelledEvents = 0;
+			log.reset();
+			ran = false;
+		}
+	}
+
+}
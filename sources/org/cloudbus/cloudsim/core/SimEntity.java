@@ -8,6 +8,8 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.io.Serializable;
+
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.NetworkTopology;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
@@ -28,7 +30,10 @@ import org.cloudbus.cloudsim.core.predicates.Predicate;
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  */
-public abstract class SimEntity implements Cloneable {
+public abstract class SimEntity implements Cloneable, Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
 
 	/** The name. */
 	private String name;
@@ -345,13 +350,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @return the simulation event
 	 */
 	public SimEvent getNextEvent(Predicate p) {
-		if (!CloudSim.running()) {
-			return null;
-		}
-		if (numEventsWaiting(p) > 0) {
-			return selectEvent(p);
-		}
-		return null;
+		return selectEvent(p);
 	}
 
 	/**
@@ -400,10 +399,23 @@ public abstract class SimEntity implements Cloneable {
 	public abstract void shutdownEntity();
 
 	public void run() {
+		SimulationProfile profile = CloudSim.getProfile();
 		SimEvent ev = evbuf != null ? evbuf : getNextEvent();
 
 		while (ev != null) {
-			processEvent(ev);
+			if (profile == null) {
+				processEvent(ev);
+			} else {
+				SimulationProfile.Entry entry = profile.eventProcessed(this, ev.getTag());
+				if (entry.isTimed()) {
+					long start = System.nanoTime();
+					processEvent(ev);
+					entry.addTime(System.nanoTime() - start);
+				} else {
+					processEvent(ev);
+				}
+			}
+			CloudSim.releaseEvent(ev);
 			if (state != RUNNABLE) {
 				break;
 			}
@@ -8,6 +8,8 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.io.Serializable;
+
 /**
  * This class represents a simulation event which is passed between the entities in the simulation.
  * 
@@ -15,13 +17,16 @@ package org.cloudbus.cloudsim.core;
  * @see Simulation
  * @see SimEntity
  */
-public class SimEvent implements Cloneable, Comparable<SimEvent> {
+public class SimEvent implements Cloneable, Comparable<SimEvent>, Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
 
 	/** internal event type **/
-	private final int etype;
+	private int etype;
 
 	/** time at which event should occur **/
-	private final double time;
+	private double time;
 
 	/** time that the event was removed from the queue for service **/
 	private double endWaitingTime;
@@ -33,13 +38,25 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	private int entDst;
 
 	/** the user defined type of the event **/
-	private final int tag;
+	private int tag;
 
 	/** any data the event is carrying **/
-	private final Object data;
+	private Object data;
 
 	private long serial = -1;
 
+	/** whether the event has been cancelled while waiting in the future queue **/
+	boolean cancelled = false;
+
+	/** whether the event is chained in the {@link FutureEventIndex}, which is not checkpointed **/
+	transient boolean indexed = false;
+
+	/**
+	 * the previous and next events with the same source and tag in the {@link FutureEventIndex}.
+	 * indexNext also links the free events of the event pool of {@link CloudSim}.
+	 **/
+	transient SimEvent indexPrev, indexNext;
+
 	// Internal event types
 
 	public static final int ENULL = 0;
@@ -82,10 +99,42 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		data = null;
 	}
 
+	/**
+	 * Reinitialises a recycled event, as if it had just been created.
+	 */
+	void reset(int evtype, double time, int src, int dest, int tag, Object edata) {
+		etype = evtype;
+		this.time = time;
+		endWaitingTime = 0.0;
+		entSrc = src;
+		entDst = dest;
+		this.tag = tag;
+		data = edata;
+		serial = -1;
+		cancelled = false;
+		indexed = false;
+		indexPrev = null;
+		indexNext = null;
+	}
+
+	/**
+	 * Clears a released event so that it does not hold references to data, and marks it as free.
+	 */
+	void release() {
+		etype = ENULL;
+		data = null;
+		indexPrev = null;
+		indexNext = null;
+	}
+
 	protected void setSerial(long serial) {
 		this.serial = serial;
 	}
 
+	long getSerial() {
+		return serial;
+	}
+
 	/**
 	 * Used to set the time at which this event finished waiting in the event
 	 * 
@@ -205,9 +254,12 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	}
 
 	/**
-	 * Create an exact copy of this event.
+	 * Create an exact copy of this event. When event pooling is enabled in {@link CloudSim}, events
+	 * are recycled after {@link SimEntity#processEvent(SimEvent)} returns, so an entity that keeps a
+	 * reference to an event must keep a copy made by this method instead.
 	 * 
 	 * @return The event's copy
+	 * @see CloudSim#setEventPoolingEnabled(boolean)
 	 */
 	@Override
 	public Object clone() {
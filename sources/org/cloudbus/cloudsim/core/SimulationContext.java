@@ -0,0 +1,194 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * The state of one simulation. {@link CloudSim} and the other classes offering a static API keep
+ * their state in the context bound to the current thread, so several simulations can run in the
+ * same JVM as long as each of them is started by its own thread, or binds its own context with
+ * {@link CloudSim#setContext(SimulationContext)} before touching the static API. A thread doesn't
+ * inherit the context of the thread creating it: a thread controlling a simulation run by another
+ * thread binds the context of that simulation explicitly.
+ * <p>
+ * The state of the simulation kernel is held by the fields of this class. Other modules keep their
+ * state as attributes of the context, keyed by the class of the object holding it.
+ * <p>
+ * A context is not thread-safe: threads sharing a context, e.g. a thread pausing the simulation
+ * and adding entities while it is paused, have to coordinate themselves.
+ * <p>
+ * A context is serializable, which is how checkpoints are taken: the entities, the events and the
+ * attributes it holds have to be serializable as well.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see CloudSim#getContext()
+ */
+public class SimulationContext implements Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The id of CIS entity. */
+	int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	int shutdownId = -1;
+
+	/** The CIS object. */
+	CloudInformationService cis = null;
+
+	/** The trace flag. */
+	boolean traceFlag = false;
+
+	/** The calendar. */
+	Calendar calendar = null;
+
+	/** The termination time. */
+	double terminateAt = -1;
+
+	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
+	double minTimeBetweenEvents = 0.1;
+
+	/** The length of a tick of the integer clock, or 0 if event times are not quantized. */
+	double tickLength = 0;
+
+	/** The entities. */
+	List<SimEntity> entities;
+
+	/** The future event queue. */
+	FutureEventList future;
+
+	/** The index of the future events by source entity and tag, rebuilt when a context is read. */
+	transient FutureEventIndex futureIndex;
+
+	/** The number of cancelled events still held by the future event queue. */
+	int cancelledEvents;
+
+	/** Flag for checking if events are recycled after being processed. */
+	boolean eventPooling = false;
+
+	/** The free events of the event pool, linked through {@link SimEvent#indexNext}. */
+	transient SimEvent freeEvents;
+
+	/** The number of free events in the event pool. */
+	transient int freeEventCount;
+
+	/** The deferred event queue. */
+	DeferredQueue deferred;
+
+	/** The simulation clock. */
+	double clock;
+
+	/** Flag for checking if the simulation is running. */
+	boolean running;
+
+	/** The entities by name. */
+	Map<String, SimEntity> entitiesByName;
+
+	/** The wait predicates. */
+	Map<Integer, Predicate> waitPredicates;
+
+	/** The paused. */
+	volatile boolean paused = false;
+
+	/** The pause at. */
+	long pauseAt = -1;
+
+	/** The abrupt terminate. */
+	boolean abruptTerminate = false;
+
+	/** The number of threads running the entities; 1 runs them on the simulation thread. */
+	int parallelThreads = 1;
+
+	/** The partitions of the entities, indexed by entity id. */
+	List<Integer> partitions;
+
+	/** The parallel run phase, while a simulation with several threads is running. */
+	transient ParallelRunPhase parallel;
+
+	/** Flag for checking if the event loop of the next simulations is profiled. */
+	boolean profiling = false;
+
+	/** The profile of the last simulation started with profiling enabled. */
+	SimulationProfile profile;
+
+	/** The file the profile is written to when the simulation is stopped. */
+	String profileOutput;
+
+	/** The file the events of the next simulations are traced to. */
+	String traceOutput;
+
+	/** The names of the entities whose events have their data traced. */
+	Set<String> traceDataEntities;
+
+	/** The trace of the running simulation. */
+	transient EventTrace trace;
+
+	/** The time at which a checkpoint has to be taken. */
+	double checkpointAt = -1;
+
+	/** The file the checkpoint is written to. */
+	String checkpointFile;
+
+	/** The state of the other modules, keyed by the class of the object holding it. */
+	private final Map<Class<?>, Object> attributes = new HashMap<Class<?>, Object>();
+
+	/**
+	 * Reads a context and rebuilds the index of its future events.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		if (future != null) {
+			futureIndex = new FutureEventIndex();
+			Iterator<SimEvent> iter = future.iterator();
+			while (iter.hasNext()) {
+				SimEvent ev = iter.next();
+				if (!ev.cancelled) {
+					futureIndex.add(ev);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the state a module keeps in this context.
+	 *
+	 * @param type the class of the object holding the state
+	 * @return the state, or <tt>null</tt> if the module has not stored any
+	 */
+	public <T> T getAttribute(Class<T> type) {
+		return type.cast(attributes.get(type));
+	}
+
+	/**
+	 * Sets the state a module keeps in this context.
+	 *
+	 * @param type the class of the object holding the state
+	 * @param value the state, or <tt>null</tt> to remove it
+	 */
+	public <T> void setAttribute(Class<T> type, T value) {
+		if (value == null) {
+			attributes.remove(type);
+		} else {
+			attributes.put(type, value);
+		}
+	}
+
+}
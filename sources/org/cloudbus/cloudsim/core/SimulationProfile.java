@@ -0,0 +1,508 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The profile of the event loop of a simulation. For each entity class and each event tag, it
+ * records the number of events delivered to entities of the class, the number of events they have
+ * processed and the wall-clock time spent processing them, and the number of events they have
+ * cancelled. The depths of the future and deferred event queues are sampled once per clock tick.
+ * <p>
+ * Reading the clock costs about as much as dispatching a small event, so only a sample of the
+ * events is timed: the first {@value #ALWAYS_TIMED} events of each entity and tag, then one event
+ * out of {@value #TIMING_PERIOD}. The processing time of the other events is estimated from the
+ * timed ones.
+ * <p>
+ * The statistics are kept per entity and only aggregated by class when they are read, so entities
+ * run concurrently by different partitions record their events without synchronizing.
+ * <p>
+ * The samples are kept in a bounded buffer: when it is full, every other sample is dropped and
+ * from then on only one tick out of two is sampled, so a long simulation keeps evenly spaced
+ * samples of its whole run.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see CloudSim#setProfilingEnabled(boolean)
+ * @see CloudSim#getProfile()
+ */
+public class SimulationProfile implements Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The maximum number of queue depth samples. */
+	private static final int MAX_SAMPLES = 4096;
+
+	/** The number of events of each entity and tag that are all timed. */
+	static final int ALWAYS_TIMED = 16;
+
+	/** The period at which events are timed once the first ones have been timed. */
+	static final int TIMING_PERIOD = 16;
+
+	/** The statistics of each entity, indexed by entity id. */
+	private volatile EntityStats[] entities = new EntityStats[0];
+
+	/** The simulation times of the samples. */
+	private double[] sampleTimes = new double[MAX_SAMPLES];
+
+	/** The future queue depths of the samples. */
+	private int[] futureDepths = new int[MAX_SAMPLES];
+
+	/** The deferred queue depths of the samples. */
+	private int[] deferredDepths = new int[MAX_SAMPLES];
+
+	/** The number of samples. */
+	private int samples = 0;
+
+	/** The number of ticks between two samples. */
+	private int stride = 1;
+
+	/** The number of ticks since the last sample. */
+	private int ticks = 0;
+
+	/** The largest depth of the future queue seen at the end of a tick. */
+	private int maxFutureDepth = 0;
+
+	/**
+	 * Records an event delivered to an entity.
+	 *
+	 * @param ent the destination entity
+	 * @param tag the tag of the event
+	 */
+	void eventDelivered(SimEntity ent, int tag) {
+		statsOf(ent).entry(tag).delivered++;
+	}
+
+	/**
+	 * Records an event about to be processed by an entity. If {@link Entry#isTimed()} is true for
+	 * the returned entry, the time spent in {@link SimEntity#processEvent(SimEvent)} has to be
+	 * measured and passed to {@link Entry#addTime(long)}.
+	 *
+	 * @param ent the entity
+	 * @param tag the tag of the event
+	 * @return the entry of the entity and tag
+	 */
+	Entry eventProcessed(SimEntity ent, int tag) {
+		Entry entry = statsOf(ent).entry(tag);
+		entry.processed++;
+		return entry;
+	}
+
+	/**
+	 * Records an event cancelled by an entity.
+	 *
+	 * @param ent the entity
+	 * @param tag the tag of the event
+	 */
+	void eventCancelled(SimEntity ent, int tag) {
+		statsOf(ent).entry(tag).cancelled++;
+	}
+
+	/**
+	 * Records the depths of the queues at the end of a clock tick.
+	 *
+	 * @param time the simulation time
+	 * @param futureDepth the number of events in the future queue
+	 * @param deferred the deferred queue, whose size is only computed for sampled ticks
+	 */
+	void tick(double time, int futureDepth, DeferredQueue deferred) {
+		if (futureDepth > maxFutureDepth) {
+			maxFutureDepth = futureDepth;
+		}
+		if (++ticks < stride) {
+			return;
+		}
+		ticks = 0;
+		if (samples == MAX_SAMPLES) {
+			for (int i = 0; i < MAX_SAMPLES / 2; i++) {
+				sampleTimes[i] = sampleTimes[2 * i + 1];
+				futureDepths[i] = futureDepths[2 * i + 1];
+				deferredDepths[i] = deferredDepths[2 * i + 1];
+			}
+			samples = MAX_SAMPLES / 2;
+			stride *= 2;
+		}
+		sampleTimes[samples] = time;
+		futureDepths[samples] = futureDepth;
+		deferredDepths[samples] = deferred.size();
+		samples++;
+	}
+
+	/**
+	 * Gets the statistics of an entity.
+	 */
+	private EntityStats statsOf(SimEntity ent) {
+		int id = ent.getId();
+		EntityStats[] array = entities;
+		EntityStats stats = id < array.length ? array[id] : null;
+		return stats != null ? stats : createStats(ent);
+	}
+
+	/**
+	 * Creates the statistics of an entity. This happens when the entity is first delivered an
+	 * event, which the simulation thread does while no entity is running.
+	 */
+	private synchronized EntityStats createStats(SimEntity ent) {
+		int id = ent.getId();
+		EntityStats[] array = entities;
+		if (id >= array.length) {
+			array = Arrays.copyOf(array, Math.max(id + 1, 2 * array.length));
+		}
+		if (array[id] == null) {
+			array[id] = new EntityStats(ent.getClass());
+		}
+		entities = array;
+		return array[id];
+	}
+
+	/**
+	 * Gets the statistics of the events, sorted by entity class name and tag.
+	 *
+	 * @return the statistics of each entity class and tag
+	 */
+	public List<Entry> getEntries() {
+		Map<Class<?>, Map<Integer, Entry>> classes = new HashMap<Class<?>, Map<Integer, Entry>>();
+		for (EntityStats stats : entities) {
+			if (stats == null) {
+				continue;
+			}
+			Map<Integer, Entry> byTag = classes.get(stats.entityClass);
+			if (byTag == null) {
+				byTag = new HashMap<Integer, Entry>();
+				classes.put(stats.entityClass, byTag);
+			}
+			for (Entry entry : stats.entries) {
+				if (entry == null) {
+					continue;
+				}
+				Entry sum = byTag.get(entry.tag);
+				if (sum == null) {
+					sum = new Entry(entry.entityClass, entry.tag);
+					byTag.put(entry.tag, sum);
+				}
+				sum.delivered += entry.delivered;
+				sum.processed += entry.processed;
+				sum.cancelled += entry.cancelled;
+				sum.timed += entry.timed;
+				sum.timedNanos += entry.timedNanos;
+				sum.estimatedNanos += entry.getProcessingNanos();
+			}
+		}
+		List<Entry> list = new ArrayList<Entry>();
+		for (Map<Integer, Entry> byTag : classes.values()) {
+			list.addAll(byTag.values());
+		}
+		Collections.sort(list, new Comparator<Entry>() {
+
+			@Override
+			public int compare(Entry a, Entry b) {
+				int c = a.entityClass.getName().compareTo(b.entityClass.getName());
+				return c != 0 ? c : (a.tag < b.tag ? -1 : (a.tag == b.tag ? 0 : 1));
+			}
+		});
+		return list;
+	}
+
+	/**
+	 * Gets the simulation times at which the queue depths have been sampled.
+	 *
+	 * @return the times of the samples
+	 */
+	public double[] getSampleTimes() {
+		return Arrays.copyOf(sampleTimes, samples);
+	}
+
+	/**
+	 * Gets the sampled depths of the future event queue.
+	 *
+	 * @return the number of future events at each sample
+	 */
+	public int[] getFutureDepths() {
+		return Arrays.copyOf(futureDepths, samples);
+	}
+
+	/**
+	 * Gets the sampled depths of the deferred event queue.
+	 *
+	 * @return the number of deferred events at each sample
+	 */
+	public int[] getDeferredDepths() {
+		return Arrays.copyOf(deferredDepths, samples);
+	}
+
+	/**
+	 * Gets the largest depth of the future event queue at the end of a clock tick.
+	 *
+	 * @return the largest number of future events
+	 */
+	public int getMaxFutureDepth() {
+		return maxFutureDepth;
+	}
+
+	/**
+	 * Writes the statistics of the events as CSV, one line per entity class and tag.
+	 *
+	 * @param out the writer
+	 * @throws IOException if the statistics can't be written
+	 */
+	public void writeEventsCsv(Writer out) throws IOException {
+		out.write("entity,tag,delivered,processed,cancelled,timed,processing_ns\n");
+		for (Entry entry : getEntries()) {
+			out.write(entry.entityClass.getName() + "," + entry.tag + "," + entry.delivered + ","
+					+ entry.processed + "," + entry.cancelled + "," + entry.timed + ","
+					+ entry.getProcessingNanos() + "\n");
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes the sampled queue depths as CSV, one line per sample.
+	 *
+	 * @param out the writer
+	 * @throws IOException if the samples can't be written
+	 */
+	public void writeDepthsCsv(Writer out) throws IOException {
+		out.write("time,future,deferred\n");
+		for (int i = 0; i < samples; i++) {
+			out.write(sampleTimes[i] + "," + futureDepths[i] + "," + deferredDepths[i] + "\n");
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes the whole profile as a JSON object.
+	 *
+	 * @param out the writer
+	 * @throws IOException if the profile can't be written
+	 */
+	public void writeJson(Writer out) throws IOException {
+		out.write("{\n  \"events\": [");
+		String separator = "\n";
+		for (Entry entry : getEntries()) {
+			out.write(separator + "    {\"entity\": \"" + entry.entityClass.getName() + "\", \"tag\": "
+					+ entry.tag + ", \"delivered\": " + entry.delivered + ", \"processed\": "
+					+ entry.processed + ", \"cancelled\": " + entry.cancelled + ", \"timed\": "
+					+ entry.timed + ", \"processingNanos\": " + entry.getProcessingNanos() + "}");
+			separator = ",\n";
+		}
+		out.write("\n  ],\n  \"maxFutureDepth\": " + maxFutureDepth + ",\n  \"queueDepths\": [");
+		separator = "\n";
+		for (int i = 0; i < samples; i++) {
+			out.write(separator + "    {\"time\": " + sampleTimes[i] + ", \"future\": "
+					+ futureDepths[i] + ", \"deferred\": " + deferredDepths[i] + "}");
+			separator = ",\n";
+		}
+		out.write("\n  ]\n}\n");
+		out.flush();
+	}
+
+	/**
+	 * The statistics of the events of one tag for one entity class.
+	 */
+	public static class Entry implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Class<?> entityClass;
+
+		private final int tag;
+
+		private long delivered;
+
+		private long processed;
+
+		private long cancelled;
+
+		/** The number of timed events. */
+		private long timed;
+
+		/** The time spent processing the timed events. */
+		private long timedNanos;
+
+		/** The estimated processing time, for entries aggregating the entries of entities. */
+		private long estimatedNanos = -1;
+
+		Entry(Class<?> entityClass, int tag) {
+			this.entityClass = entityClass;
+			this.tag = tag;
+		}
+
+		/**
+		 * Checks whether the processing of the last recorded event has to be timed.
+		 */
+		boolean isTimed() {
+			return processed <= ALWAYS_TIMED || processed % TIMING_PERIOD == 0;
+		}
+
+		/**
+		 * Adds the processing time of a timed event.
+		 */
+		void addTime(long nanos) {
+			timed++;
+			timedNanos += nanos;
+		}
+
+		/**
+		 * Gets the entity class.
+		 *
+		 * @return the class of the entities
+		 */
+		public Class<?> getEntityClass() {
+			return entityClass;
+		}
+
+		/**
+		 * Gets the tag.
+		 *
+		 * @return the tag of the events
+		 */
+		public int getTag() {
+			return tag;
+		}
+
+		/**
+		 * Gets the number of events delivered to entities of the class.
+		 *
+		 * @return the number of delivered events
+		 */
+		public long getDelivered() {
+			return delivered;
+		}
+
+		/**
+		 * Gets the number of events processed by entities of the class.
+		 *
+		 * @return the number of processed events
+		 */
+		public long getProcessed() {
+			return processed;
+		}
+
+		/**
+		 * Gets the number of events cancelled by entities of the class.
+		 *
+		 * @return the number of cancelled events
+		 */
+		public long getCancelled() {
+			return cancelled;
+		}
+
+		/**
+		 * Gets the number of events whose processing has been timed.
+		 *
+		 * @return the number of timed events
+		 */
+		public long getTimed() {
+			return timed;
+		}
+
+		/**
+		 * Gets the wall-clock time spent by entities of the class processing the events, estimated
+		 * from the timed events.
+		 *
+		 * @return the processing time, in nanoseconds
+		 */
+		public long getProcessingNanos() {
+			if (estimatedNanos >= 0) {
+				return estimatedNanos;
+			}
+			if (timed == 0) {
+				return 0;
+			}
+			return timed == processed ? timedNanos : Math.round((double) timedNanos * processed / timed);
+		}
+	}
+
+	/**
+	 * The entries of one entity, in an open addressing table keyed by tag so that recording an
+	 * event does not box its tag.
+	 */
+	private static class EntityStats implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		final Class<?> entityClass;
+
+		int[] tags = new int[16];
+
+		Entry[] entries = new Entry[16];
+
+		int size = 0;
+
+		/** The entry of the last recorded event. */
+		Entry last;
+
+		EntityStats(Class<?> entityClass) {
+			this.entityClass = entityClass;
+		}
+
+		Entry entry(int tag) {
+			if (last != null && last.tag == tag) {
+				return last;
+			}
+			last = find(tag);
+			return last;
+		}
+
+		private Entry find(int tag) {
+			int mask = entries.length - 1;
+			int i = (tag * 0x9E3779B9) >>> 16 & mask;
+			while (entries[i] != null) {
+				if (tags[i] == tag) {
+					return entries[i];
+				}
+				i = (i + 1) & mask;
+			}
+			Entry entry = new Entry(entityClass, tag);
+			if (2 * (size + 1) > entries.length) {
+				grow();
+				return insert(entry);
+			}
+			tags[i] = tag;
+			entries[i] = entry;
+			size++;
+			return entry;
+		}
+
+		private Entry insert(Entry entry) {
+			int mask = entries.length - 1;
+			int i = (entry.tag * 0x9E3779B9) >>> 16 & mask;
+			while (entries[i] != null) {
+				i = (i + 1) & mask;
+			}
+			tags[i] = entry.tag;
+			entries[i] = entry;
+			size++;
+			return entry;
+		}
+
+		private void grow() {
+			Entry[] old = entries;
+			tags = new int[old.length * 2];
+			entries = new Entry[old.length * 2];
+			size = 0;
+			for (Entry entry : old) {
+				if (entry != null) {
+					insert(entry);
+				}
+			}
+		}
+	}
+
+}
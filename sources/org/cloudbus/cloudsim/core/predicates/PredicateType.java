@@ -20,6 +20,9 @@ import org.cloudbus.cloudsim.core.SimEvent;
  */
 public class PredicateType extends Predicate {
 
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
 	/** The tags. */
 	private final int[] tags;
 
@@ -41,6 +44,15 @@ public class PredicateType extends Predicate {
 		this.tags = tags.clone();
 	}
 
+	/**
+	 * Gets the tags selected by this predicate. The returned array must not be modified.
+	 * 
+	 * @return the tags
+	 */
+	public int[] getTags() {
+		return tags;
+	}
+
 	/**
 	 * The match function called by <code>Sim_system</code>, not used directly by the user.
 	 * 
@@ -0,0 +1,270 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.lists;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Vm;
+
+/**
+ * VmRegistry maps the VMs, identified by their ID and user ID, to values, e.g. the VMs themselves
+ * or their hosts, so that a VM is found in constant time instead of by scanning a list as
+ * {@link VmList#getById(List, int)} does. The entries are indexed by VM ID in an array, which
+ * grows with the number of entries: an ID too large for the array, or negative, goes to a hash
+ * map instead, so sparse or non-contiguous IDs cost no more memory than contiguous ones. VMs of
+ * different users sharing an ID are chained in the order in which they were added.
+ *
+ * @param <V> the type of the values
+ * @since CloudSim Toolkit 3.0
+ */
+public class VmRegistry<V> implements Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The smallest length of the array. */
+	private static final int MIN_CAPACITY = 16;
+
+	/** The entries, indexed by VM ID. */
+	private Entry<V>[] entries;
+
+	/** The entries whose VM ID does not fit in the array. */
+	private final Map<Integer, Entry<V>> sparseEntries;
+
+	/** The number of entries. */
+	private int size;
+
+	/**
+	 * An entry of the registry, chained to the next entry with the same VM ID.
+	 *
+	 * @param <V> the type of the value
+	 */
+	private static class Entry<V> implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int userId;
+
+		private V value;
+
+		private Entry<V> next;
+
+		Entry(int userId, V value) {
+			this.userId = userId;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Creates a new empty VmRegistry.
+	 */
+	@SuppressWarnings("unchecked")
+	public VmRegistry() {
+		entries = new Entry[MIN_CAPACITY];
+		sparseEntries = new HashMap<Integer, Entry<V>>();
+		size = 0;
+	}
+
+	/**
+	 * Gets the first entry with a VM ID.
+	 *
+	 * @param vmId the vm id
+	 * @return the first entry, $null if none
+	 */
+	private Entry<V> getEntries(int vmId) {
+		if (vmId >= 0 && vmId < entries.length) {
+			Entry<V> entry = entries[vmId];
+			if (entry != null || sparseEntries.isEmpty()) {
+				return entry;
+			}
+		}
+		return sparseEntries.get(vmId);
+	}
+
+	/**
+	 * Sets the first entry with a VM ID.
+	 *
+	 * @param vmId the vm id
+	 * @param entry the first entry, $null if none
+	 */
+	private void setEntries(int vmId, Entry<V> entry) {
+		if (vmId >= 0 && vmId < entries.length && (entries[vmId] != null
+				|| !sparseEntries.containsKey(vmId))) {
+			entries[vmId] = entry;
+		} else if (entry == null) {
+			sparseEntries.remove(vmId);
+		} else {
+			sparseEntries.put(vmId, entry);
+		}
+	}
+
+	/**
+	 * Grows the array so that it holds a new VM ID, if the ID is not larger than twice the number
+	 * of entries.
+	 *
+	 * @param vmId the vm id
+	 */
+	@SuppressWarnings("unchecked")
+	private void ensureCapacity(int vmId) {
+		if (vmId < entries.length || vmId >= 2 * (size + 1) + MIN_CAPACITY) {
+			return;
+		}
+		int capacity = Math.max(vmId + 1, 2 * entries.length);
+		Entry<V>[] grown = new Entry[capacity];
+		System.arraycopy(entries, 0, grown, 0, entries.length);
+		entries = grown;
+	}
+
+	/**
+	 * Associates a value to a VM, replacing the value it had.
+	 *
+	 * @param vmId the vm id
+	 * @param userId the user id
+	 * @param value the value
+	 * @return the previous value, $null if none
+	 * @pre value != null
+	 * @post $none
+	 */
+	public V put(int vmId, int userId, V value) {
+		Entry<V> last = null;
+		for (Entry<V> entry = getEntries(vmId); entry != null; entry = entry.next) {
+			if (entry.userId == userId) {
+				V previous = entry.value;
+				entry.value = value;
+				return previous;
+			}
+			last = entry;
+		}
+		Entry<V> entry = new Entry<V>(userId, value);
+		if (last != null) {
+			last.next = entry;
+		} else {
+			if (vmId >= 0) {
+				ensureCapacity(vmId);
+			}
+			setEntries(vmId, entry);
+		}
+		size++;
+		return null;
+	}
+
+	/**
+	 * Associates a VM to itself, replacing the value it had.
+	 *
+	 * @param vm the vm
+	 * @return the previous value, $null if none
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(Vm vm) {
+		return put(vm.getId(), vm.getUserId(), (V) vm);
+	}
+
+	/**
+	 * Gets the value of the first VM added with an ID, whatever its user.
+	 *
+	 * @param vmId the vm id
+	 * @return the value, $null if not found
+	 */
+	public V get(int vmId) {
+		Entry<V> entry = getEntries(vmId);
+		return entry == null ? null : entry.value;
+	}
+
+	/**
+	 * Gets the value of a VM.
+	 *
+	 * @param vmId the vm id
+	 * @param userId the user id
+	 * @return the value, $null if not found
+	 */
+	public V get(int vmId, int userId) {
+		for (Entry<V> entry = getEntries(vmId); entry != null; entry = entry.next) {
+			if (entry.userId == userId) {
+				return entry.value;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes a VM.
+	 *
+	 * @param vmId the vm id
+	 * @param userId the user id
+	 * @return the value it had, $null if not found
+	 */
+	public V remove(int vmId, int userId) {
+		Entry<V> previous = null;
+		for (Entry<V> entry = getEntries(vmId); entry != null; entry = entry.next) {
+			if (entry.userId == userId) {
+				if (previous == null) {
+					setEntries(vmId, entry.next);
+				} else {
+					previous.next = entry.next;
+				}
+				size--;
+				return entry.value;
+			}
+			previous = entry;
+		}
+		return null;
+	}
+
+	/**
+	 * Removes all the VMs.
+	 */
+	@SuppressWarnings("unchecked")
+	public void clear() {
+		if (entries.length > MIN_CAPACITY) {
+			entries = new Entry[MIN_CAPACITY];
+		} else {
+			Arrays.fill(entries, null);
+		}
+		sparseEntries.clear();
+		size = 0;
+	}
+
+	/**
+	 * Gets the number of VMs.
+	 *
+	 * @return the number of VMs
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Registers the VMs appended to a list since the last call, so that the registry follows a
+	 * list to which VMs are only appended, or which is cleared. A VM keeps the first value it was
+	 * registered with, as {@link VmList#getById(List, int)} finds the first VM of the list.
+	 *
+	 * @param vmList the vm list
+	 * @param indexed the number of VMs of the list already registered
+	 * @return the number of VMs of the list now registered
+	 */
+	@SuppressWarnings("unchecked")
+	public int index(List<? extends Vm> vmList, int indexed) {
+		if (vmList.size() < indexed) {
+			clear();
+			indexed = 0;
+		}
+		for (int i = indexed; i < vmList.size(); i++) {
+			Vm vm = vmList.get(i);
+			if (get(vm.getId(), vm.getUserId()) == null) {
+				put(vm.getId(), vm.getUserId(), (V) vm);
+			}
+		}
+		return vmList.size();
+	}
+
+}
@@ -27,6 +27,14 @@ import org.cloudbus.cloudsim.lists.VmList;
 
 public class Switch extends SimEntity {
 
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	// predicates used to cancel the pending packet forwarding events
+	protected static final PredicateType NETWORK_EVENT_SEND = new PredicateType(CloudSimTags.Network_Event_send);
+
+	protected static final PredicateType NETWORK_EVENT_UP = new PredicateType(CloudSimTags.Network_Event_UP);
+
 	// switch level
 	public int id;
 
@@ -131,7 +139,7 @@ public class Switch extends SimEntity {
 		// int src=ev.getSource();
 		NetworkPacket hspkt = (NetworkPacket) ev.getData();
 		int recvVMid = hspkt.pkt.reciever;
-		CloudSim.cancelAll(getId(), new PredicateType(CloudSimTags.Network_Event_send));
+		CloudSim.cancelAll(getId(), NETWORK_EVENT_SEND);
 		schedule(getId(), latency, CloudSimTags.Network_Event_send);
 		if (level == NetworkConstants.EDGE_LEVEL) {
 			// packet is to be recieved by host
@@ -169,7 +177,7 @@ public class Switch extends SimEntity {
 		// int src=ev.getSource();
 		NetworkPacket hspkt = (NetworkPacket) ev.getData();
 		int recvVMid = hspkt.pkt.reciever;
-		CloudSim.cancelAll(getId(), new PredicateType(CloudSimTags.Network_Event_send));
+		CloudSim.cancelAll(getId(), NETWORK_EVENT_SEND);
 		schedule(getId(), switching_delay, CloudSimTags.Network_Event_send);
 		if (level == NetworkConstants.EDGE_LEVEL) {
 			// packet is recieved from host
@@ -265,7 +273,7 @@ public class Switch extends SimEntity {
 
 	protected void processpacket(SimEvent ev) {
 		// send packet to itself with switching delay (discarding other)
-		CloudSim.cancelAll(getId(), new PredicateType(CloudSimTags.Network_Event_UP));
+		CloudSim.cancelAll(getId(), NETWORK_EVENT_UP);
 		schedule(getId(), switching_delay, CloudSimTags.Network_Event_UP);
 		pktlist.add((NetworkPacket) ev.getData());
 
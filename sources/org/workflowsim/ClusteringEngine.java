@@ -44,6 +44,8 @@ import org.workflowsim.utils.ReplicaCatalog;
  */
 public final class ClusteringEngine extends SimEntity {
 
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * The task list
 	 */
@@ -68,6 +70,11 @@ public final class ClusteringEngine extends SimEntity {
 	 * The clustering engine to use
 	 */
 	protected BasicClustering engine;
+	/**
+	 * The id of the first job, which is only set for the workflows of an
+	 * ensemble
+	 */
+	private int jobIdBase;
 	/**
 	 * The WorkflowEngineId of the WorkflowEngine
 	 */
@@ -194,6 +201,7 @@ public final class ClusteringEngine extends SimEntity {
 			this.engine = new BasicClustering();
 			break;
 		}
+		engine.setJobIdBase(jobIdBase);
 		engine.setTaskList(getTaskList());
 		engine.run();
 		setJobList(engine.getJobList());
@@ -252,7 +260,7 @@ public final class ClusteringEngine extends SimEntity {
 		 * of this job to be getJobList().size() is so that the job id is the
 		 * next available id
 		 */
-		Job stageInJob = new Job(getJobList().size(), 110);
+		Job stageInJob = new Job(jobIdBase + getJobList().size(), 110);
 
 		/**
 		 * This is a very simple implementation of stage-in job, in which we Add
@@ -286,6 +294,9 @@ public final class ClusteringEngine extends SimEntity {
 		 * sub-workflows just use the first scheduler
 		 */
 		stageInJob.setUserId(getWorkflowEngine().getSchedulerId(0));
+		if (!getJobList().isEmpty()) {
+			stageInJob.setWorkflowId(getJobList().get(0).getWorkflowId());
+		}
 
 		/**
 		 * add stage-in job
@@ -343,6 +354,9 @@ public final class ClusteringEngine extends SimEntity {
 		case WorkflowSimTags.WORKFLOW_PLANNER_SUBMIT:
 			sendNow(this.workflowEngineId, WorkflowSimTags.WORKFLOW_PLANNER_SUBMIT, ev.getData());
 			break;
+		case WorkflowSimTags.WORKFLOW_SUBMIT:
+			processWorkflowSubmit(ev);
+			break;
 		case CloudSimTags.END_OF_SIMULATION:
 			shutdownEntity();
 			break;
@@ -352,6 +366,27 @@ public final class ClusteringEngine extends SimEntity {
 		}
 	}
 
+	/**
+	 * Clusters a workflow of an ensemble. Its jobs take ids that no other job
+	 * of the WorkflowEngine has, since the engine tracks jobs by id.
+	 * 
+	 * @param ev
+	 *            a SimEvent object
+	 */
+	protected void processWorkflowSubmit(SimEvent ev) {
+		WorkflowInstance workflow = (WorkflowInstance) ev.getData();
+		setTaskList(workflow.getTaskList());
+		workflow.setTaskList(null);
+		jobIdBase = getWorkflowEngine().getNextJobId();
+		processClustering();
+		processDatastaging();
+		getWorkflowEngine().useJobIds(getJobList());
+		workflow.setJobList(getJobList());
+		setJobList(new ArrayList<Job>());
+		sendNow(this.workflowEngineId, WorkflowSimTags.WORKFLOW_SUBMIT,
+				workflow);
+	}
+
 	/**
 	 * Overrides this method when making a new and different type of Broker.
 	 * This method is called by {@link #body()} for incoming unknown tags.
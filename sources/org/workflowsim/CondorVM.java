@@ -22,7 +22,9 @@ import org.workflowsim.utils.ReplicaCatalog.FileSystem;
 
 /**
  * Condor Vm extends a VM: the difference is it has a locl storage system and it
- * has a state to indicate whether it is busy or not
+ * has a state to indicate whether it is busy or not. Like the slots of a Condor
+ * startd, a vm runs as many jobs at a time as it has slots, one per pe by
+ * default, and it is idle as long as one of its slots is free.
  * 
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -30,6 +32,8 @@ import org.workflowsim.utils.ReplicaCatalog.FileSystem;
  */
 public class CondorVM extends Vm {
 
+	private static final long serialVersionUID = 1L;
+
 	/*
 	 * The local storage system a vm has if file.system=LOCAL
 	 */
@@ -39,6 +43,14 @@ public class CondorVM extends Vm {
 	 * VM_STATUS_READY (not used in workflowsim) or VM_STATUS_BUSY
 	 */
 	private int state;
+	/*
+	 * The number of slots, i.e. of jobs the vm runs at a time
+	 */
+	private int slots;
+	/*
+	 * The number of slots running a job
+	 */
+	private int busySlots;
 
 	/**
 	 * Monetary computation cost per unit time
@@ -86,8 +98,9 @@ public class CondorVM extends Vm {
 		super(id, userId, mips, numberOfPes, ram, bw, size, vmm,
 				cloudletScheduler);
 		/*
-		 * At the beginning all vm status is idle.
+		 * At the beginning all vm status is idle, with a slot per pe.
 		 */
+		this.slots = Math.max(1, numberOfPes);
 		setState(WorkflowSimTags.VM_STATUS_IDLE);
 		/*
 		 * If the file.system is LOCAL, we should add a clusterStorage to vm.
@@ -109,6 +122,11 @@ public class CondorVM extends Vm {
 	 */
 	public final void setState(int tag) {
 		this.state = tag;
+		if (tag == WorkflowSimTags.VM_STATUS_IDLE) {
+			busySlots = 0;
+		} else if (tag == WorkflowSimTags.VM_STATUS_BUSY) {
+			busySlots = slots;
+		}
 	}
 
 	/**
@@ -122,6 +140,70 @@ public class CondorVM extends Vm {
 		return this.state;
 	}
 
+	/**
+	 * Gets the number of slots
+	 * 
+	 * @return the number of slots
+	 */
+	public int getSlots() {
+		return slots;
+	}
+
+	/**
+	 * Sets the number of slots, the number of pes by default. The slots
+	 * running a job are kept.
+	 * 
+	 * @param slots
+	 *            the number of slots
+	 * @pre slots > 0
+	 */
+	public void setSlots(int slots) {
+		this.slots = slots;
+		updateState();
+	}
+
+	/**
+	 * Gets the number of free slots
+	 * 
+	 * @return the number of free slots
+	 */
+	public int getFreeSlots() {
+		return Math.max(0, slots - busySlots);
+	}
+
+	/**
+	 * Takes a free slot to run a job. The vm becomes busy when all its slots
+	 * are taken.
+	 * 
+	 * @return whether a slot was free
+	 */
+	public boolean takeSlot() {
+		if (busySlots >= slots) {
+			return false;
+		}
+		busySlots++;
+		updateState();
+		return true;
+	}
+
+	/**
+	 * Frees the slot of a job that has returned, so that the vm is idle.
+	 */
+	public void releaseSlot() {
+		if (busySlots > 0) {
+			busySlots--;
+		}
+		updateState();
+	}
+
+	/**
+	 * Updates the state from the number of free slots
+	 */
+	private void updateState() {
+		this.state = busySlots < slots ? WorkflowSimTags.VM_STATUS_IDLE
+				: WorkflowSimTags.VM_STATUS_BUSY;
+	}
+
 	/**
 	 * Adds a file to the local file system
 	 * 
@@ -47,6 +47,8 @@ import org.workflowsim.utils.ReplicaCatalog;
  */
 public class DatacenterExtended extends Datacenter {
 
+    private static final long serialVersionUID = 1L;
+
     public DatacenterExtended(String name,
             DatacenterCharacteristics characteristics,
             VmAllocationPolicy vmAllocationPolicy,
@@ -358,7 +360,11 @@ public class DatacenterExtended extends Datacenter {
         // R: for term is to allow loop at simulation start. Otherwise, one initial
         // simulation step is skipped and schedulers are not properly initialized
         //this is a bug of CloudSim if the runtime is smaller than 0.1 (now is 0.01) it doesn't work at all
-        if (CloudSim.clock() < 0.111 || CloudSim.clock() > getLastProcessTime() + 0.01) {
+        //with an integer clock, the start is tick 0, any later tick is a new processing step and one tick is the minimal interval
+        double tickLength = CloudSim.getTickLength();
+        double minInterval = tickLength > 0 ? tickLength : 0.11;
+        boolean start = tickLength > 0 ? CloudSim.clockTicks() == 0 : CloudSim.clock() < 0.111;
+        if (start || CloudSim.clock() > getLastProcessTime() + (tickLength > 0 ? 0 : 0.01)) {
             List<? extends Host> list = getVmAllocationPolicy().getHostList();
             double smallerTime = Double.MAX_VALUE;
             // for each host...
@@ -372,8 +378,8 @@ public class DatacenterExtended extends Datacenter {
                 }
             }
             // gurantees a minimal interval before scheduling the event
-            if (smallerTime < CloudSim.clock() + 0.11) {
-                smallerTime = CloudSim.clock() + 0.11;
+            if (smallerTime < CloudSim.clock() + minInterval) {
+                smallerTime = CloudSim.clock() + minInterval;
             }
             if (smallerTime != Double.MAX_VALUE) {
                 schedule(getId(), (smallerTime - CloudSim.clock()), CloudSimTags.VM_DATACENTER_EVENT);
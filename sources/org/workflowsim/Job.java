@@ -30,12 +30,20 @@ import java.util.List;
  */
 public class Job extends Task {
 
+	private static final long serialVersionUID = 1L;
+
 	/*
 	 * The list of tasks a job has. It is the only difference between Job and
 	 * Task.
 	 */
 	private List<Task> taskList;
 
+	/*
+	 * The number of times the tasks of this job have been retried, i.e. of
+	 * failed jobs before this one.
+	 */
+	private int retries;
+
 	/**
 	 * Allocates a new Job object. The job length should be greater than or
 	 * equal to 1.
@@ -89,6 +97,25 @@ public class Job extends Task {
 		this.taskList.addAll(list);
 	}
 
+	/**
+	 * Gets the number of times the tasks of this job have been retried
+	 * 
+	 * @return the number of retries
+	 */
+	public int getRetries() {
+		return this.retries;
+	}
+
+	/**
+	 * Sets the number of times the tasks of this job have been retried
+	 * 
+	 * @param retries
+	 *            , the number of retries
+	 */
+	public void setRetries(int retries) {
+		this.retries = retries;
+	}
+
 	/**
 	 * Gets the list of the parent tasks and override its super function
 	 * 
@@ -35,6 +35,8 @@ import org.cloudbus.cloudsim.UtilizationModelFull;
  */
 public class Task extends Cloudlet {
 
+    private static final long serialVersionUID = 1L;
+
     /*
      * The list of parent tasks. 
      */
@@ -57,6 +59,11 @@ public class Task extends Cloudlet {
      * stage. 
      */
     private int depth;
+    /*
+     * The id of the workflow of a task. It is only set when the task belongs
+     * to a workflow of an ensemble, otherwise it is 0.
+     */
+    private int workflowId;
     /*
      * The impact of a task. It is used in research. 
      */
@@ -145,6 +152,16 @@ public class Task extends Cloudlet {
         this.depth = depth;
     }
 
+    /**
+     * Sets the id of the workflow of the task
+     *
+     * @param workflowId the workflow id
+     * @return $none
+     */
+    public void setWorkflowId(int workflowId) {
+        this.workflowId = workflowId;
+    }
+
     /**
      * Gets the priority of the task
      *
@@ -168,6 +185,18 @@ public class Task extends Cloudlet {
         return this.depth;
     }
 
+    /**
+     * Gets the id of the workflow of the task
+     *
+     * @return the workflow id, or 0 if the task does not belong to an
+     * ensemble
+     * @pre $none
+     * @post $none
+     */
+    public int getWorkflowId() {
+        return this.workflowId;
+    }
+
     /**
      * Gets the child list of the task
      *
@@ -15,19 +15,32 @@
  */
 package org.workflowsim;
 
+import java.io.IOException;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.workflowsim.reclustering.ReclusteringEngine;
+import org.workflowsim.results.JobResultSink;
+import org.workflowsim.routing.BaseRoutingPolicy;
+import org.workflowsim.routing.SchedulerLoad;
+import org.workflowsim.routing.StaticRoutingPolicy;
 import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ThrottlingParameters;
 
 /**
  * WorkflowEngine represents a engine acting on behalf of a user. It hides VM
@@ -40,6 +53,8 @@ import org.workflowsim.utils.Parameters;
  */
 public class WorkflowEngine extends SimEntity {
 
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * The job list.
 	 */
@@ -63,6 +78,110 @@ public class WorkflowEngine extends SimEntity {
 	private List<Integer> schedulerId;
 	private List<WorkflowScheduler> scheduler;
 
+	/**
+	 * The ids of the received jobs.
+	 */
+	private Set<Integer> receivedIds = new HashSet<Integer>();
+	/**
+	 * The jobs of the job list, with their count of unsatisfied parents.
+	 */
+	private Map<Job, PendingJob> pendingJobs = new IdentityHashMap<Job, PendingJob>();
+	/**
+	 * The pending jobs waiting for each parent, by parent id.
+	 */
+	private Map<Integer, List<PendingJob>> waitingJobs = new HashMap<Integer, List<PendingJob>>();
+	/**
+	 * The pending jobs whose parents have all been received, in the order
+	 * of the job list.
+	 */
+	private PriorityQueue<PendingJob> readyJobs = new PriorityQueue<PendingJob>();
+	/**
+	 * The job list and the sizes of the job list and of the job received
+	 * list the pending jobs have been indexed for.
+	 */
+	private List<? extends Cloudlet> indexedJobsList;
+	private int indexedJobs;
+	private int indexedReceivedJobs;
+	/**
+	 * The position of the next job appended to the job list.
+	 */
+	private long jobSequence;
+	/**
+	 * The number of released jobs still in the job list. They are removed
+	 * all at once when they are half of the list, so that releasing a job
+	 * costs O(1) amortized instead of shifting the list.
+	 */
+	private int releasedJobs;
+
+	/**
+	 * The number of workflows of the ensemble, or 0 if the engine executes a
+	 * single workflow.
+	 */
+	private int ensembleSize;
+	/**
+	 * The workflows of the ensemble being executed, by workflow id.
+	 */
+	private Map<Integer, WorkflowInstance> activeWorkflows = new HashMap<Integer, WorkflowInstance>();
+	/**
+	 * The workflows of the ensemble that have finished. They no longer hold
+	 * their jobs.
+	 */
+	private List<WorkflowInstance> finishedWorkflows = new ArrayList<WorkflowInstance>();
+	/**
+	 * The smallest id no job of the engine has.
+	 */
+	private int nextJobId;
+	/**
+	 * Whether the schedulers have asked for jobs, that is their vms have
+	 * been created.
+	 */
+	private boolean jobsRequested;
+	/**
+	 * The policy routing the ready jobs to the schedulers.
+	 */
+	private BaseRoutingPolicy routingPolicy = new StaticRoutingPolicy();
+	/**
+	 * The loads of the schedulers, in the order of the schedulers.
+	 */
+	private List<SchedulerLoad> schedulerLoads;
+	/**
+	 * The submission throttle, or null to submit the ready jobs at once.
+	 */
+	private ThrottlingParameters throttlingParameters;
+	/**
+	 * The number of ready jobs the throttle has held, and the total time
+	 * they were held.
+	 */
+	private long throttledJobs;
+	private double throttledTime;
+	/**
+	 * The number of batches of jobs submitted to the schedulers.
+	 */
+	private long submittedBatches;
+	/**
+	 * The sink the records of the returned jobs are written to, or null.
+	 * It is not checkpointed.
+	 */
+	private transient JobResultSink jobResultSink;
+	/**
+	 * Whether the returned jobs are dropped from the job received list, from
+	 * the job submitted list and from the lists of the schedulers.
+	 */
+	private boolean dropCompletedJobs;
+	/**
+	 * The number of returned jobs not yet removed from the job submitted
+	 * list and from the lists of the schedulers, and the number of jobs
+	 * removed from the job submitted list.
+	 */
+	private int completedJobs;
+	private int droppedJobs;
+	/**
+	 * The dropped jobs whose children have not all been released yet, with
+	 * the number of these children. Once it reaches 0 they are unlinked
+	 * from the workflow, so that the jobs still pending do not keep them.
+	 */
+	private Map<Job, Integer> linkedJobs = new IdentityHashMap<Job, Integer>();
+
 	/**
 	 * Created a new WorkflowEngine object.
 	 * 
@@ -165,6 +284,7 @@ public class WorkflowEngine extends SimEntity {
 			break;
 		// this call is from workflow scheduler when all vms are created
 		case CloudSimTags.CLOUDLET_SUBMIT:
+			jobsRequested = true;
 			submitJobs();
 			break;
 
@@ -182,6 +302,9 @@ public class WorkflowEngine extends SimEntity {
 		case WorkflowSimTags.WORKFLOW_PLANNER_SUBMIT:
 			processWorkflowPlanner(ev);
 			break;
+		case WorkflowSimTags.WORKFLOW_SUBMIT:
+			processWorkflowSubmit(ev);
+			break;
 		// other unknown tags are processed by this method
 		default:
 			processOtherEvent(ev);
@@ -244,6 +367,34 @@ public class WorkflowEngine extends SimEntity {
 		setJobsList(list);
 	}
 
+	/**
+	 * Process the submission of a workflow of an ensemble. Its jobs are
+	 * appended to the job list, and submitted right away if the vms are
+	 * ready.
+	 * 
+	 * @param ev
+	 *            a SimEvent object
+	 */
+	protected void processWorkflowSubmit(SimEvent ev) {
+		WorkflowInstance workflow = (WorkflowInstance) ev.getData();
+		List<Job> jobs = workflow.getJobList();
+		workflow.setJobList(null);
+		workflow.addJobs(jobs.size());
+		activeWorkflows.put(workflow.getId(), workflow);
+
+		boolean indexed = isPendingJobsIndexed();
+		getJobs().addAll(jobs);
+		if (indexed) {
+			for (Job job : jobs) {
+				addPendingJob(job);
+			}
+			indexedJobs = getJobs().size();
+		}
+		if (jobsRequested) {
+			submitJobs();
+		}
+	}
+
 	/**
 	 * Process a job return event.
 	 * 
@@ -255,17 +406,58 @@ public class WorkflowEngine extends SimEntity {
 	protected void processJobReturn(SimEvent ev) {
 
 		Job job = (Job) ev.getData();
+		boolean indexed = isPendingJobsIndexed();
+		WorkflowInstance workflow = activeWorkflows.get(job.getWorkflowId());
 
 		if (job.getCloudletStatus() == Cloudlet.FAILED) {
 			// Reclusteringengine will add retry job to jobList
-			int newId = getJobsList().size() + getJobsSubmittedList().size();
-			getJobsList().addAll(ReclusteringEngine.process(job, newId));
+			int newId = getJobs().size() - releasedJobs
+					+ getJobsSubmittedList().size() + droppedJobs;
+			if (workflow != null) {
+				newId = getNextJobId();
+			}
+			List<Job> retryJobs = ReclusteringEngine.process(job, newId);
+			useJobIds(retryJobs);
+			if (workflow != null) {
+				workflow.addJobs(retryJobs.size());
+			}
+			getJobs().addAll(retryJobs);
+			if (indexed) {
+				for (Job retryJob : retryJobs) {
+					addPendingJob(retryJob);
+					addRetryParent(retryJob);
+				}
+				indexedJobs = getJobs().size();
+			}
 
 		}
 
-		getJobsReceivedList().add(job);
+		int index = getSchedulerIds().indexOf(job.getUserId());
+		if (index >= 0) {
+			getSchedulerLoads().get(index).jobReturned(job);
+		}
+		writeJobResult(job);
+		if (!dropCompletedJobs) {
+			getJobsReceivedList().add(job);
+		}
+		if (indexed) {
+			releaseChildren(job.getCloudletId());
+			indexedReceivedJobs = getJobsReceivedList().size();
+		} else if (dropCompletedJobs) {
+			receivedIds.add(job.getCloudletId());
+		}
+		if (dropCompletedJobs) {
+			linkDroppedJob(job);
+			if (++completedJobs >= Math.max(64, getJobsSubmittedList().size() / 2)) {
+				removeCompletedJobs();
+			}
+		}
+		if (workflow != null && workflow.jobReturned(CloudSim.clock())) {
+			retireWorkflow(workflow);
+		}
 		jobsSubmitted--;
-		if (getJobsList().isEmpty() && jobsSubmitted == 0) {
+		if (getJobs().size() == releasedJobs && jobsSubmitted == 0
+				&& finishedWorkflows.size() == ensembleSize) {
 			// send msg to all the schedulers
 			for (int i = 0; i < getSchedulerIds().size(); i++) {
 				sendNow(getSchedulerId(i), CloudSimTags.END_OF_SIMULATION, null);
@@ -276,6 +468,264 @@ public class WorkflowEngine extends SimEntity {
 
 	}
 
+	/**
+	 * Retires a finished workflow of the ensemble: its jobs are dropped from
+	 * the lists of the engine and of the schedulers, so that the memory used
+	 * by an ensemble depends on the workflows being executed and not on the
+	 * workflows that have been.
+	 * 
+	 * @param workflow
+	 *            the workflow
+	 */
+	private void retireWorkflow(WorkflowInstance workflow) {
+		activeWorkflows.remove(workflow.getId());
+		finishedWorkflows.add(workflow);
+
+		boolean indexed = isPendingJobsIndexed();
+		removeWorkflowJobs(getJobsReceivedList(), workflow.getId(),
+				indexed ? receivedIds : null);
+		removeWorkflowJobs(getJobsSubmittedList(), workflow.getId(), null);
+		for (WorkflowScheduler wfs : getSchedulers()) {
+			removeWorkflowJobs(wfs.getCloudletReceivedList(), workflow.getId(),
+					null);
+		}
+		if (indexed) {
+			indexedReceivedJobs = getJobsReceivedList().size();
+		}
+	}
+
+	/**
+	 * Removes the jobs of a workflow from a list, keeping the order of the
+	 * other jobs.
+	 * 
+	 * @param list
+	 *            the list
+	 * @param workflowId
+	 *            the workflow id
+	 * @param ids
+	 *            the set to remove the ids of the jobs from, or null
+	 */
+	private static void removeWorkflowJobs(List list, int workflowId,
+			Set<Integer> ids) {
+		int kept = 0;
+		for (int i = 0; i < list.size(); i++) {
+			Job job = (Job) list.get(i);
+			if (job.getWorkflowId() != workflowId) {
+				list.set(kept++, job);
+			} else if (ids != null) {
+				ids.remove(job.getCloudletId());
+			}
+		}
+		list.subList(kept, list.size()).clear();
+	}
+
+	/**
+	 * Writes the record of a returned job to the sink, if any. The sink is
+	 * closed if it can't be written.
+	 * 
+	 * @param job
+	 *            the job
+	 */
+	private void writeJobResult(Job job) {
+		if (jobResultSink == null) {
+			return;
+		}
+		try {
+			jobResultSink.write(job);
+		} catch (IOException e) {
+			e.printStackTrace();
+			closeJobResultSink();
+		}
+	}
+
+	/**
+	 * Closes the sink of the records of the returned jobs, if any.
+	 */
+	private void closeJobResultSink() {
+		if (jobResultSink == null) {
+			return;
+		}
+		try {
+			jobResultSink.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		jobResultSink = null;
+	}
+
+	/**
+	 * Removes the returned jobs from the job submitted list and from the
+	 * lists of the schedulers. It runs once enough jobs have returned, so
+	 * that its cost is spread over them.
+	 */
+	private void removeCompletedJobs() {
+		int size = getJobsSubmittedList().size();
+		removeReceivedJobs(getJobsSubmittedList(), receivedIds);
+		droppedJobs += size - getJobsSubmittedList().size();
+		for (WorkflowScheduler wfs : getSchedulers()) {
+			removeReceivedJobs(wfs.getCloudletReceivedList(), receivedIds);
+		}
+		completedJobs = 0;
+	}
+
+	/**
+	 * Counts the children of a dropped job that have not been released yet,
+	 * and unlinks the job at once if there are none.
+	 * 
+	 * @param job
+	 *            the dropped job
+	 */
+	private void linkDroppedJob(Job job) {
+		int children = 0;
+		for (Object child : job.getChildList()) {
+			PendingJob pending = pendingJobs.get(child);
+			if (pending != null && !pending.released) {
+				children++;
+			}
+		}
+		if (children > 0) {
+			linkedJobs.put(job, children);
+		} else {
+			unlinkJob(job);
+		}
+	}
+
+	/**
+	 * Unlinks the dropped parents of a released job whose children have now
+	 * all been released.
+	 * 
+	 * @param job
+	 *            the released job
+	 */
+	private void releaseDroppedParents(Job job) {
+		for (Object parent : job.getParentList().toArray()) {
+			Integer children = linkedJobs.get(parent);
+			if (children == null) {
+				continue;
+			}
+			if (children > 1) {
+				linkedJobs.put((Job) parent, children - 1);
+			} else {
+				linkedJobs.remove(parent);
+				unlinkJob((Job) parent);
+			}
+		}
+	}
+
+	/**
+	 * Removes a dropped job and its tasks from the parent and child lists
+	 * of the rest of the workflow, and clears their own lists. The engine
+	 * no longer needs them: its pending jobs wait on the ids of their
+	 * parents. The job gets new lists, since a retry job shares the lists
+	 * of the failed job.
+	 * 
+	 * @param job
+	 *            the dropped job
+	 */
+	private static void unlinkJob(Job job) {
+		for (Task child : job.getChildList()) {
+			child.getParentList().remove(job);
+		}
+		for (Object parent : job.getParentList()) {
+			((Task) parent).getChildList().remove(job);
+		}
+		for (Task task : job.getTaskList()) {
+			for (Task child : task.getChildList()) {
+				child.getParentList().remove(task);
+			}
+			for (Task parent : task.getParentList()) {
+				parent.getChildList().remove(task);
+			}
+			task.getChildList().clear();
+			task.getParentList().clear();
+		}
+		job.setChildList(new ArrayList<Task>());
+		job.setParentList(new ArrayList<Task>());
+		job.setTaskList(new ArrayList<Task>());
+	}
+
+	/**
+	 * Removes the received jobs from a list, keeping the order of the other
+	 * jobs.
+	 * 
+	 * @param list
+	 *            the list
+	 * @param ids
+	 *            the ids of the received jobs
+	 */
+	private static void removeReceivedJobs(List list, Set<Integer> ids) {
+		int kept = 0;
+		for (int i = 0; i < list.size(); i++) {
+			Cloudlet job = (Cloudlet) list.get(i);
+			if (!ids.contains(job.getCloudletId())) {
+				list.set(kept++, job);
+			}
+		}
+		list.subList(kept, list.size()).clear();
+	}
+
+	/**
+	 * Gets the smallest id no job of the engine has. The jobs of the
+	 * workflows of an ensemble take ids from there.
+	 * 
+	 * @return the next job id
+	 */
+	public int getNextJobId() {
+		return nextJobId;
+	}
+
+	/**
+	 * Marks the ids of jobs as taken.
+	 * 
+	 * @param jobs
+	 *            the jobs
+	 */
+	public void useJobIds(List<? extends Cloudlet> jobs) {
+		for (Cloudlet job : jobs) {
+			nextJobId = Math.max(nextJobId, job.getCloudletId() + 1);
+		}
+	}
+
+	/**
+	 * Sets the number of workflows of the ensemble. The engine ends the
+	 * simulation once they have all finished.
+	 * 
+	 * @param ensembleSize
+	 *            the number of workflows
+	 */
+	public void setEnsembleSize(int ensembleSize) {
+		this.ensembleSize = ensembleSize;
+	}
+
+	/**
+	 * Gets the number of workflows of the ensemble
+	 * 
+	 * @return the number of workflows, or 0 if the engine executes a single
+	 *         workflow
+	 */
+	public int getEnsembleSize() {
+		return ensembleSize;
+	}
+
+	/**
+	 * Gets the workflows of the ensemble being executed
+	 * 
+	 * @return the active workflows
+	 */
+	public Collection<WorkflowInstance> getActiveWorkflows() {
+		return activeWorkflows.values();
+	}
+
+	/**
+	 * Gets the workflows of the ensemble that have finished, in the order in
+	 * which they finished
+	 * 
+	 * @return the finished workflows
+	 */
+	public List<WorkflowInstance> getFinishedWorkflows() {
+		return finishedWorkflows;
+	}
+
 	/**
 	 * Overrides this method when making a new and different type of Broker.
 	 * This method is called by {@link #body()} for incoming unknown tags.
@@ -297,22 +747,192 @@ public class WorkflowEngine extends SimEntity {
 	}
 
 	/**
-	 * Checks whether a job list contains a id
+	 * A job of the job list waiting for its parents
+	 */
+	private static class PendingJob implements Comparable<PendingJob>, Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Job job;
+		/**
+		 * The position of the job in the job list, which only grows along
+		 * the list
+		 */
+		private final long sequence;
+		/**
+		 * Whether the job has been released, but not removed from the job
+		 * list yet
+		 */
+		private boolean released;
+		/**
+		 * The number of parents not received yet
+		 */
+		private int unsatisfiedParents;
+		/**
+		 * The time the job became ready
+		 */
+		private double readyTime;
+
+		PendingJob(Job job, long sequence) {
+			this.job = job;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(PendingJob o) {
+			return sequence < o.sequence ? -1 : (sequence == o.sequence ? 0 : 1);
+		}
+	}
+
+	/**
+	 * Checks whether the pending jobs are indexed for the current job list
+	 * and job received list. They are not when these lists have been
+	 * replaced or modified from outside the engine.
+	 * 
+	 * @return whether the index is up to date
+	 */
+	private boolean isPendingJobsIndexed() {
+		return indexedJobsList == getJobs()
+				&& indexedJobs == getJobs().size()
+				&& indexedReceivedJobs == getJobsReceivedList().size();
+	}
+
+	/**
+	 * Indexes the pending jobs of the job list from scratch.
+	 */
+	private void indexPendingJobs() {
+		// the ids of the dropped jobs are only kept there
+		if (!dropCompletedJobs) {
+			receivedIds.clear();
+		}
+		for (Iterator it = getJobsReceivedList().iterator(); it.hasNext();) {
+			receivedIds.add(((Cloudlet) it.next()).getCloudletId());
+		}
+		if (indexedJobsList == getJobs()) {
+			removeReleasedJobs();
+		}
+		releasedJobs = 0;
+		pendingJobs.clear();
+		waitingJobs.clear();
+		readyJobs.clear();
+		jobSequence = 0;
+		for (Iterator it = getJobs().iterator(); it.hasNext();) {
+			addPendingJob((Job) it.next());
+		}
+		indexedJobsList = getJobs();
+		indexedJobs = getJobs().size();
+		indexedReceivedJobs = getJobsReceivedList().size();
+	}
+
+	/**
+	 * Adds a job appended to the job list to the pending jobs.
+	 * 
+	 * @param job
+	 *            the job
+	 */
+	private void addPendingJob(Job job) {
+		PendingJob pending = new PendingJob(job, jobSequence++);
+		pendingJobs.put(job, pending);
+		for (Object parent : job.getParentList()) {
+			waitFor(pending, (Job) parent);
+		}
+		if (pending.unsatisfiedParents == 0) {
+			pending.readyTime = CloudSim.clock();
+			readyJobs.add(pending);
+		}
+	}
+
+	/**
+	 * Makes a pending job wait for a parent, unless the parent has been
+	 * received already.
+	 * 
+	 * @param pending
+	 *            the pending job
+	 * @param parent
+	 *            the parent
+	 */
+	private void waitFor(PendingJob pending, Job parent) {
+		int parentId = parent.getCloudletId();
+		if (receivedIds.contains(parentId)) {
+			return;
+		}
+		List<PendingJob> waiting = waitingJobs.get(parentId);
+		if (waiting == null) {
+			waiting = new ArrayList<PendingJob>();
+			waitingJobs.put(parentId, waiting);
+		}
+		waiting.add(pending);
+		pending.unsatisfiedParents++;
+	}
+
+	/**
+	 * Makes the pending children of a retry job wait for it, since the
+	 * ReclusteringEngine adds it to their parents.
+	 * 
+	 * @param retryJob
+	 *            the retry job
+	 */
+	private void addRetryParent(Job retryJob) {
+		for (Object child : retryJob.getChildList()) {
+			PendingJob pending = pendingJobs.get(child);
+			if (pending == null || pending.released) {
+				continue;
+			}
+			for (Object parent : ((Job) child).getParentList()) {
+				if (parent == retryJob) {
+					waitFor(pending, retryJob);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records a received job and moves the pending jobs whose parents have
+	 * all been received to the ready jobs.
 	 * 
-	 * @param jobList
-	 *            the job list
 	 * @param id
-	 *            the job id
-	 * @return
-	 */
-	private boolean hasJobListContainsID(List jobList, int id) {
-		for (Iterator it = jobList.iterator(); it.hasNext();) {
-			Job job = (Job) it.next();
-			if (job.getCloudletId() == id) {
-				return true;
+	 *            the id of the received job
+	 */
+	private void releaseChildren(int id) {
+		receivedIds.add(id);
+		List<PendingJob> waiting = waitingJobs.remove(id);
+		if (waiting == null) {
+			return;
+		}
+		for (PendingJob pending : waiting) {
+			pending.unsatisfiedParents--;
+			if (pending.unsatisfiedParents == 0 && !pending.released
+					&& pendingJobs.get(pending.job) == pending) {
+				pending.readyTime = CloudSim.clock();
+				readyJobs.add(pending);
+			}
+		}
+	}
+
+	/**
+	 * Removes the released jobs from the job list, keeping the order of the
+	 * other jobs.
+	 */
+	private void removeReleasedJobs() {
+		if (releasedJobs == 0) {
+			return;
+		}
+		List<Job> list = getJobs();
+		int kept = 0;
+		for (int i = 0; i < list.size(); i++) {
+			Job job = list.get(i);
+			PendingJob pending = pendingJobs.get(job);
+			if (pending != null && pending.released) {
+				pendingJobs.remove(job);
+			} else {
+				list.set(kept++, job);
 			}
 		}
-		return false;
+		list.subList(kept, list.size()).clear();
+		releasedJobs = 0;
+		if (indexedJobsList == list) {
+			indexedJobs = list.size();
+		}
 	}
 
 	/**
@@ -323,46 +943,56 @@ public class WorkflowEngine extends SimEntity {
 	 */
 	protected void submitJobs() {
 
-		List<Job> list = getJobsList();
 		Map allocationList = new HashMap<Integer, List>();
 		for (int i = 0; i < getSchedulers().size(); i++) {
 			List<Job> submittedList = new ArrayList<Job>();
 			allocationList.put(getSchedulerId(i), submittedList);
 		}
-		int num = list.size();
-		for (int i = 0; i < num; i++) {
-			// at the beginning
-			Job job = list.get(i);
+		if (!isPendingJobsIndexed()) {
+			indexPendingJobs();
+		}
+		/**
+		 * The ready jobs are the jobs whose parents have all been received.
+		 * They are released in the order of the job list, as long as the
+		 * throttle lets them: the others stay ready until a job returns.
+		 */
+		ThrottlingParameters throttle = getThrottlingParameters();
+		int idleJobs = 0;
+		if (throttle != null && throttle.getMaxIdle() > 0) {
+			for (SchedulerLoad load : getSchedulerLoads()) {
+				idleJobs += load.getIdleJobs();
+			}
+		}
+		while (!readyJobs.isEmpty()) {
+			if (throttle != null
+					&& ((throttle.getMaxJobs() > 0 && jobsSubmitted >= throttle.getMaxJobs())
+					|| (throttle.getMaxIdle() > 0 && idleJobs >= throttle.getMaxIdle()))) {
+				break;
+			}
+			PendingJob pending = readyJobs.poll();
+			Job job = pending.job;
 			// Dont use job.isFinished() it is not right
-			if (!hasJobListContainsID(this.getJobsReceivedList(),
-					job.getCloudletId())) {
-				List<Job> parentList = job.getParentList();
-				boolean flag = true;
-				for (Job parent : parentList) {
-					if (!hasJobListContainsID(this.getJobsReceivedList(),
-							parent.getCloudletId())) {
-						flag = false;
-						break;
-					}
-
-				}
-				/**
-				 * This job's parents have all completed successfully. Should
-				 * submit.
-				 */
-				if (flag) {
-
-					List submittedList = (List) allocationList.get(job
-							.getUserId());
-					submittedList.add(job);
-					jobsSubmitted++;
-					getJobsSubmittedList().add(job);
-					list.remove(job);
-					i--;
-					num--;
-				}
+			if (receivedIds.contains(job.getCloudletId())) {
+				continue;
 			}
-
+			if (CloudSim.clock() > pending.readyTime) {
+				throttledJobs++;
+				throttledTime += CloudSim.clock() - pending.readyTime;
+			}
+			idleJobs++;
+			int index = routeJob(job);
+			List submittedList = (List) allocationList.get(getSchedulerId(index));
+			submittedList.add(job);
+			jobsSubmitted++;
+			getJobsSubmittedList().add(job);
+			pending.released = true;
+			releasedJobs++;
+			if (!linkedJobs.isEmpty()) {
+				releaseDroppedParents(job);
+			}
+		}
+		if (2 * releasedJobs > getJobs().size()) {
+			removeReleasedJobs();
 		}
 		/**
 		 * If we have multiple schedulers. Divide them equally.
@@ -373,6 +1003,9 @@ public class WorkflowEngine extends SimEntity {
 			// divid it into sublist
 
 			int interval = Parameters.getOverheadParams().getWEDInterval();
+			if (throttle != null && throttle.isAdaptive()) {
+				interval = getBatchSize(i, submittedList.size());
+			}
 			double delay = 0.0;
 			if (Parameters.getOverheadParams().getWEDDelay() != null) {
 				delay = Parameters.getOverheadParams().getWEDDelay(
@@ -392,6 +1025,7 @@ public class WorkflowEngine extends SimEntity {
 						// create a new one
 						schedule(getSchedulerId(i), delay,
 								CloudSimTags.CLOUDLET_SUBMIT, subList);
+						submittedBatches++;
 						delay += delaybase;
 						subList = new ArrayList();
 
@@ -401,16 +1035,41 @@ public class WorkflowEngine extends SimEntity {
 				if (!subList.isEmpty()) {
 					schedule(getSchedulerId(i), delay,
 							CloudSimTags.CLOUDLET_SUBMIT, subList);
+					submittedBatches++;
 				}
 
 			} else if (!submittedList.isEmpty()) {
 				sendNow(this.getSchedulerId(i), CloudSimTags.CLOUDLET_SUBMIT,
 						submittedList);
+				submittedBatches++;
 			}
 		}
 
 	}
 
+	/**
+	 * Sizes the batches of the jobs submitted to a scheduler from its
+	 * backlog and its free slots: the first batch takes the slots no earlier
+	 * job will take, so that the scheduler gets jobs about as fast as it can
+	 * start them. If it has no such slot, a batch takes all of its slots.
+	 * 
+	 * @param index
+	 *            the index of the scheduler
+	 * @param submitted
+	 *            the number of jobs submitted to the scheduler
+	 * @return the batch size
+	 */
+	private int getBatchSize(int index, int submitted) {
+		SchedulerLoad load = getSchedulerLoads().get(index);
+		// the backlog before the submitted jobs were routed
+		int backlog = Math.max(0, load.getIdleJobs() - submitted);
+		int size = load.getSlots() - load.getBusySlots() - backlog;
+		if (size <= 0) {
+			size = load.getSlots();
+		}
+		return Math.max(1, size);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -418,6 +1077,21 @@ public class WorkflowEngine extends SimEntity {
 	 */
 	@Override
 	public void shutdownEntity() {
+		if (!(routingPolicy instanceof StaticRoutingPolicy)) {
+			for (SchedulerLoad load : getSchedulerLoads()) {
+				Log.printLine(getName() + ": "
+						+ load.getScheduler().getName() + " was routed "
+						+ load.getJobsRouted() + " jobs, queue depth mean "
+						+ load.getMeanOutstandingJobs() + " max "
+						+ load.getMaxOutstandingJobs());
+			}
+		}
+		if (throttlingParameters != null) {
+			Log.printLine(getName() + ": the throttle held " + throttledJobs
+					+ " jobs for " + throttledTime + " in all, "
+					+ submittedBatches + " batches submitted");
+		}
+		closeJobResultSink();
 		Log.printLine(getName() + " is shutting down...");
 	}
 
@@ -434,7 +1108,7 @@ public class WorkflowEngine extends SimEntity {
 	}
 
 	/**
-	 * Gets the job list.
+	 * Gets the job list, the jobs not released yet.
 	 * 
 	 * @param <T>
 	 *            the generic type
@@ -442,9 +1116,20 @@ public class WorkflowEngine extends SimEntity {
 	 */
 	@SuppressWarnings("unchecked")
 	public <T extends Cloudlet> List<T> getJobsList() {
+		removeReleasedJobs();
 		return (List<T>) jobsList;
 	}
 
+	/**
+	 * Gets the job list, which may still hold released jobs.
+	 * 
+	 * @return the job list
+	 */
+	@SuppressWarnings("unchecked")
+	private List<Job> getJobs() {
+		return (List<Job>) jobsList;
+	}
+
 	/**
 	 * Sets the job list.
 	 * 
@@ -455,6 +1140,7 @@ public class WorkflowEngine extends SimEntity {
 	 */
 	private <T extends Cloudlet> void setJobsList(List<T> jobsList) {
 		this.jobsList = jobsList;
+		releasedJobs = 0;
 	}
 
 	/**
@@ -591,6 +1277,156 @@ public class WorkflowEngine extends SimEntity {
 		return 0;
 	}
 
+	/**
+	 * Sets the policy routing the ready jobs to the schedulers. By default a
+	 * job goes to the scheduler of its user id.
+	 * 
+	 * @param routingPolicy
+	 *            the routing policy
+	 */
+	public void setRoutingPolicy(BaseRoutingPolicy routingPolicy) {
+		this.routingPolicy = routingPolicy;
+	}
+
+	/**
+	 * Gets the policy routing the ready jobs to the schedulers
+	 * 
+	 * @return the routing policy
+	 */
+	public BaseRoutingPolicy getRoutingPolicy() {
+		return routingPolicy;
+	}
+
+	/**
+	 * Gets the loads of the schedulers, with their queue-depth metrics
+	 * 
+	 * @return the loads, in the order of the schedulers
+	 */
+	public List<SchedulerLoad> getSchedulerLoads() {
+		if (schedulerLoads == null) {
+			schedulerLoads = new ArrayList<SchedulerLoad>();
+			for (WorkflowScheduler wfs : getSchedulers()) {
+				schedulerLoads.add(new SchedulerLoad(wfs));
+			}
+		}
+		return schedulerLoads;
+	}
+
+	/**
+	 * Sets the sink the records of the returned jobs are written to, as they
+	 * return. The engine closes it when it shuts down. The sink is not
+	 * checkpointed: it has to be set again after a restore.
+	 * 
+	 * @param jobResultSink
+	 *            the sink, or null
+	 */
+	public void setJobResultSink(JobResultSink jobResultSink) {
+		this.jobResultSink = jobResultSink;
+	}
+
+	/**
+	 * Gets the sink the records of the returned jobs are written to
+	 * 
+	 * @return the sink, or null
+	 */
+	public JobResultSink getJobResultSink() {
+		return jobResultSink;
+	}
+
+	/**
+	 * Sets whether the returned jobs are dropped from the job received list,
+	 * from the job submitted list and from the lists of the schedulers, and
+	 * unlinked with their tasks from the parent and child lists of the
+	 * workflow once their children have been released, so that the memory
+	 * of a run does not grow with the number of jobs. Their results are then only known
+	 * from the sink.
+	 * 
+	 * @param dropCompletedJobs
+	 *            whether the returned jobs are dropped
+	 */
+	public void setDropCompletedJobs(boolean dropCompletedJobs) {
+		this.dropCompletedJobs = dropCompletedJobs;
+	}
+
+	/**
+	 * Checks whether the returned jobs are dropped from the lists
+	 * 
+	 * @return whether the returned jobs are dropped
+	 */
+	public boolean isDropCompletedJobs() {
+		return dropCompletedJobs;
+	}
+
+	/**
+	 * Sets the submission throttle. By default the ready jobs are submitted
+	 * at once, in batches of wed.interval.
+	 * 
+	 * @param throttlingParameters
+	 *            the throttling parameters, or null for no throttle
+	 */
+	public void setThrottlingParameters(ThrottlingParameters throttlingParameters) {
+		this.throttlingParameters = throttlingParameters;
+	}
+
+	/**
+	 * Gets the submission throttle
+	 * 
+	 * @return the throttling parameters, or null if there is no throttle
+	 */
+	public ThrottlingParameters getThrottlingParameters() {
+		return throttlingParameters;
+	}
+
+	/**
+	 * Gets the number of ready jobs the throttle has held
+	 * 
+	 * @return the number of held jobs
+	 */
+	public long getThrottledJobs() {
+		return throttledJobs;
+	}
+
+	/**
+	 * Gets the total time the ready jobs were held by the throttle, i.e. the
+	 * latency it has added
+	 * 
+	 * @return the total held time
+	 */
+	public double getThrottledTime() {
+		return throttledTime;
+	}
+
+	/**
+	 * Gets the number of batches of jobs submitted to the schedulers
+	 * 
+	 * @return the number of batches
+	 */
+	public long getSubmittedBatches() {
+		return submittedBatches;
+	}
+
+	/**
+	 * Chooses the scheduler of a ready job. A job bound to a vm by the
+	 * planner stays with the scheduler of the vm, the other jobs are routed
+	 * by the routing policy and take the id of their scheduler as user id.
+	 * 
+	 * @param job
+	 *            the job
+	 * @return the index of the scheduler
+	 */
+	private int routeJob(Job job) {
+		List<SchedulerLoad> loads = getSchedulerLoads();
+		int index;
+		if (job.getVmId() < 0) {
+			index = routingPolicy.route(job, loads);
+			job.setUserId(getSchedulerId(index));
+		} else {
+			index = getSchedulerIds().indexOf(job.getUserId());
+		}
+		loads.get(index).jobRouted(job);
+		return index;
+	}
+
 	/**
 	 * Gets the scheduler .
 	 * 
@@ -0,0 +1,258 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.workflowsim.planning.BasePlanningAlgorithm;
+import org.workflowsim.utils.DistributionGenerator;
+import org.workflowsim.utils.Parameters;
+
+/**
+ * WorkflowEnsemblePlanner runs an ensemble of workflows sharing the vms of
+ * the WorkflowEngine. The workflows arrive over time, either at the submit
+ * times of a trace or following an arrival process, and each of them is
+ * parsed, planned and clustered only when it arrives. The workflows are
+ * numbered from 1 in order of arrival, since 0 is the workflow id of the
+ * tasks that don't belong to an ensemble. The WorkflowEngine tracks the
+ * workflows by id and retires them when they finish, see
+ * {@link WorkflowEngine#getFinishedWorkflows()}.
+ * <p>
+ * The workflows of an ensemble share the ReplicaCatalog, so two workflows
+ * parsed from the same DAX share their files.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class WorkflowEnsemblePlanner extends WorkflowPlanner {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The paths to the DAX files of the workflows. With an arrival process
+	 * the workflows take them in turn.
+	 */
+	private List<String> daxPaths;
+	/**
+	 * The submit times of the workflows, or null with an arrival process.
+	 */
+	private double[] submitTimes;
+	/**
+	 * The distribution of the times between two arrivals, or null with a
+	 * trace.
+	 */
+	private DistributionGenerator interArrivals;
+	/**
+	 * The number of workflows.
+	 */
+	private int workflows;
+
+	/**
+	 * Creates a new WorkflowEnsemblePlanner object whose workflows arrive at
+	 * given times.
+	 *
+	 * @param name
+	 *            name to be associated with this entity
+	 * @param schedulers
+	 *            the number of schedulers
+	 * @param daxPaths
+	 *            the paths to the DAX files of the workflows
+	 * @param submitTimes
+	 *            the submit times of the workflows, in increasing order
+	 * @throws Exception
+	 *             the exception
+	 */
+	public WorkflowEnsemblePlanner(String name, int schedulers,
+			List<String> daxPaths, double[] submitTimes) throws Exception {
+		super(name, schedulers);
+		if (daxPaths.size() != submitTimes.length) {
+			throw new IllegalArgumentException(
+					"Each workflow needs a DAX path and a submit time");
+		}
+		this.daxPaths = daxPaths;
+		this.submitTimes = submitTimes;
+		setWorkflows(submitTimes.length);
+	}
+
+	/**
+	 * Creates a new WorkflowEnsemblePlanner object whose workflows arrive
+	 * following an arrival process. The first workflow arrives at the start
+	 * of the simulation.
+	 *
+	 * @param name
+	 *            name to be associated with this entity
+	 * @param schedulers
+	 *            the number of schedulers
+	 * @param daxPaths
+	 *            the paths to the DAX files the workflows take in turn
+	 * @param interArrivals
+	 *            the distribution of the times between two arrivals
+	 * @param workflows
+	 *            the number of workflows
+	 * @throws Exception
+	 *             the exception
+	 */
+	public WorkflowEnsemblePlanner(String name, int schedulers,
+			List<String> daxPaths, DistributionGenerator interArrivals,
+			int workflows) throws Exception {
+		super(name, schedulers);
+		if (daxPaths.isEmpty()) {
+			throw new IllegalArgumentException("No DAX path");
+		}
+		this.daxPaths = daxPaths;
+		this.interArrivals = interArrivals;
+		setWorkflows(workflows);
+	}
+
+	/**
+	 * Creates a new WorkflowEnsemblePlanner object whose workflows arrive as
+	 * in a trace file. Each line of the trace has the submit time and the DAX
+	 * path of a workflow, separated by a space, and the lines are in
+	 * increasing order of submit time.
+	 *
+	 * @param name
+	 *            name to be associated with this entity
+	 * @param schedulers
+	 *            the number of schedulers
+	 * @param tracePath
+	 *            the path to the trace file
+	 * @throws Exception
+	 *             the exception
+	 */
+	public WorkflowEnsemblePlanner(String name, int schedulers,
+			String tracePath) throws Exception {
+		super(name, schedulers);
+		this.daxPaths = new ArrayList<String>();
+		List<Double> times = new ArrayList<Double>();
+		BufferedReader br = new BufferedReader(new FileReader(tracePath));
+		try {
+			String thisline = "";
+			while ((thisline = br.readLine()) != null) {
+				String[] items = thisline.trim().split(" ", 2);
+				if (items.length == 2 && !items[0].startsWith("#")) {
+					times.add(Double.parseDouble(items[0]));
+					this.daxPaths.add(items[1].trim());
+				}
+			}
+		} finally {
+			br.close();
+		}
+		this.submitTimes = new double[times.size()];
+		for (int i = 0; i < submitTimes.length; i++) {
+			submitTimes[i] = times.get(i);
+		}
+		setWorkflows(submitTimes.length);
+	}
+
+	/**
+	 * Sets the number of workflows, which the WorkflowEngine needs to know
+	 * when the simulation ends
+	 *
+	 * @param workflows
+	 *            the number of workflows
+	 */
+	private void setWorkflows(int workflows) {
+		this.workflows = workflows;
+		getWorkflowEngine().setEnsembleSize(workflows);
+	}
+
+	/**
+	 * Gets the number of workflows of the ensemble
+	 *
+	 * @return the number of workflows
+	 */
+	public int getWorkflows() {
+		return workflows;
+	}
+
+	/**
+	 * Processes events available for this planner.
+	 *
+	 * @param ev
+	 *            a SimEvent object
+	 */
+	@Override
+	public void processEvent(SimEvent ev) {
+		switch (ev.getTag()) {
+		case WorkflowSimTags.START_SIMULATION:
+			if (workflows > 0) {
+				double delay = 0.0;
+				if (submitTimes != null) {
+					delay = Math.max(0.0, submitTimes[0] - CloudSim.clock());
+				}
+				schedule(getId(), delay, WorkflowSimTags.WORKFLOW_ARRIVAL, 1);
+			}
+			break;
+		case WorkflowSimTags.WORKFLOW_ARRIVAL:
+			processWorkflowArrival(ev);
+			break;
+		default:
+			super.processEvent(ev);
+			break;
+		}
+	}
+
+	/**
+	 * Processes the arrival of a workflow: parses, plans and submits it to
+	 * the clustering engine, and schedules the arrival of the next workflow.
+	 *
+	 * @param ev
+	 *            a SimEvent object
+	 */
+	protected void processWorkflowArrival(SimEvent ev) {
+		int id = (Integer) ev.getData();
+		String daxPath = daxPaths.get((id - 1) % daxPaths.size());
+
+		WorkflowParser workflowParser = new WorkflowParser(getWorkflowEngine()
+				.getSchedulerId(0), Parameters.getDatasizePath(),
+				Parameters.getRuntimePath(), daxPath);
+		workflowParser.parse();
+		setTaskList(workflowParser.getTaskList());
+		if (getTaskList().isEmpty()) {
+			Log.printLine(getName() + ": Warning - workflow " + id + " ("
+					+ daxPath + ") has no task");
+		}
+		for (Task task : getTaskList()) {
+			task.setWorkflowId(id);
+		}
+
+		BasePlanningAlgorithm planner = processPlanning();
+		processImpactFactors(getTaskList(), planner);
+
+		WorkflowInstance workflow = new WorkflowInstance(id, daxPath,
+				CloudSim.clock());
+		workflow.setTaskList(getTaskList());
+		setTaskList(new ArrayList<Task>());
+		sendNow(getClusteringEngineId(), WorkflowSimTags.WORKFLOW_SUBMIT,
+				workflow);
+
+		int next = id + 1;
+		if (next <= workflows) {
+			double delay;
+			if (submitTimes != null) {
+				delay = Math.max(0.0, submitTimes[next - 1] - CloudSim.clock());
+			} else {
+				delay = Math.max(0.0, interArrivals.getNextSample());
+			}
+			schedule(getId(), delay, WorkflowSimTags.WORKFLOW_ARRIVAL, next);
+		}
+	}
+}
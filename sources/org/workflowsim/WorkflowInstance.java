@@ -0,0 +1,229 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * WorkflowInstance is a workflow of an ensemble. It travels from the
+ * WorkflowEnsemblePlanner to the WorkflowEngine with its tasks and then its
+ * jobs, and once the engine has taken the jobs it only keeps the statistics of
+ * the workflow, so that finished workflows cost little memory.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class WorkflowInstance implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The workflow id.
+	 */
+	private final int id;
+	/**
+	 * The path to the DAX file of the workflow.
+	 */
+	private final String daxPath;
+	/**
+	 * The time the workflow arrived.
+	 */
+	private final double submitTime;
+	/**
+	 * The time the last job of the workflow returned, or -1 if it has not
+	 * finished.
+	 */
+	private double finishTime;
+	/**
+	 * The number of jobs of the workflow, including the retried jobs.
+	 */
+	private int jobs;
+	/**
+	 * The number of jobs that have not returned yet.
+	 */
+	private int remainingJobs;
+	/**
+	 * The tasks of the workflow, until it has been clustered.
+	 */
+	private List<Task> taskList;
+	/**
+	 * The jobs of the workflow, until the engine has taken them.
+	 */
+	private List<Job> jobList;
+
+	/**
+	 * Creates a new WorkflowInstance object.
+	 *
+	 * @param id
+	 *            the workflow id
+	 * @param daxPath
+	 *            the path to the DAX file
+	 * @param submitTime
+	 *            the arrival time
+	 */
+	public WorkflowInstance(int id, String daxPath, double submitTime) {
+		this.id = id;
+		this.daxPath = daxPath;
+		this.submitTime = submitTime;
+		this.finishTime = -1.0;
+	}
+
+	/**
+	 * Gets the workflow id
+	 *
+	 * @return the workflow id
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the path to the DAX file
+	 *
+	 * @return the DAX path
+	 */
+	public String getDaxPath() {
+		return daxPath;
+	}
+
+	/**
+	 * Gets the arrival time
+	 *
+	 * @return the submit time
+	 */
+	public double getSubmitTime() {
+		return submitTime;
+	}
+
+	/**
+	 * Gets the time the last job returned
+	 *
+	 * @return the finish time, or -1 if the workflow has not finished
+	 */
+	public double getFinishTime() {
+		return finishTime;
+	}
+
+	/**
+	 * Gets the makespan, from the arrival to the return of the last job
+	 *
+	 * @return the makespan, or -1 if the workflow has not finished
+	 */
+	public double getMakespan() {
+		if (finishTime < 0) {
+			return -1.0;
+		}
+		return finishTime - submitTime;
+	}
+
+	/**
+	 * Checks whether all the jobs have returned
+	 *
+	 * @return whether the workflow has finished
+	 */
+	public boolean isFinished() {
+		return finishTime >= 0;
+	}
+
+	/**
+	 * Gets the number of jobs, including the retried jobs
+	 *
+	 * @return the number of jobs
+	 */
+	public int getJobs() {
+		return jobs;
+	}
+
+	/**
+	 * Gets the number of jobs that have not returned yet
+	 *
+	 * @return the number of remaining jobs
+	 */
+	public int getRemainingJobs() {
+		return remainingJobs;
+	}
+
+	/**
+	 * Adds jobs to the workflow, when it is submitted or a job is retried
+	 *
+	 * @param count
+	 *            the number of jobs
+	 */
+	void addJobs(int count) {
+		jobs += count;
+		remainingJobs += count;
+	}
+
+	/**
+	 * Records the return of a job
+	 *
+	 * @param time
+	 *            the current time
+	 * @return whether it was the last job of the workflow
+	 */
+	boolean jobReturned(double time) {
+		remainingJobs--;
+		if (remainingJobs == 0) {
+			finishTime = time;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the tasks, until the workflow has been clustered
+	 *
+	 * @return the task list
+	 */
+	public List<Task> getTaskList() {
+		return taskList;
+	}
+
+	/**
+	 * Sets the tasks
+	 *
+	 * @param taskList
+	 *            the task list
+	 */
+	public void setTaskList(List<Task> taskList) {
+		this.taskList = taskList;
+	}
+
+	/**
+	 * Gets the jobs, until the engine has taken them
+	 *
+	 * @return the job list
+	 */
+	public List<Job> getJobList() {
+		return jobList;
+	}
+
+	/**
+	 * Sets the jobs
+	 *
+	 * @param jobList
+	 *            the job list
+	 */
+	public void setJobList(List<Job> jobList) {
+		this.jobList = jobList;
+	}
+
+	@Override
+	public String toString() {
+		return "Workflow [" + id + "] " + daxPath;
+	}
+}
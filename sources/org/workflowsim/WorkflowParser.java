@@ -19,11 +19,14 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.cloudbus.cloudsim.Log;
 import org.jdom2.Document;
 import org.jdom2.Element;
@@ -40,7 +43,9 @@ import org.workflowsim.utils.ReplicaCatalog;
  * @since WorkflowSim Toolkit 1.0
  * @date Aug 23, 2013
  */
-public class WorkflowParser {
+public class WorkflowParser implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * The path to data size file.
@@ -319,9 +324,17 @@ public class WorkflowParser {
                     mName2Task.put(nodeName, task);
 
 
+                    /**
+                     * Same as task.addRequiredFile() for each file, without
+                     * its linear search, which is quadratic for the tasks
+                     * using many files
+                     */
+                    Set<String> requiredFiles = new HashSet<String>();
                     for (Iterator itm = mFileList.iterator(); itm.hasNext();) {
                         org.cloudbus.cloudsim.File file = (org.cloudbus.cloudsim.File) itm.next();
-                        task.addRequiredFile(file.getName());
+                        if (requiredFiles.add(file.getName())) {
+                            task.getRequiredFiles().add(file.getName());
+                        }
                     }
 
                     task.setFileList(mFileList);
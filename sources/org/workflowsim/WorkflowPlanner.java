@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
@@ -29,7 +30,9 @@ import org.workflowsim.planning.HEFTPlanningAlgorithm;
 import org.workflowsim.planning.PCHPlanningAlgorithm;
 import org.workflowsim.planning.PSOPlanningAlgorithm;
 import org.workflowsim.planning.RandomPlanningAlgorithm;
+import org.workflowsim.planning.RankEngine;
 import org.workflowsim.planning.RoundRobinPlanningAlgorithm;
+import org.workflowsim.planning.WorkflowGraph;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.PlanningAlgorithm;
 
@@ -45,6 +48,8 @@ import org.workflowsim.utils.Parameters.PlanningAlgorithm;
  */
 public class WorkflowPlanner extends SimEntity {
 
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * The task list.
 	 */
@@ -148,9 +153,9 @@ public class WorkflowPlanner extends SimEntity {
 			getWorkflowParser().parse();
 			setTaskList(getWorkflowParser().getTaskList());
 
-			processPlanning();
+			BasePlanningAlgorithm planner = processPlanning();
 
-			processImpactFactors(getTaskList());
+			processImpactFactors(getTaskList(), planner);
 			sendNow(getClusteringEngineId(), WorkflowSimTags.JOB_SUBMIT,
 					getTaskList());
 			break;
@@ -164,9 +169,15 @@ public class WorkflowPlanner extends SimEntity {
 		}
 	}
 
-	private void processPlanning() {
+	/**
+	 * Plans the task list with the planning algorithm of the parameters
+	 * 
+	 * @return the planner, whose workflow graph is only built if it uses it,
+	 *         or null if there is no planning algorithm
+	 */
+	protected BasePlanningAlgorithm processPlanning() {
 		if (Parameters.getPlanningAlgorithm().equals(PlanningAlgorithm.INVALID)) {
-			return;
+			return null;
 		}
 		BasePlanningAlgorithm planner = getPlanningAlgorithm(Parameters
 				.getPlanningAlgorithm());
@@ -183,6 +194,7 @@ public class WorkflowPlanner extends SimEntity {
 
 		sendNow(getClusteringEngineId(), WorkflowSimTags.WORKFLOW_PLANNER_SUBMIT,
 				planner);
+		return planner;
 	}
 
 	/**
@@ -235,40 +247,29 @@ public class WorkflowPlanner extends SimEntity {
 	/**
 	 * Add impact factor for each task. This is useful in task balanced
 	 * clustering algorithm It is for research purpose and thus it is optional.
+	 * The impact factors are computed once per task by the rank engine, rather
+	 * than once per path to the exit tasks. The rank engine of the planner is
+	 * reused, so the workflow graph is only built once.
 	 * 
 	 * @param taskList
 	 *            all the tasks
+	 * @param planner
+	 *            the planner of the task list, or null if there is none
 	 */
-	private void processImpactFactors(List<Task> taskList) {
-		ArrayList<Task> exits = new ArrayList();
-		for (Task task : taskList) {
-			if (task.getChildList().isEmpty()) {
-				exits.add(task);
-			}
+	protected void processImpactFactors(List<Task> taskList,
+			BasePlanningAlgorithm planner) {
+		RankEngine rankEngine;
+		if (planner != null) {
+			rankEngine = planner.getRankEngine();
+		} else {
+			rankEngine = new RankEngine(new WorkflowGraph(taskList,
+					new ArrayList<Vm>()));
 		}
-		double avg = 1.0 / exits.size();
-		for (Task task : exits) {
-			addImpact(task, avg);
-		}
-	}
-
-	/**
-	 * Add impact factor for one particular task
-	 * 
-	 * @param task
-	 *            , the task
-	 * @param impact
-	 *            , the impact factor
-	 */
-	private void addImpact(Task task, double impact) {
-
-		task.setImpact(task.getImpact() + impact);
-		int size = task.getParentList().size();
-		if (size > 0) {
-			double avg = impact / size;
-			for (Task parent : task.getParentList()) {
-				addImpact(parent, avg);
-			}
+		WorkflowGraph graph = rankEngine.getWorkflowGraph();
+		double[] impacts = rankEngine.getImpactFactors();
+		for (int i = 0; i < impacts.length; i++) {
+			Task task = graph.getTask(i);
+			task.setImpact(task.getImpact() + impacts[i]);
 		}
 	}
 
@@ -15,18 +15,21 @@
  */
 package org.workflowsim;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.DatacenterBroker;
 import org.cloudbus.cloudsim.DatacenterCharacteristics;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
-import org.cloudbus.cloudsim.lists.VmList;
 import org.workflowsim.failure.FailureGenerator;
 import org.workflowsim.planning.BasePlanningAlgorithm;
 import org.workflowsim.scheduling.DataAwareSchedulingAlgorithm;
@@ -51,6 +54,8 @@ import org.workflowsim.utils.Parameters.SchedulingAlgorithm;
  */
 public class WorkflowScheduler extends DatacenterBroker {
 
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * The workflow engine id associated with this workflow algorithm.
 	 */
@@ -58,6 +63,34 @@ public class WorkflowScheduler extends DatacenterBroker {
 
 	private BasePlanningAlgorithm planner;
 
+	/**
+	 * The scheduling algorithm. It lives as long as the scheduler, so that an
+	 * incremental algorithm keeps its state between scheduling rounds.
+	 */
+	private BaseSchedulingAlgorithm algorithm;
+	/**
+	 * The number of created vms the algorithm has been given.
+	 */
+	private int algorithmVms;
+
+	/**
+	 * The batching window of the scheduling passes, or a negative number if
+	 * every job submission and return triggers its own pass.
+	 */
+	private double updateWindow = -1.0;
+	/**
+	 * Whether a scheduling pass is pending, when the passes are coalesced.
+	 */
+	private boolean updatePending;
+	/**
+	 * The number of scheduling passes requested.
+	 */
+	private long updatesRequested;
+	/**
+	 * The number of scheduling passes run.
+	 */
+	private long updatePasses;
+
 	/**
 	 * Created a new WorkflowScheduler object.
 	 * 
@@ -84,6 +117,15 @@ public class WorkflowScheduler extends DatacenterBroker {
 		this.datacenterIdsList.add(datacenterId);
 	}
 
+	/**
+	 * Gets the ids of the datacenters bound to this scheduler
+	 * 
+	 * @return the datacenter ids
+	 */
+	public List<Integer> getDatacenterIds() {
+		return getDatacenterIdsList();
+	}
+
 	/**
 	 * Sets the workflow engine id
 	 * 
@@ -94,6 +136,59 @@ public class WorkflowScheduler extends DatacenterBroker {
 		this.workflowEngineId = workflowEngineId;
 	}
 
+	/**
+	 * Coalesces the scheduling passes. A job submission or return then only
+	 * triggers a scheduling pass if none is pending, and the pass takes place
+	 * after the batching window, so that it schedules all the jobs submitted
+	 * and released in the meantime. With a window of 0 there is at most one
+	 * pending pass per timestamp.
+	 * 
+	 * @param updateWindow
+	 *            the batching window, or a negative number to run a pass for
+	 *            each job submission and return, which is the default
+	 */
+	public void setUpdateWindow(double updateWindow) {
+		this.updateWindow = updateWindow;
+	}
+
+	/**
+	 * Gets the batching window of the scheduling passes
+	 * 
+	 * @return the batching window, or a negative number if the passes are
+	 *         not coalesced
+	 */
+	public double getUpdateWindow() {
+		return updateWindow;
+	}
+
+	/**
+	 * Gets the number of scheduling passes requested by the job submissions
+	 * and returns
+	 * 
+	 * @return the number of requested passes
+	 */
+	public long getUpdatesRequested() {
+		return updatesRequested;
+	}
+
+	/**
+	 * Gets the number of scheduling passes run
+	 * 
+	 * @return the number of passes
+	 */
+	public long getUpdatePasses() {
+		return updatePasses;
+	}
+
+	/**
+	 * Gets the number of scheduling passes saved by coalescing them
+	 * 
+	 * @return the number of saved passes
+	 */
+	public long getUpdatesSaved() {
+		return updatesRequested - updatePasses;
+	}
+
 	/**
 	 * Process an event
 	 * 
@@ -147,9 +242,29 @@ public class WorkflowScheduler extends DatacenterBroker {
 
 	private void processWorkflowPlaner(SimEvent ev) {
 		planner = (BasePlanningAlgorithm) ev.getData();
+		/**
+		 * The algorithms using the planner get the new one. An incremental
+		 * algorithm holds the waiting jobs and is kept.
+		 */
+		if (algorithm != null && !algorithm.isIncremental()) {
+			algorithm = null;
+		}
 
 	}
 
+	/**
+	 * Gets the scheduling algorithm, which is created the first time
+	 * 
+	 * @return the algorithm
+	 */
+	private BaseSchedulingAlgorithm getAlgorithm() {
+		if (algorithm == null) {
+			algorithm = getScheduler(Parameters.getSchedulingAlgorithm());
+			algorithmVms = -1;
+		}
+		return algorithm;
+	}
+
 	/**
 	 * Switch between multiple schedulers. Based on algorithm.method
 	 * 
@@ -215,8 +330,9 @@ public class WorkflowScheduler extends DatacenterBroker {
 			 * Fix a bug of cloudsim Don't add a null to getVmsCreatedList()
 			 * June 15, 2013
 			 */
-			if (VmList.getById(getVmList(), vmId) != null) {
-				getVmsCreatedList().add(VmList.getById(getVmList(), vmId));
+			Vm vm = getVmById(vmId);
+			if (vm != null) {
+				getVmsCreatedList().add(vm);
 
 				Log.printLine(CloudSim.clock()
 						+ ": "
@@ -226,8 +342,7 @@ public class WorkflowScheduler extends DatacenterBroker {
 						+ " has been created in Datacenter #"
 						+ datacenterId
 						+ ", Host #"
-						+ VmList.getById(getVmsCreatedList(), vmId).getHost()
-								.getId());
+						+ vm.getHost().getId());
 			}
 		} else {
 			Log.printLine(CloudSim.clock() + ": " + getName()
@@ -275,10 +390,16 @@ public class WorkflowScheduler extends DatacenterBroker {
 	 */
 	protected void processCloudletUpdate(SimEvent ev) {
 
-		BaseSchedulingAlgorithm scheduler = getScheduler(Parameters
-				.getSchedulingAlgorithm());
-		scheduler.setCloudletList(getCloudletList());
-		scheduler.setVmList(getVmsCreatedList());
+		updatePending = false;
+		updatePasses++;
+		BaseSchedulingAlgorithm scheduler = getAlgorithm();
+		if (!scheduler.isIncremental()) {
+			scheduler.setCloudletList(getCloudletList());
+		}
+		if (algorithmVms != getVmsCreatedList().size()) {
+			scheduler.setVmList(getVmsCreatedList());
+			algorithmVms = getVmsCreatedList().size();
+		}
 
 		try {
 			scheduler.run();
@@ -301,9 +422,14 @@ public class WorkflowScheduler extends DatacenterBroker {
 					CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
 
 		}
-		getCloudletList().removeAll(scheduledList);
+		if (!scheduler.isIncremental() && !scheduledList.isEmpty()) {
+			Set<Cloudlet> scheduled = Collections.newSetFromMap(new IdentityHashMap<Cloudlet, Boolean>());
+			scheduled.addAll(scheduledList);
+			getCloudletList().removeAll(scheduled);
+		}
 		getCloudletSubmittedList().addAll(scheduledList);
 		cloudletsSubmitted += scheduledList.size();
+		scheduledList.clear();
 
 	}
 
@@ -329,9 +455,11 @@ public class WorkflowScheduler extends DatacenterBroker {
 		getCloudletReceivedList().add(cloudlet);
 		getCloudletSubmittedList().remove(cloudlet);
 
-		CondorVM vm = (CondorVM) getVmsCreatedList().get(cloudlet.getVmId());
+		CondorVM vm = (CondorVM) getCreatedVmById(cloudlet.getVmId());
 		// so that this resource is released
-		vm.setState(WorkflowSimTags.VM_STATUS_IDLE);
+		vm.releaseSlot();
+		getAlgorithm().jobFinished(cloudlet);
+		getAlgorithm().vmIdle(vm);
 
 		double delay = 0.0;
 		if (Parameters.getOverheadParams().getPostDelay() != null) {
@@ -341,11 +469,27 @@ public class WorkflowScheduler extends DatacenterBroker {
 				cloudlet);
 
 		cloudletsSubmitted--;
-		// not really update right now, should wait 1 s until many jobs have
-		// returned
+		// not really update right now if the passes are coalesced, wait until
+		// many jobs have returned
+		if (updateWindow < 0) {
+			updatesRequested++;
+			schedule(this.getId(), 0.0, WorkflowSimTags.CLOUDLET_UPDATE);
+		} else {
+			requestUpdate();
+		}
 
-		schedule(this.getId(), 0.0, WorkflowSimTags.CLOUDLET_UPDATE);
+	}
 
+	/**
+	 * Requests a coalesced scheduling pass, unless one is already pending
+	 */
+	private void requestUpdate() {
+		updatesRequested++;
+		if (!updatePending) {
+			updatePending = true;
+			schedule(this.getId(), updateWindow,
+					WorkflowSimTags.CLOUDLET_UPDATE);
+		}
 	}
 
 	/**
@@ -389,6 +533,11 @@ public class WorkflowScheduler extends DatacenterBroker {
 	public void shutdownEntity() {
 
 		clearDatacenters();
+		if (updateWindow >= 0) {
+			Log.printLine(getName() + ": " + updatePasses
+					+ " scheduling passes for " + updatesRequested
+					+ " requests, " + getUpdatesSaved() + " saved");
+		}
 		Log.printLine(getName() + " is shutting down...");
 
 	}
@@ -418,9 +567,18 @@ public class WorkflowScheduler extends DatacenterBroker {
 	 */
 	protected void processCloudletSubmit(SimEvent ev) {
 		List<Job> list = (List) ev.getData();
-		getCloudletList().addAll(list);
+		if (getAlgorithm().isIncremental()) {
+			getAlgorithm().jobsArrived(list);
+		} else {
+			getCloudletList().addAll(list);
+		}
 
-		sendNow(this.getId(), WorkflowSimTags.CLOUDLET_UPDATE);
+		if (updateWindow < 0) {
+			updatesRequested++;
+			sendNow(this.getId(), WorkflowSimTags.CLOUDLET_UPDATE);
+		} else {
+			requestUpdate();
+		}
 		if (!processCloudletSubmitHasShown) {
 			// Log.printLine("Pay Attention that the actual vm size is " +
 			// getVmsCreatedList().size());
@@ -47,6 +47,14 @@ public class WorkflowSimTags {
 	public static final int CLOUDLET_UPDATE = BASE + 5;
 	public static final int CLOUDLET_CHECK = BASE + 6;
 	public static final int WORKFLOW_PLANNER_SUBMIT = BASE + 7;
+	/**
+	 * A workflow of an ensemble is submitted
+	 */
+	public static final int WORKFLOW_SUBMIT = BASE + 8;
+	/**
+	 * A workflow of an ensemble arrives at the planner
+	 */
+	public static final int WORKFLOW_ARRIVAL = BASE + 9;
 
 	/**
 	 * Private Constructor
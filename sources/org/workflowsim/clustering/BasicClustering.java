@@ -15,6 +15,7 @@
  */
 package org.workflowsim.clustering;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -33,7 +34,9 @@ import org.workflowsim.utils.Parameters.FileType;
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
  */
-public class BasicClustering implements ClusteringInterface {
+public class BasicClustering implements ClusteringInterface, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * The task list.
@@ -82,6 +85,16 @@ public class BasicClustering implements ClusteringInterface {
         this.root = null;
     }
 
+    /**
+     * Sets the id of the first job, so that the jobs of the workflows of an
+     * ensemble have distinct ids
+     *
+     * @param idBase the id of the first job
+     */
+    public final void setJobIdBase(int idBase) {
+        this.idIndex = idBase;
+    }
+
     /**
      * Sets the task list
      *
@@ -168,6 +181,7 @@ public class BasicClustering implements ClusteringInterface {
             int userId = 0;
             int priority = 0;
             int depth = 0;
+            int workflowId = 0;
             /// a bug of cloudsim makes it final of input file size and output file size
             Job job = new Job(idIndex, length/*, inputFileSize, outputFileSize*/);
             job.setClassType(ClassType.COMPUTE.value);
@@ -178,6 +192,7 @@ public class BasicClustering implements ClusteringInterface {
                 userId = task.getUserId();
                 priority = task.getPriority();
                 depth = task.getDepth();
+                workflowId = task.getWorkflowId();
                 List fileList = task.getFileList();
                 job.getTaskList().add(task);
 
@@ -217,6 +232,7 @@ public class BasicClustering implements ClusteringInterface {
             job.setUserId(userId);
             job.setDepth(depth);
             job.setPriority(priority);
+            job.setWorkflowId(workflowId);
 
             idIndex++;
             getJobList().add(job);
@@ -31,6 +31,8 @@ import org.workflowsim.Task;
  */
 public class BlockClustering extends BasicClustering {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The number of clustered jobs per level.
      */
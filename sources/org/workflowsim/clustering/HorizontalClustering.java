@@ -33,6 +33,8 @@ import org.workflowsim.Task;
  */
 public class HorizontalClustering extends BasicClustering {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The number of clustered jobs per level.
      */
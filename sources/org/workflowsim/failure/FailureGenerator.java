@@ -15,12 +15,15 @@
  */
 package org.workflowsim.failure;
 
+import java.io.Serializable;
 import java.util.Iterator;
 import org.apache.commons.math3.distribution.GammaDistribution;
 import org.apache.commons.math3.distribution.LogNormalDistribution;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.distribution.RealDistribution;
 import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
 import org.apache.commons.math3.distribution.WeibullDistribution;
@@ -42,8 +45,33 @@ public class FailureGenerator {
      * is too high for this workflow
      */
     private static final int maxFailureSizeExtension = 50;
-    private static int failureSizeExtension = 0;
-    private static boolean hasChangeTime = false;
+
+    /**
+     * The state of the failure generator in a simulation, kept in the
+     * simulation context of the current thread
+     */
+    private static class State implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        int failureSizeExtension = 0;
+        boolean hasChangeTime = false;
+    }
+
+    /**
+     * Gets the state of the failure generator in the simulation run by the
+     * current thread
+     */
+    private static State state() {
+        SimulationContext context = CloudSim.getContext();
+        State state = context.getAttribute(State.class);
+        if (state == null) {
+            state = new State();
+            context.setAttribute(State.class, state);
+        }
+        return state;
+    }
+
     /**
      *
      */
@@ -119,11 +147,12 @@ public class FailureGenerator {
         
         double[] samples = generator.getCumulativeSamples();
         
+        State state = state();
         while (samples[samples.length - 1] < start) {
             generator.extendSamples();
             samples = generator.getCumulativeSamples();
-            failureSizeExtension++;
-            if (failureSizeExtension >= maxFailureSizeExtension) {
+            state.failureSizeExtension++;
+            if (state.failureSizeExtension >= maxFailureSizeExtension) {
                 throw new Exception("Error rate is too high such that the simulator terminates");
 
             }
@@ -15,11 +15,14 @@
  */
 package org.workflowsim.failure;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.utils.Parameters;
 
 /**
@@ -32,34 +35,56 @@ import org.workflowsim.utils.Parameters;
 public class FailureMonitor {
 
     /**
-     * VM ID to a Failure Record. *
+     * The failure records of a simulation. Each simulation context has its
+     * own records, so failures observed in one simulation don't leak into
+     * another one running in the same JVM.
      */
-    protected static Map<Integer, ArrayList<FailureRecord>> vm2record;
-    /**
-     * Type to a Failure Record. *
-     */
-    protected static Map<Integer, ArrayList<FailureRecord>> type2record;
-    /**
-     * JobID to a Failure Record. *
-     */
-    protected static Map<Integer, FailureRecord> jobid2record;
-    /**
-     * All the record list.
-     */
-    protected static List<FailureRecord> recordList;
+    private static class State implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * VM ID to a Failure Record. *
+         */
+        Map<Integer, ArrayList<FailureRecord>> vm2record;
+        /**
+         * Type to a Failure Record. *
+         */
+        Map<Integer, ArrayList<FailureRecord>> type2record;
+        /**
+         * JobID to a Failure Record. *
+         */
+        Map<Integer, FailureRecord> jobid2record;
+        /**
+         * All the record list.
+         */
+        List<FailureRecord> recordList;
+    }
+
     /**
-     * Id to a Job.
+     * Gets the failure records of the simulation run by the current thread.
+     *
+     * @return the failure records
      */
-    public static Map index2job;
+    private static State state() {
+        SimulationContext context = CloudSim.getContext();
+        State state = context.getAttribute(State.class);
+        if (state == null) {
+            state = new State();
+            context.setAttribute(State.class, state);
+        }
+        return state;
+    }
 
     /**
      * Initialize a FailureMonitor object.
      */
     public static void init() {
-        vm2record = new HashMap<Integer, ArrayList<FailureRecord>>();
-        type2record = new HashMap<Integer, ArrayList<FailureRecord>>();
-        jobid2record = new HashMap<Integer, FailureRecord>();
-        recordList = new ArrayList<FailureRecord>();
+        State state = state();
+        state.vm2record = new HashMap<Integer, ArrayList<FailureRecord>>();
+        state.type2record = new HashMap<Integer, ArrayList<FailureRecord>>();
+        state.jobid2record = new HashMap<Integer, FailureRecord>();
+        state.recordList = new ArrayList<FailureRecord>();
 
     }
 
@@ -121,6 +146,7 @@ public class FailureMonitor {
      * @param record a failure record
      */
     public static void postFailureRecord(FailureRecord record) {
+        State state = state();
 
         if (record.workflowId < 0 || record.jobId < 0 || record.vmId < 0) {
             Log.printLine("Error in receiving failure record");
@@ -130,25 +156,25 @@ public class FailureMonitor {
         switch (FailureParameters.getMonitorMode()) {
             case MONITOR_VM:
 
-                if (!vm2record.containsKey(record.vmId)) {
-                    vm2record.put(record.vmId, new ArrayList<FailureRecord>());
+                if (!state.vm2record.containsKey(record.vmId)) {
+                    state.vm2record.put(record.vmId, new ArrayList<FailureRecord>());
                 }
-                vm2record.get(record.vmId).add(record);
+                state.vm2record.get(record.vmId).add(record);
 
                 break;
             case MONITOR_JOB:
 
-                if (!type2record.containsKey(record.depth)) {
-                    type2record.put(record.depth, new ArrayList<FailureRecord>());
+                if (!state.type2record.containsKey(record.depth)) {
+                    state.type2record.put(record.depth, new ArrayList<FailureRecord>());
                 }
-                type2record.get(record.depth).add(record);
+                state.type2record.get(record.depth).add(record);
 
                 break;
             case MONITOR_NONE:
                 break;
         }
 
-        recordList.add(record);
+        state.recordList.add(record);
     }
 
     /**
@@ -159,6 +185,7 @@ public class FailureMonitor {
      * @return task failure rate
      */
     public static double analyze(int workflowId, int type) {
+        State state = state();
 
         /**
          * workflow level : all jobs together *
@@ -168,7 +195,7 @@ public class FailureMonitor {
         switch (FailureParameters.getMonitorMode()) {
             case MONITOR_ALL:
 
-                for (FailureRecord record : recordList) {
+                for (FailureRecord record : state.recordList) {
                     sumFailures += record.failedTasksNum;
                     sumJobs += record.allTaskNum;
                 }
@@ -177,8 +204,8 @@ public class FailureMonitor {
 
             case MONITOR_JOB:
 
-                if (type2record.containsKey(type)) {
-                    for (FailureRecord record : type2record.get(type)) {
+                if (state.type2record.containsKey(type)) {
+                    for (FailureRecord record : state.type2record.get(type)) {
 
                         sumFailures += record.failedTasksNum;
                         sumJobs += record.allTaskNum;
@@ -188,8 +215,8 @@ public class FailureMonitor {
                 break;
             case MONITOR_VM:
 
-                if (vm2record.containsKey(type)) {
-                    for (FailureRecord record : vm2record.get(type)) {
+                if (state.vm2record.containsKey(type)) {
+                    for (FailureRecord record : state.vm2record.get(type)) {
 
                         sumFailures += record.failedTasksNum;
                         sumJobs += record.allTaskNum;
@@ -17,7 +17,10 @@
  */
 package org.workflowsim.failure;
 
+import java.io.Serializable;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.utils.DistributionGenerator;
 import org.workflowsim.utils.DistributionGenerator.DistributionFamily;
 
@@ -27,15 +30,6 @@ import org.workflowsim.utils.DistributionGenerator.DistributionFamily;
  */
 public class FailureParameters {
 
-    /**
-     * Task Failure Rate 
-     * first index is vmId ;second index is task depth
-     * If FAILURE_JOB is specified first index is 0 only
-     * If FAILURE_VM is specified second index is 0 only
-     *
-     * @pre 0.0<= value <= 1.0
-     */
-    private static DistributionGenerator[][] generators;
     /**
      * Fault Tolerant Clustering algorithm
      */
@@ -62,22 +56,55 @@ public class FailureParameters {
     }
 
     /**
-     * Fault Tolerant Clustering method
-     */
-    private static FTCluteringAlgorithm FTClusteringAlgorithm = FTCluteringAlgorithm.FTCLUSTERING_NOOP;
-    /**
-     * Fault Tolerant Clustering monitor mode
+     * The failure parameters of a simulation, held by the simulation context
+     * of the current thread
      */
-    private static FTCMonitor monitorMode = FTCMonitor.MONITOR_NONE;
-    /**
-     * Fault Tolerant Clustering failure generation mode
-     */
-    private static FTCFailure failureMode = FTCFailure.FAILURE_NONE;
-    
+    private static class State implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Task Failure Rate 
+         * first index is vmId ;second index is task depth
+         * If FAILURE_JOB is specified first index is 0 only
+         * If FAILURE_VM is specified second index is 0 only
+         *
+         * @pre 0.0<= value <= 1.0
+         */
+        DistributionGenerator[][] generators;
+        /**
+         * Fault Tolerant Clustering method
+         */
+        FTCluteringAlgorithm FTClusteringAlgorithm = FTCluteringAlgorithm.FTCLUSTERING_NOOP;
+        /**
+         * Fault Tolerant Clustering monitor mode
+         */
+        FTCMonitor monitorMode = FTCMonitor.MONITOR_NONE;
+        /**
+         * Fault Tolerant Clustering failure generation mode
+         */
+        FTCFailure failureMode = FTCFailure.FAILURE_NONE;
+
+        /**
+         * The distribution of the failure 
+         */
+        DistributionFamily distribution = DistributionFamily.WEIBULL;
+    }
+
     /**
-     * The distribution of the failure 
-     */
-    private static DistributionFamily distribution = DistributionFamily.WEIBULL;
+     * Gets the failure parameters of the simulation run by the current thread
+     *
+     * @return the failure parameters
+     */
+    private static State state() {
+        SimulationContext context = CloudSim.getContext();
+        State state = context.getAttribute(State.class);
+        if (state == null) {
+            state = new State();
+            context.setAttribute(State.class, state);
+        }
+        return state;
+    }
     /**
      * Invalid return value
      */
@@ -95,10 +122,11 @@ public class FailureParameters {
      */
     public static void init(FTCluteringAlgorithm fMethod, FTCMonitor monitor, 
             FTCFailure failure, DistributionGenerator[][] failureGenerators) {
-        FTClusteringAlgorithm = fMethod;
-        monitorMode = monitor;
-        failureMode = failure;
-        generators = failureGenerators;
+        State state = state();
+        state.FTClusteringAlgorithm = fMethod;
+        state.monitorMode = monitor;
+        state.failureMode = failure;
+        state.generators = failureGenerators;
     }
 
     /**
@@ -109,7 +137,7 @@ public class FailureParameters {
     public static void init(FTCluteringAlgorithm fMethod, FTCMonitor monitor, 
             FTCFailure failure, DistributionGenerator[][] failureGenerators, 
             DistributionFamily dist) {
-        distribution = dist;
+        state().distribution = dist;
         init(fMethod, monitor, failure, failureGenerators);
     }
     /**
@@ -120,10 +148,11 @@ public class FailureParameters {
      * @post $none
      */
     public static DistributionGenerator[][] getFailureGenerators() {
-        if(generators==null){
+        State state = state();
+        if(state.generators==null){
             Log.printLine("ERROR: alpha is not initialized");
         }
-        return generators;
+        return state.generators;
     }
     
     /**
@@ -131,11 +160,12 @@ public class FailureParameters {
      * @return max
      */
     public static int getFailureGeneratorsMaxFirstIndex(){
-        if(generators==null || generators.length == 0){
+        State state = state();
+        if(state.generators==null || state.generators.length == 0){
             Log.printLine("ERROR: alpha is not initialized");
             return INVALID;
         }
-        return generators.length;
+        return state.generators.length;
     }
     
     /**
@@ -143,13 +173,14 @@ public class FailureParameters {
      * @return max
      */
     public static int getFailureGeneratorsMaxSecondIndex(){
+        State state = state();
         //Test whether it is valid
         getFailureGeneratorsMaxFirstIndex();
-        if(generators[0]==null || generators[0].length == 0){
+        if(state.generators[0]==null || state.generators[0].length == 0){
             Log.printLine("ERROR: alpha is not initialized");
             return INVALID;
         }
-        return generators[0].length;
+        return state.generators[0].length;
     }
     
 
@@ -160,7 +191,7 @@ public class FailureParameters {
      * @return task failure rate
      */
     public static DistributionGenerator getGenerator(int vmIndex, int taskDepth) {
-        return generators[vmIndex][taskDepth];
+        return state().generators[vmIndex][taskDepth];
     }
     
     /**
@@ -171,7 +202,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCFailure getFailureGeneratorMode() {
-        return failureMode;
+        return state().failureMode;
     }
 
     /**
@@ -182,7 +213,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCMonitor getMonitorMode() {
-        return monitorMode;
+        return state().monitorMode;
     }
 
     /**
@@ -193,7 +224,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCluteringAlgorithm getFTCluteringAlgorithm() {
-        return FTClusteringAlgorithm;
+        return state().FTClusteringAlgorithm;
     }
     
     /**
@@ -201,6 +232,6 @@ public class FailureParameters {
      * @return distribution
      */
     public static DistributionFamily getFailureDistribution(){
-        return distribution;
+        return state().distribution;
     }
 }
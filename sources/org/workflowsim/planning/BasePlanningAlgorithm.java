@@ -47,6 +47,18 @@ public abstract class BasePlanningAlgorithm implements
 	 */
 	private List<? extends Datacenter> datacenterList;
 
+	/**
+	 * the graph of the task list and the vm list, or null if it has not been
+	 * built yet
+	 */
+	private WorkflowGraph workflowGraph;
+
+	/**
+	 * the rank engine of the workflow graph, or null if it has not been
+	 * created yet
+	 */
+	private RankEngine rankEngine;
+
 	/**
 	 * Initialize a BaseScheduler
 	 */
@@ -61,6 +73,8 @@ public abstract class BasePlanningAlgorithm implements
 	@Override
 	public void setTaskList(List list) {
 		this.tasktList = list;
+		this.workflowGraph = null;
+		this.rankEngine = null;
 	}
 
 	/**
@@ -71,6 +85,8 @@ public abstract class BasePlanningAlgorithm implements
 	@Override
 	public void setVmList(List list) {
 		this.vmList = new ArrayList(list);
+		this.workflowGraph = null;
+		this.rankEngine = null;
 	}
 
 	/**
@@ -112,6 +128,45 @@ public abstract class BasePlanningAlgorithm implements
 		this.datacenterList = list;
 	}
 
+	/**
+	 * Gets the graph of the task list and the vm list, which is built on
+	 * first use unless it has been set
+	 * 
+	 * @return the workflow graph
+	 */
+	public WorkflowGraph getWorkflowGraph() {
+		if (this.workflowGraph == null) {
+			this.workflowGraph = new WorkflowGraph(getTaskList(), getVmList());
+		}
+		return this.workflowGraph;
+	}
+
+	/**
+	 * Sets the graph of the task list and the vm list, so that the planners
+	 * working on the same lists share it. It must be set after the lists.
+	 * 
+	 * @param graph
+	 *            the workflow graph
+	 */
+	public void setWorkflowGraph(WorkflowGraph graph) {
+		this.workflowGraph = graph;
+		this.rankEngine = null;
+	}
+
+	/**
+	 * Gets the rank engine of the workflow graph, which is created on first
+	 * use
+	 * 
+	 * @return the rank engine
+	 */
+	public RankEngine getRankEngine() {
+		if (this.rankEngine == null
+				|| this.rankEngine.getWorkflowGraph() != getWorkflowGraph()) {
+			this.rankEngine = new RankEngine(getWorkflowGraph());
+		}
+		return this.rankEngine;
+	}
+
 	/**
 	 * The main function
 	 */
@@ -0,0 +1,346 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.Arrays;
+
+/**
+ * GapSchedule is the planned schedule of a vm, kept as its idle intervals
+ * rather than its busy ones: [0, s1), [f1, s2), ..., [fk, infinity) for the
+ * tasks reserved at [s1, f1), ..., [sk, fk). The intervals are the nodes of a
+ * treap ordered by time, where each node knows the longest interval of its
+ * subtree, so that the earliest interval a task fits in is found in O(log k)
+ * instead of scanning the k tasks.
+ * <p>
+ * A task fits in an interval [a, b) from time s = max(a, readyTime) if
+ * s + cost <= b. Intervals of length 0 are kept, as a task of cost 0 fits in
+ * them.
+ * <p>
+ * The finish times can be looked up concurrently, as long as nothing is
+ * reserved meanwhile.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+class GapSchedule {
+
+	private static final int NIL = -1;
+
+	/**
+	 * The intervals, by node.
+	 */
+	private double[] start;
+	private double[] end;
+	/**
+	 * The longest interval of the subtree of each node.
+	 */
+	private double[] maxLength;
+	private int[] left;
+	private int[] right;
+	private int[] priority;
+	/**
+	 * The number of nodes allocated, and the nodes freed.
+	 */
+	private int nodes;
+	private int[] freeNodes;
+	private int freeCount;
+	private int root;
+	/**
+	 * The seed of the priorities.
+	 */
+	private int seed = 0x2545f491;
+	/**
+	 * The latest finite time of the schedule, which bounds the rounding
+	 * errors of the interval lengths.
+	 */
+	private double latest;
+	/**
+	 * The subtrees split by {@link #split(int, int)}.
+	 */
+	private int splitLeft;
+	private int splitRight;
+
+	/**
+	 * Creates an empty schedule
+	 */
+	GapSchedule() {
+		int capacity = 16;
+		start = new double[capacity];
+		end = new double[capacity];
+		maxLength = new double[capacity];
+		left = new int[capacity];
+		right = new int[capacity];
+		priority = new int[capacity];
+		freeNodes = new int[capacity];
+		root = newNode(0.0, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Finds the earliest finish time of a task on the vm
+	 *
+	 * @param readyTime
+	 *            the time the task can start at the earliest
+	 * @param cost
+	 *            the time the task takes on the vm
+	 * @return the finish time
+	 */
+	double findFinishTime(double readyTime, double cost) {
+		int node = find(readyTime, cost);
+		return Math.max(start[node], readyTime) + cost;
+	}
+
+	/**
+	 * Reserves the earliest time slot of a task on the vm
+	 *
+	 * @param readyTime
+	 *            the time the task can start at the earliest
+	 * @param cost
+	 *            the time the task takes on the vm
+	 * @return the finish time
+	 */
+	double reserve(double readyTime, double cost) {
+		int node = find(readyTime, cost);
+		double a = start[node];
+		double b = end[node];
+		double s = Math.max(a, readyTime);
+		double finish = s + cost;
+		root = remove(root, node);
+		freeNodes[freeCount++] = node;
+		insert(newNode(a, s));
+		insert(newNode(finish, b));
+		if (!Double.isInfinite(finish)) {
+			latest = Math.max(latest, finish);
+		}
+		return finish;
+	}
+
+	/**
+	 * Finds the earliest interval a task fits in: the interval holding its
+	 * ready time if it fits there, else the first interval after it that is
+	 * long enough
+	 *
+	 * @param readyTime
+	 *            the ready time
+	 * @param cost
+	 *            the cost
+	 * @return the node of the interval
+	 */
+	private int find(double readyTime, double cost) {
+		double minLength = cost - 4 * (Math.ulp(latest) + Math.ulp(cost));
+		int floor = NIL;
+		for (int n = root; n != NIL;) {
+			if (start[n] <= readyTime) {
+				floor = n;
+				n = right[n];
+			} else {
+				n = left[n];
+			}
+		}
+		if (floor == NIL) {
+			return firstFit(root, cost, minLength);
+		}
+		if (readyTime + cost <= end[floor]) {
+			return floor;
+		}
+		return firstFitAfter(root, floor, cost, minLength);
+	}
+
+	/**
+	 * Finds the first interval of a subtree a task fits in from its start
+	 *
+	 * @param n
+	 *            the root of the subtree
+	 * @param cost
+	 *            the cost of the task
+	 * @param minLength
+	 *            the length below which an interval can't fit the task
+	 * @return the node, or NIL
+	 */
+	private int firstFit(int n, double cost, double minLength) {
+		if (n == NIL || maxLength[n] < minLength) {
+			return NIL;
+		}
+		int found = firstFit(left[n], cost, minLength);
+		if (found != NIL) {
+			return found;
+		}
+		if (start[n] + cost <= end[n]) {
+			return n;
+		}
+		return firstFit(right[n], cost, minLength);
+	}
+
+	/**
+	 * Finds the first interval of a subtree after a node a task fits in from
+	 * its start
+	 *
+	 * @param n
+	 *            the root of the subtree
+	 * @param after
+	 *            the node
+	 * @param cost
+	 *            the cost of the task
+	 * @param minLength
+	 *            the length below which an interval can't fit the task
+	 * @return the node, or NIL
+	 */
+	private int firstFitAfter(int n, int after, double cost, double minLength) {
+		if (n == NIL || maxLength[n] < minLength) {
+			return NIL;
+		}
+		if (compare(n, after) <= 0) {
+			return firstFitAfter(right[n], after, cost, minLength);
+		}
+		int found = firstFitAfter(left[n], after, cost, minLength);
+		if (found != NIL) {
+			return found;
+		}
+		if (start[n] + cost <= end[n]) {
+			return n;
+		}
+		return firstFit(right[n], cost, minLength);
+	}
+
+	/**
+	 * Compares two nodes by time. The intervals of length 0 come before the
+	 * interval starting at the same time.
+	 */
+	private int compare(int a, int b) {
+		if (start[a] != start[b]) {
+			return start[a] < start[b] ? -1 : 1;
+		}
+		if (end[a] != end[b]) {
+			return end[a] < end[b] ? -1 : 1;
+		}
+		return a < b ? -1 : (a == b ? 0 : 1);
+	}
+
+	/**
+	 * Allocates a node
+	 */
+	private int newNode(double a, double b) {
+		int n;
+		if (freeCount > 0) {
+			n = freeNodes[--freeCount];
+		} else {
+			if (nodes == start.length) {
+				int capacity = 2 * nodes;
+				start = Arrays.copyOf(start, capacity);
+				end = Arrays.copyOf(end, capacity);
+				maxLength = Arrays.copyOf(maxLength, capacity);
+				left = Arrays.copyOf(left, capacity);
+				right = Arrays.copyOf(right, capacity);
+				priority = Arrays.copyOf(priority, capacity);
+				freeNodes = Arrays.copyOf(freeNodes, capacity);
+			}
+			n = nodes++;
+		}
+		start[n] = a;
+		end[n] = b;
+		maxLength[n] = b - a;
+		left[n] = NIL;
+		right[n] = NIL;
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		priority[n] = seed;
+		return n;
+	}
+
+	/**
+	 * Updates the longest interval of the subtree of a node
+	 */
+	private void update(int n) {
+		double length = end[n] - start[n];
+		if (left[n] != NIL) {
+			length = Math.max(length, maxLength[left[n]]);
+		}
+		if (right[n] != NIL) {
+			length = Math.max(length, maxLength[right[n]]);
+		}
+		maxLength[n] = length;
+	}
+
+	/**
+	 * Inserts a node into the treap
+	 */
+	private void insert(int node) {
+		split(root, node);
+		int l = splitLeft;
+		int r = splitRight;
+		root = merge(merge(l, node), r);
+	}
+
+	/**
+	 * Splits a subtree into the nodes before a node, in splitLeft, and the
+	 * others, in splitRight
+	 */
+	private void split(int n, int node) {
+		if (n == NIL) {
+			splitLeft = NIL;
+			splitRight = NIL;
+			return;
+		}
+		if (compare(n, node) < 0) {
+			split(right[n], node);
+			right[n] = splitLeft;
+			update(n);
+			splitLeft = n;
+		} else {
+			split(left[n], node);
+			left[n] = splitRight;
+			update(n);
+			splitRight = n;
+		}
+	}
+
+	/**
+	 * Merges two subtrees, all the nodes of the first one coming before the
+	 * nodes of the second one
+	 */
+	private int merge(int a, int b) {
+		if (a == NIL) {
+			return b;
+		}
+		if (b == NIL) {
+			return a;
+		}
+		if (priority[a] > priority[b]) {
+			right[a] = merge(right[a], b);
+			update(a);
+			return a;
+		}
+		left[b] = merge(a, left[b]);
+		update(b);
+		return b;
+	}
+
+	/**
+	 * Removes a node from a subtree
+	 */
+	private int remove(int n, int node) {
+		if (n == node) {
+			return merge(left[n], right[n]);
+		}
+		if (compare(node, n) < 0) {
+			left[n] = remove(left[n], node);
+		} else {
+			right[n] = remove(right[n], node);
+		}
+		update(n);
+		return n;
+	}
+}
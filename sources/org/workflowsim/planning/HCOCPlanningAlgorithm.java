@@ -36,10 +36,16 @@ public class HCOCPlanningAlgorithm extends BasePlanningAlgorithm {
 		System.out.println("\n---Begin HCOC---\n");
 		pch.setTaskList(getTaskList());
 		pch.setVmList(getVmList());
+		pch.setWorkflowGraph(getWorkflowGraph());
 		pch.run();
 		R = pch.availableVms;
 		boolean fulfilled = false;
 
+		if (R.isEmpty()) {
+			Log.printLine("Private cloud set is empty");
+			return;
+		}
+
 		double makespan = pch.getMakespan();
 
 		if (makespan <= this.deadline) {
@@ -49,10 +55,8 @@ public class HCOCPlanningAlgorithm extends BasePlanningAlgorithm {
 
 		for (Object o : getVmList()) {
 			CondorVM vm = (CondorVM) o;
-			if (!R.contains(vm)) {
+			if (!R.contains(vm))
 				publicVms.add(vm);
-				pch.mId2Vm.put(vm.getId(), vm);
-			}
 		}
 
 		if (publicVms.isEmpty()) {
@@ -75,6 +79,7 @@ public class HCOCPlanningAlgorithm extends BasePlanningAlgorithm {
 		List<Task> T = new ArrayList<Task>();
 		List<Vm> H = new ArrayList<Vm>();
 		List<Task> tasks = pch.getDagSortedByPriority();
+		int next = 0;
 
 		/*
 		 * line 3
@@ -85,7 +90,7 @@ public class HCOCPlanningAlgorithm extends BasePlanningAlgorithm {
 			 */
 			iteration++;
 
-			Task hp = tasks.remove(0);
+			Task hp = tasks.get(next++);
 			/*
 			 * line 6
 			 */
@@ -134,24 +139,22 @@ public class HCOCPlanningAlgorithm extends BasePlanningAlgorithm {
 			for (Vm vm : H)
 				pch.resetCounter(vm);
 
-			for (Task t : pch.getDagSortedByPriority())
-				pch.update(t);
+			pch.updateAll();
 
 			makespan = pch.getMakespan();
 
 		}
 		for (Vm vm : H)
 			pch.resetCounter(vm);
-		for (Task t : pch.getDagSortedByPriority())
-			pch.update(t);
+		pch.updateAll();
 
 		System.out.println("HCOC Result:");
 		for (Object o : getTaskList()) {
 			Task task = (Task) o;
-			Vm vm = pch.mId2Vm.get(task.getVmId());
-			System.out.println(vm + " -> " + task + " : " + pch.EST.get(task)
+			Vm vm = pch.getVm(task);
+			System.out.println(vm + " -> " + task + " : " + pch.getEST(task)
 					+ " + " + pch.getComputationCost(task, vm) + " = "
-					+ pch.EFT.get(task));
+					+ pch.getEFT(task));
 		}
 
 		return makespan <= this.deadline;
@@ -168,31 +171,19 @@ public class HCOCPlanningAlgorithm extends BasePlanningAlgorithm {
 			/*
 			 * Desallocate old vm
 			 */
-			pch.desallocate(t, pch.mId2Vm.get(t.getVmId()));
+			pch.desallocate(t);
 
 			for (Vm newVm : H) {
 
-				pch.resetCounter(newVm);
-
 				/*
-				 * Allocate new vm
+				 * Allocate new vm, update its tasks and desallocate it
 				 */
-				List<Task> newCluster = pch.allocate(t, newVm);
-
-				for (Task task : newCluster)
-					pch.update(task);
-
-				double EFT = pch.EFT.get(t);
+				double EFT = pch.getEFT(t, newVm);
 
 				if (EFT < minEFT) {
 					minEFT = EFT;
 					bestResource = newVm;
 				}
-
-				/*
-				 * Desallocate new vm
-				 */
-				pch.desallocate(t, pch.mId2Vm.get(t.getVmId()));
 			}
 
 			/*
@@ -220,9 +211,7 @@ public class HCOCPlanningAlgorithm extends BasePlanningAlgorithm {
 	private int getNumberOfCluster(List<Task> list) {
 		HashSet<Integer> set = new HashSet<Integer>();
 		for (Task t : list)
-			for (int i = 0; i < this.pch.clusters.size(); i++)
-				if (this.pch.clusters.get(i).contains(t))
-					set.add(i);
+			set.add(pch.getCluster(t));
 
 		return set.size();
 	}
@@ -16,65 +16,67 @@
 package org.workflowsim.planning;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import org.cloudbus.cloudsim.Consts;
-import org.cloudbus.cloudsim.File;
 import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
-import org.workflowsim.Task;
-import org.workflowsim.utils.Parameters;
 
 /**
  * The HEFT planning algorithm.
- * 
+ * <p>
+ * It works on the arrays of the WorkflowGraph: the transfer costs are those
+ * of the edges of the workflow only, and the schedule of each vm is kept as
+ * its idle intervals, see {@link GapSchedule}, so that the earliest time slot
+ * of a task on a vm is found in O(log k) for k tasks on the vm. With many
+ * vms, the vms are evaluated in parallel for each task.
+ *
  * @author Pedro Paulo Vezzá Campos
  * @date Oct 12, 2013
  */
 public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 
-	private Map<Task, Map<CondorVM, Double>> computationCosts;
-	private Map<Task, Map<Task, Double>> transferCosts;
-	private Map<Task, Double> rank;
-	private Map<CondorVM, List<Event>> schedules;
-	private Map<Task, Double> earliestFinishTimes;
-	private double averageBandwidth;
-
-	private class Event {
-
-		public double start;
-		public double finish;
-
-		public Event(double start, double finish) {
-			this.start = start;
-			this.finish = finish;
-		}
-	}
-
-	private class TaskRank implements Comparable<TaskRank> {
+	/**
+	 * The number of vms from which the vms are evaluated in parallel, and
+	 * the smallest number of vms evaluated by a thread.
+	 */
+	private static final int PARALLEL_VMS = 256;
 
-		public Task task;
-		public Double rank;
+	private WorkflowGraph graph;
+	private double averageBandwidth;
+	private double[] rank;
+	private double[] earliestFinishTimes;
+	/**
+	 * The vm of each allocated task, by index.
+	 */
+	private int[] taskVms;
+	private GapSchedule[] schedules;
+	/**
+	 * The ready times of the task being allocated on the vms hosting one of
+	 * its parents, or NaN.
+	 */
+	private double[] localReadyTimes;
+	private ExecutorService executor;
+	private int threads;
 
-		public TaskRank(Task task, Double rank) {
-			this.task = task;
-			this.rank = rank;
-		}
+	/**
+	 * The best vm for a task among a range of vms
+	 */
+	private static class Candidate {
 
-		@Override
-		public int compareTo(TaskRank o) {
-			return o.rank.compareTo(rank);
-		}
+		public int vm = -1;
+		public double readyTime;
+		public double finishTime = Double.MAX_VALUE;
 	}
 
 	public HEFTPlanningAlgorithm() {
-		computationCosts = new HashMap<>();
-		transferCosts = new HashMap<>();
-		rank = new HashMap<>();
-		earliestFinishTimes = new HashMap<>();
-		schedules = new HashMap<>();
 	}
 
 	/**
@@ -85,25 +87,48 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 		Log.printLine("HEFT planner running with " + getTaskList().size()
 				+ " tasks.");
 
+		graph = getWorkflowGraph();
 		averageBandwidth = calculateAverageBandwidth();
 
-		for (Object vmObject : getVmList()) {
-			CondorVM vm = (CondorVM) vmObject;
-			schedules.put(vm, new ArrayList<Event>());
+		int vms = graph.getVmCount();
+		schedules = new GapSchedule[vms];
+		for (int j = 0; j < vms; j++) {
+			schedules[j] = new GapSchedule();
 		}
+		localReadyTimes = new double[vms];
+		Arrays.fill(localReadyTimes, Double.NaN);
 
 		// Prioritization phase
-		calculateComputationCosts();
-		calculateTransferCosts();
 		calculateRanks();
 
 		// Selection phase
-		allocateTasks();
+		threads = Math.min(Runtime.getRuntime().availableProcessors(), vms
+				/ PARALLEL_VMS);
+		if (threads > 1) {
+			executor = Executors.newFixedThreadPool(threads,
+					new ThreadFactory() {
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "HEFT-planner");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		}
+		try {
+			allocateTasks();
+		} finally {
+			if (executor != null) {
+				executor.shutdown();
+				executor = null;
+			}
+		}
 	}
 
 	/**
 	 * Calculates the average available bandwidth among all VMs in Mbit/s
-	 * 
+	 *
 	 * @return Average available bandwidth in Mbit/s
 	 */
 	private double calculateAverageBandwidth() {
@@ -116,280 +141,208 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 	}
 
 	/**
-	 * Populates the computationCosts field with the time in seconds to compute
-	 * a task in a vm.
-	 */
-	private void calculateComputationCosts() {
-		for (Object taskObject : getTaskList()) {
-			Task task = (Task) taskObject;
-
-			Map<CondorVM, Double> costsVm = new HashMap<CondorVM, Double>();
-
-			for (Object vmObject : getVmList()) {
-				CondorVM vm = (CondorVM) vmObject;
-				if (vm.getNumberOfPes() < task.getNumberOfPes()) {
-					costsVm.put(vm, Double.MAX_VALUE);
-				} else {
-					costsVm.put(vm,
-							task.getCloudletTotalLength() / vm.getMips());
-				}
-			}
-			computationCosts.put(task, costsVm);
-		}
-	}
-
-	/**
-	 * Populates the transferCosts map with the time in seconds to transfer all
-	 * files from each parent to each child
-	 */
-	private void calculateTransferCosts() {
-		// Initializing the matrix
-		for (Object taskObject1 : getTaskList()) {
-			Task task1 = (Task) taskObject1;
-			Map<Task, Double> taskTransferCosts = new HashMap<Task, Double>();
-
-			for (Object taskObject2 : getTaskList()) {
-				Task task2 = (Task) taskObject2;
-				taskTransferCosts.put(task2, 0.0);
-			}
-
-			transferCosts.put(task1, taskTransferCosts);
-		}
-
-		// Calculating the actual values
-		for (Object parentObject : getTaskList()) {
-			Task parent = (Task) parentObject;
-			for (Task child : parent.getChildList()) {
-				transferCosts.get(parent).put(child,
-						calculateTransferCost(parent, child));
-			}
-		}
-	}
-
-	/**
-	 * Accounts the time in seconds necessary to transfer all files described
-	 * between parent and child
-	 * 
-	 * @param parent
-	 * @param child
+	 * Accounts the time in seconds necessary to transfer the files of an edge
+	 *
+	 * @param bytes
+	 *            the size of the files, in bytes
 	 * @return Transfer cost in seconds
 	 */
-	private double calculateTransferCost(Task parent, Task child) {
-		List<File> parentFiles = (List<File>) parent.getFileList();
-		List<File> childFiles = (List<File>) child.getFileList();
-
-		double acc = 0.0;
-
-		for (File parentFile : parentFiles) {
-			if (parentFile.getType() != Parameters.FileType.OUTPUT.value) {
-				continue;
-			}
-
-			for (File childFile : childFiles) {
-				if (childFile.getType() == Parameters.FileType.INPUT.value
-						&& childFile.getName().equals(parentFile.getName())) {
-					acc += childFile.getSize();
-					break;
-				}
-			}
-		}
-
+	private double calculateTransferCost(double bytes) {
 		// file Size is in Bytes, acc in MB
-		acc = acc / (double) Consts.MILLION;
+		double acc = bytes / (double) Consts.MILLION;
 		// acc in MB, averageBandwidth in Mb/s
 		return acc * 8 / averageBandwidth;
 	}
 
 	/**
-	 * Invokes calculateRank for each task to be scheduled
+	 * Calculates the rank of each task as defined in the HEFT paper, the
+	 * upward rank with the average computation costs
 	 */
 	private void calculateRanks() {
-		for (Object taskObject : getTaskList()) {
-			Task task = (Task) taskObject;
-			calculateRank(task);
-		}
-	}
-
-	/**
-	 * Populates rank.get(task) with the rank of task as defined in the HEFT
-	 * paper.
-	 * 
-	 * @param task
-	 *            The task have the rank calculates
-	 * @return The rank
-	 */
-	private double calculateRank(Task task) {
-		if (rank.containsKey(task)) {
-			return rank.get(task);
-		}
-
-		double averageComputationCost = 0.0;
-
-		for (Double cost : computationCosts.get(task).values()) {
-			averageComputationCost += cost;
+		double[] averageComputationCosts = new double[graph.getTaskCount()];
+		for (int i = 0; i < averageComputationCosts.length; i++) {
+			averageComputationCosts[i] = graph.getAverageComputationCost(i);
 		}
-
-		averageComputationCost /= computationCosts.get(task).size();
-
-		double max = 0.0;
-		for (Task child : task.getChildList()) {
-			double childCost = transferCosts.get(task).get(child)
-					+ calculateRank(child);
-			max = Math.max(max, childCost);
+		double[] childBytes = graph.getChildBytes();
+		double[] transferCosts = new double[childBytes.length];
+		for (int k = 0; k < childBytes.length; k++) {
+			transferCosts[k] = calculateTransferCost(childBytes[k]);
 		}
-
-		rank.put(task, averageComputationCost + max);
-
-		return rank.get(task);
+		rank = getRankEngine().getUpwardRanks(averageComputationCosts,
+				transferCosts);
 	}
 
 	/**
-	 * Allocates all tasks to be scheduled in non-ascending order of schedule.
+	 * Allocates all tasks to be scheduled in non-ascending order of rank.
 	 */
 	private void allocateTasks() {
-		List<TaskRank> taskRank = new ArrayList<>();
-		for (Task task : rank.keySet()) {
-			taskRank.add(new TaskRank(task, rank.get(task)));
+		Integer[] tasks = new Integer[rank.length];
+		for (int i = 0; i < tasks.length; i++) {
+			tasks[i] = i;
 		}
 
 		// Sorting in non-ascending order of rank
-		Collections.sort(taskRank);
-		for (TaskRank tr : taskRank) {
-			allocateTask(tr.task);
-		}
+		Arrays.sort(tasks, new Comparator<Integer>() {
 
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(rank[b], rank[a]);
+			}
+		});
+		earliestFinishTimes = new double[rank.length];
+		taskVms = new int[rank.length];
+		for (Integer task : tasks) {
+			allocateTask(task);
+		}
 	}
 
 	/**
 	 * Schedules the task given in one of the VMs minimizing the earliest finish
 	 * time
-	 * 
+	 *
 	 * @param task
-	 *            The task to be scheduled
+	 *            The index of the task to be scheduled
 	 * @pre All parent tasks are already scheduled
 	 */
-	private void allocateTask(Task task) {
-		CondorVM chosenVM = null;
-		double earliestFinishTime = Double.MAX_VALUE;
-		double bestReadyTime = 0.0;
-		double finishTime;
-
-		for (Object vmObject : getVmList()) {
-			CondorVM vm = (CondorVM) vmObject;
-			double minReadyTime = 0.0;
-
-			for (Task parent : task.getParentList()) {
-				double readyTime = earliestFinishTimes.get(parent);
-				if (parent.getVmId() != vm.getId()) {
-					readyTime += transferCosts.get(parent).get(task);
+	private void allocateTask(int task) {
+		int[] parentOffsets = graph.getParentOffsets();
+		int[] parents = graph.getParents();
+		double[] parentBytes = graph.getParentBytes();
+
+		/**
+		 * The ready time of the task on a vm is the latest arrival of the
+		 * data of its parents, which costs nothing from a parent on the same
+		 * vm. It is the same on all the vms hosting none of its parents, and
+		 * on the others it is computed from the parents of the vm and from
+		 * the latest arrival from the other vms.
+		 */
+		double latest = 0.0;
+		int latestVm = -1;
+		double latestElsewhere = 0.0;
+		for (int k = parentOffsets[task]; k < parentOffsets[task + 1]; k++) {
+			int parent = parents[k];
+			int vm = taskVms[parent];
+			double readyTime = earliestFinishTimes[parent]
+					+ calculateTransferCost(parentBytes[k]);
+			if (readyTime > latest) {
+				if (vm != latestVm) {
+					latestElsewhere = latest;
 				}
-
-				minReadyTime = Math.max(minReadyTime, readyTime);
+				latest = readyTime;
+				latestVm = vm;
+			} else if (vm != latestVm) {
+				latestElsewhere = Math.max(latestElsewhere, readyTime);
 			}
+			double local = localReadyTimes[vm];
+			localReadyTimes[vm] = Double.isNaN(local) ? earliestFinishTimes[parent]
+					: Math.max(local, earliestFinishTimes[parent]);
+		}
 
-			finishTime = findFinishTime(task, vm, minReadyTime, false);
+		double[] computationCosts = graph.getComputationCosts()[task];
+		Candidate best;
+		int vms = graph.getVmCount();
+		if (executor == null) {
+			best = findBestVm(0, vms, computationCosts, latest, latestVm,
+					latestElsewhere);
+		} else {
+			best = findBestVmInParallel(computationCosts, latest, latestVm,
+					latestElsewhere);
+		}
 
-			if (finishTime < earliestFinishTime) {
-				bestReadyTime = minReadyTime;
-				earliestFinishTime = finishTime;
-				chosenVM = vm;
-			}
+		for (int k = parentOffsets[task]; k < parentOffsets[task + 1]; k++) {
+			localReadyTimes[taskVms[parents[k]]] = Double.NaN;
 		}
 
-		findFinishTime(task, chosenVM, bestReadyTime, true);
-		earliestFinishTimes.put(task, earliestFinishTime);
+		if (best.vm < 0) {
+			throw new IllegalStateException("No vm can run task "
+					+ graph.getTask(task).getCloudletId());
+		}
+		schedules[best.vm].reserve(best.readyTime,
+				computationCosts[graph.getVmTypes()[best.vm]]);
+		earliestFinishTimes[task] = best.finishTime;
+		taskVms[task] = best.vm;
 
-		task.setVmId(chosenVM.getId());
+		graph.getTask(task).setVmId(graph.getVm(best.vm).getId());
 	}
 
 	/**
-	 * Finds the best time slot available to minimize the finish time of the
-	 * given task in the vm with the constraint of not scheduling it before
-	 * readyTime. If occupySlot is true, reserves the time slot in the schedule.
-	 * 
-	 * @param task
-	 *            The task to have the time slot reserved
-	 * @param vm
-	 *            The vm that will execute the task
-	 * @param readyTime
-	 *            The first moment that the task is available to be scheduled
-	 * @param occupySlot
-	 *            If true, reserves the time slot in the schedule.
-	 * @return The minimal finish time of the task in the vmn
+	 * Finds the vm of a range where a task finishes the earliest, the first
+	 * one if several
+	 *
+	 * @param from
+	 *            the first vm of the range
+	 * @param to
+	 *            the vm after the range
+	 * @param computationCosts
+	 *            the costs of the task, by vm type
+	 * @param latest
+	 *            the latest arrival of the data of the parents
+	 * @param latestVm
+	 *            the vm the latest data comes from
+	 * @param latestElsewhere
+	 *            the latest arrival of the data from the other vms
+	 * @return the best vm of the range
 	 */
-	private double findFinishTime(Task task, CondorVM vm, double readyTime,
-			boolean occupySlot) {
-		List<Event> sched = schedules.get(vm);
-		double computationCost = computationCosts.get(task).get(vm);
-		double start, finish;
-		int pos;
-
-		if (sched.size() == 0) {
-			if (occupySlot) {
-				sched.add(new Event(readyTime, readyTime + computationCost));
+	private Candidate findBestVm(int from, int to, double[] computationCosts,
+			double latest, int latestVm, double latestElsewhere) {
+		int[] vmTypes = graph.getVmTypes();
+		Candidate best = new Candidate();
+		for (int j = from; j < to; j++) {
+			double readyTime = j == latestVm ? latestElsewhere : latest;
+			double local = localReadyTimes[j];
+			if (!Double.isNaN(local)) {
+				readyTime = Math.max(readyTime, local);
 			}
-			return readyTime + computationCost;
-		}
 
-		if (sched.size() == 1) {
-			if (readyTime >= sched.get(0).finish) {
-				pos = 1;
-				start = readyTime;
-			} else if (readyTime + computationCost <= sched.get(0).start) {
-				pos = 0;
-				start = readyTime;
-			} else {
-				pos = 1;
-				start = sched.get(0).finish;
-			}
+			double finishTime = schedules[j].findFinishTime(readyTime,
+					computationCosts[vmTypes[j]]);
 
-			if (occupySlot) {
-				sched.add(pos, new Event(start, start + computationCost));
+			if (finishTime < best.finishTime) {
+				best.vm = j;
+				best.readyTime = readyTime;
+				best.finishTime = finishTime;
 			}
-			return start + computationCost;
 		}
+		return best;
+	}
 
-		// Trivial case: Start after the latest task scheduled
-		start = Math.max(readyTime, sched.get(sched.size() - 1).finish);
-		finish = start + computationCost;
-		int i = sched.size() - 1;
-		int j = sched.size() - 2;
-		pos = i + 1;
-		while (j >= 0) {
-			Event current = sched.get(i);
-			Event previous = sched.get(j);
-
-			if (readyTime > previous.finish) {
-				if (readyTime + computationCost <= current.start) {
-					start = readyTime;
-					finish = readyTime + computationCost;
+	/**
+	 * Finds the vm where a task finishes the earliest, with the vms split in
+	 * ranges evaluated in parallel
+	 *
+	 * @see #findBestVm(int, int, double[], double, int, double)
+	 */
+	private Candidate findBestVmInParallel(final double[] computationCosts,
+			final double latest, final int latestVm,
+			final double latestElsewhere) {
+		int vms = graph.getVmCount();
+		List<Future<Candidate>> futures = new ArrayList<Future<Candidate>>();
+		for (int t = 0; t < threads; t++) {
+			final int from = (int) ((long) vms * t / threads);
+			final int to = (int) ((long) vms * (t + 1) / threads);
+			futures.add(executor.submit(new Callable<Candidate>() {
+
+				@Override
+				public Candidate call() {
+					return findBestVm(from, to, computationCosts, latest,
+							latestVm, latestElsewhere);
 				}
-
-				break;
-			}
-
-			if (previous.finish + computationCost <= current.start) {
-				start = previous.finish;
-				finish = previous.finish + computationCost;
-				pos = i;
-			}
-
-			i--;
-			j--;
+			}));
 		}
-
-		if (readyTime + computationCost <= sched.get(0).start) {
-			pos = 0;
-			start = readyTime;
-
-			if (occupySlot) {
-				sched.add(pos, new Event(start, start + computationCost));
+		Candidate best = new Candidate();
+		try {
+			for (Future<Candidate> future : futures) {
+				Candidate candidate = future.get();
+				if (candidate.finishTime < best.finishTime) {
+					best = candidate;
+				}
 			}
-			return start + computationCost;
-		}
-		if (occupySlot) {
-			sched.add(pos, new Event(start, finish));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
 		}
-		return finish;
+		return best;
 	}
 }
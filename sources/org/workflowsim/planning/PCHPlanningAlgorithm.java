@@ -1,38 +1,43 @@
 package org.workflowsim.planning;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Stack;
-import java.util.Vector;
 
 import org.cloudbus.cloudsim.Consts;
-import org.cloudbus.cloudsim.File;
 import org.cloudbus.cloudsim.Vm;
 import org.workflowsim.CondorVM;
 import org.workflowsim.Task;
 import org.workflowsim.WorkflowSimTags;
-import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.PlanningAlgorithm;
 
+/*
+ * The tasks and the vms are the indexes of the WorkflowGraph: the order of the
+ * priorities is computed once, the tasks allocated to a vm are kept in that
+ * order, and the EST of the unscheduled tasks is memoized until a task is
+ * allocated, desallocated or gets a new EST. When every parent comes before
+ * its children in that order, a task only depends on the tasks before it, so
+ * the tasks of a vm are updated from the first one with a changed task before
+ * it, starting from the pe times kept for that position.
+ */
 public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 
-	private class TaskComparator implements Comparator<Task> {
+	private class TaskComparator implements Comparator<Integer> {
 
 		@Override
-		public int compare(Task o1, Task o2) {
-			if (P.get(o1) > P.get(o2))
+		public int compare(Integer o1, Integer o2) {
+			if (P[o1] > P[o2])
 				return -1;
-			else if (P.get(o1) < P.get(o2))
+			else if (P[o1] < P[o2])
 				return 1;
-			else if (o1.getCloudletId() < o2.getCloudletId())
+			int id1 = graph.getTask(o1).getCloudletId();
+			int id2 = graph.getTask(o2).getCloudletId();
+			if (id1 < id2)
 				return -1;
-			else if (o1.getCloudletId() > o2.getCloudletId())
+			else if (id1 > id2)
 				return 1;
 			return 0;
 		}
@@ -41,27 +46,107 @@ public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 
 	List<CondorVM> availableVms;
 
-	Map<Task, Double> EST;
+	private WorkflowGraph graph;
 
-	Map<Task, Double> EFT;
+	private double[] EST;
 
-	private Map<Vm, List<Task>> allocation;
+	private double[] EFT;
 
-	List<List<Task>> clusters;
+	private double[] P;
+
+	/*
+	 * The tasks by priority, and the position of each task in that order
+	 */
+	private int[] byPriority;
+
+	private int[] rank;
+
+	/*
+	 * The tasks allocated to each vm, by priority, or null if none ever was
+	 */
+	private int[][] allocation;
+
+	private int[] allocationSizes;
+
+	private double[][] TIME;
 
-	private Map<Task, Double> P;
+	/*
+	 * The vm of each task, or -1
+	 */
+	private int[] taskVms;
 
-	private Map<Vm, Vector<Double>> TIME;
+	private Map<Integer, Integer> vmIndexes;
 
-	private Vm bestResource = null;
+	private int bestResource = -1;
 
 	private double highestBandwidth = Double.MIN_VALUE;
 
-	private List<Task> entryTasks;
+	private boolean[] entryTasks;
+
+	private int[] exitTasks;
+
+	/*
+	 * The children of each task in the order of its child list, which breaks
+	 * the ties of the clustering
+	 */
+	private int[] childOffsets;
+
+	private int[] children;
+
+	List<List<Task>> clusters;
+
+	private int[] taskClusters;
+
+	/*
+	 * The unscheduled tasks: the first one is the first queued task of
+	 * byPriority from queueHead
+	 */
+	private boolean[] queued;
+
+	private int queueHead;
+
+	private int queueSize;
+
+	/*
+	 * The EST of the unscheduled tasks, valid while their epoch is the current
+	 * one
+	 */
+	private double[] unscheduledEST;
+
+	private int[] unscheduledEpochs;
+
+	private int epoch;
+
+	private int[] stack;
+
+	/*
+	 * The pe times of each vm before each of its allocated tasks and after the
+	 * last one, and the number of leading tasks whose times, EST and EFT are
+	 * up to date as of a count of changes
+	 */
+	private double[][] allocationTimes;
+
+	private int[] updatedSizes;
+
+	private long[] updateStamps;
+
+	/*
+	 * The changes, a task allocated, desallocated or with a new EST, as a stack
+	 * of counts and ranks that both increase: the lowest rank changed since a
+	 * count is the rank of the first entry at or after that count
+	 */
+	private long changes;
+
+	private long[] changeStamps;
 
-	private List<Task> exitTasks;
+	private int[] changeRanks;
 
-	Map<Integer, CondorVM> mId2Vm;
+	private int changeSize;
+
+	/*
+	 * Whether every parent comes before its children by priority
+	 */
+	private boolean ordered;
 
 	private PlanningAlgorithm usedByOther;
 
@@ -72,27 +157,20 @@ public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 
 	public PCHPlanningAlgorithm() {
 		usedByOther = PlanningAlgorithm.PCH;
-		EST = new HashMap<Task, Double>();
-		EFT = new HashMap<Task, Double>();
-		P = new HashMap<Task, Double>();
 		clusters = new ArrayList<List<Task>>();
-		allocation = new HashMap<Vm, List<Task>>();
-		TIME = new Hashtable<Vm, Vector<Double>>();
-		entryTasks = new ArrayList<Task>();
-		exitTasks = new ArrayList<Task>();
-		mId2Vm = new HashMap<Integer, CondorVM>();
+		vmIndexes = new HashMap<Integer, Integer>();
+		exitTasks = new int[0];
 	}
 
 	public void resetCounter(Vm vm) {
-		if (!TIME.containsKey(vm)) {
-			Vector<Double> v = new Vector<Double>(vm.getNumberOfPes());
-			for (int i = 0; i < vm.getNumberOfPes(); i++)
-				v.add(i, 0.0);
+		resetCounter(getVmIndex(vm));
+	}
 
-			TIME.put(vm, v);
-		}
-		for (int i = 0; i < vm.getNumberOfPes(); i++)
-			this.TIME.get(vm).set(i, 0.0);
+	private void resetCounter(int vm) {
+		if (TIME[vm] == null)
+			TIME[vm] = new double[graph.getVm(vm).getNumberOfPes()];
+		else
+			Arrays.fill(TIME[vm], 0.0);
 	}
 
 	private void resetCounter() {
@@ -100,19 +178,25 @@ public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 			resetCounter(vm);
 	}
 
-	Double getTimeAvailable(Vm vm) {
-		if (vm == null)
+	private double getTimeAvailable(int vm) {
+		if (vm < 0)
 			return 0.0;
-		return Collections.min(TIME.get(vm));
+		double[] time = TIME[vm];
+		double min = time[0];
+		for (int i = 1; i < time.length; i++)
+			if (time[i] < min)
+				min = time[i];
+		return min;
 	}
 
-	void setTime(Vm vm, Double time) {
-		if (vm != null) {
+	private void setTime(int vm, double time) {
+		if (vm >= 0) {
+			double[] times = TIME[vm];
 			int min = 0;
-			for (int i = 1; i < vm.getNumberOfPes(); i++)
-				if (this.TIME.get(vm).get(i) < this.TIME.get(vm).get(min))
+			for (int i = 1; i < times.length; i++)
+				if (times[i] < times[min])
 					min = i;
-			this.TIME.get(vm).set(min, time);
+			times[min] = time;
 		}
 	}
 
@@ -120,8 +204,8 @@ public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 		double max = 0;
 		double time = 0.0;
 
-		for (Task exit : exitTasks) {
-			time = this.EFT.get(exit);
+		for (int exit : exitTasks) {
+			time = this.EFT[exit];
 			if (time > max)
 				max = time;
 		}
@@ -162,63 +246,56 @@ public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 
 	/*
 	 * Priority, where we use the best resource as r in the paper, because it is
-	 * the initial values to calculate P
+	 * the initial values to calculate P: the upward rank of the tasks with the
+	 * computation costs on the best resource and the highest bandwidth
 	 */
-	private double calculatePriorities(Task i) {
-		if (P.get(i) > 0)
-			return P.get(i);
-
-		double w = getComputationCost(i, bestResource);
-
-		if (exitTasks.contains(i)) {
-			P.put(i, w);
-			return w;
-		}
-
-		double max, cost, priority;
-		max = cost = priority = 0.0;
-		for (Task t : i.getChildList()) {
-			cost = getCommunicationCost(i, null, t, null);
-			priority = calculatePriorities(t);
-			max = Math.max(cost + priority, max);
+	private void calculatePriorities() {
+		double[] w = new double[graph.getTaskCount()];
+		for (int i = 0; i < w.length; i++)
+			w[i] = getComputationCost(i, -1);
+
+		double[] bytes = graph.getChildBytes();
+		double[] c = new double[bytes.length];
+		for (int k = 0; k < bytes.length; k++)
+			c[k] = getCommunicationCost(bytes[k], highestBandwidth);
+
+		P = getRankEngine().getUpwardRanks(w, c);
+
+		Integer[] order = new Integer[P.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, new TaskComparator());
+		byPriority = new int[order.length];
+		rank = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			byPriority[i] = order[i];
+			rank[order[i]] = i;
 		}
-
-		P.put(i, max + w);
-		return max + w;
-	}
-
-	/*
-	 * Earliest finish time (EFT)
-	 */
-	double calculateEFT(Task t, Vm v) {
-		if (!this.EFT.containsKey(t))
-			this.EFT.put(t, 0.0);
-
-		return calculateEST(t, v) + getComputationCost(t, v);
-
 	}
 
 	/*
-	 * Earliest start time (EST)
+	 * Earliest start time (EST), where the unscheduled parents start at their
+	 * own EST on no vm
 	 */
-	double calculateEST(Task i, Vm n) {
-		if (!this.EST.containsKey(i))
-			this.EST.put(i, 0.0);
-
-		if (entryTasks.contains(i))
+	private double calculateEST(int i, int n) {
+		if (entryTasks[i])
 			return 0.0;
 
+		int[] parentOffsets = graph.getParentOffsets();
+		int[] parents = graph.getParents();
+		double[] parentBytes = graph.getParentBytes();
 		double maxEST, currentEST, c, predEST;
 		maxEST = currentEST = c = predEST = 0.0;
 
-		for (Task j : i.getParentList()) {
-			Vm m = mId2Vm.get(j.getVmId());
-			c = getCommunicationCost(j, m, i, n);
+		for (int k = parentOffsets[i]; k < parentOffsets[i + 1]; k++) {
+			int j = parents[k];
+			int m = taskVms[j];
+			c = getCommunicationCost(parentBytes[k], m, n);
 
-			if (m == null)
-				predEST = calculateEST(j, m);
+			if (m < 0)
+				predEST = getUnscheduledEST(j);
 			else
-				predEST = EST.get(j);
+				predEST = EST[j];
 
 			currentEST = predEST + getComputationCost(j, m) + c;
 
@@ -229,44 +306,77 @@ public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 		return maxEST;
 	}
 
+	/*
+	 * The EST of an unscheduled task, computed after its unscheduled ancestors
+	 * instead of recursing over their paths
+	 */
+	private double getUnscheduledEST(int task) {
+		if (unscheduledEpochs[task] == epoch)
+			return unscheduledEST[task];
+
+		int[] parentOffsets = graph.getParentOffsets();
+		int[] parents = graph.getParents();
+		int size = 0;
+		stack[size++] = task;
+		while (size > 0) {
+			int t = stack[size - 1];
+			if (unscheduledEpochs[t] == epoch) {
+				size--;
+				continue;
+			}
+			boolean ready = true;
+			if (!entryTasks[t]) {
+				for (int k = parentOffsets[t]; k < parentOffsets[t + 1]; k++) {
+					int j = parents[k];
+					if (taskVms[j] < 0 && unscheduledEpochs[j] != epoch) {
+						if (size == stack.length)
+							stack = Arrays.copyOf(stack, 2 * size);
+						stack[size++] = j;
+						ready = false;
+					}
+				}
+			}
+			if (ready) {
+				unscheduledEST[t] = calculateEST(t, -1);
+				unscheduledEpochs[t] = epoch;
+				size--;
+			}
+		}
+		return unscheduledEST[task];
+	}
+
 	double getComputationCost(Task task, Vm vm) {
 		if (vm == null)
-			vm = bestResource;
+			vm = graph.getVm(bestResource);
 		if (vm.getNumberOfPes() < task.getNumberOfPes())
 			return Double.MAX_VALUE;
 
 		return task.getCloudletTotalLength() / vm.getMips();
 	}
 
-	private double getCommunicationCost(Task parent, Vm j, Task child, Vm k) {
-		double bytes = 0.0;
+	private double getComputationCost(int task, int vm) {
+		if (vm < 0)
+			vm = bestResource;
+		return graph.getComputationCosts()[task][graph.getVmTypes()[vm]];
+	}
+
+	private double getCommunicationCost(double bytes, int j, int k) {
 		double bandwith = 0.0;
-		@SuppressWarnings("unchecked")
-		List<File> parentFiles = (List<File>) parent.getFileList();
-		@SuppressWarnings("unchecked")
-		List<File> childFiles = (List<File>) child.getFileList();
 
-		if ((j == null || k == null))
+		if (j < 0 || k < 0)
 			bandwith = highestBandwidth;
-		else if (j.equals(k))
+		else if (j == k)
 			bandwith = Double.POSITIVE_INFINITY;
 		else
-			bandwith = Math.min(j.getBw(), k.getBw());
-
-		for (File parentFile : parentFiles) {
-			if (parentFile.getType() != Parameters.FileType.OUTPUT.value) {
-				continue;
-			}
+			bandwith = Math.min(graph.getVm(j).getBw(), graph.getVm(k).getBw());
 
-			for (File childFile : childFiles) {
-				if (childFile.getType() == Parameters.FileType.INPUT.value
-						&& childFile.getName().equals(parentFile.getName())) {
-					bytes += childFile.getSize();
-					break;
-				}
-			}
-		}
+		return getCommunicationCost(bytes, bandwith);
+	}
 
+	/*
+	 * Time to transfer the given bytes at the given bandwidth, in Mbps
+	 */
+	private double getCommunicationCost(double bytes, double bandwith) {
 		// Mbps in bps
 		bandwith *= (double) Consts.MILLION;
 		// bps in Bps, because size of the files is in bytes
@@ -276,28 +386,48 @@ public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 		return bytes / bandwith;
 	}
 
+	/*
+	 * The bytes of the files a parent sends to a child
+	 */
+	private double getTransferredBytes(int parent, int child) {
+		int[] parentOffsets = graph.getParentOffsets();
+		int[] parents = graph.getParents();
+		for (int k = parentOffsets[child]; k < parentOffsets[child + 1]; k++)
+			if (parents[k] == parent)
+				return graph.getParentBytes()[k];
+		return 0.0;
+	}
+
+	private int poll() {
+		while (!queued[byPriority[queueHead]])
+			queueHead++;
+		int task = byPriority[queueHead];
+		queued[task] = false;
+		queueSize--;
+		return task;
+	}
+
 	/*
 	 * Algorithm 2 of the paper (A performance-oriented adaptive scheduler for
 	 * dependent tasks on grids)
 	 */
-	private List<Task> getNextCluster(PriorityQueue<Task> queue) {
+	private int[] getNextCluster() {
 
-		List<Task> cluster = new ArrayList<Task>();
-		Task k = queue.poll();
-		cluster.add(k);
+		int[] cluster = new int[4];
+		int size = 0;
+		int k = poll();
+		cluster[size++] = k;
 
-		Stack<Task> stack = new Stack<Task>();
-		stack.add(k);
-		while (!stack.isEmpty()) {
-			Task n = stack.pop();
+		int n = k;
+		while (n >= 0) {
 			double highest = 0.0;
 			double value = 0.0;
-			Task sucessor = null;
-
-			for (Task i : n.getChildList()) {
+			int sucessor = -1;
 
-				if (queue.contains(i)) {
-					value = P.get(i) + calculateEST(i, bestResource);
+			for (int c = childOffsets[n]; c < childOffsets[n + 1]; c++) {
+				int i = children[c];
+				if (queued[i]) {
+					value = P[i] + calculateEST(i, bestResource);
 					if (value > highest) {
 						highest = value;
 						sucessor = i;
@@ -305,60 +435,66 @@ public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 				}
 			}
 
-			if (sucessor != null) {
-				stack.add(sucessor);
-				cluster.add(sucessor);
-				queue.remove(sucessor);
+			if (sucessor >= 0) {
+				if (size == cluster.length)
+					cluster = Arrays.copyOf(cluster, 2 * size);
+				cluster[size++] = sucessor;
+				queued[sucessor] = false;
+				queueSize--;
 			}
+			n = sucessor;
 		}
 
-		return cluster;
+		return Arrays.copyOf(cluster, size);
 	}
 
-	@SuppressWarnings("unchecked")
 	private void pch() {
 
-		PriorityQueue<Task> unscheduleTasks = new PriorityQueue<Task>(
-				getTaskList().size(), new TaskComparator());
-
-		unscheduleTasks.addAll(getTaskList());
+		queued = new boolean[byPriority.length];
+		Arrays.fill(queued, true);
+		queueHead = 0;
+		queueSize = queued.length;
 		resetCounter();
-		while (unscheduleTasks.size() > 0) {
-			List<Task> cluster = getNextCluster(unscheduleTasks);
-
-			clusters.add(cluster);
-			Vm bestResource = getBestResourceToCluster(cluster);
+		while (queueSize > 0) {
+			int[] cluster = getNextCluster();
+
+			int vm = getBestResourceToCluster(cluster);
+			List<Task> tasks = new ArrayList<Task>(cluster.length);
+			for (int t : cluster) {
+				tasks.add(graph.getTask(t));
+				taskClusters[t] = clusters.size();
+			}
+			clusters.add(tasks);
 
-			System.out.println("Cluster " + clusters.size() + " : " + cluster
-					+ " => " + bestResource);
+			System.out.println("Cluster " + clusters.size() + " : " + tasks
+					+ " => " + (vm < 0 ? null : graph.getVm(vm)));
 
-			allocate(cluster, bestResource);
+			allocate(cluster, vm);
 
 			/*
 			 * Recalculating EST, EFT, Time and Weights
 			 */
 
-			resetCounter(bestResource);
-
-			for (Task t : allocation.get(bestResource))
-				update(t);
+			updateAllocation(vm);
 		}
 
-		List<Task> list = getDagSortedByPriority();
 		resetCounter();
-		for (Task t : list)
-			update(t);
+		updateAll();
 	}
 
 	/**
 	 * Update the EST and EFT values
-	 * 
+	 *
 	 * @param t
 	 *            : A task
 	 */
 	void update(Task t) {
+		update(graph.indexOf(t));
+	}
+
+	private void update(int t) {
 		double EST, computationCost, timeAvailable, EFT;
-		Vm vm = mId2Vm.get(t.getVmId());
+		int vm = taskVms[t];
 
 		EST = calculateEST(t, vm);
 		timeAvailable = getTimeAvailable(vm);
@@ -368,48 +504,122 @@ public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 
 		setTime(vm, EFT);
 
-		this.EST.put(t, EST);
-		this.EFT.put(t, EFT);
+		if (this.EST[t] != EST)
+			changed(t);
+		this.EST[t] = EST;
+		this.EFT[t] = EFT;
+	}
+
+	private void updateAllocation(int vm) {
+		updateAllocation(vm, allocationSizes[vm]);
+	}
+
+	/*
+	 * Updates the leading tasks allocated to a vm, by priority, from the first
+	 * one that may have changed
+	 */
+	private void updateAllocation(int vm, int size) {
+		if (TIME[vm] == null)
+			resetCounter(vm);
+		int pes = TIME[vm].length;
+		double[] times = allocationTimes[vm];
+		if (times == null)
+			times = allocationTimes[vm] = new double[2 * (size + 1) * pes];
+		else if (times.length < (size + 1) * pes)
+			times = allocationTimes[vm] = Arrays.copyOf(times, 2 * (size + 1)
+					* pes);
+
+		int from = 0;
+		if (ordered) {
+			int position = findRank(vm, getLowestChange(updateStamps[vm]));
+			if (position < 0)
+				position = -position - 1;
+			from = Math.min(updatedSizes[vm], position);
+		}
+
+		double[] time = TIME[vm];
+		for (int p = 0; p < pes; p++)
+			time[p] = times[from * pes + p];
+		for (int i = from; i < size; i++) {
+			update(allocation[vm][i]);
+			for (int p = 0; p < pes; p++)
+				times[(i + 1) * pes + p] = time[p];
+		}
+		updatedSizes[vm] = Math.max(from, size);
+		updateStamps[vm] = changes;
+	}
+
+	/*
+	 * Records that a task is allocated, desallocated or gets a new EST
+	 */
+	private void changed(int task) {
+		epoch++;
+		int r = rank[task];
+		while (changeSize > 0 && changeRanks[changeSize - 1] >= r)
+			changeSize--;
+		changeStamps[changeSize] = changes++;
+		changeRanks[changeSize++] = r;
+	}
+
+	/*
+	 * The lowest rank changed since a count of changes, or Integer.MAX_VALUE
+	 */
+	private int getLowestChange(long stamp) {
+		int low = 0;
+		int high = changeSize;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (changeStamps[middle] < stamp)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low < changeSize ? changeRanks[low] : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Updates all the tasks, by priority
+	 */
+	void updateAll() {
+		for (int t : byPriority)
+			update(t);
 	}
 
-	private Vm getBestResourceToCluster(List<Task> cluster) {
-		Vm bestResource = null;
+	private int getBestResourceToCluster(int[] cluster) {
+		int bestResource = -1;
 
 		double smallestEstSucessorLastClusterNode = Double.MAX_VALUE;
 
-		Collections.sort(cluster, new TaskComparator());
+		sortByPriority(cluster);
 
-		Task sucessorLastClusterNode = getSucessorScheduled(cluster.get(cluster
-				.size() - 1));
-		Task lastClusterTask = cluster.get(cluster.size() - 1);
+		int lastClusterTask = cluster[cluster.length - 1];
+		int sucessorLastClusterNode = getSucessorScheduled(lastClusterTask);
 
 		double EFTlastClusterTask = 0.0;
 
-		for (Vm vm : availableVms) {
-			resetCounter(vm);
+		for (Vm v : availableVms) {
+			int vm = getVmIndex(v);
 			double ESTsucessorLastClusterNode = Double.NEGATIVE_INFINITY;
 
 			/*
 			 * allocate the cluster
 			 */
-			List<Task> newCluster = allocate(cluster, vm);
+			allocate(cluster, vm);
 
 			/*
 			 * Update EFT and EST value for each node in cluster
 			 */
-			for (Task t : newCluster)
-				update(t);
+			updateAllocation(vm);
 
-			EFTlastClusterTask = this.EFT.get(lastClusterTask);
-			if (sucessorLastClusterNode != null
-					&& newCluster.contains(sucessorLastClusterNode))
-				ESTsucessorLastClusterNode = this.EST
-						.get(sucessorLastClusterNode);
+			EFTlastClusterTask = this.EFT[lastClusterTask];
+			if (sucessorLastClusterNode >= 0
+					&& taskVms[sucessorLastClusterNode] == vm)
+				ESTsucessorLastClusterNode = this.EST[sucessorLastClusterNode];
 
 			/*
 			 * Critical path
 			 */
-			if (sucessorLastClusterNode == null) {
+			if (sucessorLastClusterNode < 0) {
 				if (EFTlastClusterTask < smallestEstSucessorLastClusterNode) {
 					smallestEstSucessorLastClusterNode = EFTlastClusterTask;
 					bestResource = vm;
@@ -423,10 +633,10 @@ public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 
 				if (Double.isInfinite(ESTsucessorLastClusterNode))
 					ESTsucessorLastClusterNode = EFTlastClusterTask
-							+ getCommunicationCost(lastClusterTask, vm,
-									sucessorLastClusterNode,
-									mId2Vm.get(sucessorLastClusterNode
-											.getVmId()));
+							+ getCommunicationCost(
+									getTransferredBytes(lastClusterTask,
+											sucessorLastClusterNode), vm,
+									taskVms[sucessorLastClusterNode]);
 
 				if (ESTsucessorLastClusterNode < smallestEstSucessorLastClusterNode) {
 					smallestEstSucessorLastClusterNode = ESTsucessorLastClusterNode;
@@ -443,73 +653,146 @@ public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 		return bestResource;
 	}
 
-	private Task getSucessorScheduled(Task task) {
-		for (Task sucessor : task.getChildList()) {
-			if (mId2Vm.get(sucessor.getVmId()) != null)
-				return sucessor;
+	private int getSucessorScheduled(int task) {
+		for (int c = childOffsets[task]; c < childOffsets[task + 1]; c++) {
+			if (taskVms[children[c]] >= 0)
+				return children[c];
 		}
-		return null;
+		return -1;
+	}
+
+	private void sortByPriority(int[] tasks) {
+		for (int i = 0; i < tasks.length; i++)
+			tasks[i] = rank[tasks[i]];
+		Arrays.sort(tasks);
+		for (int i = 0; i < tasks.length; i++)
+			tasks[i] = byPriority[tasks[i]];
 	}
 
 	private void printPriorities() {
 		System.out.println("Priorities: ");
-		List<Task> cp = new ArrayList<Task>(getTaskList());
-		Collections.sort(cp, new TaskComparator());
-
-		for (Object o : cp) {
-			Task t = (Task) o;
-			System.out.println(t + "=> P:" + this.P.get(t));
-		}
+		for (int t : byPriority)
+			System.out.println(graph.getTask(t) + "=> P:" + this.P[t]);
 		System.out.println("");
 	}
 
-	private List<Task> allocate(List<Task> cluster, Vm vm) {
-		if (!allocation.containsKey(vm))
-			allocation.put(vm, new ArrayList<Task>());
+	/*
+	 * Finds a task in the allocation of a vm
+	 *
+	 * @return its position, or -(insertion point) - 1
+	 */
+	private int findAllocated(int vm, int task) {
+		return findRank(vm, rank[task]);
+	}
 
-		for (Task t : cluster) {
-			t.setVmId(vm.getId());
-			if (!allocation.get(vm).contains(t))
-				allocation.get(vm).add(t);
+	/*
+	 * Finds a rank in the allocation of a vm
+	 *
+	 * @return the position of its task, or -(insertion point) - 1
+	 */
+	private int findRank(int vm, int rank) {
+		int low = 0;
+		int high = allocationSizes[vm] - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int r = this.rank[allocation[vm][middle]];
+			if (r < rank)
+				low = middle + 1;
+			else if (r > rank)
+				high = middle - 1;
+			else
+				return middle;
 		}
+		return -(low + 1);
+	}
 
-		Collections.sort(allocation.get(vm), new TaskComparator());
+	private void allocate(int task, int vm) {
+		if (allocation[vm] == null)
+			allocation[vm] = new int[4];
+
+		taskVms[task] = vm;
+		graph.getTask(task).setVmId(graph.getVm(vm).getId());
+
+		int position = findAllocated(vm, task);
+		if (position < 0) {
+			position = -position - 1;
+			int size = allocationSizes[vm];
+			if (size == allocation[vm].length)
+				allocation[vm] = Arrays.copyOf(allocation[vm], 2 * size);
+			System.arraycopy(allocation[vm], position, allocation[vm],
+					position + 1, size - position);
+			allocation[vm][position] = task;
+			allocationSizes[vm]++;
+		}
+		changed(task);
+	}
 
-		return allocation.get(vm);
+	private void desallocate(int task, int vm) {
+		taskVms[task] = -1;
+		graph.getTask(task).setVmId(-1);
 
+		int position = findAllocated(vm, task);
+		if (position >= 0) {
+			System.arraycopy(allocation[vm], position + 1, allocation[vm],
+					position, allocationSizes[vm] - position - 1);
+			allocationSizes[vm]--;
+		}
+		changed(task);
 	}
 
-	List<Task> allocate(Task task, Vm vm) {
-		if (!allocation.containsKey(vm))
-			allocation.put(vm, new ArrayList<Task>());
+	private void allocate(int[] cluster, int vm) {
+		for (int t : cluster)
+			allocate(t, vm);
+	}
 
-		task.setVmId(vm.getId());
+	private void desallocate(int[] cluster, int vm) {
+		for (int t : cluster)
+			desallocate(t, vm);
+	}
 
-		if (!allocation.get(vm).contains(task))
-			allocation.get(vm).add(task);
-		Collections.sort(allocation.get(vm), new TaskComparator());
+	void allocate(Task task, Vm vm) {
+		allocate(graph.indexOf(task), getVmIndex(vm));
+	}
 
-		return allocation.get(vm);
+	void desallocate(Task task) {
+		int t = graph.indexOf(task);
+		if (taskVms[t] >= 0)
+			desallocate(t, taskVms[t]);
 	}
 
-	private List<Task> desallocate(List<Task> cluster, Vm vm) {
-		for (Task t : cluster)
-			t.setVmId(-1);
+	/**
+	 * Gets the EFT of a task on a vm, with the tasks allocated to the vm up to
+	 * it updated, and leaves the task unscheduled
+	 */
+	double getEFT(Task task, Vm vm) {
+		int t = graph.indexOf(task);
+		int v = getVmIndex(vm);
+		allocate(t, v);
+		updateAllocation(v, findAllocated(v, t) + 1);
+		double EFT = this.EFT[t];
+		desallocate(t, v);
+		return EFT;
+	}
 
-		allocation.get(vm).removeAll(cluster);
-		Collections.sort(allocation.get(vm), new TaskComparator());
+	double getEST(Task task) {
+		return EST[graph.indexOf(task)];
+	}
 
-		return allocation.get(vm);
+	double getEFT(Task task) {
+		return EFT[graph.indexOf(task)];
 	}
 
-	List<Task> desallocate(Task task, Vm vm) {
-		if (vm == null)
-			return null;
+	Vm getVm(Task task) {
+		int vm = taskVms[graph.indexOf(task)];
+		return vm < 0 ? null : graph.getVm(vm);
+	}
 
-		task.setVmId(-1);
-		allocation.get(vm).remove(task);
+	int getCluster(Task task) {
+		return taskClusters[graph.indexOf(task)];
+	}
 
-		return allocation.get(vm);
+	private int getVmIndex(Vm vm) {
+		return vmIndexes.get(vm.getId());
 	}
 
 	@Override
@@ -540,25 +823,49 @@ public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 			break;
 		}
 
-		for (Object objectTask : getTaskList()) {
-			Task task = (Task) objectTask;
+		graph = getWorkflowGraph();
+		int tasks = graph.getTaskCount();
+		int vms = graph.getVmCount();
+
+		entryTasks = new boolean[tasks];
+		int exits = 0;
+		int[] exitList = new int[tasks];
+		childOffsets = new int[tasks + 1];
+		List<Integer> childList = new ArrayList<Integer>();
+		for (int i = 0; i < tasks; i++) {
+			Task task = graph.getTask(i);
 			if (task.getParentList().isEmpty())
-				entryTasks.add(task);
+				entryTasks[i] = true;
 			else if (task.getChildList().isEmpty())
-				exitTasks.add(task);
-		}
+				exitList[exits++] = i;
 
-		for (int i = 0; i < getVmList().size(); i++) {
-			CondorVM vm = (CondorVM) getVmList().get(i);
-			if (vm != null) {
-				mId2Vm.put(vm.getId(), vm);
+			for (Task child : task.getChildList()) {
+				int c = graph.indexOf(child);
+				if (c >= 0)
+					childList.add(c);
 			}
+			childOffsets[i + 1] = childList.size();
+		}
+		exitTasks = Arrays.copyOf(exitList, exits);
+		children = new int[childList.size()];
+		for (int k = 0; k < children.length; k++)
+			children[k] = childList.get(k);
+
+		for (int j = 0; j < vms; j++) {
+			Vm vm = graph.getVm(j);
+			if (vm != null)
+				vmIndexes.put(vm.getId(), j);
+		}
+		taskVms = new int[tasks];
+		for (int i = 0; i < tasks; i++) {
+			Integer vm = vmIndexes.get(graph.getTask(i).getVmId());
+			taskVms[i] = vm == null ? -1 : vm;
 		}
 
 		/*
 		 * Looking for the best resource
 		 */
-		this.bestResource = getBestResource();
+		this.bestResource = getVmIndex(getBestResource());
 
 		/*
 		 * Looking for the highest bandwidth
@@ -569,39 +876,46 @@ public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 		 * calculate tasks priorities (the bigger the task chain, bigger the
 		 * priority)
 		 */
-		for (Object o : getTaskList()) {
-			Task t = (Task) o;
-			P.put(t, -1.0);
-		}
-
-		for (Task entry : entryTasks) {
-			calculatePriorities(entry);
-		}
+		calculatePriorities();
 		printPriorities();
 
 		/*
-		 * Inicializing Time hashtable
+		 * Inicializing Time, EST and EFT
 		 */
+		TIME = new double[vms][];
+		allocation = new int[vms][];
+		allocationSizes = new int[vms];
 		resetCounter();
-
-		/*
-		 * Calculate EFT and indirect EST
-		 */
-		for (Object o : getTaskList()) {
-			Task t = (Task) o;
-			calculateEFT(t, bestResource);
-		}
+		EST = new double[tasks];
+		EFT = new double[tasks];
+		taskClusters = new int[tasks];
+		unscheduledEST = new double[tasks];
+		unscheduledEpochs = new int[tasks];
+		epoch = 1;
+		stack = new int[16];
+		allocationTimes = new double[vms][];
+		updatedSizes = new int[vms];
+		updateStamps = new long[vms];
+		changeStamps = new long[tasks];
+		changeRanks = new int[tasks];
+
+		ordered = true;
+		int[] parentOffsets = graph.getParentOffsets();
+		int[] parents = graph.getParents();
+		for (int i = 0; i < tasks; i++)
+			for (int k = parentOffsets[i]; k < parentOffsets[i + 1]; k++)
+				if (rank[parents[k]] >= rank[i])
+					ordered = false;
 
 		pch();
 
 		System.out.println("\nPCH Result:");
-		for (Object o : getTaskList()) {
-			Task task = (Task) o;
+		for (int i = 0; i < tasks; i++) {
+			Task task = graph.getTask(i);
 
-			Vm vm = mId2Vm.get(task.getVmId());
-			System.out.println(vm + " -> " + task + " : " + EST.get(task)
-					+ " + " + getComputationCost(task, vm) + " = "
-					+ EFT.get(task));
+			Vm vm = getVm(task);
+			System.out.println(vm + " -> " + task + " : " + EST[i] + " + "
+					+ getComputationCost(task, vm) + " = " + EFT[i]);
 		}
 		System.out.println("makespan: " + getMakespan());
 		System.out.println("\n---END PCH---\n");
@@ -609,16 +923,20 @@ public class PCHPlanningAlgorithm extends BasePlanningAlgorithm {
 	}
 
 	public List<Task> getDagSortedByPriority() {
-		@SuppressWarnings("unchecked")
-		List<Task> list = new ArrayList<Task>(getTaskList());
-		Collections.sort(list, new TaskComparator());
+		List<Task> list = new ArrayList<Task>(byPriority.length);
+		for (int t : byPriority)
+			list.add(graph.getTask(t));
 		return list;
 	}
 
 	public List<Task> getAllocation(Vm vm) {
-		if (allocation.containsKey(vm))
-			return allocation.get(vm);
-		return null;
+		int v = getVmIndex(vm);
+		if (allocation[v] == null)
+			return null;
+		List<Task> list = new ArrayList<Task>(allocationSizes[v]);
+		for (int i = 0; i < allocationSizes[v]; i++)
+			list.add(graph.getTask(allocation[v][i]));
+		return list;
 	}
 
 }
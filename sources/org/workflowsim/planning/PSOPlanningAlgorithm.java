@@ -4,38 +4,43 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import net.sourceforge.jswarm_pso.Swarm;
 
 import org.cloudbus.cloudsim.Cloudlet;
-import org.cloudbus.cloudsim.File;
 import org.workflowsim.CondorVM;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
 import org.workflowsim.utils.MyFitnessFunction;
 import org.workflowsim.utils.MyParticle;
-import org.workflowsim.utils.Parameters;
 
 public class PSOPlanningAlgorithm extends BasePlanningAlgorithm {
 
 	private static final int MAX_ITERATION = 50;
 
-	public static int DIMENSION = 0;
-
-	private Map<Task, Map<CondorVM, Double>> TP;
+	/**
+	 * The pool shared by the planners, created on first parallel use.
+	 */
+	private static ExecutorService executor;
 
-	private Map<CondorVM, Map<CondorVM, Double>> PP;
+	/**
+	 * The computation costs, by task index and vm index.
+	 */
+	private double[][] TP;
 
-	private Map<Task, Map<Task, Double>> e;
+	/**
+	 * The communication costs, by vm index and vm index.
+	 */
+	private double[][] PP;
 
 	private List<Task> mapping;
 
 	private boolean online;
 
 	public PSOPlanningAlgorithm() {
-		TP = new HashMap<Task, Map<CondorVM, Double>>();
-		PP = new HashMap<CondorVM, Map<CondorVM, Double>>();
-		e = new HashMap<Task, Map<Task, Double>>();
 		online = false;
 	}
 
@@ -63,9 +68,8 @@ public class PSOPlanningAlgorithm extends BasePlanningAlgorithm {
 
 		/*
 		 * Step 4: Set edge weight e(k1,k2) as size of all file transferred
-		 * between tasks k1 and k2
+		 * between tasks k1 and k2. They are the edges of the workflow graph.
 		 */
-		calculateEdgeWeight();
 
 		/*
 		 * Step 5: Compute PSO({ a set of all tasks }). Initialize the
@@ -124,91 +128,41 @@ public class PSOPlanningAlgorithm extends BasePlanningAlgorithm {
 	}
 
 	private void averageComputationCostAllTaskInAllResources() {
+		WorkflowGraph graph = getWorkflowGraph();
+		this.TP = new double[graph.getTaskCount()][getVmList().size()];
 
-		for (Object taskObject : getTaskList()) {
-			Task task = (Task) taskObject;
-			Map<CondorVM, Double> costsVm = new HashMap<CondorVM, Double>();
+		for (int i = 0; i < graph.getTaskCount(); i++) {
+			Task task = graph.getTask(i);
 
-			for (Object vmObject : getVmList()) {
-				CondorVM vm = (CondorVM) vmObject;
+			for (int j = 0; j < getVmList().size(); j++) {
+				CondorVM vm = (CondorVM) getVmList().get(j);
 				if (vm.getNumberOfPes() < task.getNumberOfPes())
-					costsVm.put(vm, Double.MAX_VALUE);
+					TP[i][j] = Double.MAX_VALUE;
 				else
-					costsVm.put(
-							vm,
-							(task.getCloudletTotalLength() / vm.getMips())
-									* vm.getPrice());
+					TP[i][j] = (task.getCloudletTotalLength() / vm.getMips())
+							* vm.getPrice();
 			}
-
-			this.TP.put(task, costsVm);
 		}
 	}
 
 	private void averageCommunicationCostBetweenResources() {
+		int vms = getVmList().size();
+		this.PP = new double[vms][vms];
 
-		for (Object vmObject : getVmList()) {
-			CondorVM vm1 = (CondorVM) vmObject;
-			Map<CondorVM, Double> costs = new HashMap<CondorVM, Double>();
-			for (Object vmObject2 : getVmList()) {
-				CondorVM vm2 = (CondorVM) vmObject2;
+		for (int j = 0; j < vms; j++) {
+			CondorVM vm1 = (CondorVM) getVmList().get(j);
+			for (int k = 0; k < vms; k++) {
+				CondorVM vm2 = (CondorVM) getVmList().get(k);
 				if (vm1.equals(vm2))
-					costs.put(vm2, 0.0);
+					PP[j][k] = 0.0;
 				else
-					costs.put(
-							vm2,
-							vm2.getDataTransferOutPrice()
-									/ getBandwith(vm1, vm2));
-			}
-			this.PP.put(vm1, costs);
-		}
-
-	}
-
-	private void calculateEdgeWeight() {
-		for (Object parentObject : getTaskList()) {
-			Task parent = (Task) parentObject;
-			Map<Task, Double> children = new HashMap<Task, Double>();
-
-			for (Task child : parent.getChildList()) {
-				children.put(child,
-						calculateSizeOfAllFilesTransfer(parent, child));
+					PP[j][k] = vm2.getDataTransferOutPrice()
+							/ getBandwith(vm1, vm2);
 			}
-			e.put(parent, children);
 		}
 
 	}
 
-	/**
-	 * Accounts the MB to transfer all files described between parent and child
-	 * 
-	 * @param parent
-	 * @param child
-	 * @return size of all files
-	 */
-	@SuppressWarnings("unchecked")
-	private double calculateSizeOfAllFilesTransfer(Task parent, Task child) {
-		List<File> parentFiles = (List<File>) parent.getFileList();
-		List<File> childFiles = (List<File>) child.getFileList();
-
-		double sum = 0.0;
-
-		for (File parentFile : parentFiles) {
-			if (parentFile.getType() != Parameters.FileType.OUTPUT.value) {
-				continue;
-			}
-
-			for (File childFile : childFiles) {
-				if (childFile.getType() == Parameters.FileType.INPUT.value
-						&& childFile.getName().equals(parentFile.getName())) {
-					sum += childFile.getSize();
-					break;
-				}
-			}
-		}
-
-		return sum;
-	}
-
 	/**
 	 * The PSO_Algorithm function: it receives a list with all tasks
 	 * 
@@ -221,19 +175,33 @@ public class PSOPlanningAlgorithm extends BasePlanningAlgorithm {
 		 * Step 1: Set particle dimension as equal to the size of ready tasks
 		 * list
 		 */
-		DIMENSION = readyTasks.size();
+		int dimension = readyTasks.size();
 
-		if (DIMENSION == 0)
+		if (dimension == 0)
 			return null;
 
 		/*
-		 * Step 2: Initialize particles position and velocity randomly
+		 * Step 2: Initialize particles position and velocity randomly. The
+		 * particles are evaluated in parallel before the swarm reads their
+		 * fitnesses in order, so the search is the same as a sequential one.
 		 */
-		Swarm swarm = new Swarm(
-				getTaskList().size() < Swarm.DEFAULT_NUMBER_OF_PARTICLES ? Swarm.DEFAULT_NUMBER_OF_PARTICLES
-						: getTaskList().size(), new MyParticle(),
-				new MyFitnessFunction(false, this.TP, this.PP, this.e,
-						getVmList(), readyTasks, getTaskList()));
+		int particles = getTaskList().size() < Swarm.DEFAULT_NUMBER_OF_PARTICLES ? Swarm.DEFAULT_NUMBER_OF_PARTICLES
+				: getTaskList().size();
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(),
+				particles);
+		final MyFitnessFunction fitnessFunction = new MyFitnessFunction(false,
+				this.TP, this.PP, getWorkflowGraph(), getVmList(),
+				readyTasks, threads > 1 ? getExecutor() : null, threads);
+
+		Swarm swarm = new Swarm(particles, new MyParticle(dimension),
+				fitnessFunction) {
+
+			@Override
+			public void evaluate() {
+				fitnessFunction.evaluateAll(getParticles());
+				super.evaluate();
+			}
+		};
 
 		swarm.setMaxPosition(getVmList().size() - 1);
 		swarm.setMinPosition(0);
@@ -244,6 +212,30 @@ public class PSOPlanningAlgorithm extends BasePlanningAlgorithm {
 		return swarm.getBestPosition();
 	}
 
+	/**
+	 * Gets the pool the fitnesses are evaluated in. The pool is never shut
+	 * down, so its threads must not keep any simulation: they don't inherit
+	 * the simulation context of the thread creating them, and the fitnesses
+	 * only use the arrays of the planner they are evaluated for.
+	 * 
+	 * @return the pool, whose threads are daemon threads
+	 */
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(Runtime.getRuntime()
+					.availableProcessors(), new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "PSO-fitness");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
 	private double getBandwith(CondorVM j, CondorVM k) {
 		// transfers between two VMs is limited to both VMs
 		return Math.min(j.getBw(), k.getBw());
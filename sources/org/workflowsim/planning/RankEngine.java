@@ -0,0 +1,388 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * RankEngine computes the ranks the planners order the tasks of a
+ * WorkflowGraph by: the upward rank of HEFT and PCH, the downward rank, the
+ * critical path and the impact factor of the balanced clustering.
+ * <p>
+ * Each of them is computed once per task, level by level, instead of
+ * recursing over the paths of the workflow: the tasks of a level only depend
+ * on the tasks of the previous levels, so a level is computed in parallel when
+ * it is large enough. The levels are computed on first use and kept, and the
+ * results are the same whatever the number of threads.
+ * <p>
+ * The computation costs are given by task index, and the communication costs
+ * by edge, in the order of the child arrays (child edge costs) or of the
+ * parent arrays (parent edge costs) of the graph.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class RankEngine {
+
+	/**
+	 * The smallest number of tasks computed by a thread.
+	 */
+	private static final int PARALLEL_TASKS = 512;
+
+	/**
+	 * The pool shared by the engines, created on first parallel use.
+	 */
+	private static ForkJoinPool pool;
+
+	private final WorkflowGraph graph;
+	/**
+	 * The tasks by height, the length in edges of their longest path to an
+	 * exit task: the tasks of height h are heightOrder[heightOffsets[h]] to
+	 * heightOrder[heightOffsets[h+1]-1].
+	 */
+	private int[] heightOrder;
+	private int[] heightOffsets;
+	/**
+	 * The tasks by depth, the length in edges of their longest path from an
+	 * entry task, stored the same way.
+	 */
+	private int[] depthOrder;
+	private int[] depthOffsets;
+	private double[] impactFactors;
+
+	/**
+	 * The computation of a task of a level
+	 */
+	private interface TaskFunction {
+
+		void compute(int task);
+	}
+
+	/**
+	 * The computation of a range of tasks of a level, split between the
+	 * threads of the pool
+	 */
+	private static class LevelAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] order;
+		private final int from;
+		private final int to;
+		private final TaskFunction function;
+
+		LevelAction(int[] order, int from, int to, TaskFunction function) {
+			this.order = order;
+			this.from = from;
+			this.to = to;
+			this.function = function;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from < 2 * PARALLEL_TASKS) {
+				for (int i = from; i < to; i++) {
+					function.compute(order[i]);
+				}
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new LevelAction(order, from, middle, function),
+					new LevelAction(order, middle, to, function));
+		}
+	}
+
+	/**
+	 * Creates the engine of a graph
+	 *
+	 * @param graph
+	 *            the workflow graph
+	 */
+	public RankEngine(WorkflowGraph graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * Gets the workflow graph
+	 *
+	 * @return the graph
+	 */
+	public WorkflowGraph getWorkflowGraph() {
+		return graph;
+	}
+
+	/**
+	 * Computes the upward ranks: the computation cost of a task plus the
+	 * largest communication cost and upward rank of its children, so the
+	 * length of the longest path from the task to an exit task
+	 *
+	 * @param computationCosts
+	 *            the computation costs, by task
+	 * @param childEdgeCosts
+	 *            the communication costs, by child edge
+	 * @return the ranks, by task
+	 */
+	public double[] getUpwardRanks(final double[] computationCosts,
+			final double[] childEdgeCosts) {
+		final int[] childOffsets = graph.getChildOffsets();
+		final int[] children = graph.getChildren();
+		final double[] rank = new double[graph.getTaskCount()];
+		computeLevels();
+		runLevels(heightOrder, heightOffsets, new TaskFunction() {
+
+			@Override
+			public void compute(int task) {
+				double max = 0.0;
+				for (int k = childOffsets[task]; k < childOffsets[task + 1]; k++) {
+					max = Math.max(max, childEdgeCosts[k] + rank[children[k]]);
+				}
+				rank[task] = computationCosts[task] + max;
+			}
+		});
+		return rank;
+	}
+
+	/**
+	 * Computes the downward ranks: the largest downward rank, computation cost
+	 * and communication cost of the parents of a task, so the length of the
+	 * longest path from an entry task to the task, the task excluded
+	 *
+	 * @param computationCosts
+	 *            the computation costs, by task
+	 * @param parentEdgeCosts
+	 *            the communication costs, by parent edge
+	 * @return the ranks, by task
+	 */
+	public double[] getDownwardRanks(final double[] computationCosts,
+			final double[] parentEdgeCosts) {
+		final int[] parentOffsets = graph.getParentOffsets();
+		final int[] parents = graph.getParents();
+		final double[] rank = new double[graph.getTaskCount()];
+		computeLevels();
+		runLevels(depthOrder, depthOffsets, new TaskFunction() {
+
+			@Override
+			public void compute(int task) {
+				double max = 0.0;
+				for (int k = parentOffsets[task]; k < parentOffsets[task + 1]; k++) {
+					int parent = parents[k];
+					max = Math.max(max, rank[parent] + computationCosts[parent]
+							+ parentEdgeCosts[k]);
+				}
+				rank[task] = max;
+			}
+		});
+		return rank;
+	}
+
+	/**
+	 * Finds a critical path, a longest path of the workflow: from the entry
+	 * task of largest upward rank, the child of largest communication cost
+	 * plus upward rank, until an exit task. The first task is taken on ties.
+	 *
+	 * @param upwardRanks
+	 *            the upward ranks
+	 * @param childEdgeCosts
+	 *            the communication costs the ranks were computed with, by
+	 *            child edge
+	 * @return the tasks of the path, or an empty array if the graph is empty
+	 */
+	public int[] getCriticalPath(double[] upwardRanks, double[] childEdgeCosts) {
+		int[] parentOffsets = graph.getParentOffsets();
+		int[] childOffsets = graph.getChildOffsets();
+		int[] children = graph.getChildren();
+		int task = -1;
+		for (int i = 0; i < graph.getTaskCount(); i++) {
+			if (parentOffsets[i] == parentOffsets[i + 1]
+					&& (task < 0 || upwardRanks[i] > upwardRanks[task])) {
+				task = i;
+			}
+		}
+		int[] path = new int[graph.getTaskCount()];
+		int length = 0;
+		while (task >= 0) {
+			path[length++] = task;
+			int next = -1;
+			double max = 0.0;
+			for (int k = childOffsets[task]; k < childOffsets[task + 1]; k++) {
+				double value = childEdgeCosts[k] + upwardRanks[children[k]];
+				if (next < 0 || value > max) {
+					next = children[k];
+					max = value;
+				}
+			}
+			task = next;
+		}
+		return Arrays.copyOf(path, length);
+	}
+
+	/**
+	 * Gets the impact factors: each exit task has an impact of 1 over the
+	 * number of exit tasks, and each task passes its impact to its parents in
+	 * equal shares, so a task gets the impacts of all the paths to the exit
+	 * tasks. They are computed once and kept.
+	 *
+	 * @return the impact factors, by task
+	 */
+	public synchronized double[] getImpactFactors() {
+		if (impactFactors != null) {
+			return impactFactors;
+		}
+		final int[] parentOffsets = graph.getParentOffsets();
+		final int[] childOffsets = graph.getChildOffsets();
+		final int[] children = graph.getChildren();
+		final double[] impact = new double[graph.getTaskCount()];
+		computeLevels();
+		final double exitImpact = 1.0 / (heightOffsets.length > 1 ? heightOffsets[1]
+				: 1);
+		runLevels(heightOrder, heightOffsets, new TaskFunction() {
+
+			@Override
+			public void compute(int task) {
+				if (childOffsets[task] == childOffsets[task + 1]) {
+					impact[task] = exitImpact;
+					return;
+				}
+				double sum = 0.0;
+				for (int k = childOffsets[task]; k < childOffsets[task + 1]; k++) {
+					int child = children[k];
+					sum += impact[child]
+							/ (parentOffsets[child + 1] - parentOffsets[child]);
+				}
+				impact[task] = sum;
+			}
+		});
+		impactFactors = impact;
+		return impactFactors;
+	}
+
+	/**
+	 * Computes the heights and the depths of the tasks and groups the tasks
+	 * by level, once
+	 */
+	private synchronized void computeLevels() {
+		if (heightOrder != null) {
+			return;
+		}
+		int n = graph.getTaskCount();
+		int[] order = graph.getTopologicalOrder();
+		int[] parentOffsets = graph.getParentOffsets();
+		int[] parents = graph.getParents();
+		int[] childOffsets = graph.getChildOffsets();
+		int[] children = graph.getChildren();
+
+		int[] depth = new int[n];
+		for (int i = 0; i < n; i++) {
+			int task = order[i];
+			for (int k = parentOffsets[task]; k < parentOffsets[task + 1]; k++) {
+				depth[task] = Math.max(depth[task], depth[parents[k]] + 1);
+			}
+		}
+		int[] height = new int[n];
+		for (int i = n - 1; i >= 0; i--) {
+			int task = order[i];
+			for (int k = childOffsets[task]; k < childOffsets[task + 1]; k++) {
+				height[task] = Math.max(height[task], height[children[k]] + 1);
+			}
+		}
+
+		depthOffsets = groupByLevel(depth);
+		depthOrder = sortByLevel(depth, depthOffsets);
+		heightOffsets = groupByLevel(height);
+		heightOrder = sortByLevel(height, heightOffsets);
+	}
+
+	/**
+	 * Counts the tasks of each level
+	 *
+	 * @param levels
+	 *            the level of each task
+	 * @return the offsets of the levels, one more than the levels
+	 */
+	private static int[] groupByLevel(int[] levels) {
+		int max = -1;
+		for (int level : levels) {
+			max = Math.max(max, level);
+		}
+		int[] offsets = new int[max + 2];
+		for (int level : levels) {
+			offsets[level + 1]++;
+		}
+		for (int level = 0; level <= max; level++) {
+			offsets[level + 1] += offsets[level];
+		}
+		return offsets;
+	}
+
+	/**
+	 * Sorts the tasks by level, and by index within a level
+	 *
+	 * @param levels
+	 *            the level of each task
+	 * @param offsets
+	 *            the offsets of the levels
+	 * @return the tasks
+	 */
+	private static int[] sortByLevel(int[] levels, int[] offsets) {
+		int[] order = new int[levels.length];
+		int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+		for (int task = 0; task < levels.length; task++) {
+			order[next[levels[task]]++] = task;
+		}
+		return order;
+	}
+
+	/**
+	 * Runs a function on all the tasks, level after level, each level in
+	 * parallel if it is large enough
+	 *
+	 * @param order
+	 *            the tasks by level
+	 * @param offsets
+	 *            the offsets of the levels
+	 * @param function
+	 *            the function
+	 */
+	private static void runLevels(int[] order, int[] offsets,
+			TaskFunction function) {
+		boolean parallel = Runtime.getRuntime().availableProcessors() > 1;
+		for (int level = 0; level + 1 < offsets.length; level++) {
+			int from = offsets[level];
+			int to = offsets[level + 1];
+			if (parallel && to - from >= 2 * PARALLEL_TASKS) {
+				getPool().invoke(new LevelAction(order, from, to, function));
+			} else {
+				for (int i = from; i < to; i++) {
+					function.compute(order[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the pool the levels are computed in
+	 *
+	 * @return the pool, whose threads are daemon threads
+	 */
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+}
@@ -0,0 +1,445 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.File;
+import org.cloudbus.cloudsim.Vm;
+import org.workflowsim.Task;
+import org.workflowsim.utils.Parameters;
+
+/**
+ * WorkflowGraph is an immutable, int-indexed view of the tasks of a workflow
+ * and of the vms they are planned on, so that the planners can work on
+ * primitive arrays instead of maps keyed by tasks and vms.
+ * <p>
+ * The tasks are numbered 0 to n-1 in the order of the task list. The parents
+ * of task t are parents[parentOffsets[t]] to parents[parentOffsets[t+1]-1]
+ * (compressed sparse rows), and the children are stored the same way. Each
+ * edge has a weight, the number of bytes the parent transfers to the child:
+ * the size of the input files of the child that are output files of the
+ * parent. Only the edges between tasks of the list are kept, once each.
+ * <p>
+ * The vms with the same mips and number of pes are of the same type, and the
+ * computation cost of a task on each type is the time it takes on a vm of the
+ * type, or Double.MAX_VALUE if the vm has too few pes.
+ * <p>
+ * The arrays returned by the getters are those of the graph, for speed. They
+ * must not be modified.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class WorkflowGraph {
+
+	/**
+	 * The tasks, by index.
+	 */
+	private final Task[] tasks;
+	/**
+	 * The indexes of the tasks.
+	 */
+	private final Map<Task, Integer> taskIndexes;
+	/**
+	 * The parents of the tasks, and the bytes each parent transfers.
+	 */
+	private final int[] parentOffsets;
+	private final int[] parents;
+	private final double[] parentBytes;
+	/**
+	 * The children of the tasks, and the bytes transferred to each child.
+	 */
+	private final int[] childOffsets;
+	private final int[] children;
+	private final double[] childBytes;
+	/**
+	 * The tasks in topological order, parents first.
+	 */
+	private final int[] topologicalOrder;
+	/**
+	 * The vms, by index, and their types.
+	 */
+	private final Vm[] vms;
+	private final int[] vmTypes;
+	/**
+	 * The number of vms of each type.
+	 */
+	private final int[] vmTypeSizes;
+	/**
+	 * The computation costs, by task and vm type.
+	 */
+	private final double[][] computationCosts;
+
+	/**
+	 * Builds the graph of a task list planned on a vm list
+	 *
+	 * @param taskList
+	 *            the tasks
+	 * @param vmList
+	 *            the vms
+	 * @throws IllegalArgumentException
+	 *             if the tasks have a cycle
+	 */
+	public WorkflowGraph(List<? extends Task> taskList, List<? extends Vm> vmList) {
+		int n = taskList.size();
+		tasks = taskList.toArray(new Task[n]);
+		taskIndexes = new IdentityHashMap<Task, Integer>(2 * n);
+		for (int i = 0; i < n; i++) {
+			taskIndexes.put(tasks[i], i);
+		}
+
+		/**
+		 * The parents, each once.
+		 */
+		parentOffsets = new int[n + 1];
+		int[] stamp = new int[n];
+		Arrays.fill(stamp, -1);
+		int edges = 0;
+		for (int i = 0; i < n; i++) {
+			for (Task parent : tasks[i].getParentList()) {
+				Integer p = taskIndexes.get(parent);
+				if (p != null && stamp[p] != i) {
+					stamp[p] = i;
+					edges++;
+				}
+			}
+			parentOffsets[i + 1] = edges;
+		}
+		parents = new int[edges];
+		parentBytes = new double[edges];
+		int[] childCounts = new int[n + 1];
+		Arrays.fill(stamp, -1);
+		int edge = 0;
+		for (int i = 0; i < n; i++) {
+			Map<String, Double> inputs = null;
+			for (Task parent : tasks[i].getParentList()) {
+				Integer p = taskIndexes.get(parent);
+				if (p == null || stamp[p] == i) {
+					continue;
+				}
+				stamp[p] = i;
+				if (inputs == null) {
+					inputs = getInputFiles(tasks[i]);
+				}
+				parents[edge] = p;
+				parentBytes[edge] = getTransferredBytes(parent, inputs);
+				childCounts[p + 1]++;
+				edge++;
+			}
+		}
+
+		/**
+		 * The children, by transposing the parents.
+		 */
+		childOffsets = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			childOffsets[i + 1] = childOffsets[i] + childCounts[i + 1];
+		}
+		children = new int[edges];
+		childBytes = new double[edges];
+		int[] next = Arrays.copyOf(childOffsets, n);
+		for (int i = 0; i < n; i++) {
+			for (int k = parentOffsets[i]; k < parentOffsets[i + 1]; k++) {
+				int slot = next[parents[k]]++;
+				children[slot] = i;
+				childBytes[slot] = parentBytes[k];
+			}
+		}
+
+		topologicalOrder = sortTopologically();
+
+		/**
+		 * The vm types and the computation costs.
+		 */
+		vms = vmList.toArray(new Vm[vmList.size()]);
+		vmTypes = new int[vms.length];
+		Map<String, Integer> types = new HashMap<String, Integer>();
+		int[] typeVm = new int[vms.length];
+		for (int j = 0; j < vms.length; j++) {
+			String key = vms[j].getMips() + "/" + vms[j].getNumberOfPes();
+			Integer type = types.get(key);
+			if (type == null) {
+				type = types.size();
+				types.put(key, type);
+				typeVm[type] = j;
+			}
+			vmTypes[j] = type;
+		}
+		vmTypeSizes = new int[types.size()];
+		for (int j = 0; j < vms.length; j++) {
+			vmTypeSizes[vmTypes[j]]++;
+		}
+		computationCosts = new double[n][types.size()];
+		for (int i = 0; i < n; i++) {
+			for (int type = 0; type < vmTypeSizes.length; type++) {
+				Vm vm = vms[typeVm[type]];
+				if (vm.getNumberOfPes() < tasks[i].getNumberOfPes()) {
+					computationCosts[i][type] = Double.MAX_VALUE;
+				} else {
+					computationCosts[i][type] = tasks[i].getCloudletTotalLength()
+							/ vm.getMips();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the sizes of the input files of a task, by name
+	 *
+	 * @param task
+	 *            the task
+	 * @return the sizes, in bytes
+	 */
+	private static Map<String, Double> getInputFiles(Task task) {
+		Map<String, Double> inputs = new HashMap<String, Double>();
+		for (Object fileObject : task.getFileList()) {
+			File file = (File) fileObject;
+			if (file.getType() == Parameters.FileType.INPUT.value
+					&& !inputs.containsKey(file.getName())) {
+				inputs.put(file.getName(), (double) file.getSize());
+			}
+		}
+		return inputs;
+	}
+
+	/**
+	 * Sums the sizes of the input files of a child that are output files of
+	 * a parent
+	 *
+	 * @param parent
+	 *            the parent
+	 * @param inputs
+	 *            the sizes of the input files of the child, by name
+	 * @return the number of bytes transferred
+	 */
+	private static double getTransferredBytes(Task parent, Map<String, Double> inputs) {
+		double bytes = 0.0;
+		for (Object fileObject : parent.getFileList()) {
+			File file = (File) fileObject;
+			if (file.getType() == Parameters.FileType.OUTPUT.value) {
+				Double size = inputs.get(file.getName());
+				if (size != null) {
+					bytes += size;
+				}
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Sorts the tasks topologically, by levels from the tasks without parents
+	 *
+	 * @return the indexes of the tasks, parents first
+	 */
+	private int[] sortTopologically() {
+		int n = tasks.length;
+		int[] order = new int[n];
+		int[] unsorted = new int[n];
+		int size = 0;
+		for (int i = 0; i < n; i++) {
+			unsorted[i] = parentOffsets[i + 1] - parentOffsets[i];
+			if (unsorted[i] == 0) {
+				order[size++] = i;
+			}
+		}
+		for (int head = 0; head < size; head++) {
+			int t = order[head];
+			for (int k = childOffsets[t]; k < childOffsets[t + 1]; k++) {
+				if (--unsorted[children[k]] == 0) {
+					order[size++] = children[k];
+				}
+			}
+		}
+		if (size < n) {
+			throw new IllegalArgumentException("The workflow has a cycle");
+		}
+		return order;
+	}
+
+	/**
+	 * Gets the number of tasks
+	 *
+	 * @return the number of tasks
+	 */
+	public int getTaskCount() {
+		return tasks.length;
+	}
+
+	/**
+	 * Gets a task
+	 *
+	 * @param index
+	 *            the index of the task
+	 * @return the task
+	 */
+	public Task getTask(int index) {
+		return tasks[index];
+	}
+
+	/**
+	 * Gets the index of a task
+	 *
+	 * @param task
+	 *            the task
+	 * @return the index, or -1 if the task is not in the graph
+	 */
+	public int indexOf(Task task) {
+		Integer index = taskIndexes.get(task);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Gets the offsets of the parents of the tasks: the parents of task t
+	 * are at offsets[t] to offsets[t+1]-1 of the parent arrays
+	 *
+	 * @return the n+1 offsets
+	 */
+	public int[] getParentOffsets() {
+		return parentOffsets;
+	}
+
+	/**
+	 * Gets the parents of the tasks
+	 *
+	 * @return the task indexes of the parents
+	 */
+	public int[] getParents() {
+		return parents;
+	}
+
+	/**
+	 * Gets the bytes the parents of the tasks transfer to them
+	 *
+	 * @return the edge weights, in the order of the parents
+	 */
+	public double[] getParentBytes() {
+		return parentBytes;
+	}
+
+	/**
+	 * Gets the offsets of the children of the tasks: the children of task t
+	 * are at offsets[t] to offsets[t+1]-1 of the child arrays
+	 *
+	 * @return the n+1 offsets
+	 */
+	public int[] getChildOffsets() {
+		return childOffsets;
+	}
+
+	/**
+	 * Gets the children of the tasks
+	 *
+	 * @return the task indexes of the children
+	 */
+	public int[] getChildren() {
+		return children;
+	}
+
+	/**
+	 * Gets the bytes the tasks transfer to their children
+	 *
+	 * @return the edge weights, in the order of the children
+	 */
+	public double[] getChildBytes() {
+		return childBytes;
+	}
+
+	/**
+	 * Gets the tasks in topological order: every task comes after its
+	 * parents
+	 *
+	 * @return the task indexes
+	 */
+	public int[] getTopologicalOrder() {
+		return topologicalOrder;
+	}
+
+	/**
+	 * Gets the number of vms
+	 *
+	 * @return the number of vms
+	 */
+	public int getVmCount() {
+		return vms.length;
+	}
+
+	/**
+	 * Gets a vm
+	 *
+	 * @param index
+	 *            the index of the vm, in the order of the vm list
+	 * @return the vm
+	 */
+	public Vm getVm(int index) {
+		return vms[index];
+	}
+
+	/**
+	 * Gets the types of the vms
+	 *
+	 * @return the type of each vm, in the order of the vm list
+	 */
+	public int[] getVmTypes() {
+		return vmTypes;
+	}
+
+	/**
+	 * Gets the number of vm types
+	 *
+	 * @return the number of types
+	 */
+	public int getVmTypeCount() {
+		return vmTypeSizes.length;
+	}
+
+	/**
+	 * Gets the number of vms of each type
+	 *
+	 * @return the numbers of vms, by type
+	 */
+	public int[] getVmTypeSizes() {
+		return vmTypeSizes;
+	}
+
+	/**
+	 * Gets the computation costs of the tasks on the vm types
+	 *
+	 * @return the costs in seconds, by task and vm type
+	 */
+	public double[][] getComputationCosts() {
+		return computationCosts;
+	}
+
+	/**
+	 * Gets the average computation cost of a task over all the vms
+	 *
+	 * @param task
+	 *            the index of the task
+	 * @return the average cost in seconds
+	 */
+	public double getAverageComputationCost(int task) {
+		double sum = 0.0;
+		double[] costs = computationCosts[task];
+		for (int type = 0; type < costs.length; type++) {
+			sum += costs[type] * vmTypeSizes[type];
+		}
+		return sum / vms.length;
+	}
+}
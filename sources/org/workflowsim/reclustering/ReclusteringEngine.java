@@ -53,12 +53,14 @@ public class ReclusteringEngine {
         try {
             Job newJob = new Job(id, length);
             newJob.setUserId(job.getUserId());
+            newJob.setWorkflowId(job.getWorkflowId());
             newJob.setVmId(-1);
             newJob.setCloudletStatus(Cloudlet.CREATED);
             newJob.setChildList(job.getChildList());
             newJob.setParentList(job.getParentList());
             newJob.setTaskList(taskList);
             newJob.setDepth(job.getDepth());
+            newJob.setRetries(job.getRetries() + 1);
             for (Iterator it = job.getChildList().iterator(); it.hasNext();) {
                 Job cJob = (Job) it.next();
                 cJob.addParent(newJob);
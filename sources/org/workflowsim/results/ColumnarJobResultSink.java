@@ -0,0 +1,322 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.results;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.workflowsim.Job;
+
+/**
+ * ColumnarJobResultSink writes the records of the jobs to a binary file, in
+ * blocks of up to {@link #BLOCK_SIZE} records stored column by column: the
+ * number of records of the block, then the job ids of its records, then their
+ * workflow ids, and so on. A block only takes its arrays in memory, and a
+ * column can be scanned without decoding the others.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class ColumnarJobResultSink implements JobResultSink {
+
+    /**
+     * The number starting a result file.
+     */
+    private static final int MAGIC = 0x57534a52;
+    /**
+     * The version of the file format.
+     */
+    private static final int VERSION = 1;
+    /**
+     * The largest number of records of a block.
+     */
+    public static final int BLOCK_SIZE = 4096;
+    /**
+     * The output stream.
+     */
+    private final DataOutputStream out;
+    /**
+     * The number of records of the current block.
+     */
+    private int size;
+    /**
+     * The columns of the current block.
+     */
+    private final int[] jobIds = new int[BLOCK_SIZE];
+    private final int[] workflowIds = new int[BLOCK_SIZE];
+    private final int[] schedulerIds = new int[BLOCK_SIZE];
+    private final int[] vmIds = new int[BLOCK_SIZE];
+    private final int[] datacenterIds = new int[BLOCK_SIZE];
+    private final int[] statuses = new int[BLOCK_SIZE];
+    private final int[] depths = new int[BLOCK_SIZE];
+    private final int[] tasks = new int[BLOCK_SIZE];
+    private final int[] retries = new int[BLOCK_SIZE];
+    private final double[] startTimes = new double[BLOCK_SIZE];
+    private final double[] finishTimes = new double[BLOCK_SIZE];
+
+    /**
+     * Creates a sink writing to a file
+     *
+     * @param fileName the name of the file
+     * @throws IOException if the file can't be created
+     */
+    public ColumnarJobResultSink(String fileName) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    @Override
+    public void write(Job job) throws IOException {
+        jobIds[size] = job.getCloudletId();
+        workflowIds[size] = job.getWorkflowId();
+        schedulerIds[size] = job.getUserId();
+        vmIds[size] = job.getVmId();
+        datacenterIds[size] = job.getResourceId();
+        statuses[size] = job.getCloudletStatus();
+        depths[size] = job.getDepth();
+        tasks[size] = job.getTaskList() == null ? 0 : job.getTaskList().size();
+        retries[size] = job.getRetries();
+        startTimes[size] = job.getExecStartTime();
+        finishTimes[size] = job.getFinishTime();
+        size++;
+        if (size == BLOCK_SIZE) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Writes the current block
+     *
+     * @throws IOException if the block can't be written
+     */
+    private void writeBlock() throws IOException {
+        out.writeInt(size);
+        int[][] intColumns = {jobIds, workflowIds, schedulerIds, vmIds,
+            datacenterIds, statuses, depths, tasks, retries};
+        for (int[] column : intColumns) {
+            for (int i = 0; i < size; i++) {
+                out.writeInt(column[i]);
+            }
+        }
+        for (double[] column : new double[][]{startTimes, finishTimes}) {
+            for (int i = 0; i < size; i++) {
+                out.writeDouble(column[i]);
+            }
+        }
+        size = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (size > 0) {
+                writeBlock();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Opens a result file for reading
+     *
+     * @param fileName the name of the file
+     * @return the reader of the file
+     * @throws IOException if the file is not a result file or can't be read
+     */
+    public static Reader open(String fileName) throws IOException {
+        return new Reader(fileName);
+    }
+
+    /**
+     * Reads the records of a result file, in the order in which the jobs
+     * returned.
+     */
+    public static class Reader implements Closeable {
+
+        /**
+         * The input stream.
+         */
+        private final DataInputStream in;
+        /**
+         * The number of records of the current block, and the position of
+         * the current record in the block.
+         */
+        private int size;
+        private int position;
+        /**
+         * The columns of the current block.
+         */
+        private final int[][] intColumns = new int[9][BLOCK_SIZE];
+        private final double[][] doubleColumns = new double[2][BLOCK_SIZE];
+
+        /**
+         * Opens a result file and reads its header
+         *
+         * @param fileName the name of the file
+         * @throws IOException if the file is not a result file or can't be
+         * read
+         */
+        Reader(String fileName) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName), 1 << 16));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                in.close();
+                throw new IOException(fileName + " is not a job result file.");
+            }
+        }
+
+        /**
+         * Reads the next record
+         *
+         * @return false if all the records have been read
+         * @throws IOException if the file can't be read
+         */
+        public boolean next() throws IOException {
+            position++;
+            if (position < size) {
+                return true;
+            }
+            if (in.available() <= 0) {
+                return false;
+            }
+            size = in.readInt();
+            for (int[] column : intColumns) {
+                for (int i = 0; i < size; i++) {
+                    column[i] = in.readInt();
+                }
+            }
+            for (double[] column : doubleColumns) {
+                for (int i = 0; i < size; i++) {
+                    column[i] = in.readDouble();
+                }
+            }
+            position = 0;
+            return size > 0;
+        }
+
+        /**
+         * Gets the job id of the current record
+         *
+         * @return the job id
+         */
+        public int getJobId() {
+            return intColumns[0][position];
+        }
+
+        /**
+         * Gets the workflow id of the current record
+         *
+         * @return the workflow id, or 0 if the job does not belong to an
+         * ensemble
+         */
+        public int getWorkflowId() {
+            return intColumns[1][position];
+        }
+
+        /**
+         * Gets the scheduler id of the current record, i.e. the user id of the
+         * job
+         *
+         * @return the scheduler id
+         */
+        public int getSchedulerId() {
+            return intColumns[2][position];
+        }
+
+        /**
+         * Gets the vm id of the current record
+         *
+         * @return the vm id
+         */
+        public int getVmId() {
+            return intColumns[3][position];
+        }
+
+        /**
+         * Gets the datacenter id of the current record
+         *
+         * @return the datacenter id
+         */
+        public int getDatacenterId() {
+            return intColumns[4][position];
+        }
+
+        /**
+         * Gets the cloudlet status of the job of the current record
+         *
+         * @return the cloudlet status of the job
+         */
+        public int getStatus() {
+            return intColumns[5][position];
+        }
+
+        /**
+         * Gets the depth of the job of the current record
+         *
+         * @return the depth of the job
+         */
+        public int getDepth() {
+            return intColumns[6][position];
+        }
+
+        /**
+         * Gets the number of tasks of the job of the current record
+         *
+         * @return the number of tasks of the job
+         */
+        public int getTasks() {
+            return intColumns[7][position];
+        }
+
+        /**
+         * Gets the number of retries of the job of the current record
+         *
+         * @return the number of times the job has been retried
+         */
+        public int getRetries() {
+            return intColumns[8][position];
+        }
+
+        /**
+         * Gets the start time of the job of the current record
+         *
+         * @return the time the job started
+         */
+        public double getStartTime() {
+            return doubleColumns[0][position];
+        }
+
+        /**
+         * Gets the finish time of the job of the current record
+         *
+         * @return the time the job finished
+         */
+        public double getFinishTime() {
+            return doubleColumns[1][position];
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
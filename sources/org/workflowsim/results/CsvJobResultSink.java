@@ -0,0 +1,96 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.results;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.workflowsim.Job;
+
+/**
+ * CsvJobResultSink writes the records of the jobs as lines of comma-separated
+ * values through a buffered writer, after a header line naming the columns.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class CsvJobResultSink implements JobResultSink {
+
+    /**
+     * The header line.
+     */
+    public static final String HEADER = "job,workflow,scheduler,vm,datacenter,"
+            + "status,depth,tasks,retries,start,finish";
+    /**
+     * The writer.
+     */
+    private final Writer out;
+
+    /**
+     * Creates a sink writing to a file
+     *
+     * @param fileName the name of the file
+     * @throws IOException if the file can't be created
+     */
+    public CsvJobResultSink(String fileName) throws IOException {
+        this(new FileWriter(fileName));
+    }
+
+    /**
+     * Creates a sink writing to a writer, which it buffers
+     *
+     * @param writer the writer
+     * @throws IOException if the header can't be written
+     */
+    public CsvJobResultSink(Writer writer) throws IOException {
+        this.out = new BufferedWriter(writer, 1 << 16);
+        out.write(HEADER);
+        out.write('\n');
+    }
+
+    @Override
+    public void write(Job job) throws IOException {
+        out.write(Integer.toString(job.getCloudletId()));
+        out.write(',');
+        out.write(Integer.toString(job.getWorkflowId()));
+        out.write(',');
+        out.write(Integer.toString(job.getUserId()));
+        out.write(',');
+        out.write(Integer.toString(job.getVmId()));
+        out.write(',');
+        out.write(Integer.toString(job.getResourceId()));
+        out.write(',');
+        out.write(Cloudlet.getStatusString(job.getCloudletStatus()));
+        out.write(',');
+        out.write(Integer.toString(job.getDepth()));
+        out.write(',');
+        out.write(Integer.toString(job.getTaskList() == null ? 0 : job.getTaskList().size()));
+        out.write(',');
+        out.write(Integer.toString(job.getRetries()));
+        out.write(',');
+        out.write(Double.toString(job.getExecStartTime()));
+        out.write(',');
+        out.write(Double.toString(job.getFinishTime()));
+        out.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.results;
+
+import java.io.Closeable;
+import java.io.IOException;
+import org.workflowsim.Job;
+
+/**
+ * A JobResultSink receives the record of every job the WorkflowEngine gets
+ * back, as the job returns, so that the results of a run can be streamed out
+ * of the heap instead of being kept in the job received list until the end.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ * @see org.workflowsim.WorkflowEngine#setJobResultSink(JobResultSink)
+ */
+public interface JobResultSink extends Closeable {
+
+    /**
+     * Writes the record of a returned job: its ids, vm, start and finish
+     * times, status, depth and number of retries
+     *
+     * @param job the job
+     * @throws IOException if the record can't be written
+     */
+    void write(Job job) throws IOException;
+}
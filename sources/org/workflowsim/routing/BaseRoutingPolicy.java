@@ -0,0 +1,78 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.routing;
+
+import java.io.Serializable;
+import java.util.List;
+import org.workflowsim.Job;
+
+/**
+ * A routing policy chooses the WorkflowScheduler a ready job is submitted to,
+ * when the WorkflowEngine has several of them. Every routing policy should
+ * extend from BaseRoutingPolicy.
+ * <p>
+ * The engine only routes the jobs that no planner has bound to a vm, the other
+ * jobs go to the scheduler of their user id, i.e. of their vm.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public abstract class BaseRoutingPolicy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Chooses the scheduler of a job
+     *
+     * @param job the job
+     * @param loads the loads of the schedulers, in the order of the schedulers
+     * @return the index of the scheduler
+     */
+    public abstract int route(Job job, List<SchedulerLoad> loads);
+
+    /**
+     * Gets the index of the scheduler with the fewest outstanding jobs among
+     * some schedulers, the first one if several have as few
+     *
+     * @param loads the loads of the schedulers
+     * @param candidates whether each scheduler is a candidate, or null for
+     * all of them
+     * @return the index of the scheduler
+     */
+    protected int getLeastOutstanding(List<SchedulerLoad> loads, boolean[] candidates) {
+        int best = -1;
+        for (int i = 0; i < loads.size(); i++) {
+            if (candidates != null && !candidates[i]) {
+                continue;
+            }
+            if (best < 0 || loads.get(i).getOutstandingJobs() < loads.get(best).getOutstandingJobs()) {
+                best = i;
+            }
+        }
+        return Math.max(best, 0);
+    }
+
+    /**
+     * Gets the name of the policy, i.e. its class name without the
+     * RoutingPolicy suffix
+     *
+     * @return the name of the policy
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName().replace("RoutingPolicy", "");
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.routing;
+
+import java.util.List;
+import org.cloudbus.cloudsim.File;
+import org.workflowsim.Job;
+import org.workflowsim.utils.Parameters.FileType;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * A job goes to the scheduler that already holds the most of its input data,
+ * according to the ReplicaCatalog: a replica is local to a scheduler if it is
+ * stored on one of its vms or in one of its datacenters. Among the schedulers
+ * holding as much data, or if none holds any, the job goes to the one with the
+ * fewest outstanding jobs.
+ * <p>
+ * Given the bandwidth between the clusters, the policy weighs the data against
+ * the load instead: a job goes to the scheduler where its expected wait, see
+ * {@link ShortestWaitRoutingPolicy}, plus the time to transfer the input data
+ * the scheduler lacks, is the shortest.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class DataLocalityRoutingPolicy extends BaseRoutingPolicy {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The bandwidth between the clusters in Mbit/s, or 0 to follow the data
+     * whatever the load.
+     */
+    private final double bandwidth;
+
+    /**
+     * Creates a policy that follows the data whatever the load
+     */
+    public DataLocalityRoutingPolicy() {
+        this(0.0);
+    }
+
+    /**
+     * Creates a policy that weighs the data against the load
+     *
+     * @param bandwidth the bandwidth between the clusters in Mbit/s
+     */
+    public DataLocalityRoutingPolicy(double bandwidth) {
+        this.bandwidth = bandwidth;
+    }
+
+    @Override
+    public int route(Job job, List<SchedulerLoad> loads) {
+        double[] localData = new double[loads.size()];
+        double inputData = 0.0;
+        List<File> fileList = job.getFileList();
+        for (File file : fileList) {
+            if (file.getType() != FileType.INPUT.value) {
+                continue;
+            }
+            inputData += file.getSize();
+            List<String> siteList = ReplicaCatalog.getStorageList(file.getName());
+            if (siteList == null) {
+                continue;
+            }
+            for (int i = 0; i < loads.size(); i++) {
+                for (String site : siteList) {
+                    if (loads.get(i).isLocalSite(site)) {
+                        localData[i] += file.getSize();
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (bandwidth > 0) {
+            int best = 0;
+            double bestTime = Double.MAX_VALUE;
+            for (int i = 0; i < loads.size(); i++) {
+                SchedulerLoad load = loads.get(i);
+                if (load.getCapacity() <= 0) {
+                    continue;
+                }
+                double time = (load.getOutstandingLength() + job.getCloudletLength())
+                        / load.getCapacity()
+                        + (inputData - localData[i]) / 1e6 * 8 / bandwidth;
+                if (time < bestTime) {
+                    bestTime = time;
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        double most = 0.0;
+        for (double data : localData) {
+            most = Math.max(most, data);
+        }
+        boolean[] candidates = new boolean[loads.size()];
+        for (int i = 0; i < loads.size(); i++) {
+            candidates[i] = localData[i] == most;
+        }
+        return getLeastOutstanding(loads, candidates);
+    }
+
+    /**
+     * Gets the name of the policy, with the bandwidth it weighs the data
+     * against the load with
+     *
+     * @return the name of the policy
+     */
+    @Override
+    public String toString() {
+        if (bandwidth > 0) {
+            return super.toString() + "(" + bandwidth + " Mbit/s)";
+        }
+        return super.toString();
+    }
+}
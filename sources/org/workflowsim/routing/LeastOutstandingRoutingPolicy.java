@@ -0,0 +1,35 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.routing;
+
+import java.util.List;
+import org.workflowsim.Job;
+
+/**
+ * A job goes to the scheduler with the fewest outstanding jobs.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class LeastOutstandingRoutingPolicy extends BaseRoutingPolicy {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public int route(Job job, List<SchedulerLoad> loads) {
+        return getLeastOutstanding(loads, null);
+    }
+}
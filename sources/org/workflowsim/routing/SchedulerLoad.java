@@ -0,0 +1,298 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.routing;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.CondorVM;
+import org.workflowsim.WorkflowScheduler;
+
+/**
+ * SchedulerLoad is the load of a WorkflowScheduler as the WorkflowEngine sees
+ * it: the jobs routed to the scheduler that have not returned yet, including
+ * the jobs still on their way and the jobs waiting in its queue. It also keeps
+ * the queue-depth metrics of the scheduler, so that the routing decisions can
+ * be audited.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class SchedulerLoad implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The scheduler.
+     */
+    private final WorkflowScheduler scheduler;
+    /**
+     * The number of jobs routed to the scheduler that have not returned.
+     */
+    private int outstandingJobs;
+    /**
+     * The length of the jobs routed to the scheduler that have not returned.
+     */
+    private double outstandingLength;
+    /**
+     * The number of jobs routed to the scheduler.
+     */
+    private long jobsRouted;
+    /**
+     * The largest number of outstanding jobs.
+     */
+    private int maxOutstandingJobs;
+    /**
+     * The integral of the number of outstanding jobs over time.
+     */
+    private double outstandingJobsTime;
+    /**
+     * The last time the number of outstanding jobs changed.
+     */
+    private double lastChange;
+    /**
+     * The size of the vm list the capacity and the sites were read from.
+     */
+    private int vms = -1;
+    /**
+     * The mips of the vms of the scheduler.
+     */
+    private double capacity;
+    /**
+     * The number of slots of the vms of the scheduler.
+     */
+    private int slots;
+    /**
+     * The storage sites of the scheduler: its vms and its datacenters.
+     */
+    private Set<String> sites;
+
+    /**
+     * Creates a new SchedulerLoad object
+     *
+     * @param scheduler the scheduler
+     */
+    public SchedulerLoad(WorkflowScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Reads the capacity and the sites again if the vm list has changed
+     */
+    private void update() {
+        List<Vm> vmList = scheduler.getVmList();
+        if (vmList.size() == vms) {
+            return;
+        }
+        vms = vmList.size();
+        capacity = 0.0;
+        slots = 0;
+        sites = new HashSet<String>();
+        for (Vm vm : vmList) {
+            capacity += vm.getMips() * vm.getNumberOfPes();
+            slots += vm instanceof CondorVM ? ((CondorVM) vm).getSlots() : 1;
+            sites.add(Integer.toString(vm.getId()));
+        }
+        for (Integer datacenterId : scheduler.getDatacenterIds()) {
+            String name = CloudSim.getEntityName(datacenterId);
+            if (name != null) {
+                sites.add(name);
+            }
+        }
+    }
+
+    /**
+     * Records the change of the number of outstanding jobs
+     *
+     * @param delta the change
+     */
+    private void changeOutstandingJobs(int delta) {
+        double now = CloudSim.clock();
+        outstandingJobsTime += outstandingJobs * (now - lastChange);
+        lastChange = now;
+        outstandingJobs += delta;
+        maxOutstandingJobs = Math.max(maxOutstandingJobs, outstandingJobs);
+    }
+
+    /**
+     * Records a job routed to the scheduler
+     *
+     * @param job the job
+     */
+    public void jobRouted(Cloudlet job) {
+        changeOutstandingJobs(1);
+        outstandingLength += job.getCloudletLength();
+        jobsRouted++;
+    }
+
+    /**
+     * Records a job returned by the scheduler
+     *
+     * @param job the job
+     */
+    public void jobReturned(Cloudlet job) {
+        changeOutstandingJobs(-1);
+        outstandingLength -= job.getCloudletLength();
+        if (outstandingJobs == 0) {
+            outstandingLength = 0.0;
+        }
+    }
+
+    /**
+     * Gets the scheduler
+     *
+     * @return the scheduler
+     */
+    public WorkflowScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Gets the scheduler id
+     *
+     * @return the scheduler id
+     */
+    public int getSchedulerId() {
+        return scheduler.getId();
+    }
+
+    /**
+     * Gets the number of outstanding jobs, i.e. the queue depth
+     *
+     * @return the number of outstanding jobs
+     */
+    public int getOutstandingJobs() {
+        return outstandingJobs;
+    }
+
+    /**
+     * Gets the length of the outstanding jobs
+     *
+     * @return the length in MI
+     */
+    public double getOutstandingLength() {
+        return outstandingLength;
+    }
+
+    /**
+     * Gets the number of jobs routed to the scheduler
+     *
+     * @return the number of routed jobs
+     */
+    public long getJobsRouted() {
+        return jobsRouted;
+    }
+
+    /**
+     * Gets the largest number of outstanding jobs
+     *
+     * @return the largest queue depth
+     */
+    public int getMaxOutstandingJobs() {
+        return maxOutstandingJobs;
+    }
+
+    /**
+     * Gets the mean number of outstanding jobs, over time, since the start of
+     * the simulation
+     *
+     * @return the mean queue depth
+     */
+    public double getMeanOutstandingJobs() {
+        double now = CloudSim.clock();
+        if (now <= 0) {
+            return outstandingJobs;
+        }
+        return (outstandingJobsTime + outstandingJobs * (now - lastChange)) / now;
+    }
+
+    /**
+     * Gets the mips of the vms of the scheduler
+     *
+     * @return the capacity
+     */
+    public double getCapacity() {
+        update();
+        return capacity;
+    }
+
+    /**
+     * Gets the number of slots of the vms of the scheduler
+     *
+     * @return the number of slots
+     */
+    public int getSlots() {
+        update();
+        return slots;
+    }
+
+    /**
+     * Gets the number of slots of the vms of the scheduler running a job
+     *
+     * @return the number of busy slots
+     */
+    public int getBusySlots() {
+        int busySlots = 0;
+        List<Vm> vmList = scheduler.getVmList();
+        for (Vm vm : vmList) {
+            if (vm instanceof CondorVM) {
+                CondorVM condorVm = (CondorVM) vm;
+                busySlots += condorVm.getSlots() - condorVm.getFreeSlots();
+            }
+        }
+        return busySlots;
+    }
+
+    /**
+     * Gets the number of outstanding jobs not running yet, i.e. the jobs on
+     * their way to the scheduler and in its queue
+     *
+     * @return the number of idle jobs
+     */
+    public int getIdleJobs() {
+        return Math.max(0, outstandingJobs - getBusySlots());
+    }
+
+    /**
+     * Gets the time the scheduler needs to run its outstanding jobs, i.e. the
+     * length of its queue divided by the mips of its vms
+     *
+     * @return the expected wait, or infinity if the scheduler has no vm
+     */
+    public double getExpectedWait() {
+        double mips = getCapacity();
+        if (mips <= 0) {
+            return Double.MAX_VALUE;
+        }
+        return outstandingLength / mips;
+    }
+
+    /**
+     * Checks whether a storage site of the ReplicaCatalog belongs to the
+     * scheduler, i.e. is one of its vms or of its datacenters
+     *
+     * @param site the site
+     * @return whether the site is local
+     */
+    public boolean isLocalSite(String site) {
+        update();
+        return sites.contains(site);
+    }
+}
@@ -15,10 +15,12 @@
  */
 package org.workflowsim.scheduling;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Vm;
+import org.workflowsim.CondorVM;
 
 /**
  * The base scheduler has implemented the basic features. Every other scheduling
@@ -30,7 +32,9 @@ import org.cloudbus.cloudsim.Vm;
  * @date Apr 9, 2013
  */
 public abstract class BaseSchedulingAlgorithm implements
-		SchedulingAlgorithmInterface {
+		SchedulingAlgorithmInterface, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * the job list.
@@ -44,6 +48,10 @@ public abstract class BaseSchedulingAlgorithm implements
 	 * the scheduled job list.
 	 */
 	private List<Cloudlet> scheduledList;
+	/**
+	 * the idle vms, once the algorithm has asked for one.
+	 */
+	private IdleVmIndex idleVmIndex;
 
 	/**
 	 * Initialize a BaseSchedulingAlgorithm
@@ -70,6 +78,9 @@ public abstract class BaseSchedulingAlgorithm implements
 	@Override
 	public void setVmList(List list) {
 		this.vmList = new ArrayList(list);
+		if (idleVmIndex != null) {
+			idleVmIndex.setVmList(this.vmList);
+		}
 	}
 
 	/**
@@ -106,4 +117,72 @@ public abstract class BaseSchedulingAlgorithm implements
 	public List getScheduledList() {
 		return this.scheduledList;
 	}
+
+	/**
+	 * Checks whether the algorithm keeps the waiting jobs itself, from the
+	 * notifications of the scheduler. An incremental algorithm is not given
+	 * the job list, and only the jobs it has scheduled leave its state.
+	 * 
+	 * @return whether the algorithm is incremental
+	 */
+	public boolean isIncremental() {
+		return false;
+	}
+
+	/**
+	 * Notifies the algorithm that jobs have been submitted to the scheduler
+	 * 
+	 * @param jobs
+	 *            the jobs
+	 */
+	public void jobsArrived(List<? extends Cloudlet> jobs) {
+	}
+
+	/**
+	 * Notifies the algorithm that a vm has become idle
+	 * 
+	 * @param vm
+	 *            the vm
+	 */
+	public void vmIdle(Vm vm) {
+		if (idleVmIndex != null) {
+			idleVmIndex.vmIdle(vm);
+		}
+	}
+
+	/**
+	 * Creates the index of the idle vms. By default the idle vm of largest
+	 * capacity comes first, and then the first of the vm list.
+	 * 
+	 * @return the index
+	 */
+	protected IdleVmIndex createIdleVmIndex() {
+		return new IdleVmIndex(true);
+	}
+
+	/**
+	 * Takes a free slot of the first idle vm. The idle vms are kept in an
+	 * index, created the first time, which follows the vm list and the
+	 * notifications of the scheduler.
+	 * 
+	 * @return the vm, or null if no vm is idle
+	 */
+	protected CondorVM takeIdleVmSlot() {
+		if (idleVmIndex == null) {
+			idleVmIndex = createIdleVmIndex();
+			if (getVmList() != null) {
+				idleVmIndex.setVmList(getVmList());
+			}
+		}
+		return idleVmIndex.takeSlot();
+	}
+
+	/**
+	 * Notifies the algorithm that a job has returned from its vm
+	 * 
+	 * @param job
+	 *            the job
+	 */
+	public void jobFinished(Cloudlet job) {
+	}
 }
@@ -36,6 +36,8 @@ import org.workflowsim.utils.ReplicaCatalog;
  */
 public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    private static final long serialVersionUID = 1L;
+
     public DataAwareSchedulingAlgorithm() {
         super();
     }
@@ -69,7 +71,7 @@ public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
             }
 
             if(closestVm!=null){
-                closestVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+                closestVm.takeSlot();
                 cloudlet.setVmId(closestVm.getId());
                 getScheduledList().add(cloudlet);
             
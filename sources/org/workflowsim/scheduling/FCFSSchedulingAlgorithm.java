@@ -15,11 +15,8 @@
  */
 package org.workflowsim.scheduling;
 
-import java.util.Iterator;
-
 import org.cloudbus.cloudsim.Cloudlet;
 import org.workflowsim.CondorVM;
-import org.workflowsim.WorkflowSimTags;
 
 /**
  * The FCFS algorithm. 
@@ -28,7 +25,25 @@ import org.workflowsim.WorkflowSimTags;
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
  */
-public class FCFSSchedulingAlgorithm extends BaseSchedulingAlgorithm {
+public class FCFSSchedulingAlgorithm extends IncrementalSchedulingAlgorithm {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The jobs in the order of arrival
+     */
+    @Override
+    protected long getKey(Cloudlet job) {
+        return 0;
+    }
+
+    /**
+     * The first idle vm of the vm list, whatever its capacity
+     */
+    @Override
+    protected IdleVmIndex createIdleVmIndex() {
+        return new IdleVmIndex(false);
+    }
 
     /**
      * The main function
@@ -38,28 +53,19 @@ public class FCFSSchedulingAlgorithm extends BaseSchedulingAlgorithm {
     public void run() {
 
 		
-		System.out.println("Size: "+getCloudletList().size());
+		System.out.println("Size: "+getWaitingJobs());
 		
-        for (Iterator it = getCloudletList().iterator(); it.hasNext();) {
-            Cloudlet cloudlet = (Cloudlet) it.next();
+        while (getWaitingJobs() > 0) {
+            Cloudlet cloudlet = peekJob();
             System.out.println("Cloudletid: "+cloudlet.getCloudletId());
          
-            boolean stillHasVm = false;
-            for (Iterator itc = getVmList().iterator(); itc.hasNext();) {
-
-                CondorVM vm = (CondorVM) itc.next();
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    stillHasVm = true;
-                    vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
-                    cloudlet.setVmId(vm.getId());
-                    getScheduledList().add(cloudlet);
-                    break;
-                }
-            }
+            CondorVM vm = takeIdleVmSlot();
             //no vm available 
-            if (!stillHasVm) {
+            if (vm == null) {
                 break;
             }
+            cloudlet.setVmId(vm.getId());
+            getScheduledList().add(pollJob());
 
         }
         System.out.println("-------------------");
@@ -0,0 +1,186 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import java.io.Serializable;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.cloudbus.cloudsim.Vm;
+import org.workflowsim.CondorVM;
+import org.workflowsim.WorkflowSimTags;
+
+/**
+ * The idle vms of a scheduling algorithm, i.e. the vms with a free slot, in a
+ * priority queue. The vms are ordered by their position in the vm list, and
+ * optionally first by their capacity, the largest
+ * getCurrentRequestedTotalMips() first, which are the vms that scanning the vm
+ * list for the first idle vm, or for the first idle vm of largest capacity,
+ * would find. Taking an idle vm is then O(log m) for m vms, instead of a scan
+ * of the vm list.
+ * <p>
+ * The capacity of a vm is read when it enters the queue, and checked again
+ * when it leaves it, so that a vm whose capacity has changed in the meantime
+ * takes its new place.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class IdleVmIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Whether the vms are ordered by capacity first.
+     */
+    private final boolean byCapacity;
+    /**
+     * The position of the vms in the vm list.
+     */
+    private final Map<Vm, Integer> positions;
+    /**
+     * The idle vms.
+     */
+    private final PriorityQueue<IdleVm> idleVms;
+    /**
+     * The vms in the queue.
+     */
+    private final Map<Vm, IdleVm> queued;
+
+    /**
+     * An idle vm with its capacity and position
+     */
+    private static class IdleVm implements Comparable<IdleVm>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CondorVM vm;
+        private final double mips;
+        private final int position;
+
+        IdleVm(CondorVM vm, double mips, int position) {
+            this.vm = vm;
+            this.mips = mips;
+            this.position = position;
+        }
+
+        @Override
+        public int compareTo(IdleVm o) {
+            int c = Double.compare(o.mips, mips);
+            if (c != 0) {
+                return c;
+            }
+            return position < o.position ? -1 : (position == o.position ? 0 : 1);
+        }
+    }
+
+    /**
+     * Initialize an IdleVmIndex
+     *
+     * @param byCapacity whether the vms of largest capacity come first
+     */
+    public IdleVmIndex(boolean byCapacity) {
+        this.byCapacity = byCapacity;
+        this.positions = new IdentityHashMap<Vm, Integer>();
+        this.idleVms = new PriorityQueue<IdleVm>();
+        this.queued = new IdentityHashMap<Vm, IdleVm>();
+    }
+
+    /**
+     * Gets the capacity a vm is ordered by
+     *
+     * @param vm the vm
+     * @return the capacity, or 0 if the vms are not ordered by capacity
+     */
+    private double getMips(Vm vm) {
+        return byCapacity ? vm.getCurrentRequestedTotalMips() : 0.0;
+    }
+
+    /**
+     * Sets the vm list, and queues its idle vms
+     *
+     * @param vmList the vm list
+     */
+    public void setVmList(List<? extends Vm> vmList) {
+        positions.clear();
+        idleVms.clear();
+        queued.clear();
+        for (int i = 0; i < vmList.size(); i++) {
+            if (!positions.containsKey(vmList.get(i))) {
+                positions.put(vmList.get(i), i);
+            }
+        }
+        for (Vm vm : vmList) {
+            vmIdle(vm);
+        }
+    }
+
+    /**
+     * Queues a vm of the vm list if it is idle
+     *
+     * @param vm the vm
+     */
+    public void vmIdle(Vm vm) {
+        Integer position = positions.get(vm);
+        if (position == null || queued.containsKey(vm)) {
+            return;
+        }
+        CondorVM condorVm = (CondorVM) vm;
+        if (condorVm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+            IdleVm idleVm = new IdleVm(condorVm, getMips(vm), position);
+            idleVms.add(idleVm);
+            queued.put(vm, idleVm);
+        }
+    }
+
+    /**
+     * Takes a free slot of the first idle vm. The vm stays in the queue while
+     * it has free slots.
+     *
+     * @return the vm, or null if no vm is idle
+     */
+    public CondorVM takeSlot() {
+        IdleVm idleVm;
+        while ((idleVm = idleVms.poll()) != null) {
+            CondorVM vm = idleVm.vm;
+            queued.remove(vm);
+            if (vm.getState() != WorkflowSimTags.VM_STATUS_IDLE) {
+                continue;
+            }
+            double mips = getMips(vm);
+            if (Double.compare(mips, idleVm.mips) != 0) {
+                idleVm = new IdleVm(vm, mips, idleVm.position);
+                idleVms.add(idleVm);
+                queued.put(vm, idleVm);
+                continue;
+            }
+            vm.takeSlot();
+            vmIdle(vm);
+            return vm;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the number of queued vms, some of which may have become busy
+     *
+     * @return the number of queued vms
+     */
+    public int size() {
+        return idleVms.size();
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.cloudbus.cloudsim.Cloudlet;
+
+/**
+ * An incremental scheduler keeps the waiting jobs in a priority queue, which
+ * it updates as the scheduler notifies it of job arrivals, instead of scanning
+ * the whole job list at every scheduling round. The jobs are ordered by the key
+ * of the algorithm, and then in the order in which they arrived, which is the
+ * order of the job list, so each scheduling decision takes O(log n) for n
+ * waiting jobs.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public abstract class IncrementalSchedulingAlgorithm extends BaseSchedulingAlgorithm {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The waiting jobs.
+     */
+    private final PriorityQueue<WaitingJob> waitingJobs;
+    /**
+     * The number of jobs that have arrived.
+     */
+    private long arrivals;
+
+    /**
+     * A waiting job with its key and arrival order
+     */
+    private static class WaitingJob implements Comparable<WaitingJob>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Cloudlet job;
+        private final long key;
+        private final long arrival;
+
+        WaitingJob(Cloudlet job, long key, long arrival) {
+            this.job = job;
+            this.key = key;
+            this.arrival = arrival;
+        }
+
+        @Override
+        public int compareTo(WaitingJob o) {
+            if (key != o.key) {
+                return key < o.key ? -1 : 1;
+            }
+            return arrival < o.arrival ? -1 : (arrival == o.arrival ? 0 : 1);
+        }
+    }
+
+    /**
+     * Initialize an IncrementalSchedulingAlgorithm
+     */
+    public IncrementalSchedulingAlgorithm() {
+        super();
+        this.waitingJobs = new PriorityQueue<WaitingJob>();
+        this.arrivals = 0;
+    }
+
+    /**
+     * Gets the key of a job. The jobs with the smallest key are scheduled
+     * first.
+     *
+     * @param job the job
+     * @return the key
+     */
+    protected abstract long getKey(Cloudlet job);
+
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
+    @Override
+    public void jobsArrived(List<? extends Cloudlet> jobs) {
+        for (Cloudlet job : jobs) {
+            waitingJobs.add(new WaitingJob(job, getKey(job), arrivals++));
+        }
+    }
+
+    /**
+     * Gets the number of waiting jobs
+     *
+     * @return the number of waiting jobs
+     */
+    protected int getWaitingJobs() {
+        return waitingJobs.size();
+    }
+
+    /**
+     * Gets the next job to schedule, without removing it
+     *
+     * @return the job, or null if no job is waiting
+     */
+    protected Cloudlet peekJob() {
+        WaitingJob waiting = waitingJobs.peek();
+        return waiting == null ? null : waiting.job;
+    }
+
+    /**
+     * Removes the next job to schedule
+     *
+     * @return the job, or null if no job is waiting
+     */
+    protected Cloudlet pollJob() {
+        WaitingJob waiting = waitingJobs.poll();
+        return waiting == null ? null : waiting.job;
+    }
+}
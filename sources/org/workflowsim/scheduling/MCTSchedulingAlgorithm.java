@@ -18,7 +18,6 @@ package org.workflowsim.scheduling;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
-import org.workflowsim.WorkflowSimTags;
 
 /**
  * MCT algorithm
@@ -27,51 +26,38 @@ import org.workflowsim.WorkflowSimTags;
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
  */
-public class MCTSchedulingAlgorithm extends BaseSchedulingAlgorithm {
+public class MCTSchedulingAlgorithm extends IncrementalSchedulingAlgorithm {
+
+    private static final long serialVersionUID = 1L;
 
     public MCTSchedulingAlgorithm() {
         super();
     }
 
+    /**
+     * The jobs in the order of arrival
+     */
     @Override
-    public void run() {
-
-
-        int size = getCloudletList().size();
+    protected long getKey(Cloudlet job) {
+        return 0;
+    }
 
-        for (int i = 0; i < size; i++) {
-            Cloudlet cloudlet = (Cloudlet) getCloudletList().get(i);
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;
+    @Override
+    public void run() {
 
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
+        while (getWaitingJobs() > 0) {
+            // the first idle vm of largest capacity
+            CondorVM firstIdleVm = takeIdleVmSlot();
             if (firstIdleVm == null) {
                 break;
             }
-
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && (vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips())) {
-                    firstIdleVm = vm;
-
-                }
-            }
-            firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+            Cloudlet cloudlet = pollJob();
             cloudlet.setVmId(firstIdleVm.getId());
             getScheduledList().add(cloudlet);
             Log.printLine("Schedules " + cloudlet.getCloudletId() + " with "
                     + cloudlet.getCloudletLength() + " to VM " + firstIdleVm.getId()
                     + " with " + firstIdleVm.getCurrentRequestedTotalMips());
 
-
-
         }
     }
 }
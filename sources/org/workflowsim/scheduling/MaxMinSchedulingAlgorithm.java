@@ -15,12 +15,9 @@
  */
 package org.workflowsim.scheduling;
 
-import java.util.ArrayList;
-import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
-import org.workflowsim.WorkflowSimTags;
 
 /**
  * MaxMin algorithm.
@@ -29,7 +26,9 @@ import org.workflowsim.WorkflowSimTags;
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
  */
-public class MaxMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
+public class MaxMinSchedulingAlgorithm extends IncrementalSchedulingAlgorithm {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * Initialize a MaxMin scheduler.
@@ -37,77 +36,25 @@ public class MaxMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
     public MaxMinSchedulingAlgorithm() {
         super();
     }
+
     /**
-     * the check point list.
+     * The longest jobs first
      */
-    private List hasChecked = new ArrayList<Boolean>();
+    @Override
+    protected long getKey(Cloudlet job) {
+        return -job.getCloudletLength();
+    }
 
     @Override
     public void run() {
 
-
-        //Log.printLine("Schedulin Cycle");
-        int size = getCloudletList().size();
-        hasChecked.clear();
-        for (int t = 0; t < size; t++) {
-            boolean chk = false;
-            hasChecked.add(false);
-        }
-        for (int i = 0; i < size; i++) {
-            int maxIndex = 0;
-            Cloudlet maxCloudlet = null;
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                boolean chk = (Boolean) (hasChecked.get(j));
-                if (!chk) {
-                    maxCloudlet = cloudlet;
-                    maxIndex = j;
-                    break;
-                }
-            }
-            if (maxCloudlet == null) {
-                break;
-            }
-
-
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                boolean chk = (Boolean) (hasChecked.get(j));
-
-                if (chk) {
-                    continue;
-                }
-
-                long length = cloudlet.getCloudletLength();
-
-                if (length > maxCloudlet.getCloudletLength()) {
-                    maxCloudlet = cloudlet;
-                    maxIndex = j;
-                }
-            }
-            hasChecked.set(maxIndex, true);
-
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;//(CondorVM)getVmList().get(0);
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
+        while (getWaitingJobs() > 0) {
+            // the first idle vm of largest capacity
+            CondorVM firstIdleVm = takeIdleVmSlot();
             if (firstIdleVm == null) {
                 break;
             }
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips()) {
-                    firstIdleVm = vm;
-
-                }
-            }
-            firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+            Cloudlet maxCloudlet = pollJob();
             maxCloudlet.setVmId(firstIdleVm.getId());
             getScheduledList().add(maxCloudlet);
             Log.printLine("Schedules " + maxCloudlet.getCloudletId() + " with "
@@ -15,11 +15,8 @@
  */
 package org.workflowsim.scheduling;
 
-import java.util.ArrayList;
-import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.workflowsim.CondorVM;
-import org.workflowsim.WorkflowSimTags;
 
 /**
  * MinMin algorithm.
@@ -28,76 +25,32 @@ import org.workflowsim.WorkflowSimTags;
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
  */
-public class MinMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
+public class MinMinSchedulingAlgorithm extends IncrementalSchedulingAlgorithm {
+
+    private static final long serialVersionUID = 1L;
 
     public MinMinSchedulingAlgorithm() {
         super();
     }
-    private List hasChecked = new ArrayList<Boolean>();
 
+    /**
+     * The shortest jobs first
+     */
     @Override
-    public void run() {
-
-        int size = getCloudletList().size();
-        hasChecked.clear();
-        for (int t = 0; t < size; t++) {
-            hasChecked.add(false);
-        }
-        for (int i = 0; i < size; i++) {
-            int minIndex = 0;
-            Cloudlet minCloudlet = null;
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                boolean chk = (Boolean) (hasChecked.get(j));
-                if (!chk) {
-                    minCloudlet = cloudlet;
-                    minIndex = j;
-                    break;
-                }
-            }
-            if (minCloudlet == null) {
-                break;
-            }
-
-
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                boolean chk = (Boolean) (hasChecked.get(j));
-
-                if (chk) {
-                    continue;
-                }
-
-                long length = cloudlet.getCloudletLength();
+    protected long getKey(Cloudlet job) {
+        return job.getCloudletLength();
+    }
 
-                if (length < minCloudlet.getCloudletLength()) {
-                    minCloudlet = cloudlet;
-                    minIndex = j;
-                }
-            }
-            hasChecked.set(minIndex, true);
+    @Override
+    public void run() {
 
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;//(CondorVM)getVmList().get(0);
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
+        while (getWaitingJobs() > 0) {
+            // the first idle vm of largest capacity
+            CondorVM firstIdleVm = takeIdleVmSlot();
             if (firstIdleVm == null) {
                 break;
             }
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips()) {
-                    firstIdleVm = vm;
-
-                }
-            }
-            firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+            Cloudlet minCloudlet = pollJob();
             minCloudlet.setVmId(firstIdleVm.getId());
             getScheduledList().add(minCloudlet);
 
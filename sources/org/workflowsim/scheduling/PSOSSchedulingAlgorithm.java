@@ -14,6 +14,8 @@ import org.workflowsim.utils.Parameters.ClassType;
 
 public class PSOSSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+	private static final long serialVersionUID = 1L;
+
 	private PSOPlanningAlgorithm planner;
 
 	public PSOSSchedulingAlgorithm(BasePlanningAlgorithm planner) {
@@ -64,7 +66,7 @@ public class PSOSSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 				CondorVM vm = (CondorVM) mId2Vm.get(cloudlet.getVmId());
 
 				if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-					vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+					vm.takeSlot();
 					getScheduledList().add(cloudlet);
 					Log.printLine("Schedules " + cloudlet.getCloudletId()
 							+ " with " + cloudlet.getCloudletLength()
@@ -35,6 +35,8 @@ import org.workflowsim.WorkflowSimTags;
  */
 public class StaticSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+	private static final long serialVersionUID = 1L;
+
 	public StaticSchedulingAlgorithm() {
 		super();
 	}
@@ -72,7 +74,7 @@ public class StaticSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 			}
 			CondorVM vm = (CondorVM) mId2Vm.get(cloudlet.getVmId());
 			if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-				vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+				vm.takeSlot();
 				getScheduledList().add(cloudlet);
 				Log.printLine("Schedules " + cloudlet.getCloudletId()
 						+ " with " + cloudlet.getCloudletLength() + " to VM "
@@ -17,6 +17,7 @@
  */
 package org.workflowsim.utils;
 
+import java.io.Serializable;
 import java.util.Arrays;
 import org.apache.commons.math3.distribution.GammaDistribution;
 import org.apache.commons.math3.distribution.LogNormalDistribution;
@@ -31,7 +32,9 @@ import org.apache.commons.math3.distribution.WeibullDistribution;
  * @since WorkflowSim Toolkit 1.0
  * @date Mar 11, 2014
  */
-public class DistributionGenerator {
+public class DistributionGenerator implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     protected DistributionFamily dist;
     protected double scale;
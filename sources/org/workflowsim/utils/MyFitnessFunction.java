@@ -1,36 +1,145 @@
 package org.workflowsim.utils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import net.sourceforge.jswarm_pso.FitnessFunction;
+import net.sourceforge.jswarm_pso.Particle;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Vm;
-import org.workflowsim.CondorVM;
 import org.workflowsim.Task;
+import org.workflowsim.planning.WorkflowGraph;
 
+/**
+ * The fitness function of the PSO planner. The tasks, their edges and their
+ * dimensions in the particles are turned into arrays once, so that a position
+ * is evaluated in O(tasks + edges + vms). The evaluations only read these
+ * arrays, so the particles of a swarm can be evaluated in parallel by
+ * {@link #evaluateAll(Particle[])}.
+ */
 public class MyFitnessFunction extends FitnessFunction {
 
-	private Map<Task, Map<CondorVM, Double>> TP;
-	private Map<CondorVM, Map<CondorVM, Double>> PP;
-	private Map<Task, Map<Task, Double>> e;
-	private List<? extends Cloudlet> readyTasks;
-	private List<? extends Cloudlet> allTasks;
-	private List<Vm> vmList;
-
-	public MyFitnessFunction(boolean maximize,
-			Map<Task, Map<CondorVM, Double>> TP,
-			Map<CondorVM, Map<CondorVM, Double>> PP,
-			Map<Task, Map<Task, Double>> e, List<Vm> vmList,
-			List<Task> readyTasks, List<Task> allTasks) {
+	/**
+	 * The computation costs, by task index and vm index.
+	 */
+	private double[][] TP;
+	/**
+	 * The communication costs, by vm index and vm index.
+	 */
+	private double[][] PP;
+	private WorkflowGraph graph;
+	/**
+	 * The ids of the vms, by vm index.
+	 */
+	private int[] vmIds;
+	/**
+	 * The index of the vm of each id below the number of vms, or -1.
+	 */
+	private int[] vmIndexes;
+	/**
+	 * The task index of each dimension.
+	 */
+	private int[] dimensionTasks;
+	/**
+	 * The first dimension of each task, or -1 if it is not a ready task.
+	 */
+	private int[] taskDimensions;
+	/**
+	 * The vm ids of the tasks that are not ready.
+	 */
+	private int[] taskVmIds;
+	/**
+	 * The tasks that have succeeded.
+	 */
+	private int[] finishedTasks;
+	/**
+	 * The threads evaluating the particles, or null.
+	 */
+	private ExecutorService executor;
+	private int threads;
+	/**
+	 * The particles evaluated by evaluateAll, and their fitnesses, consumed in
+	 * order by the swarm.
+	 */
+	private Particle[] evaluated;
+	private double[] fitnesses;
+	private int next;
+
+	/**
+	 * Creates the fitness function of a set of ready tasks
+	 *
+	 * @param maximize
+	 *            whether the fitness is maximized
+	 * @param TP
+	 *            the computation costs, by task index and vm index
+	 * @param PP
+	 *            the communication costs, by vm index and vm index
+	 * @param graph
+	 *            the graph of all the tasks
+	 * @param vmList
+	 *            the vms
+	 * @param readyTasks
+	 *            the tasks of the dimensions, which must be in the graph
+	 * @param executor
+	 *            the threads evaluating the particles, or null
+	 * @param threads
+	 *            the number of threads
+	 */
+	public MyFitnessFunction(boolean maximize, double[][] TP, double[][] PP,
+			WorkflowGraph graph, List<? extends Vm> vmList,
+			List<Task> readyTasks, ExecutorService executor, int threads) {
 		super(maximize);
 		this.TP = TP;
 		this.PP = PP;
-		this.e = e;
-		this.vmList = vmList;
-		this.readyTasks = readyTasks;
-		this.allTasks = allTasks;
+		this.graph = graph;
+		this.executor = executor;
+		this.threads = threads;
+
+		int vms = vmList.size();
+		vmIds = new int[vms];
+		vmIndexes = new int[vms];
+		Arrays.fill(vmIndexes, -1);
+		for (int j = 0; j < vms; j++) {
+			vmIds[j] = vmList.get(j).getId();
+			if (vmIds[j] >= 0 && vmIds[j] < vms && vmIndexes[vmIds[j]] < 0)
+				vmIndexes[vmIds[j]] = j;
+		}
+
+		int n = graph.getTaskCount();
+		taskDimensions = new int[n];
+		Arrays.fill(taskDimensions, -1);
+		dimensionTasks = new int[readyTasks.size()];
+		for (int d = 0; d < dimensionTasks.length; d++) {
+			int task = graph.indexOf(readyTasks.get(d));
+			if (task < 0)
+				throw new IllegalArgumentException("Task "
+						+ readyTasks.get(d).getCloudletId()
+						+ " is not in the workflow");
+			dimensionTasks[d] = task;
+			if (taskDimensions[task] < 0)
+				taskDimensions[task] = d;
+		}
+
+		taskVmIds = new int[n];
+		int finished = 0;
+		for (int i = 0; i < n; i++) {
+			Task task = graph.getTask(i);
+			taskVmIds[i] = task.getVmId();
+			if (task.getStatus() == Cloudlet.SUCCESS)
+				finished++;
+		}
+		finishedTasks = new int[finished];
+		finished = 0;
+		for (int i = 0; i < n; i++) {
+			if (graph.getTask(i).getStatus() == Cloudlet.SUCCESS)
+				finishedTasks[finished++] = i;
+		}
 	}
 
 	/**
@@ -41,15 +150,85 @@ public class MyFitnessFunction extends FitnessFunction {
 		return getCostMaximization(position);
 	}
 
+	/**
+	 * Evaluates a particle, with the fitness computed by evaluateAll if it
+	 * is the next one
+	 */
+	@Override
+	public double evaluate(Particle particle) {
+		double fit;
+		if (evaluated != null && next < evaluated.length
+				&& evaluated[next] == particle) {
+			fit = fitnesses[next++];
+		} else {
+			fit = evaluate(particle.getPosition());
+		}
+		particle.setFitness(fit, isMaximize());
+		return fit;
+	}
+
+	/**
+	 * Evaluates the particles of a swarm, in parallel if there are threads.
+	 * The swarm then gets the fitnesses in order from evaluate(Particle).
+	 *
+	 * @param particles
+	 *            the particles
+	 */
+	public void evaluateAll(final Particle[] particles) {
+		final double[] fits = new double[particles.length];
+		if (executor == null || threads < 2 || particles.length < 2) {
+			for (int i = 0; i < particles.length; i++)
+				fits[i] = evaluate(particles[i].getPosition());
+		} else {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int t = 0; t < threads; t++) {
+				final int from = particles.length * t / threads;
+				final int to = particles.length * (t + 1) / threads;
+				futures.add(executor.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() {
+						for (int i = from; i < to; i++)
+							fits[i] = evaluate(particles[i].getPosition());
+						return null;
+					}
+				}));
+			}
+			try {
+				for (Future<?> future : futures)
+					future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		evaluated = particles.clone();
+		fitnesses = fits;
+		next = 0;
+	}
+
 	/**
 	 * Equation 4 of the paper
 	 */
 	private double getCostMaximization(double[] position) {
-		double maxCost = Double.MIN_VALUE;
+		int vms = vmIds.length;
+		int[] taskVms = getTaskVms(position);
+		double[] transmissionCosts = new double[vms];
+		double[] computationCosts = new double[vms];
+		addTrasmissionCosts(taskVms, transmissionCosts);
+		addComputationCosts(position, computationCosts);
 
-		for (Object vmObject : vmList) {
-			CondorVM vm = (CondorVM) vmObject;
-			double currentCost = getTotalCost(position, vm);
+		double maxCost = Double.MIN_VALUE;
+		for (int j = 0; j < vms; j++) {
+			int vmId = vmIds[j];
+			double currentCost = 0.0;
+			if (vmId >= 0 && vmId < vms) {
+				// Equation 3 of the paper
+				currentCost = transmissionCosts[vmId]
+						+ computationCosts[vmId];
+			}
 			if (currentCost > maxCost)
 				maxCost = currentCost;
 		}
@@ -57,73 +236,54 @@ public class MyFitnessFunction extends FitnessFunction {
 	}
 
 	/**
-	 * Equation 3 of the paper
+	 * Gets the vm id of each task: its position if it is a ready task, else
+	 * its vm
 	 */
-	private double getTotalCost(double[] position, CondorVM vm) {
-		return (getTrasmissionCost(position, vm) + getComputationCost(position,
-				vm));
+	private int[] getTaskVms(double[] position) {
+		int[] taskVms = new int[taskVmIds.length];
+		for (int i = 0; i < taskVms.length; i++) {
+			int d = taskDimensions[i];
+			taskVms[i] = d < 0 ? taskVmIds[i] : (int) Math.round(position[d]);
+		}
+		return taskVms;
 	}
 
 	/**
-	 * Equation 2 of the paper
+	 * Equation 2 of the paper, for all the vms at once: the edges between
+	 * tasks on different vms, by vm id of the parent
 	 */
-	private double getTrasmissionCost(double[] position, CondorVM currentVm) {
-		double totalTransferCost = 0.0;
-
-		for (Object taskObject : allTasks) {
-			Task task = (Task) taskObject;
-			int vm1Id = task.getVmId();
-
-			if (readyTasks.contains(task))
-				vm1Id = (int) Math
-						.round(position[this.readyTasks.indexOf(task)]);
-
-			if (vm1Id == currentVm.getId()) {
-
-				for (Object taskObject2 : allTasks) {
-					Task task2 = (Task) taskObject2;
-					int vm2Id = task2.getVmId();
-
-					if (readyTasks.contains(task2))
-						vm2Id = (int) Math.round(position[this.readyTasks
-								.indexOf(task2)]);
-
-					if (vm2Id != vm1Id && task2.getParentList().contains(task))
-						totalTransferCost += PP.get(currentVm).get(
-								vmList.get(vm2Id))
-								* e.get(task).get(task2);
-				}
-
+	private void addTrasmissionCosts(int[] taskVms, double[] costs) {
+		int[] childOffsets = graph.getChildOffsets();
+		int[] children = graph.getChildren();
+		double[] childBytes = graph.getChildBytes();
+		for (int task = 0; task < taskVms.length; task++) {
+			int vm1Id = taskVms[task];
+			if (vm1Id < 0 || vm1Id >= costs.length || vmIndexes[vm1Id] < 0)
+				continue;
+			double[] vmCosts = PP[vmIndexes[vm1Id]];
+			for (int k = childOffsets[task]; k < childOffsets[task + 1]; k++) {
+				int vm2Id = taskVms[children[k]];
+				if (vm2Id != vm1Id)
+					costs[vm1Id] += vmCosts[vm2Id] * childBytes[k];
 			}
-
 		}
-
-		return totalTransferCost;
 	}
 
 	/**
-	 * Equation 1 of the paper
+	 * Equation 1 of the paper, for all the vms at once, by vm id
 	 */
-	private double getComputationCost(double[] position, CondorVM currentVm) {
-		double totalComputationCost = 0.0;
-
+	private void addComputationCosts(double[] position, double[] costs) {
 		for (int dimension = 0; dimension < position.length; dimension++) {
 			int vmId = (int) Math.round(position[dimension]);
-			if (currentVm.getId() == vmId) {
-				totalComputationCost += TP.get(readyTasks.get(dimension)).get(
-						vmList.get((int) Math.round(position[dimension])));
-			}
+			if (vmId >= 0 && vmId < costs.length && vmIndexes[vmId] >= 0)
+				costs[vmId] += TP[dimensionTasks[dimension]][vmId];
 		}
 
-		for (Object taskObject : allTasks) {
-			Task task = (Task) taskObject;
-			if (task.getStatus() == Cloudlet.SUCCESS
-					&& task.getVmId() == currentVm.getId())
-				totalComputationCost += TP.get(task).get(
-						vmList.get(task.getVmId()));
+		for (int task : finishedTasks) {
+			int vmId = taskVmIds[task];
+			if (vmId >= 0 && vmId < costs.length && vmIndexes[vmId] >= 0)
+				costs[vmId] += TP[task][vmId];
 		}
-
-		return totalComputationCost;
 	}
 
-}
\ No newline at end of file
+}
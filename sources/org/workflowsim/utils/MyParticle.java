@@ -1,13 +1,20 @@
 package org.workflowsim.utils;
 
-import org.workflowsim.planning.PSOPlanningAlgorithm;
-
 import net.sourceforge.jswarm_pso.Particle;
 
 public class MyParticle extends Particle {
 
-	public MyParticle() {
-		super(PSOPlanningAlgorithm.DIMENSION);
+	public MyParticle(int dimension) {
+		super(dimension);
+	}
+
+	/**
+	 * Creates a particle of the same dimension, as the swarm does for each of
+	 * its particles
+	 */
+	@Override
+	public Object selfFactory() {
+		return new MyParticle(getDimension());
 	}
 
-}
\ No newline at end of file
+}
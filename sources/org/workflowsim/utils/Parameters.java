@@ -15,7 +15,10 @@
  */
 package org.workflowsim.utils;
 
+import java.io.Serializable;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 /**
  * This class includes most parameters a user can specify in a configuration
@@ -75,40 +78,6 @@ public class Parameters {
     
     public static final int BASE = 0;
     
-    /**
-     * Scheduling mode
-     */
-    private static SchedulingAlgorithm schedulingAlgorithm;
-    
-    /**
-     * Planning mode
-     */
-    private static PlanningAlgorithm planningAlgorithm;
-    
-    /**
-     * Reducer mode
-     */
-    private static String reduceMethod;
-    /**
-     * Number of vms available
-     */
-    private static int vmNum;
-    /**
-     * The physical path to DAX file
-     */
-    private static String daxPath;
-    /**
-     * The physical path to runtime file In the runtime file, please use format
-     * as below ID1 1.0 ID2 2.0 ... This is optional, if you have specified task
-     * runtime in DAX then you don't need to specify this file
-     */
-    private static String runtimePath;
-    /**
-     * The physical path to datasize file In the datasize file, please use
-     * format as below DATA1 1000 DATA2 2000 ... This is optional, if you have
-     * specified datasize in DAX then you don't need to specify this file
-     */
-    private static String datasizePath;
     /**
      * Version number
      */
@@ -117,40 +86,105 @@ public class Parameters {
      * Note information
      */
     private static final String note = " supports planning algorithm at Nov 9, 2013";
-    /**
-     * Overhead parameters
-     */
-    private static OverheadParameters oParams;
-    /**
-     * Clustering parameters
-     */
-    private static ClusteringParameters cParams;
-    /**
-     * Deadline of a workflow
-     */
-    private static long deadline;
-    
-    /**
-     * the bandwidth from one vm to one vm
-     */
-    private static double[][] bandwidths;
-    
-    
-    /**
-     * The maximum depth. It is inited manually and used in FailureGenerator
-     */
-    private static int maxDepth;
-    
     /**
      * Invalid String
      */
     private static String INVALID = "Invalid";
-    
+
     /**
-     * The scale of runtime. Multiple runtime by this
+     * The parameters of a simulation. They are kept in the simulation context
+     * of the current thread, so each simulation running in the JVM has its own
+     * parameters
      */
-    private static double runtime_scale = 1.0;
-    
+    private static class State implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Scheduling mode
+         */
+        SchedulingAlgorithm schedulingAlgorithm;
+
+        /**
+         * Planning mode
+         */
+        PlanningAlgorithm planningAlgorithm;
+
+        /**
+         * Reducer mode
+         */
+        String reduceMethod;
+
+        /**
+         * Number of vms available
+         */
+        int vmNum;
+
+        /**
+         * The physical path to DAX file
+         */
+        String daxPath;
+
+        /**
+         * The physical path to runtime file In the runtime file, please use format
+         * as below ID1 1.0 ID2 2.0 ... This is optional, if you have specified task
+         * runtime in DAX then you don't need to specify this file
+         */
+        String runtimePath;
+
+        /**
+         * The physical path to datasize file In the datasize file, please use
+         * format as below DATA1 1000 DATA2 2000 ... This is optional, if you have
+         * specified datasize in DAX then you don't need to specify this file
+         */
+        String datasizePath;
+
+        /**
+         * Overhead parameters
+         */
+        OverheadParameters oParams;
+
+        /**
+         * Clustering parameters
+         */
+        ClusteringParameters cParams;
+
+        /**
+         * Deadline of a workflow
+         */
+        long deadline;
+
+        /**
+         * the bandwidth from one vm to one vm
+         */
+        double[][] bandwidths;
+
+        /**
+         * The maximum depth. It is inited manually and used in FailureGenerator
+         */
+        int maxDepth;
+
+        /**
+         * The scale of runtime. Multiple runtime by this
+         */
+        double runtime_scale = 1.0;
+    }
+
+    /**
+     * Gets the parameters of the simulation run by the current thread
+     *
+     * @return the parameters
+     */
+    private static State state() {
+        SimulationContext context = CloudSim.getContext();
+        State state = context.getAttribute(State.class);
+        if (state == null) {
+            state = new State();
+            context.setAttribute(State.class, state);
+        }
+        return state;
+    }
+
     /**
      * A static function so that you can specify them in any place
      *
@@ -174,19 +208,20 @@ public class Parameters {
             OverheadParameters op, ClusteringParameters cp,
             SchedulingAlgorithm scheduler, PlanningAlgorithm planner, String rMethod,
             long dl) {
+        State state = state();
+
+        state.cParams = cp;
+        state.vmNum = vm;
+        state.daxPath = dax;
+        state.runtimePath = runtime;
+        state.datasizePath = datasize;
 
-        cParams = cp;
-        vmNum = vm;
-        daxPath = dax;
-        runtimePath = runtime;
-        datasizePath = datasize;
-
-        oParams = op;
-        schedulingAlgorithm = scheduler;
-        planningAlgorithm = planner;
-        reduceMethod = rMethod;
-        deadline = dl;
-        maxDepth = 0;
+        state.oParams = op;
+        state.schedulingAlgorithm = scheduler;
+        state.planningAlgorithm = planner;
+        state.reduceMethod = rMethod;
+        state.deadline = dl;
+        state.maxDepth = 0;
     }
 
     /**
@@ -197,7 +232,7 @@ public class Parameters {
      * @post $none
      */
     public static OverheadParameters getOverheadParams() {
-        return oParams;
+        return state().oParams;
     }
 
     
@@ -210,8 +245,9 @@ public class Parameters {
      * @post $none
      */
     public static String getReduceMethod() {
-        if(reduceMethod!=null){
-            return reduceMethod;
+        State state = state();
+        if(state.reduceMethod!=null){
+            return state.reduceMethod;
         }else{
             return INVALID;
         }
@@ -227,7 +263,7 @@ public class Parameters {
      * @post $none
      */
     public static String getDaxPath() {
-        return daxPath;
+        return state().daxPath;
     }
 
     /**
@@ -238,7 +274,7 @@ public class Parameters {
      * @post $none
      */
     public static String getRuntimePath() {
-        return runtimePath;
+        return state().runtimePath;
     }
 
     /**
@@ -249,7 +285,7 @@ public class Parameters {
      * @post $none
      */
     public static String getDatasizePath() {
-        return datasizePath;
+        return state().datasizePath;
     }
 
     
@@ -261,7 +297,7 @@ public class Parameters {
      * @post $none
      */
     public static int getVmNum() {
-        return vmNum;
+        return state().vmNum;
     }
 
     /**
@@ -272,7 +308,7 @@ public class Parameters {
      * @post $none
      */
     public static void setVmNum(int num) {
-        vmNum = num;
+        state().vmNum = num;
     }
 
     /**
@@ -283,7 +319,7 @@ public class Parameters {
      * @post $none
      */
     public static ClusteringParameters getClusteringParameters() {
-        return cParams;
+        return state().cParams;
     }
 
     /**
@@ -294,7 +330,7 @@ public class Parameters {
      * @post $none
      */
     public static SchedulingAlgorithm getSchedulingAlgorithm() {
-        return schedulingAlgorithm;
+        return state().schedulingAlgorithm;
     }
     
     /**
@@ -303,7 +339,7 @@ public class Parameters {
      * 
      */
     public static PlanningAlgorithm getPlanningAlgorithm() {
-        return planningAlgorithm;
+        return state().planningAlgorithm;
     }
     /**
      * Gets the version
@@ -321,7 +357,7 @@ public class Parameters {
      * Gets the deadline
      */
     public static long getDeadline(){
-    	return deadline;
+    	return state().deadline;
     }
     
     /**
@@ -329,7 +365,7 @@ public class Parameters {
      * @return the maxDepth
      */
     public static int getMaxDepth(){
-        return maxDepth;
+        return state().maxDepth;
     }
     
     /**
@@ -337,7 +373,7 @@ public class Parameters {
      * @param depth the maxDepth
      */
     public static void setMaxDepth(int depth){
-        maxDepth = depth;
+        state().maxDepth = depth;
     }
     
     /**
@@ -345,7 +381,7 @@ public class Parameters {
      * @param scale 
      */
     public static void setRuntimeScale(double scale){
-        runtime_scale = scale;
+        state().runtime_scale = scale;
     }
     
     /**
@@ -353,6 +389,6 @@ public class Parameters {
      * @return 
      */
     public static double getRuntimeScale(){
-        return runtime_scale;
+        return state().runtime_scale;
     }
 }
@@ -17,10 +17,13 @@
  */
 package org.workflowsim.utils;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 /**
  * ReplicaCatalog stores all the data information and where (site) there are
@@ -38,18 +41,43 @@ public class ReplicaCatalog {
 
         SHARED, LOCAL
     }
+
     /**
-     * Map from file name to a file object
-     */
-    private static Map FileName2File;
-    /**
-     * The selection of file.system
+     * The catalog of a simulation, kept in the simulation context of the
+     * current thread
      */
-    private static FileSystem fileSystem;
+    private static class State implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Map from file name to a file object
+         */
+        Map FileName2File;
+        /**
+         * The selection of file.system
+         */
+        FileSystem fileSystem;
+        /**
+         * Map from file to a list of data storage
+         */
+        Map dataReplicaCatalog;
+    }
+
     /**
-     * Map from file to a list of data storage
+     * Gets the catalog of the simulation run by the current thread
+     *
+     * @return the catalog
      */
-    private static Map dataReplicaCatalog;
+    private static State state() {
+        SimulationContext context = CloudSim.getContext();
+        State state = context.getAttribute(State.class);
+        if (state == null) {
+            state = new State();
+            context.setAttribute(State.class, state);
+        }
+        return state;
+    }
 
     /**
      * Initialize a ReplicaCatalog
@@ -57,9 +85,10 @@ public class ReplicaCatalog {
      * @param fs the type of file system
      */
     public static void init(FileSystem fs) {
-        fileSystem = fs;
-        dataReplicaCatalog = new HashMap< String, List>();
-        FileName2File = new HashMap<String, org.cloudbus.cloudsim.File>();
+        State state = state();
+        state.fileSystem = fs;
+        state.dataReplicaCatalog = new HashMap< String, List>();
+        state.FileName2File = new HashMap<String, org.cloudbus.cloudsim.File>();
     }
 
     /**
@@ -68,7 +97,7 @@ public class ReplicaCatalog {
      * @return file system
      */
     public static FileSystem getFileSystem() {
-        return fileSystem;
+        return state().fileSystem;
     }
 
     /**
@@ -78,7 +107,7 @@ public class ReplicaCatalog {
      * @return file object
      */
     public static org.cloudbus.cloudsim.File getFile(String fileName) {
-        return (org.cloudbus.cloudsim.File) FileName2File.get(fileName);
+        return (org.cloudbus.cloudsim.File) state().FileName2File.get(fileName);
     }
 
     /**
@@ -88,7 +117,7 @@ public class ReplicaCatalog {
      * @param file , the file object
      */
     public static void setFile(String fileName, org.cloudbus.cloudsim.File file) {
-        FileName2File.put(fileName, file);
+        state().FileName2File.put(fileName, file);
     }
 
     /**
@@ -98,17 +127,23 @@ public class ReplicaCatalog {
      * @return boolean, whether the file exist
      */
     public static boolean containsFile(String fileName) {
-        return FileName2File.containsKey(fileName);
+        return state().FileName2File.containsKey(fileName);
     }
 
     /**
-     * Gets the list of storages a file exists
+     * Gets the list of storages a file exists. Data centers of different
+     * partitions may update the catalog concurrently, so a copy of the list is
+     * returned
      *
      * @param file the file object
      * @return list of storages
      */
     public static List getStorageList(String file) {
-        return (List) dataReplicaCatalog.get(file);
+        State state = state();
+        synchronized (state) {
+            List list = (List) state.dataReplicaCatalog.get(file);
+            return list == null ? null : new ArrayList(list);
+        }
     }
 
     /**
@@ -118,12 +153,16 @@ public class ReplicaCatalog {
      * @param storage , the storage associated with this file
      */
     public static void addStorageList(String file, String storage) {
-        if (!dataReplicaCatalog.containsKey(file)) {
-            dataReplicaCatalog.put(file, new ArrayList());
-        }
-        List list = getStorageList(file);
-        if (!list.contains(storage)) {
-            list.add(storage);
+        State state = state();
+        synchronized (state) {
+            List list = (List) state.dataReplicaCatalog.get(file);
+            if (list == null) {
+                list = new ArrayList();
+                state.dataReplicaCatalog.put(file, list);
+            }
+            if (!list.contains(storage)) {
+                list.add(storage);
+            }
         }
     }
 }
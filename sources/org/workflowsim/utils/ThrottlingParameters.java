@@ -0,0 +1,88 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.utils;
+
+import java.io.Serializable;
+
+/**
+ * ThrottlingParameters contains the parameters of the submission throttle of
+ * the workflow engine, modeled after the maxjobs and maxidle options of
+ * DAGMan, and of its adaptive batching of the submitted jobs.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @date Oct 17, 2026
+ */
+public class ThrottlingParameters implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The maximum number of jobs submitted and not returned yet, or 0 for no
+     * limit (maxjobs)
+     */
+    private int max_jobs;
+    /**
+     * The maximum number of submitted jobs not running yet, or 0 for no limit
+     * (maxidle)
+     */
+    private int max_idle;
+    /**
+     * Whether the batches are sized from the backlog and the free slots of
+     * the schedulers instead of wed.interval
+     */
+    private boolean adaptive;
+
+    /**
+     * Initialize a ThrottlingParameters
+     *
+     * @param maxJobs, the maximum number of jobs in flight, or 0 for no limit
+     * @param maxIdle, the maximum number of idle jobs, or 0 for no limit
+     * @param adaptive, whether the batches are adaptive
+     */
+    public ThrottlingParameters(int maxJobs, int maxIdle, boolean adaptive) {
+        this.max_jobs = maxJobs;
+        this.max_idle = maxIdle;
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Gets the maximum number of jobs submitted and not returned yet
+     *
+     * @return maxjobs, or 0 for no limit
+     */
+    public int getMaxJobs() {
+        return max_jobs;
+    }
+
+    /**
+     * Gets the maximum number of submitted jobs not running yet
+     *
+     * @return maxidle, or 0 for no limit
+     */
+    public int getMaxIdle() {
+        return max_idle;
+    }
+
+    /**
+     * Checks whether the batches are sized from the backlog and the free
+     * slots of the schedulers. If so, wed.interval is not used.
+     *
+     * @return whether the batches are adaptive
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+}